@@ -46,4 +46,12 @@ public abstract class AbstractPlcConnection implements PlcConnection {
         return Optional.empty();
     }
 
+    @Override
+    public Optional<PlcSubscriber> getSubscriber() {
+        if(this instanceof PlcSubscriber) {
+            return Optional.of((PlcSubscriber) this);
+        }
+        return Optional.empty();
+    }
+
 }
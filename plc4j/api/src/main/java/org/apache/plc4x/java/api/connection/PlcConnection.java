@@ -23,6 +23,7 @@ import org.apache.plc4x.java.api.exceptions.PlcException;
 import org.apache.plc4x.java.api.model.Address;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface defining the most basic methods a PLC4X connection should support.
@@ -40,6 +41,27 @@ public interface PlcConnection extends AutoCloseable {
      */
     void connect() throws PlcConnectionException;
 
+    /**
+     * Establishes the connection to the remote PLC without blocking the calling thread, so many
+     * connections can be set up in parallel.
+     *
+     * The default implementation simply calls {@link #connect()}, so drivers not supporting
+     * asynchronous connection establishment still block till the connection is established.
+     *
+     * @return future completed with this connection as soon as it is established, or exceptionally
+     * with a {@link PlcConnectionException} if the connection attempt failed.
+     */
+    default CompletableFuture<PlcConnection> connectAsync() {
+        CompletableFuture<PlcConnection> future = new CompletableFuture<>();
+        try {
+            connect();
+            future.complete(this);
+        } catch (PlcConnectionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Returns true if the PlcConnection is connected to a remote PLC.
      *
@@ -70,4 +92,11 @@ public interface PlcConnection extends AutoCloseable {
 
     Optional<PlcWriter> getWriter();
 
+    /**
+     * @return the subscriber, if the connection supports having values pushed (or polled on behalf of the application).
+     */
+    default Optional<PlcSubscriber> getSubscriber() {
+        return Optional.empty();
+    }
+
 }
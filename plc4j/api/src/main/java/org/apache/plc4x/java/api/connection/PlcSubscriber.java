@@ -0,0 +1,49 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.api.connection;
+
+import org.apache.plc4x.java.api.messages.PlcSubscriptionRequest;
+import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface implemented by all PlcConnections that are able to have values of remote resources
+ * pushed to the application instead of polling them.
+ */
+public interface PlcSubscriber {
+
+    /**
+     * Subscribes to the values of the given items, which are handed to the request's consumer from
+     * then on (on a thread of the driver, so the consumer shouldn't block).
+     *
+     * @param subscriptionRequest items, type and interval of the subscription.
+     * @return a {@link CompletableFuture} giving async access to the handle needed for ending the subscription.
+     */
+    CompletableFuture<PlcSubscriptionHandle> subscribe(PlcSubscriptionRequest subscriptionRequest);
+
+    /**
+     * Ends a subscription. No more events are handed to its consumer once the returned future completed.
+     *
+     * @param subscriptionHandle handle returned when subscribing.
+     * @return a {@link CompletableFuture} completed as soon as the subscription ended.
+     */
+    CompletableFuture<Void> unsubscribe(PlcSubscriptionHandle subscriptionHandle);
+
+}
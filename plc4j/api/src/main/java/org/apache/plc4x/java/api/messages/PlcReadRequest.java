@@ -66,6 +66,18 @@ public class PlcReadRequest extends PlcRequest<ReadRequestItem<?>> {
             return this;
         }
 
+        public final Builder addItem(String name, Class<?> dataType, Address address) {
+            checkType(dataType);
+            requests.add(new ReadRequestItem<>(name, dataType, address));
+            return this;
+        }
+
+        public final Builder addItem(String name, Class<?> dataType, Address address, int size) {
+            checkType(dataType);
+            requests.add(new ReadRequestItem<>(name, dataType, address, size));
+            return this;
+        }
+
         public final Builder addItem(ReadRequestItem readRequestItem) {
             checkType(readRequestItem.getDatatype());
             requests.add(readRequestItem);
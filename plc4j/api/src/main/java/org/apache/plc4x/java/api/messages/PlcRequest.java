@@ -20,7 +20,7 @@ package org.apache.plc4x.java.api.messages;
 
 import org.apache.plc4x.java.api.messages.items.RequestItem;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -33,7 +33,7 @@ public abstract class PlcRequest<REQUEST_ITEM extends RequestItem> implements Pl
     protected final List<REQUEST_ITEM> requestItems;
 
     public PlcRequest() {
-        this.requestItems = new LinkedList<>();
+        this.requestItems = new ArrayList<>();
     }
 
     public PlcRequest(List<REQUEST_ITEM> requestItems) {
@@ -85,7 +85,7 @@ public abstract class PlcRequest<REQUEST_ITEM extends RequestItem> implements Pl
 
         boolean mixed = false;
 
-        List<REQUEST_ITEM> requests = new LinkedList<>();
+        List<REQUEST_ITEM> requests = new ArrayList<>();
 
         void checkType(Class dataType) {
             if (firstType == null) {
@@ -21,7 +21,11 @@ package org.apache.plc4x.java.api.messages;
 import org.apache.plc4x.java.api.messages.items.RequestItem;
 import org.apache.plc4x.java.api.messages.items.ResponseItem;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -33,13 +37,16 @@ public abstract class PlcResponse<REQUEST extends PlcRequest, RESPONSE_ITEM exte
 
     private final REQUEST request;
 
-    private final List<? extends RESPONSE_ITEM> responseItems;
+    private final List<RESPONSE_ITEM> responseItems;
+
+    // Built on the first lookup by request item or name, as most responses are just iterated.
+    private volatile ItemIndex<REQUEST_ITEM, RESPONSE_ITEM> itemIndex;
 
     public PlcResponse(REQUEST request, List<? extends RESPONSE_ITEM> responseItems) {
         Objects.requireNonNull(request, "Request must not be null");
         Objects.requireNonNull(responseItems, "Response items must not be null");
         this.request = request;
-        this.responseItems = responseItems;
+        this.responseItems = Collections.unmodifiableList(new ArrayList<>(responseItems));
     }
 
     public REQUEST getRequest() {
@@ -72,11 +79,54 @@ public abstract class PlcResponse<REQUEST extends PlcRequest, RESPONSE_ITEM exte
         return getNumberOfItems() < 1;
     }
 
+    /**
+     * @param index position of the item in the request.
+     * @return the response item for the request item at the given position.
+     */
+    public RESPONSE_ITEM getResponseItem(int index) {
+        return getResponseItems().get(index);
+    }
+
     public Optional<RESPONSE_ITEM> getValue(REQUEST_ITEM item) {
-        return getResponseItems().stream()
-            .filter(x -> x.getRequestItem().equals(item))
-            .map(e -> (RESPONSE_ITEM) e)
-            .findAny();
+        return Optional.ofNullable(getItemIndex().byRequestItem.get(item));
+    }
+
+    /**
+     * @param name name of the request item.
+     * @return the response item for the request item with the given name, if there is one.
+     */
+    public Optional<RESPONSE_ITEM> getValueByName(String name) {
+        return Optional.ofNullable(getItemIndex().byName.get(name));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ItemIndex<REQUEST_ITEM, RESPONSE_ITEM> getItemIndex() {
+        ItemIndex<REQUEST_ITEM, RESPONSE_ITEM> index = itemIndex;
+        if (index == null) {
+            index = new ItemIndex<>(responseItems.size());
+            for (RESPONSE_ITEM item : responseItems) {
+                REQUEST_ITEM requestItem = (REQUEST_ITEM) item.getRequestItem();
+                index.byRequestItem.putIfAbsent(requestItem, item);
+                Optional<String> name = (requestItem != null) ? requestItem.getName() : Optional.empty();
+                if (name.isPresent()) {
+                    index.byName.putIfAbsent(name.get(), item);
+                }
+            }
+            itemIndex = index;
+        }
+        return index;
+    }
+
+    private static final class ItemIndex<REQUEST_ITEM, RESPONSE_ITEM> {
+
+        private final Map<REQUEST_ITEM, RESPONSE_ITEM> byRequestItem;
+        private final Map<String, RESPONSE_ITEM> byName;
+
+        private ItemIndex(int numItems) {
+            this.byRequestItem = new HashMap<>(numItems * 2);
+            this.byName = new HashMap<>();
+        }
+
     }
 
 }
@@ -0,0 +1,57 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.api.messages;
+
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Values of some or all items of a subscription. For change of state subscriptions only the changed
+ * items are contained.
+ */
+public class PlcSubscriptionEvent extends PlcResponse<PlcSubscriptionRequest, ReadResponseItem<?>, ReadRequestItem<?>> {
+
+    private final Instant timestamp;
+
+    public PlcSubscriptionEvent(PlcSubscriptionRequest request, Instant timestamp,
+                                List<? extends ReadResponseItem<?>> responseItems) {
+        super(request, responseItems);
+        Objects.requireNonNull(timestamp, "Timestamp must not be null");
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return time the values were sampled at, as precise as the driver knows it (the PLC's time,
+     * if it sends it along, otherwise the time they were received).
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Optional<ReadResponseItem<T>> getValue(ReadRequestItem<T> item) {
+        return (Optional) super.getValue(item);
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.api.messages;
+
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.types.SubscriptionType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+public class PlcSubscriptionRequest extends PlcRequest<ReadRequestItem<?>> {
+
+    private final SubscriptionType type;
+    private final Duration interval;
+    private final Consumer<PlcSubscriptionEvent> consumer;
+
+    /**
+     * @param type         if the values are sent every interval or only after they changed.
+     * @param interval     interval the values are sent (or checked for changes) in.
+     * @param consumer     receives the events with the values.
+     * @param requestItems items to be subscribed to.
+     */
+    public PlcSubscriptionRequest(SubscriptionType type, Duration interval, Consumer<PlcSubscriptionEvent> consumer,
+                                  List<ReadRequestItem<?>> requestItems) {
+        super(requestItems);
+        Objects.requireNonNull(type, "Type must not be null");
+        Objects.requireNonNull(interval, "Interval must not be null");
+        Objects.requireNonNull(consumer, "Consumer must not be null");
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive, but was " + interval);
+        }
+        this.type = type;
+        this.interval = interval;
+        this.consumer = consumer;
+    }
+
+    public PlcSubscriptionRequest(SubscriptionType type, Duration interval, Consumer<PlcSubscriptionEvent> consumer,
+                                  ReadRequestItem<?> requestItem) {
+        this(type, interval, consumer, new ArrayList<>());
+        addItem(requestItem);
+    }
+
+    public SubscriptionType getType() {
+        return type;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public Consumer<PlcSubscriptionEvent> getConsumer() {
+        return consumer;
+    }
+
+}
@@ -66,6 +66,13 @@ public class PlcWriteRequest extends PlcRequest<WriteRequestItem<?>> {
             return this;
         }
 
+        @SafeVarargs
+        public final <T> PlcWriteRequest.Builder addItem(String name, Class<T> dataType, Address address, T... values) {
+            checkType(dataType);
+            requests.add(new WriteRequestItem<>(name, dataType, address, values));
+            return this;
+        }
+
         public final PlcWriteRequest.Builder addItem(WriteRequestItem<?> writeRequestItem) {
             checkType(writeRequestItem.getDatatype());
             requests.add(writeRequestItem);
@@ -30,7 +30,15 @@ public class ReadRequestItem<T> extends RequestItem<T> {
     }
 
     public ReadRequestItem(Class<T> datatype, Address address, int size) {
-        super(datatype, address);
+        this(null, datatype, address, size);
+    }
+
+    public ReadRequestItem(String name, Class<T> datatype, Address address) {
+        this(name, datatype, address, 1);
+    }
+
+    public ReadRequestItem(String name, Class<T> datatype, Address address, int size) {
+        super(name, datatype, address);
         this.size = size;
     }
 
@@ -20,12 +20,14 @@ package org.apache.plc4x.java.api.messages.items;
 
 import org.apache.plc4x.java.api.types.ResponseCode;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 public class ReadResponseItem<T> extends ResponseItem<ReadRequestItem<T>> {
 
-    private final List<T> values;
+    private List<T> values;
 
     public ReadResponseItem(ReadRequestItem<T> requestItem, ResponseCode responseCode, List<T> values) {
         super(requestItem, responseCode);
@@ -33,8 +35,119 @@ public class ReadResponseItem<T> extends ResponseItem<ReadRequestItem<T>> {
         this.values = values;
     }
 
+    /**
+     * Constructor for response items keeping their values in a different form (e.g. as primitive array).
+     * The list of values is only built by {@link #decodeValues()} when it is requested for the first time.
+     */
+    protected ReadResponseItem(ReadRequestItem<T> requestItem, ResponseCode responseCode) {
+        super(requestItem, responseCode);
+    }
+
     public List<T> getValues() {
+        if (values == null) {
+            values = decodeValues();
+            Objects.requireNonNull(values, "Values must not be null");
+        }
         return values;
     }
 
+    /**
+     * Build the list of values for items created without one.
+     */
+    protected List<T> decodeValues() {
+        throw new IllegalStateException("No values available");
+    }
+
+    /**
+     * @return true if the values are kept as primitive array, so they are of the requested datatype
+     * and accessing them using the array getters doesn't require any boxing.
+     */
+    public boolean hasPrimitiveValues() {
+        return false;
+    }
+
+    /**
+     * @return the values as new array.
+     * @throws IllegalStateException if the values are not of type {@link Boolean}.
+     */
+    public boolean[] getBooleanArray() {
+        List<T> list = getValuesOfType(Boolean.class);
+        boolean[] array = new boolean[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (Boolean) list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return the values as new array.
+     * @throws IllegalStateException if the values are not of type {@link Byte}.
+     */
+    public byte[] getByteArray() {
+        List<T> list = getValuesOfType(Byte.class);
+        byte[] array = new byte[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (Byte) list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return the values as new array.
+     * @throws IllegalStateException if the values are not of type {@link Short}.
+     */
+    public short[] getShortArray() {
+        List<T> list = getValuesOfType(Short.class);
+        short[] array = new short[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (Short) list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return the values as new array.
+     * @throws IllegalStateException if the values are not of type {@link Integer}.
+     */
+    public int[] getIntArray() {
+        List<T> list = getValuesOfType(Integer.class);
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (Integer) list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return the values as new array.
+     * @throws IllegalStateException if the values are not of type {@link Float}.
+     */
+    public float[] getFloatArray() {
+        List<T> list = getValuesOfType(Float.class);
+        float[] array = new float[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (Float) list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return a read-only view of the raw data as sent by the plc (in the byte order of the protocol),
+     * or empty if the driver doesn't keep it.
+     */
+    public Optional<ByteBuffer> getRawData() {
+        return Optional.empty();
+    }
+
+    private List<T> getValuesOfType(Class<?> type) {
+        List<T> list = getValues();
+        for (T value : list) {
+            if (!type.isInstance(value)) {
+                throw new IllegalStateException("Values of type " + value.getClass().getSimpleName() +
+                    " can't be returned as " + type.getSimpleName() + " array");
+            }
+        }
+        return list;
+    }
+
 }
@@ -21,6 +21,7 @@ package org.apache.plc4x.java.api.messages.items;
 import org.apache.plc4x.java.api.model.Address;
 
 import java.util.Objects;
+import java.util.Optional;
 
 public abstract class RequestItem<DATA_TYPE> {
 
@@ -28,9 +29,19 @@ public abstract class RequestItem<DATA_TYPE> {
 
     private final Address address;
 
+    private final String name;
+
     public RequestItem(Class<DATA_TYPE> datatype, Address address) {
+        this(null, datatype, address);
+    }
+
+    /**
+     * @param name name the response item can be looked up by (may be null).
+     */
+    public RequestItem(String name, Class<DATA_TYPE> datatype, Address address) {
         Objects.requireNonNull(datatype, "Data type must not be null");
         Objects.requireNonNull(address, "Address type must not be null");
+        this.name = name;
         this.datatype = datatype;
         this.address = address;
     }
@@ -43,4 +54,8 @@ public abstract class RequestItem<DATA_TYPE> {
         return address;
     }
 
+    public Optional<String> getName() {
+        return Optional.ofNullable(name);
+    }
+
 }
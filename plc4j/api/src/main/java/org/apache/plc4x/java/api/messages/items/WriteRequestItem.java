@@ -28,7 +28,12 @@ public class WriteRequestItem<T> extends RequestItem<T> {
 
     @SafeVarargs
     public WriteRequestItem(Class<T> dataType, Address address, T... values) {
-        super(dataType, address);
+        this(null, dataType, address, values);
+    }
+
+    @SafeVarargs
+    public WriteRequestItem(String name, Class<T> dataType, Address address, T... values) {
+        super(name, dataType, address);
         Objects.requireNonNull(values, "Values must not be null");
         List<T> checkedList = Collections.checkedList(new ArrayList<>(), dataType);
         checkedList.addAll(Arrays.asList(values));
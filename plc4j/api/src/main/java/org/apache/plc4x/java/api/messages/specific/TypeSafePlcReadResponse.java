@@ -30,14 +30,14 @@ public class TypeSafePlcReadResponse<T> extends PlcReadResponse {
     public TypeSafePlcReadResponse(TypeSafePlcReadRequest<T> request, ReadResponseItem<T> responseItem) {
         super(request, responseItem);
         Objects.requireNonNull(request, "Request must not be null");
-        checkList(responseItem.getValues(), request.getDataType());
+        checkItem(responseItem, request.getDataType());
     }
 
     public TypeSafePlcReadResponse(TypeSafePlcReadRequest<T> request, List<ReadResponseItem<T>> responseItems) {
         super(request, responseItems);
         Objects.requireNonNull(responseItems, "Request items on " + request + " must not be null");
         for (ReadResponseItem<T> responseItem : responseItems) {
-            checkList(responseItem.getValues(), request.getDataType());
+            checkItem(responseItem, request.getDataType());
         }
     }
 
@@ -87,6 +87,14 @@ public class TypeSafePlcReadResponse<T> extends PlcReadResponse {
         return new TypeSafePlcReadResponse(new TypeSafePlcReadRequest(type, plcReadResponse.getRequest()), responseItems);
     }
 
+    private static void checkItem(ReadResponseItem<?> responseItem, Class<?> type) {
+        // Primitive values are always of the requested datatype, so they don't need to be boxed for checking.
+        if (responseItem.hasPrimitiveValues() && type.isAssignableFrom(responseItem.getRequestItem().getDatatype())) {
+            return;
+        }
+        checkList(responseItem.getValues(), type);
+    }
+
     private static void checkList(List<?> list, Class<?> type) {
         Objects.requireNonNull(list, "List must not be null");
         Objects.requireNonNull(type, "Type must not be null");
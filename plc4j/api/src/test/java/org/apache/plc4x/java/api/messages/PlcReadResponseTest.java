@@ -20,11 +20,18 @@ package org.apache.plc4x.java.api.messages;
 
 import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
 import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.api.types.ResponseCode;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 
@@ -42,4 +49,29 @@ public class PlcReadResponseTest {
             .getValue(mock(ReadRequestItem.class));
     }
 
-}
\ No newline at end of file
+    @Test
+    @SuppressWarnings("unchecked")
+    public void lookupByIndexNameAndRequestItem() {
+        PlcReadRequest request = PlcReadRequest.builder()
+            .addItem("first", Integer.class, mock(Address.class))
+            .addItem(Integer.class, mock(Address.class))
+            .addItem("third", Integer.class, mock(Address.class))
+            .build();
+        List<ReadResponseItem<?>> responseItems = new ArrayList<>();
+        for (ReadRequestItem<?> requestItem : request.getRequestItems()) {
+            responseItems.add(new ReadResponseItem<>((ReadRequestItem<Integer>) requestItem, ResponseCode.OK, Collections.singletonList(1)));
+        }
+        PlcReadResponse response = new PlcReadResponse(request, responseItems);
+
+        assertThat(response.getResponseItem(1), sameInstance(responseItems.get(1)));
+        assertThat(response.getValueByName("first").get(), sameInstance(responseItems.get(0)));
+        assertThat(response.getValueByName("third").get(), sameInstance(responseItems.get(2)));
+        assertThat(response.getValueByName("second"), equalTo(Optional.empty()));
+        for (int i = 0; i < request.getNumberOfItems(); i++) {
+            assertThat(response.getValue(request.getRequestItems().get(i)).get(), sameInstance(responseItems.get(i)));
+        }
+        assertThat(response.getValue(new ReadRequestItem<>(Integer.class, mock(Address.class))),
+            equalTo(Optional.empty()));
+    }
+
+}
@@ -24,13 +24,17 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.RandomAccess;
 
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -62,16 +66,35 @@ public class PlcResponseTest {
     public void getResponseItem() {
         assertThat(SUT.getResponseItem(), equalTo(Optional.empty()));
         responseItems.add(mock(ResponseItem.class));
-        assertThat(SUT.getResponseItem().isPresent(), is(true));
+        assertThat(createResponse().getResponseItem().isPresent(), is(true));
         responseItems.add(mock(ResponseItem.class));
         try {
-            SUT.getResponseItem();
+            createResponse().getResponseItem();
             fail("PlcResponse.getResponseItem() should fail if contains multiple items.");
         } catch (IllegalStateException e) {
             // expected
         }
     }
 
+    @Test
+    public void copyResponseItems() {
+        ResponseItem responseItem = mock(ResponseItem.class);
+        List<ResponseItem> linkedResponseItems = new LinkedList<>();
+        linkedResponseItems.add(responseItem);
+        SUT = new PlcResponse<PlcRequest, ResponseItem, RequestItem>(mock(PlcRequest.class), linkedResponseItems) {
+        };
+        linkedResponseItems.add(mock(ResponseItem.class));
+
+        assertThat(SUT.getNumberOfItems(), equalTo(1));
+        assertThat(SUT.getResponseItem(0), sameInstance(responseItem));
+        assertThat(SUT.getResponseItems(), instanceOf(RandomAccess.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void responseItemsAreUnmodifiable() {
+        SUT.getResponseItems().clear();
+    }
+
     @Test
     public void getNumberOfItems() {
         assertThat(SUT.getNumberOfItems(), equalTo(0));
@@ -91,4 +114,9 @@ public class PlcResponseTest {
     public void getValue() {
         assertThat(SUT.getValue(null), equalTo(Optional.empty()));
     }
+
+    private PlcResponse<PlcRequest, ResponseItem, RequestItem> createResponse() {
+        return new PlcResponse<PlcRequest, ResponseItem, RequestItem>(mock(PlcRequest.class), responseItems) {
+        };
+    }
 }
\ No newline at end of file
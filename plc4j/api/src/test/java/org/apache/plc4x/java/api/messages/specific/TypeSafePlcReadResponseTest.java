@@ -55,11 +55,14 @@ public class TypeSafePlcReadResponseTest {
     @Test
     public void of() {
         {
-            TypeSafePlcReadResponse.of(mock(PlcReadResponse.class, RETURNS_DEEP_STUBS));
+            PlcReadResponse response = mock(PlcReadResponse.class, RETURNS_DEEP_STUBS);
+            when(response.getResponseItems()).thenReturn(Collections.emptyList());
+            TypeSafePlcReadResponse.of(response);
         }
         {
             PlcReadResponse response = mock(PlcReadResponse.class, RETURNS_DEEP_STUBS);
             when(response.getRequest()).thenReturn(mock(TypeSafePlcReadRequest.class, RETURNS_DEEP_STUBS));
+            when(response.getResponseItems()).thenReturn(Collections.emptyList());
             TypeSafePlcReadResponse.of(response);
         }
         {
@@ -47,11 +47,14 @@ public class TypeSafePlcWriteResponseTest {
     @Test
     public void of() {
         {
-            TypeSafePlcWriteResponse.of(mock(PlcWriteResponse.class, RETURNS_DEEP_STUBS));
+            PlcWriteResponse response = mock(PlcWriteResponse.class, RETURNS_DEEP_STUBS);
+            when(response.getResponseItems()).thenReturn(Collections.emptyList());
+            TypeSafePlcWriteResponse.of(response);
         }
         {
             PlcWriteResponse response = mock(PlcWriteResponse.class, RETURNS_DEEP_STUBS);
             when(response.getRequest()).thenReturn(mock(TypeSafePlcWriteRequest.class, RETURNS_DEEP_STUBS));
+            when(response.getResponseItems()).thenReturn(Collections.emptyList());
             TypeSafePlcWriteResponse.of(response);
         }
         {
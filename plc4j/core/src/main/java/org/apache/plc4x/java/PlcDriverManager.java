@@ -18,6 +18,7 @@ under the License.
 */
 package org.apache.plc4x.java;
 
+import org.apache.plc4x.java.api.ExecutorAware;
 import org.apache.plc4x.java.api.PlcDriver;
 import org.apache.plc4x.java.api.authentication.PlcAuthentication;
 import org.apache.plc4x.java.api.connection.PlcConnection;
@@ -25,14 +26,28 @@ import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class PlcDriverManager {
 
+    /**
+     * Default maximum number of connections {@link #getConnectionAsync(String)} establishes at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_CONNECTS = 64;
+
     private Map<String, PlcDriver> driverMap = null;
 
+    private final Queue<Runnable> pendingConnects = new ArrayDeque<>();
+    // Guarded by pendingConnects.
+    private int numConnecting = 0;
+    private volatile int maxConcurrentConnects = DEFAULT_MAX_CONCURRENT_CONNECTS;
+
     public PlcDriverManager() {
         this(Thread.currentThread().getContextClassLoader());
     }
@@ -50,6 +65,25 @@ public class PlcDriverManager {
         }
     }
 
+    /**
+     * Have the connections of all drivers supporting it run on the given executor instead of the
+     * default one. This way all of an application's connections are served by the same few threads.
+     * Netty based drivers require the executor to be a netty {@code EventLoopGroup}.
+     *
+     * @param classLoader class loader used for finding the drivers.
+     * @param executor    executor shared by the connections. It isn't shut down by closing connections,
+     *                    this is up to the caller once all connections are closed.
+     * @throws IllegalArgumentException if a driver can't run its connections on the given executor.
+     */
+    public PlcDriverManager(ClassLoader classLoader, ScheduledExecutorService executor) {
+        this(classLoader);
+        for (PlcDriver driver : driverMap.values()) {
+            if (driver instanceof ExecutorAware) {
+                ((ExecutorAware) driver).setExecutor(executor);
+            }
+        }
+    }
+
     /**
      * Connects to a PLC using the given plc connection string.
      *
@@ -79,6 +113,90 @@ public class PlcDriverManager {
         return connection;
     }
 
+    /**
+     * Connects to a PLC using the given plc connection string without blocking the calling thread.
+     * At most {@link #getMaxConcurrentConnects()} connections are established at the same time,
+     * further ones are started as soon as one of these is finished. This way hundreds of
+     * connections can be set up at startup without overwhelming the network or the PLCs.
+     *
+     * @param url plc connection string.
+     * @return future completed with the connected PlcConnection, or exceptionally with a
+     * {@link PlcConnectionException} if the connection attempt failed.
+     */
+    public CompletableFuture<PlcConnection> getConnectionAsync(String url) {
+        return connectAsync(() -> getDriver(url).connect(url));
+    }
+
+    /**
+     * Connects to a PLC using the given plc connection string using given authentication credentials
+     * without blocking the calling thread, see {@link #getConnectionAsync(String)}.
+     *
+     * @param url            plc connection string.
+     * @param authentication authentication credentials.
+     * @return future completed with the connected PlcConnection, or exceptionally with a
+     * {@link PlcConnectionException} if the connection attempt failed.
+     */
+    public CompletableFuture<PlcConnection> getConnectionAsync(String url, PlcAuthentication authentication) {
+        return connectAsync(() -> getDriver(url).connect(url, authentication));
+    }
+
+    public int getMaxConcurrentConnects() {
+        return maxConcurrentConnects;
+    }
+
+    public void setMaxConcurrentConnects(int maxConcurrentConnects) {
+        if (maxConcurrentConnects <= 0) {
+            throw new IllegalArgumentException(
+                "Max concurrent connects must be positive, but was " + maxConcurrentConnects);
+        }
+        this.maxConcurrentConnects = maxConcurrentConnects;
+    }
+
+    private CompletableFuture<PlcConnection> connectAsync(ConnectionFactory connectionFactory) {
+        CompletableFuture<PlcConnection> future = new CompletableFuture<>();
+        Runnable connect = () -> {
+            CompletableFuture<PlcConnection> connectFuture;
+            try {
+                connectFuture = connectionFactory.create().connectAsync();
+            } catch (PlcConnectionException | RuntimeException e) {
+                connectFinished();
+                future.completeExceptionally(e);
+                return;
+            }
+            connectFuture.whenComplete((connection, throwable) -> {
+                connectFinished();
+                if (throwable != null) {
+                    future.completeExceptionally(throwable);
+                } else {
+                    future.complete(connection);
+                }
+            });
+        };
+        synchronized (pendingConnects) {
+            if (numConnecting >= maxConcurrentConnects) {
+                pendingConnects.add(connect);
+                return future;
+            }
+            numConnecting++;
+        }
+        connect.run();
+        return future;
+    }
+
+    private void connectFinished() {
+        Runnable next;
+        synchronized (pendingConnects) {
+            next = pendingConnects.poll();
+            if (next == null) {
+                numConnecting--;
+                return;
+            }
+        }
+        // This is usually called on an event loop thread, which must not be blocked by creating
+        // the next connection (e.g. by resolving its host name).
+        CompletableFuture.runAsync(next);
+    }
+
     private PlcDriver getDriver(String url) throws PlcConnectionException {
         try {
             URI connectionUri = new URI(url);
@@ -93,4 +211,8 @@ public class PlcDriverManager {
         }
     }
 
+    private interface ConnectionFactory {
+        PlcConnection create() throws PlcConnectionException;
+    }
+
 }
@@ -0,0 +1,533 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java;
+
+import org.apache.plc4x.java.api.authentication.PlcAuthentication;
+import org.apache.plc4x.java.api.connection.PlcConnection;
+import org.apache.plc4x.java.api.connection.PlcLister;
+import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
+import org.apache.plc4x.java.api.connection.PlcWriter;
+import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
+import org.apache.plc4x.java.api.exceptions.PlcException;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionRequest;
+import org.apache.plc4x.java.api.messages.PlcWriteRequest;
+import org.apache.plc4x.java.api.messages.PlcWriteResponse;
+import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver manager keeping connections open after they have been used, so they can be handed out
+ * again instead of connecting (and handshaking) with the PLC every time.
+ *
+ * Connections are leased exclusively: The connection returned by {@link #getConnection(String)}
+ * belongs to the caller till it is closed, which returns it to the pool. Connections are pooled
+ * per canonical connection url (and authentication). Before a pooled connection is handed out it
+ * is checked to still be connected, connections idle for longer than the max idle time are closed.
+ * Subscriptions made through a leased connection are ended when it is returned.
+ */
+public class PooledPlcDriverManager extends PlcDriverManager implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_KEY = 4;
+    public static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_BORROW_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledPlcDriverManager.class);
+
+    private final int maxConnectionsPerKey;
+    private final long maxIdleTimeNanos;
+    private final long borrowTimeoutNanos;
+    // Guarded by this.
+    private final Map<PoolKey, Pool> pools;
+    private final ScheduledExecutorService evictor;
+    private boolean closed;
+
+    public PooledPlcDriverManager() {
+        this(Thread.currentThread().getContextClassLoader(), DEFAULT_MAX_CONNECTIONS_PER_KEY,
+            DEFAULT_MAX_IDLE_TIME, DEFAULT_BORROW_TIMEOUT);
+    }
+
+    /**
+     * @param classLoader          class loader used for finding the drivers.
+     * @param maxConnectionsPerKey max number of connections (leased and idle) to the same url.
+     * @param maxIdleTime          time after which unused connections are closed.
+     * @param borrowTimeout        time to wait for a connection to be returned if all are leased.
+     */
+    public PooledPlcDriverManager(ClassLoader classLoader, int maxConnectionsPerKey, Duration maxIdleTime,
+                                  Duration borrowTimeout) {
+        super(classLoader);
+        if (maxConnectionsPerKey < 1) {
+            throw new IllegalArgumentException("At least one connection per key has to be allowed");
+        }
+        this.maxConnectionsPerKey = maxConnectionsPerKey;
+        this.maxIdleTimeNanos = maxIdleTime.toNanos();
+        this.borrowTimeoutNanos = borrowTimeout.toNanos();
+        this.pools = new HashMap<>();
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plc4x-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Check for idle connections a few times per max idle time.
+        long period = Math.max(maxIdleTimeNanos / 4, TimeUnit.MILLISECONDS.toNanos(100));
+        evictor.scheduleAtFixedRate(this::evictIdleConnections, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Lease a connection to the PLC with the given url. Closing the returned connection returns it to the pool.
+     */
+    @Override
+    public PlcConnection getConnection(String url) throws PlcConnectionException {
+        return borrow(new PoolKey(getCanonicalUrl(url), null), () -> super.getConnection(url));
+    }
+
+    /**
+     * Lease a connection to the PLC with the given url using the given authentication credentials.
+     * Closing the returned connection returns it to the pool.
+     */
+    @Override
+    public PlcConnection getConnection(String url, PlcAuthentication authentication) throws PlcConnectionException {
+        return borrow(new PoolKey(getCanonicalUrl(url), authentication),
+            () -> super.getConnection(url, authentication));
+    }
+
+    /**
+     * Borrows a connection from the pool without blocking the calling thread. As waiting for a free
+     * connection blocks, this is done by a thread of the common fork join pool.
+     */
+    @Override
+    public CompletableFuture<PlcConnection> getConnectionAsync(String url) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return getConnection(url);
+            } catch (PlcConnectionException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Borrows a connection from the pool without blocking the calling thread, see {@link #getConnectionAsync(String)}.
+     */
+    @Override
+    public CompletableFuture<PlcConnection> getConnectionAsync(String url, PlcAuthentication authentication) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return getConnection(url, authentication);
+            } catch (PlcConnectionException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * @return number of connections currently leased (or being established).
+     */
+    public synchronized int getNumActiveConnections() {
+        int numActive = 0;
+        for (Pool pool : pools.values()) {
+            numActive += pool.numActive;
+        }
+        return numActive;
+    }
+
+    /**
+     * @return number of connections waiting in the pool to be leased.
+     */
+    public synchronized int getNumIdleConnections() {
+        int numIdle = 0;
+        for (Pool pool : pools.values()) {
+            numIdle += pool.idleConnections.size();
+        }
+        return numIdle;
+    }
+
+    /**
+     * Close all idle connections. Leased connections are closed as soon as they are returned.
+     */
+    @Override
+    public void close() {
+        List<PlcConnection> idleConnections = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Pool pool : pools.values()) {
+                for (IdleConnection idleConnection : pool.idleConnections) {
+                    idleConnections.add(idleConnection.connection);
+                }
+                pool.idleConnections.clear();
+            }
+            // Nobody waiting for a connection is going to get one.
+            notifyAll();
+        }
+        evictor.shutdown();
+        idleConnections.forEach(this::closeQuietly);
+    }
+
+    /**
+     * Close all connections which have been idle for longer than the max idle time.
+     */
+    void evictIdleConnections() {
+        List<PlcConnection> expiredConnections = new ArrayList<>();
+        long deadline = System.nanoTime() - maxIdleTimeNanos;
+        synchronized (this) {
+            Iterator<Pool> poolIterator = pools.values().iterator();
+            while (poolIterator.hasNext()) {
+                Pool pool = poolIterator.next();
+                // The least recently used connections are at the end.
+                while (!pool.idleConnections.isEmpty() && (pool.idleConnections.peekLast().idleSince - deadline < 0)) {
+                    expiredConnections.add(pool.idleConnections.pollLast().connection);
+                }
+                if (pool.isUnused()) {
+                    poolIterator.remove();
+                }
+            }
+        }
+        expiredConnections.forEach(this::closeQuietly);
+    }
+
+    private PlcConnection borrow(PoolKey key, ConnectionFactory connectionFactory) throws PlcConnectionException {
+        long deadline = System.nanoTime() + borrowTimeoutNanos;
+        while (true) {
+            PlcConnection connection = null;
+            synchronized (this) {
+                if (closed) {
+                    throw new PlcConnectionException("The connection pool has been closed");
+                }
+                Pool pool = pools.computeIfAbsent(key, k -> new Pool());
+                // Prefer the most recently used connection, so the others can expire.
+                IdleConnection idleConnection = pool.idleConnections.pollFirst();
+                if (idleConnection != null) {
+                    connection = idleConnection.connection;
+                } else if (pool.numActive >= maxConnectionsPerKey) {
+                    waitForReturn(key, deadline);
+                    continue;
+                }
+                // Reserve the slot, the connection is established without holding the lock.
+                pool.numActive++;
+            }
+
+            if (connection == null) {
+                try {
+                    connection = connectionFactory.create();
+                } catch (PlcConnectionException | RuntimeException e) {
+                    release(key);
+                    throw e;
+                }
+            } else if (!connection.isConnected()) {
+                logger.debug("Discarding pooled connection to {}, as it's not connected anymore", key.url);
+                release(key);
+                closeQuietly(connection);
+                continue;
+            }
+            return new LeasedConnection(key, connection);
+        }
+    }
+
+    private void waitForReturn(PoolKey key, long deadline) throws PlcConnectionException {
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new PlcConnectionException("No connection to " + key.url + " available within " +
+                TimeUnit.NANOSECONDS.toMillis(borrowTimeoutNanos) + "ms");
+        }
+        try {
+            TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlcConnectionException("Interrupted while waiting for a connection to " + key.url, e);
+        }
+    }
+
+    /**
+     * Free the slot of a connection that has been discarded.
+     */
+    private synchronized void release(PoolKey key) {
+        pools.get(key).numActive--;
+        notifyAll();
+    }
+
+    private void giveBack(PoolKey key, PlcConnection connection) {
+        synchronized (this) {
+            Pool pool = pools.get(key);
+            pool.numActive--;
+            notifyAll();
+            if (!closed && connection.isConnected()) {
+                pool.idleConnections.addFirst(new IdleConnection(connection, System.nanoTime()));
+                return;
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private void closeQuietly(PlcConnection connection) {
+        try {
+            connection.close();
+        } catch (Exception e) {
+            logger.warn("Error closing pooled connection", e);
+        }
+    }
+
+    /**
+     * Urls differing in ways not changing the connection (case of scheme and host, order of the
+     * parameters) share the same connections.
+     */
+    static String getCanonicalUrl(String url) throws PlcConnectionException {
+        try {
+            URI uri = new URI(url).normalize();
+            if (uri.isOpaque() || (uri.getScheme() == null)) {
+                return url;
+            }
+            StringBuilder canonicalUrl = new StringBuilder(uri.getScheme().toLowerCase(Locale.ENGLISH)).append("://");
+            if (uri.getRawAuthority() != null) {
+                canonicalUrl.append(uri.getRawAuthority().toLowerCase(Locale.ENGLISH));
+            }
+            if (uri.getRawPath() != null) {
+                canonicalUrl.append(uri.getRawPath());
+            }
+            if (uri.getRawQuery() != null) {
+                String[] parameters = uri.getRawQuery().split("&");
+                Arrays.sort(parameters);
+                canonicalUrl.append('?').append(String.join("&", parameters));
+            }
+            return canonicalUrl.toString();
+        } catch (URISyntaxException e) {
+            throw new PlcConnectionException("Invalid plc4j connection string '" + url + "'", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        PlcConnection create() throws PlcConnectionException;
+    }
+
+    private static class PoolKey {
+
+        private final String url;
+        private final PlcAuthentication authentication;
+
+        private PoolKey(String url, PlcAuthentication authentication) {
+            this.url = url;
+            this.authentication = authentication;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PoolKey)) {
+                return false;
+            }
+            PoolKey poolKey = (PoolKey) o;
+            return url.equals(poolKey.url) && Objects.equals(authentication, poolKey.authentication);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, authentication);
+        }
+
+    }
+
+    private static class Pool {
+
+        // Most recently returned first.
+        private final Deque<IdleConnection> idleConnections = new ArrayDeque<>();
+        private int numActive;
+
+        private boolean isUnused() {
+            return (numActive == 0) && idleConnections.isEmpty();
+        }
+
+    }
+
+    private static class IdleConnection {
+
+        private final PlcConnection connection;
+        private final long idleSince;
+
+        private IdleConnection(PlcConnection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+
+    }
+
+    /**
+     * Connection handed out by the pool. Closing it returns the underlying connection to the pool.
+     * Its reader, writer and subscriber can't be used anymore after that either.
+     */
+    private class LeasedConnection implements PlcConnection {
+
+        private final PoolKey key;
+        private PlcConnection connection;
+        // Subscriptions made through this lease, guarded by this.
+        private final Set<PlcSubscriptionHandle> subscriptionHandles = new HashSet<>();
+
+        private LeasedConnection(PoolKey key, PlcConnection connection) {
+            this.key = key;
+            this.connection = connection;
+        }
+
+        @Override
+        public void connect() throws PlcConnectionException {
+            // Pooled connections are connected already.
+            getLeasedConnection();
+        }
+
+        @Override
+        public synchronized boolean isConnected() {
+            return (connection != null) && connection.isConnected();
+        }
+
+        @Override
+        public void close() {
+            PlcConnection returnedConnection;
+            List<PlcSubscriptionHandle> endedSubscriptions;
+            synchronized (this) {
+                returnedConnection = connection;
+                connection = null;
+                endedSubscriptions = new ArrayList<>(subscriptionHandles);
+                subscriptionHandles.clear();
+            }
+            // Closing a connection twice must not return it twice.
+            if (returnedConnection != null) {
+                returnedConnection.getSubscriber().ifPresent(subscriber ->
+                    endedSubscriptions.forEach(handle -> unsubscribeQuietly(subscriber, handle)));
+                giveBack(key, returnedConnection);
+            }
+        }
+
+        @Override
+        public Address parseAddress(String addressString) throws PlcException {
+            return getLeasedConnection().parseAddress(addressString);
+        }
+
+        @Override
+        public Optional<PlcLister> getLister() {
+            // Usually the pooled connection is its own lister, so it must not be handed out. PlcLister has
+            // no methods yet, once it has some they have to go through getLeasedConnection() like the reader's.
+            return getLeasedConnection().getLister().map(lister -> new PlcLister() {
+            });
+        }
+
+        @Override
+        public Optional<PlcReader> getReader() {
+            return getLeasedConnection().getReader().map(reader -> this::read);
+        }
+
+        @Override
+        public Optional<PlcWriter> getWriter() {
+            return getLeasedConnection().getWriter().map(writer -> this::write);
+        }
+
+        @Override
+        public Optional<PlcSubscriber> getSubscriber() {
+            return getLeasedConnection().getSubscriber().map(subscriber -> new PlcSubscriber() {
+                @Override
+                public CompletableFuture<PlcSubscriptionHandle> subscribe(PlcSubscriptionRequest subscriptionRequest) {
+                    return LeasedConnection.this.subscribe(subscriptionRequest);
+                }
+
+                @Override
+                public CompletableFuture<Void> unsubscribe(PlcSubscriptionHandle subscriptionHandle) {
+                    return LeasedConnection.this.unsubscribe(subscriptionHandle);
+                }
+            });
+        }
+
+        private CompletableFuture<? extends PlcReadResponse> read(PlcReadRequest readRequest) {
+            return getLeasedConnection().getReader()
+                .orElseThrow(() -> new IllegalStateException("The connection doesn't support reading"))
+                .read(readRequest);
+        }
+
+        private CompletableFuture<? extends PlcWriteResponse> write(PlcWriteRequest writeRequest) {
+            return getLeasedConnection().getWriter()
+                .orElseThrow(() -> new IllegalStateException("The connection doesn't support writing"))
+                .write(writeRequest);
+        }
+
+        private CompletableFuture<PlcSubscriptionHandle> subscribe(PlcSubscriptionRequest subscriptionRequest) {
+            PlcSubscriber subscriber = getLeasedSubscriber();
+            return subscriber.subscribe(subscriptionRequest).thenApply(handle -> {
+                boolean leased;
+                synchronized (this) {
+                    leased = connection != null;
+                    if (leased) {
+                        subscriptionHandles.add(handle);
+                    }
+                }
+                // The subscription took effect after the connection had been returned already.
+                if (!leased) {
+                    unsubscribeQuietly(subscriber, handle);
+                }
+                return handle;
+            });
+        }
+
+        private CompletableFuture<Void> unsubscribe(PlcSubscriptionHandle subscriptionHandle) {
+            PlcSubscriber subscriber = getLeasedSubscriber();
+            synchronized (this) {
+                subscriptionHandles.remove(subscriptionHandle);
+            }
+            return subscriber.unsubscribe(subscriptionHandle);
+        }
+
+        private PlcSubscriber getLeasedSubscriber() {
+            return getLeasedConnection().getSubscriber()
+                .orElseThrow(() -> new IllegalStateException("The connection doesn't support subscriptions"));
+        }
+
+        private void unsubscribeQuietly(PlcSubscriber subscriber, PlcSubscriptionHandle handle) {
+            try {
+                subscriber.unsubscribe(handle).whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        logger.warn("Error ending subscription of returned connection to {}", key.url, throwable);
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.warn("Error ending subscription of returned connection to {}", key.url, e);
+            }
+        }
+
+        private synchronized PlcConnection getLeasedConnection() {
+            if (connection == null) {
+                throw new IllegalStateException("The connection has been returned to the pool");
+            }
+            return connection;
+        }
+
+    }
+
+}
@@ -19,6 +19,7 @@ under the License.
 package org.apache.plc4x.java;
 
 import org.apache.plc4x.java.api.authentication.PlcUsernamePasswordAuthentication;
+import org.apache.plc4x.java.api.connection.PlcConnection;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 import org.apache.plc4x.java.api.exceptions.PlcException;
 import org.apache.plc4x.java.mock.MockConnection;
@@ -30,11 +31,19 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class PlcDriverManagerTest {
@@ -67,9 +76,73 @@ public class PlcDriverManagerTest {
         assertThat(mockConnection.isClosed(), is(false));
     }
 
+    /**
+     * Connections of drivers supporting it should run on the executor passed to the {@link PlcDriverManager}.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void getConnectionWithExecutorTest() throws PlcException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            MockConnection mockConnection = (MockConnection) new PlcDriverManager(
+                Thread.currentThread().getContextClassLoader(), executor).getConnection("mock://some-cool-url");
+            assertThat(mockConnection.getExecutor(), sameInstance(executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * In this test case a driver is requested which is not registered with the {@link PlcDriverManager}.
      */
+    /**
+     * Only the given number of connections are established at the same time, the others are started as
+     * soon as one of these is finished.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void getConnectionAsyncLimitsConcurrentConnectsTest() throws Exception {
+        MockConnection.getDeferredConnections().clear();
+        PlcDriverManager driverManager = new PlcDriverManager();
+        driverManager.setMaxConcurrentConnects(2);
+        List<CompletableFuture<PlcConnection>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(driverManager.getConnectionAsync("mock://deferred-" + i));
+        }
+        assertThat(MockConnection.getDeferredConnections(), hasSize(2));
+
+        MockConnection.getDeferredConnections().get(0).completeConnect();
+        assertThat(futures.get(0).get(1, TimeUnit.SECONDS).isConnected(), is(true));
+        waitForDeferredConnections(3);
+        assertThat(MockConnection.getDeferredConnections(), hasSize(3));
+
+        for (int i = 1; i < 5; i++) {
+            waitForDeferredConnections(Math.min(i + 2, 5));
+            MockConnection.getDeferredConnections().get(i).completeConnect();
+        }
+        for (CompletableFuture<PlcConnection> future : futures) {
+            assertThat(future.get(1, TimeUnit.SECONDS).isConnected(), is(true));
+        }
+    }
+
+    /**
+     * Failing to create a connection is reported by the future.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void getConnectionAsyncNotExistingDriverTest() throws Exception {
+        CompletableFuture<PlcConnection> future = new PlcDriverManager().getConnectionAsync("non-existing://some-cool-url");
+        assertThat(future.isCompletedExceptionally(), is(true));
+    }
+
+    private void waitForDeferredConnections(int numConnections) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while ((MockConnection.getDeferredConnections().size() < numConnections) &&
+            (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(1);
+        }
+    }
+
     @Test(expected = PlcConnectionException.class)
     @Category(FastTests.class)
     public void getNotExistingDriverTest() throws PlcConnectionException {
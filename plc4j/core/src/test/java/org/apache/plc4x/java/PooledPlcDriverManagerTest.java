@@ -0,0 +1,184 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java;
+
+import org.apache.plc4x.java.api.connection.PlcConnection;
+import org.apache.plc4x.java.api.connection.PlcLister;
+import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
+import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
+import org.apache.plc4x.java.api.exceptions.PlcException;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionRequest;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.api.types.SubscriptionType;
+import org.apache.plc4x.java.mock.MockConnection.MockSubscriptionHandle;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Duration;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class PooledPlcDriverManagerTest {
+
+    /**
+     * Closing a leased connection should return it to the pool, so it is handed out again.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void reuseReturnedConnectionTest() throws Exception {
+        try (PooledPlcDriverManager driverManager = new PooledPlcDriverManager()) {
+            PlcConnection connection = driverManager.getConnection("mock://some-cool-url?b=2&a=1");
+            assertThat(connection.isConnected(), is(true));
+            assertThat(driverManager.getNumActiveConnections(), is(1));
+
+            connection.close();
+            assertThat(connection.isConnected(), is(false));
+            assertThat(driverManager.getNumActiveConnections(), is(0));
+            assertThat(driverManager.getNumIdleConnections(), is(1));
+
+            // Same connection, only written differently.
+            PlcConnection secondConnection = driverManager.getConnection("MOCK://Some-Cool-Url?a=1&b=2");
+            assertThat(secondConnection.isConnected(), is(true));
+            assertThat(driverManager.getNumActiveConnections(), is(1));
+            assertThat(driverManager.getNumIdleConnections(), is(0));
+        }
+    }
+
+    /**
+     * If all connections of an url are leased, the next one has to wait till one is returned.
+     */
+    @Test(expected = PlcConnectionException.class)
+    @Category(FastTests.class)
+    public void limitConnectionsPerUrlTest() throws PlcException {
+        try (PooledPlcDriverManager driverManager = new PooledPlcDriverManager(
+            Thread.currentThread().getContextClassLoader(), 1, Duration.ofMinutes(1), Duration.ofMillis(50))) {
+            driverManager.getConnection("mock://some-cool-url");
+            assertThat(driverManager.getConnection("mock://other-url").isConnected(), is(true));
+
+            driverManager.getConnection("mock://some-cool-url");
+        }
+    }
+
+    /**
+     * Connections not used for longer than the max idle time should be closed.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void evictIdleConnectionsTest() throws Exception {
+        try (PooledPlcDriverManager driverManager = new PooledPlcDriverManager(
+            Thread.currentThread().getContextClassLoader(), 2, Duration.ofMillis(10), Duration.ofSeconds(1))) {
+            driverManager.getConnection("mock://some-cool-url").close();
+            assertThat(driverManager.getNumIdleConnections(), is(1));
+
+            Thread.sleep(50);
+            driverManager.evictIdleConnections();
+            assertThat(driverManager.getNumIdleConnections(), is(0));
+        }
+    }
+
+    /**
+     * A connection returned after closing the pool should be closed instead of pooled.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void closeConnectionsReturnedAfterClosingTest() throws Exception {
+        PooledPlcDriverManager driverManager = new PooledPlcDriverManager();
+        PlcConnection connection = driverManager.getConnection("mock://some-cool-url");
+        driverManager.close();
+
+        connection.close();
+        assertThat(driverManager.getNumActiveConnections(), is(0));
+        assertThat(driverManager.getNumIdleConnections(), is(0));
+    }
+
+    /**
+     * The reader of a leased connection must not be usable anymore once the connection has been returned,
+     * as the pooled connection may be leased by someone else by then.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void readerOfReturnedConnectionTest() throws Exception {
+        try (PooledPlcDriverManager driverManager = new PooledPlcDriverManager()) {
+            PlcConnection connection = driverManager.getConnection("mock://some-cool-url");
+            PlcReader reader = connection.getReader().get();
+            assertThat(reader.read(new PlcReadRequest()).get(), notNullValue());
+
+            connection.close();
+            driverManager.getConnection("mock://some-cool-url");
+            try {
+                reader.read(new PlcReadRequest());
+                fail("Reading through a returned connection should fail");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * The lister of a leased connection must not give access to the pooled connection.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void listerOfLeasedConnectionTest() throws Exception {
+        try (PooledPlcDriverManager driverManager = new PooledPlcDriverManager()) {
+            PlcConnection connection = driverManager.getConnection("mock://some-cool-url");
+            PlcLister lister = connection.getLister().get();
+            assertThat(lister, not(instanceOf(PlcConnection.class)));
+            assertThat(lister, not(instanceOf(PlcReader.class)));
+        }
+    }
+
+    /**
+     * Subscriptions made through a leased connection should end when it is returned.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void endSubscriptionsOfReturnedConnectionTest() throws Exception {
+        try (PooledPlcDriverManager driverManager = new PooledPlcDriverManager()) {
+            PlcConnection connection = driverManager.getConnection("mock://some-cool-url");
+            PlcSubscriber subscriber = connection.getSubscriber().get();
+            MockSubscriptionHandle unsubscribed = (MockSubscriptionHandle) subscriber.subscribe(subscriptionRequest()).get();
+            MockSubscriptionHandle subscribed = (MockSubscriptionHandle) subscriber.subscribe(subscriptionRequest()).get();
+            subscriber.unsubscribe(unsubscribed).get();
+            assertThat(unsubscribed.isActive(), is(false));
+            assertThat(subscribed.isActive(), is(true));
+
+            connection.close();
+            assertThat(subscribed.isActive(), is(false));
+            // Returned to the pool all the same.
+            assertThat(driverManager.getNumIdleConnections(), is(1));
+        }
+    }
+
+    private static PlcSubscriptionRequest subscriptionRequest() {
+        return new PlcSubscriptionRequest(SubscriptionType.CYCLIC, Duration.ofSeconds(1), event -> {
+        }, new ReadRequestItem<>(Integer.class, mock(Address.class)));
+    }
+
+}
@@ -20,25 +20,62 @@ package org.apache.plc4x.java.mock;
 
 import org.apache.plc4x.java.api.authentication.PlcAuthentication;
 import org.apache.plc4x.java.api.connection.AbstractPlcConnection;
+import org.apache.plc4x.java.api.connection.PlcConnection;
+import org.apache.plc4x.java.api.connection.PlcLister;
+import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 import org.apache.plc4x.java.api.exceptions.PlcException;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionRequest;
 import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
 
-public class MockConnection extends AbstractPlcConnection {
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class MockConnection extends AbstractPlcConnection implements PlcLister, PlcReader, PlcSubscriber {
+
+    // Connections created for "mock://deferred" urls, whose connectAsync() only completes on completeConnect().
+    private static final List<MockConnection> deferredConnections = new CopyOnWriteArrayList<>();
 
     private final PlcAuthentication authentication;
+    private final ScheduledExecutorService executor;
+    private final CompletableFuture<PlcConnection> deferredConnect;
 
     boolean connected = false;
     boolean closed = true;
 
     public MockConnection(PlcAuthentication authentication) {
+        this(authentication, null);
+    }
+
+    public MockConnection(PlcAuthentication authentication, ScheduledExecutorService executor) {
+        this(authentication, executor, false);
+    }
+
+    public MockConnection(PlcAuthentication authentication, ScheduledExecutorService executor, boolean deferConnect) {
         this.authentication = authentication;
+        this.executor = executor;
+        this.deferredConnect = deferConnect ? new CompletableFuture<>() : null;
+    }
+
+    public static List<MockConnection> getDeferredConnections() {
+        return deferredConnections;
     }
 
     public PlcAuthentication getAuthentication() {
         return authentication;
     }
 
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
     public boolean isConnected() {
         return connected;
     }
@@ -53,6 +90,21 @@ public class MockConnection extends AbstractPlcConnection {
         closed = false;
     }
 
+    @Override
+    public CompletableFuture<PlcConnection> connectAsync() {
+        if (deferredConnect == null) {
+            return super.connectAsync();
+        }
+        deferredConnections.add(this);
+        return deferredConnect;
+    }
+
+    public void completeConnect() {
+        connected = true;
+        closed = false;
+        deferredConnect.complete(this);
+    }
+
     @Override
     public void close() throws Exception {
         connected = false;
@@ -64,4 +116,40 @@ public class MockConnection extends AbstractPlcConnection {
         return null;
     }
 
+    @Override
+    public CompletableFuture<PlcReadResponse> read(PlcReadRequest readRequest) {
+        return CompletableFuture.completedFuture(new PlcReadResponse(readRequest, Collections.emptyList()));
+    }
+
+    @Override
+    public CompletableFuture<PlcSubscriptionHandle> subscribe(PlcSubscriptionRequest subscriptionRequest) {
+        return CompletableFuture.completedFuture(new MockSubscriptionHandle(subscriptionRequest));
+    }
+
+    @Override
+    public CompletableFuture<Void> unsubscribe(PlcSubscriptionHandle subscriptionHandle) {
+        ((MockSubscriptionHandle) subscriptionHandle).active = false;
+        return CompletableFuture.completedFuture(null);
+    }
+
+    public static class MockSubscriptionHandle implements PlcSubscriptionHandle {
+
+        private final PlcSubscriptionRequest request;
+        private volatile boolean active = true;
+
+        private MockSubscriptionHandle(PlcSubscriptionRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public PlcSubscriptionRequest getRequest() {
+            return request;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+    }
+
 }
@@ -18,12 +18,17 @@ under the License.
 */
 package org.apache.plc4x.java.mock;
 
+import org.apache.plc4x.java.api.ExecutorAware;
 import org.apache.plc4x.java.api.PlcDriver;
 import org.apache.plc4x.java.api.authentication.PlcAuthentication;
 import org.apache.plc4x.java.api.connection.PlcConnection;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 
-public class MockDriver implements PlcDriver {
+import java.util.concurrent.ScheduledExecutorService;
+
+public class MockDriver implements PlcDriver, ExecutorAware {
+
+    private ScheduledExecutorService executor;
 
     @Override
     public String getProtocolCode() {
@@ -37,12 +42,17 @@ public class MockDriver implements PlcDriver {
 
     @Override
     public PlcConnection connect(String url) throws PlcConnectionException {
-        return new MockConnection(null);
+        return new MockConnection(null, executor, url.startsWith("mock://deferred"));
     }
 
     @Override
     public PlcConnection connect(String url, PlcAuthentication authentication) throws PlcConnectionException {
-        return new MockConnection(authentication);
+        return new MockConnection(authentication, executor);
+    }
+
+    @Override
+    public void setExecutor(ScheduledExecutorService executor) {
+        this.executor = executor;
     }
 
 }
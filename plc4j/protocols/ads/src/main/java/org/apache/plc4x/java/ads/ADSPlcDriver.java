@@ -18,6 +18,7 @@ under the License.
 */
 package org.apache.plc4x.java.ads;
 
+import io.netty.channel.EventLoopGroup;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.plc4x.java.ads.api.generic.types.AMSNetId;
 import org.apache.plc4x.java.ads.api.generic.types.AMSPort;
@@ -26,6 +27,8 @@ import org.apache.plc4x.java.api.PlcDriver;
 import org.apache.plc4x.java.api.authentication.PlcAuthentication;
 import org.apache.plc4x.java.api.connection.PlcConnection;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
+import org.apache.plc4x.java.base.connection.EventLoopGroupAware;
+import org.apache.plc4x.java.base.connection.EventLoopGroups;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -37,7 +40,7 @@ import java.util.regex.Pattern;
  * - ADS Protocol
  * - TCP
  */
-public class ADSPlcDriver implements PlcDriver {
+public class ADSPlcDriver implements PlcDriver, EventLoopGroupAware {
 
     private static final Pattern ADS_ADDRESS_PATTERN =
         Pattern.compile("(?<targetAmsNetId>" + AMSNetId.AMS_NET_ID_PATTERN + "):(?<targetAmsPort>" + AMSPort.AMS_PORT_PATTERN + ")"
@@ -46,6 +49,8 @@ public class ADSPlcDriver implements PlcDriver {
             + ")?");
     private static final Pattern ADS_URI_PATTERN = Pattern.compile("^ads://(?<host>\\w+)(:(?<port>\\d*))?/" + ADS_ADDRESS_PATTERN);
 
+    private volatile EventLoopGroup eventLoopGroup = EventLoopGroups.getDefault();
+
     @Override
     public String getProtocolCode() {
         return "ads";
@@ -73,7 +78,7 @@ public class ADSPlcDriver implements PlcDriver {
         String sourceAmsPortString = matcher.group("sourceAmsPort");
         AMSPort sourceAmsPort = StringUtils.isNotBlank(sourceAmsPortString) ? AMSPort.of(sourceAmsPortString) : null;
         try {
-            return new ADSPlcConnection(InetAddress.getByName(host), port, targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort);
+            return new ADSPlcConnection(InetAddress.getByName(host), port, targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort, eventLoopGroup);
         } catch (UnknownHostException e) {
             throw new PlcConnectionException(e);
         }
@@ -84,4 +89,9 @@ public class ADSPlcDriver implements PlcDriver {
         throw new PlcConnectionException("Basic ADS connections don't support authentication.");
     }
 
+    @Override
+    public void setEventLoopGroup(EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+    }
+
 }
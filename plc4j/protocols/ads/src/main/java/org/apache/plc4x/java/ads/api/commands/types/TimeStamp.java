@@ -23,6 +23,7 @@ import org.apache.plc4x.java.ads.api.util.ByteValue;
 
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.time.Instant;
 import java.util.Date;
 
 public class TimeStamp extends ByteValue {
@@ -34,6 +35,13 @@ public class TimeStamp extends ByteValue {
 
     public static final int NUM_BYTES = 8;
 
+    private static final long EPOCH_DIFF_IN_SECONDS = EPOCH_DIFF_IN_MILLIS.longValue() / 1000;
+
+    // The windows time counts 100ns ticks.
+    private static final BigInteger TICKS_PER_SECOND = BigInteger.valueOf(10_000_000);
+
+    private static final long NANOS_PER_TICK = 100;
+
     private final BigInteger bigIntegerValue;
 
     private TimeStamp(byte... values) {
@@ -129,6 +137,15 @@ public class TimeStamp extends ByteValue {
         return new Date(winTimeToJava(bigIntegerValue).longValue());
     }
 
+    /**
+     * @return the timestamp with its full precision of 100ns (a {@link Date} only keeps milliseconds).
+     */
+    public Instant getAsInstant() {
+        BigInteger[] secondsAndTicks = bigIntegerValue.divideAndRemainder(TICKS_PER_SECOND);
+        return Instant.ofEpochSecond(secondsAndTicks[0].longValue() - EPOCH_DIFF_IN_SECONDS,
+            secondsAndTicks[1].longValue() * NANOS_PER_TICK);
+    }
+
     public static BigInteger javaToWinTime(BigInteger timeMillisSince19700101) {
         BigInteger timeMillisSince16010101 = EPOCH_DIFF_IN_MILLIS.add(timeMillisSince19700101);
         return timeMillisSince16010101.multiply(BigInteger.valueOf(10_000));
@@ -19,29 +19,64 @@ under the License.
 package org.apache.plc4x.java.ads.connection;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
 import org.apache.plc4x.java.ads.api.generic.types.AMSNetId;
 import org.apache.plc4x.java.ads.api.generic.types.AMSPort;
+import org.apache.plc4x.java.ads.messages.ADSNotificationSubscriptionRequest;
+import org.apache.plc4x.java.ads.messages.ADSNotificationSubscriptionResponse;
+import org.apache.plc4x.java.ads.messages.ADSNotificationUnsubscriptionRequest;
+import org.apache.plc4x.java.ads.messages.ADSNotificationUnsubscriptionResponse;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleReleaseRequest;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleReleaseResponse;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleRequest;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleResponse;
 import org.apache.plc4x.java.ads.model.ADSAddress;
+import org.apache.plc4x.java.ads.model.ADSSymbolicAddress;
 import org.apache.plc4x.java.ads.netty.ADSProtocol;
 import org.apache.plc4x.java.ads.netty.Plc4XADSProtocol;
 import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
 import org.apache.plc4x.java.api.connection.PlcWriter;
 import org.apache.plc4x.java.api.exceptions.PlcException;
+import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
 import org.apache.plc4x.java.api.messages.*;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.messages.items.RequestItem;
 import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
+import org.apache.plc4x.java.api.types.ResponseCode;
 import org.apache.plc4x.java.base.connection.AbstractPlcConnection;
+import org.apache.plc4x.java.base.connection.EventLoopGroups;
 import org.apache.plc4x.java.base.connection.TcpSocketChannelFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-public class ADSPlcConnection extends AbstractPlcConnection implements PlcReader, PlcWriter {
+public class ADSPlcConnection extends AbstractPlcConnection implements PlcReader, PlcWriter, PlcSubscriber {
 
     private static final int TCP_PORT = 48898;
 
+    // Time the ADS device gets for releasing the variable handles when closing the connection.
+    private static final long RELEASE_HANDLES_TIMEOUT_MS = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ADSPlcConnection.class);
+
     private final AMSNetId targetAmsNetId;
 
     private final AMSPort targetAmsPort;
@@ -64,7 +99,15 @@ public class ADSPlcConnection extends AbstractPlcConnection implements PlcReader
     }
 
     public ADSPlcConnection(InetAddress address, Integer port, AMSNetId targetAmsNetId, AMSPort targetAmsPort, AMSNetId sourceAmsNetId, AMSPort sourceAmsPort) {
-        super(new TcpSocketChannelFactory(address, port != null ? port : TCP_PORT));
+        this(address, port, targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort, EventLoopGroups.getDefault());
+    }
+
+    /**
+     * @param eventLoopGroup group the connection runs on, usually shared with other connections
+     *                       (it isn't shut down when closing the connection).
+     */
+    public ADSPlcConnection(InetAddress address, Integer port, AMSNetId targetAmsNetId, AMSPort targetAmsPort, AMSNetId sourceAmsNetId, AMSPort sourceAmsPort, EventLoopGroup eventLoopGroup) {
+        super(new TcpSocketChannelFactory(address, port != null ? port : TCP_PORT, eventLoopGroup));
         this.targetAmsNetId = targetAmsNetId;
         this.targetAmsPort = targetAmsPort;
         this.sourceAmsNetId = sourceAmsNetId;
@@ -100,27 +143,228 @@ public class ADSPlcConnection extends AbstractPlcConnection implements PlcReader
         };
     }
 
+    @Override
+    public void close() {
+        // The ADS device holds the variable handles until they are released.
+        Plc4XADSProtocol protocol = (channel != null) ? getPlc4XADSProtocol() : null;
+        if ((protocol != null) && channel.isActive() && !channel.eventLoop().inEventLoop() &&
+            (protocol.getNumSymbolHandles() > 0)) {
+            try {
+                releaseSymbolHandles().get(RELEASE_HANDLES_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                LOGGER.warn("Error releasing the variable handles", e);
+            }
+        }
+        super.close();
+    }
+
+    /**
+     * Parse numeric addresses ({@code indexGroup/indexOffset}) as well as symbolic addresses
+     * (e.g. {@code MAIN.fTemperature}). Symbolic addresses are resolved into variable handles the first
+     * time they are used, later requests use the cached handles.
+     */
     @Override
     public Address parseAddress(String addressString) throws PlcException {
+        if (ADSSymbolicAddress.matches(addressString)) {
+            return ADSSymbolicAddress.of(addressString);
+        }
         return ADSAddress.of(addressString);
     }
 
     @Override
     public CompletableFuture<PlcReadResponse> read(PlcReadRequest readRequest) {
-        CompletableFuture<PlcReadResponse> readFuture = new CompletableFuture<>();
-        PlcRequestContainer<PlcReadRequest, PlcReadResponse> container =
-            new PlcRequestContainer<>(readRequest, readFuture);
-        channel.writeAndFlush(container);
-        return readFuture;
+        return sendResolved(readRequest, readRequest.getRequestItems());
     }
 
     @Override
     public CompletableFuture<PlcWriteResponse> write(PlcWriteRequest writeRequest) {
-        CompletableFuture<PlcWriteResponse> writeFuture = new CompletableFuture<>();
-        PlcRequestContainer<PlcWriteRequest, PlcWriteResponse> container =
-            new PlcRequestContainer<>(writeRequest, writeFuture);
-        channel.writeAndFlush(container);
-        return writeFuture;
+        return sendResolved(writeRequest, writeRequest.getRequestItems());
+    }
+
+    /**
+     * Resolve the symbolic addresses of the items into variable handles (kept until the connection is closed
+     * or the device reports them as invalid).
+     * Addresses resolved before aren't resolved again, so this usually completes right away.
+     */
+    public CompletableFuture<Void> resolveSymbols(List<? extends RequestItem<?>> requestItems) {
+        Plc4XADSProtocol protocol = getPlc4XADSProtocol();
+        if (protocol == null) {
+            // The channel is closed, so sending the request itself fails.
+            return CompletableFuture.completedFuture(null);
+        }
+        List<ReadRequestItem<?>> unresolvedItems = null;
+        Set<ADSSymbolicAddress> unresolvedAddresses = null;
+        for (RequestItem<?> requestItem : requestItems) {
+            Address address = requestItem.getAddress();
+            if ((address instanceof ADSSymbolicAddress) && !protocol.isResolved((ADSSymbolicAddress) address)) {
+                if (unresolvedItems == null) {
+                    unresolvedItems = new ArrayList<>();
+                    unresolvedAddresses = new HashSet<>();
+                }
+                if (unresolvedAddresses.add((ADSSymbolicAddress) address)) {
+                    unresolvedItems.add(new ReadRequestItem<>(Long.class, address));
+                }
+            }
+        }
+        if (unresolvedItems == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<ADSSymbolHandleResponse> handleFuture = send(new ADSSymbolHandleRequest(unresolvedItems));
+        return handleFuture.thenAccept(handleResponse -> {
+            for (ReadResponseItem<?> responseItem : handleResponse.getResponseItems()) {
+                if (responseItem.getResponseCode() != ResponseCode.OK) {
+                    throw new CompletionException(new PlcProtocolException("Couldn't resolve " +
+                        responseItem.getRequestItem().getAddress() + ": " + responseItem.getResponseCode()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Release all variable handles, symbolic addresses are resolved again the next time they are used.
+     */
+    public CompletableFuture<ADSSymbolHandleReleaseResponse> releaseSymbolHandles() {
+        return send(new ADSSymbolHandleReleaseRequest());
+    }
+
+    /**
+     * Have the ADS device push the samples of a single item as device notifications.
+     *
+     * @param subscriptionRequest item, cycle time, max delay and consumer of the samples.
+     * @return the response containing the notification handle needed for ending the subscription.
+     */
+    public CompletableFuture<ADSNotificationSubscriptionResponse> subscribeNotification(
+        ADSNotificationSubscriptionRequest subscriptionRequest) {
+        return sendResolved(subscriptionRequest, subscriptionRequest.getRequestItems());
+    }
+
+    /**
+     * End a notification subscription (no more samples are handed to its consumer afterwards).
+     */
+    public CompletableFuture<ADSNotificationUnsubscriptionResponse> unsubscribeNotification(
+        ADSNotificationUnsubscriptionRequest unsubscriptionRequest) {
+        return send(unsubscriptionRequest);
+    }
+
+    /**
+     * Every item is subscribed to as a device notification of its own, so every event contains the value
+     * of a single item along with the time the ADS device sampled it at.
+     */
+    @Override
+    public CompletableFuture<PlcSubscriptionHandle> subscribe(PlcSubscriptionRequest subscriptionRequest) {
+        List<CompletableFuture<ADSNotificationSubscriptionResponse>> subscriptionFutures = new ArrayList<>();
+        for (ReadRequestItem<?> requestItem : subscriptionRequest.getRequestItems()) {
+            subscriptionFutures.add(subscribeNotification(new ADSNotificationSubscriptionRequest(
+                subscriptionRequest.getType(), subscriptionRequest.getInterval(), Duration.ZERO,
+                event -> subscriptionRequest.getConsumer().accept(new PlcSubscriptionEvent(
+                    subscriptionRequest, event.getTimestamp(), event.getResponseItems())),
+                requestItem)));
+        }
+        CompletableFuture<PlcSubscriptionHandle> handleFuture = new CompletableFuture<>();
+        CompletableFuture.allOf(subscriptionFutures.toArray(new CompletableFuture[0])).whenComplete((ignored, e) -> {
+            List<ADSNotificationSubscriptionResponse> subscriptionResponses = new ArrayList<>();
+            for (CompletableFuture<ADSNotificationSubscriptionResponse> subscriptionFuture : subscriptionFutures) {
+                if (!subscriptionFuture.isCompletedExceptionally()) {
+                    subscriptionResponses.add(subscriptionFuture.join());
+                }
+            }
+            if (e == null) {
+                handleFuture.complete(new NotificationSubscriptionHandle(subscriptionRequest, subscriptionResponses));
+            } else {
+                // Don't leave the notifications of the other items behind.
+                unsubscribe(subscriptionResponses).whenComplete((ignoredToo, e2) -> handleFuture.completeExceptionally(e));
+            }
+        });
+        return handleFuture;
+    }
+
+    @Override
+    public CompletableFuture<Void> unsubscribe(PlcSubscriptionHandle subscriptionHandle) {
+        if (!(subscriptionHandle instanceof NotificationSubscriptionHandle)) {
+            CompletableFuture<Void> unsubscriptionFuture = new CompletableFuture<>();
+            unsubscriptionFuture.completeExceptionally(
+                new IllegalArgumentException("Unknown subscription handle " + subscriptionHandle));
+            return unsubscriptionFuture;
+        }
+        return unsubscribe(((NotificationSubscriptionHandle) subscriptionHandle).getSubscriptionResponses());
+    }
+
+    private CompletableFuture<Void> unsubscribe(List<ADSNotificationSubscriptionResponse> subscriptionResponses) {
+        CompletableFuture<?>[] unsubscriptionFutures = subscriptionResponses.stream()
+            .map(subscriptionResponse ->
+                unsubscribeNotification(new ADSNotificationUnsubscriptionRequest(subscriptionResponse)))
+            .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(unsubscriptionFutures);
+    }
+
+    /**
+     * Send the request once the symbolic addresses of its items are resolved.
+     */
+    private <T extends PlcRequest, R extends PlcResponse> CompletableFuture<R> sendResolved(
+        T request, List<? extends RequestItem<?>> requestItems) {
+        CompletableFuture<R> responseFuture = new CompletableFuture<>();
+        sendResolved(request, requestItems, true, responseFuture);
+        return responseFuture;
+    }
+
+    private <T extends PlcRequest, R extends PlcResponse> void sendResolved(
+        T request, List<? extends RequestItem<?>> requestItems, boolean retry, CompletableFuture<R> responseFuture) {
+        resolveSymbols(requestItems).whenComplete((ignored, resolveError) -> {
+            if (resolveError != null) {
+                responseFuture.completeExceptionally(unwrap(resolveError));
+                return;
+            }
+            this.<T, R>send(request).whenComplete((response, sendError) -> {
+                if (sendError == null) {
+                    responseFuture.complete(response);
+                } else if (retry && !isResolved(requestItems)) {
+                    // The handles were released between resolving and sending, so resolve them again.
+                    sendResolved(request, requestItems, false, responseFuture);
+                } else {
+                    responseFuture.completeExceptionally(sendError);
+                }
+            });
+        });
+    }
+
+    private boolean isResolved(List<? extends RequestItem<?>> requestItems) {
+        Plc4XADSProtocol protocol = getPlc4XADSProtocol();
+        if (protocol == null) {
+            return true;
+        }
+        for (RequestItem<?> requestItem : requestItems) {
+            Address address = requestItem.getAddress();
+            if ((address instanceof ADSSymbolicAddress) && !protocol.isResolved((ADSSymbolicAddress) address)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return ((throwable instanceof CompletionException) && (throwable.getCause() != null)) ?
+            throwable.getCause() : throwable;
+    }
+
+    private Plc4XADSProtocol getPlc4XADSProtocol() {
+        return channel.pipeline().get(Plc4XADSProtocol.class);
+    }
+
+    private <T extends PlcRequest, R extends PlcResponse> CompletableFuture<R> send(T request) {
+        CompletableFuture<R> responseFuture = new CompletableFuture<>();
+        send(new PlcRequestContainer<>(request, responseFuture));
+        return responseFuture;
+    }
+
+    private void send(PlcRequestContainer<?, ?> container) {
+        channel.writeAndFlush(container).addListener((ChannelFutureListener) future -> {
+            // Requests that can't be sent (e.g. as the connection was lost) would never be answered.
+            if (!future.isSuccess()) {
+                container.getResponseFuture().completeExceptionally(future.cause());
+            }
+        });
     }
 
     private static AMSNetId generateAMSNetId() {
@@ -131,4 +375,26 @@ public class ADSPlcConnection extends AbstractPlcConnection implements PlcReader
         return AMSPort.of(TCP_PORT);
     }
 
+    private static final class NotificationSubscriptionHandle implements PlcSubscriptionHandle {
+
+        private final PlcSubscriptionRequest request;
+        private final List<ADSNotificationSubscriptionResponse> subscriptionResponses;
+
+        private NotificationSubscriptionHandle(PlcSubscriptionRequest request,
+                                               List<ADSNotificationSubscriptionResponse> subscriptionResponses) {
+            this.request = request;
+            this.subscriptionResponses = subscriptionResponses;
+        }
+
+        @Override
+        public PlcSubscriptionRequest getRequest() {
+            return request;
+        }
+
+        private List<ADSNotificationSubscriptionResponse> getSubscriptionResponses() {
+            return subscriptionResponses;
+        }
+
+    }
+
 }
@@ -0,0 +1,61 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.ads.messages;
+
+import org.apache.plc4x.java.api.messages.PlcSubscriptionEvent;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionRequest;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.types.SubscriptionType;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Asks the ADS device to push the value of a single item as device notifications.
+ * Every sample is handed to the consumer with the timestamp the device took it at. The samples are
+ * handed over on the event loop of the connection, so the consumer shouldn't block.
+ */
+public class ADSNotificationSubscriptionRequest extends PlcSubscriptionRequest {
+
+    private final Duration maxDelay;
+
+    /**
+     * @param type        if the value is sent every cycle or only after it changed.
+     * @param cycleTime   interval the device samples the value in (the unit is 1ms).
+     * @param maxDelay    time the device may collect samples for before sending them all in one notification
+     *                    (the unit is 1ms, zero sends every sample right away).
+     * @param consumer    receives the samples.
+     * @param requestItem item to be subscribed to.
+     */
+    public ADSNotificationSubscriptionRequest(SubscriptionType type, Duration cycleTime, Duration maxDelay,
+                                              Consumer<PlcSubscriptionEvent> consumer, ReadRequestItem<?> requestItem) {
+        super(type, cycleTime, consumer, requestItem);
+        Objects.requireNonNull(maxDelay, "Max delay must not be null");
+        if (maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Max delay must not be negative, but was " + maxDelay);
+        }
+        this.maxDelay = maxDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+}
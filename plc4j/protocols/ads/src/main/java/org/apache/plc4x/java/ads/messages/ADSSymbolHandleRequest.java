@@ -0,0 +1,47 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.ads.messages;
+
+import org.apache.plc4x.java.ads.model.ADSSymbolicAddress;
+import org.apache.plc4x.java.api.messages.PlcRequest;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+
+import java.util.List;
+
+/**
+ * Resolves the symbolic addresses of the items into variable handles. Resolving is modelled as reading
+ * the handle of every item, so the handles are the values of the response items. Once resolved, items
+ * with symbolic addresses are read and written by their handle, until the handles are released.
+ */
+public class ADSSymbolHandleRequest extends PlcRequest<ReadRequestItem<?>> {
+
+    public ADSSymbolHandleRequest(List<ReadRequestItem<?>> requestItems) {
+        super(requestItems);
+        for (ReadRequestItem<?> requestItem : requestItems) {
+            if (!(requestItem.getAddress() instanceof ADSSymbolicAddress)) {
+                throw new IllegalArgumentException("Address not of type ADSSymbolicAddress: " + requestItem.getAddress());
+            }
+        }
+    }
+
+    public ADSSymbolicAddress getSymbolicAddress(int index) {
+        return (ADSSymbolicAddress) getRequestItems().get(index).getAddress();
+    }
+
+}
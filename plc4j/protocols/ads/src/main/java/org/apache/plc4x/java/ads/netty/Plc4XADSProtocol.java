@@ -20,21 +20,29 @@ package org.apache.plc4x.java.ads.netty;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageCodec;
-import org.apache.plc4x.java.ads.api.commands.ADSReadRequest;
-import org.apache.plc4x.java.ads.api.commands.ADSReadResponse;
-import org.apache.plc4x.java.ads.api.commands.ADSWriteRequest;
-import org.apache.plc4x.java.ads.api.commands.ADSWriteResponse;
+import org.apache.plc4x.java.ads.api.commands.*;
 import org.apache.plc4x.java.ads.api.commands.types.*;
 import org.apache.plc4x.java.ads.api.generic.AMSTCPPacket;
 import org.apache.plc4x.java.ads.api.generic.types.AMSNetId;
 import org.apache.plc4x.java.ads.api.generic.types.AMSPort;
 import org.apache.plc4x.java.ads.api.generic.types.Invoke;
+import org.apache.plc4x.java.ads.messages.ADSNotificationSubscriptionRequest;
+import org.apache.plc4x.java.ads.messages.ADSNotificationSubscriptionResponse;
+import org.apache.plc4x.java.ads.messages.ADSNotificationUnsubscriptionRequest;
+import org.apache.plc4x.java.ads.messages.ADSNotificationUnsubscriptionResponse;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleReleaseRequest;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleReleaseResponse;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleRequest;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleResponse;
 import org.apache.plc4x.java.ads.model.ADSAddress;
+import org.apache.plc4x.java.ads.model.ADSSymbolicAddress;
 import org.apache.plc4x.java.api.exceptions.PlcException;
 import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
 import org.apache.plc4x.java.api.messages.*;
 import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
 import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.messages.items.RequestItem;
+import org.apache.plc4x.java.api.messages.items.ResponseItem;
 import org.apache.plc4x.java.api.messages.items.WriteRequestItem;
 import org.apache.plc4x.java.api.messages.items.WriteResponseItem;
 import org.apache.plc4x.java.api.messages.specific.TypeSafePlcReadRequest;
@@ -43,14 +51,27 @@ import org.apache.plc4x.java.api.messages.specific.TypeSafePlcWriteRequest;
 import org.apache.plc4x.java.api.messages.specific.TypeSafePlcWriteResponse;
 import org.apache.plc4x.java.api.model.Address;
 import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.api.types.SubscriptionType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 
 import static org.apache.plc4x.java.ads.netty.util.LittleEndianDecoder.decodeData;
 import static org.apache.plc4x.java.ads.netty.util.LittleEndianEncoder.encodeData;
@@ -61,8 +82,50 @@ public class Plc4XADSProtocol extends MessageToMessageCodec<AMSTCPPacket, PlcReq
 
     private static final AtomicLong correlationBuilder = new AtomicLong(1);
 
+    // ADSTRANS_SERVERCYCLE and ADSTRANS_SERVERONCHA of the ADS-DLL.
+    private static final TransmissionMode TRANSMISSION_MODE_CYCLIC = TransmissionMode.of(3);
+    private static final TransmissionMode TRANSMISSION_MODE_ON_CHANGE = TransmissionMode.of(4);
+
+    // Index group of the sum command reading multiple items with a single ReadWrite (the index offset is the number of items).
+    private static final IndexGroup SUM_READ_INDEX_GROUP = IndexGroup.of(0xF080);
+
+    // Index group of the sum command writing multiple items with a single ReadWrite (the index offset is the number of items).
+    private static final IndexGroup SUM_WRITE_INDEX_GROUP = IndexGroup.of(0xF081);
+
+    // Index group of the sum command doing multiple ReadWrites at once (the index offset is the number of items).
+    private static final IndexGroup SUM_READ_WRITE_INDEX_GROUP = IndexGroup.of(0xF082);
+
+    // Index groups for resolving a symbolic address into a variable handle, accessing the variable by its handle
+    // (the index offset is the handle) and releasing the handle.
+    private static final IndexGroup SYMBOL_HANDLE_BY_NAME_INDEX_GROUP = IndexGroup.of(0xF003);
+    private static final long SYMBOL_VALUE_BY_HANDLE_INDEX_GROUP = 0xF005;
+    private static final long SYMBOL_RELEASE_HANDLE_INDEX_GROUP = 0xF006;
+
+    private static final int SYMBOL_HANDLE_LENGTH = 4;
+
+    // TwinCAT processes at most 500 sub commands per sum command.
+    private static final int MAX_SUM_COMMAND_ITEMS = 500;
+
+    // Larger sum commands are split, as not every ADS router accepts them.
+    private static final int MAX_SUM_COMMAND_LENGTH = 0xFFFF;
+
+    // Index group, index offset and length of every item of a sum read or write.
+    private static final int SUM_ITEM_HEADER_LENGTH = IndexGroup.NUM_BYTES + IndexOffset.NUM_BYTES + Length.NUM_BYTES;
+
+    // Index group, index offset, read length and write length of every item of a sum ReadWrite.
+    private static final int SUM_READ_WRITE_ITEM_HEADER_LENGTH = IndexGroup.NUM_BYTES + IndexOffset.NUM_BYTES + ReadLength.NUM_BYTES + WriteLength.NUM_BYTES;
+
     private final ConcurrentMap<Long, PlcRequestContainer<PlcRequest, PlcResponse>> requests;
 
+    // Active notification subscriptions by notification handle (assigned by the ADS device).
+    private final ConcurrentMap<Long, ADSNotificationSubscriptionRequest> subscriptions;
+
+    // Variable handles by symbolic address, valid until released (or the connection is closed).
+    private final ConcurrentMap<String, Long> symbolHandles;
+
+    // Handles of symbolic addresses resolved more than once (by concurrent requests), only kept for releasing them.
+    private final ConcurrentLinkedQueue<Long> surplusSymbolHandles;
+
     private final AMSNetId targetAmsNetId;
     private final AMSPort targetAmsPort;
     private final AMSNetId sourceAmsNetId;
@@ -74,6 +137,46 @@ public class Plc4XADSProtocol extends MessageToMessageCodec<AMSTCPPacket, PlcReq
         this.sourceAmsNetId = sourceAmsNetId;
         this.sourceAmsPort = sourceAmsPort;
         this.requests = new ConcurrentHashMap<>();
+        this.subscriptions = new ConcurrentHashMap<>();
+        this.symbolHandles = new ConcurrentHashMap<>();
+        this.surplusSymbolHandles = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * @return number of notification subscriptions the ADS device is pushing values for.
+     */
+    public int getNumSubscriptions() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return true, if the variable handle of the address is known, so items with this address can be sent.
+     */
+    public boolean isResolved(ADSSymbolicAddress symbolicAddress) {
+        return symbolHandles.containsKey(symbolicAddress.getSymbolicAddress());
+    }
+
+    /**
+     * @return number of variable handles to be released.
+     */
+    public int getNumSymbolHandles() {
+        return symbolHandles.size() + surplusSymbolHandles.size();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // There will be no more responses to any pending requests.
+        for (Long invokeId : requests.keySet()) {
+            PlcRequestContainer<PlcRequest, PlcResponse> pendingRequest = requests.remove(invokeId);
+            if (pendingRequest != null) {
+                pendingRequest.getResponseFuture().completeExceptionally(new ClosedChannelException());
+            }
+        }
+        // Notifications and handles end with the connection.
+        subscriptions.clear();
+        symbolHandles.clear();
+        surplusSymbolHandles.clear();
+        super.channelInactive(ctx);
     }
 
     @Override
@@ -83,21 +186,29 @@ public class Plc4XADSProtocol extends MessageToMessageCodec<AMSTCPPacket, PlcReq
             encodeReadRequest(msg, out);
         } else if (request instanceof PlcWriteRequest) {
             encodeWriteRequest(msg, out);
+        } else if (request instanceof ADSNotificationSubscriptionRequest) {
+            encodeNotificationSubscriptionRequest(msg, out);
+        } else if (request instanceof ADSNotificationUnsubscriptionRequest) {
+            encodeNotificationUnsubscriptionRequest(msg, out);
+        } else if (request instanceof ADSSymbolHandleRequest) {
+            encodeSymbolHandleRequest(msg, out);
+        } else if (request instanceof ADSSymbolHandleReleaseRequest) {
+            encodeSymbolHandleReleaseRequest(msg, out);
         }
     }
 
 
     private void encodeWriteRequest(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) throws PlcException {
         PlcWriteRequest writeRequest = (PlcWriteRequest) msg.getRequest();
-        if (writeRequest.getRequestItems().size() != 1) {
-            throw new PlcProtocolException("Only one item supported");
+        if (writeRequest.getRequestItems().isEmpty()) {
+            throw new PlcProtocolException("At least one item required");
         }
-        WriteRequestItem<?> writeRequestItem = writeRequest.getRequestItems().get(0);
-        Address address = writeRequestItem.getAddress();
-        if (!(address instanceof ADSAddress)) {
-            throw new PlcProtocolException("Address not of type ADSAddress: " + address.getClass());
+        if (writeRequest.getRequestItems().size() > 1) {
+            encodeSumWriteRequest(msg, out);
+            return;
         }
-        ADSAddress adsAddress = (ADSAddress) address;
+        WriteRequestItem<?> writeRequestItem = writeRequest.getRequestItems().get(0);
+        ADSAddress adsAddress = getAdsAddress(writeRequestItem.getAddress());
         Invoke invokeId = Invoke.of(correlationBuilder.incrementAndGet());
         IndexGroup indexGroup = IndexGroup.of(adsAddress.getIndexGroup());
         IndexOffset indexOffset = IndexOffset.of(adsAddress.getIndexOffset());
@@ -111,26 +222,320 @@ public class Plc4XADSProtocol extends MessageToMessageCodec<AMSTCPPacket, PlcReq
     private void encodeReadRequest(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) throws PlcException {
         PlcReadRequest readRequest = (PlcReadRequest) msg.getRequest();
 
-        if (readRequest.getRequestItems().size() != 1) {
-            throw new PlcProtocolException("Only one item supported");
+        if (readRequest.getRequestItems().isEmpty()) {
+            throw new PlcProtocolException("At least one item required");
         }
-        ReadRequestItem<?> readRequestItem = readRequest.getRequestItems().get(0);
-        Address address = readRequestItem.getAddress();
-        if (!(address instanceof ADSAddress)) {
-            throw new PlcProtocolException("Address not of type ADSAddress: " + address.getClass());
+        if (readRequest.getRequestItems().size() > 1) {
+            encodeSumReadRequest(msg, out);
+            return;
         }
-        ADSAddress adsAddress = (ADSAddress) address;
+        ReadRequestItem<?> readRequestItem = readRequest.getRequestItems().get(0);
+        ADSAddress adsAddress = getAdsAddress(readRequestItem.getAddress());
         Invoke invokeId = Invoke.of(correlationBuilder.incrementAndGet());
         IndexGroup indexGroup = IndexGroup.of(adsAddress.getIndexGroup());
         IndexOffset indexOffset = IndexOffset.of(adsAddress.getIndexOffset());
-        Length length = Length.of(readRequestItem.getSize());
+        Length length = Length.of(getNumBytes(readRequestItem));
         AMSTCPPacket amstcpPacket = ADSReadRequest.of(targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort, invokeId, indexGroup, indexOffset, length);
         out.add(amstcpPacket);
         requests.put(invokeId.getAsLong(), msg);
     }
 
+    private void encodeSumReadRequest(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) throws PlcException {
+        PlcReadRequest readRequest = (PlcReadRequest) msg.getRequest();
+        List<ReadRequestItem<?>> requestItems = readRequest.getRequestItems();
+        int[] numBytes = new int[requestItems.size()];
+        for (int i = 0; i < requestItems.size(); i++) {
+            numBytes[i] = getNumBytes(requestItems.get(i));
+        }
+        // Every item returns its result followed by its data.
+        List<List<ReadRequestItem<?>>> parts = splitIntoSumCommands(requestItems,
+            i -> SUM_ITEM_HEADER_LENGTH, i -> Result.NUM_BYTES + numBytes[i]);
+        if (parts.size() == 1) {
+            encodeSumReadPart(msg, out);
+            return;
+        }
+        List<CompletableFuture<PlcResponse>> partFutures = new ArrayList<>(parts.size());
+        for (List<ReadRequestItem<?>> part : parts) {
+            PlcRequestContainer<PlcRequest, PlcResponse> partContainer =
+                new PlcRequestContainer<>(new PlcReadRequest(part), new CompletableFuture<>());
+            encodeSumReadPart(partContainer, out);
+            partFutures.add(partContainer.getResponseFuture());
+        }
+        completeFromParts(msg, partFutures,
+            (List<ReadResponseItem<?>> responseItems) -> createReadResponse(readRequest, responseItems));
+    }
+
+    private void encodeSumReadPart(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) throws PlcException {
+        List<ReadRequestItem<?>> requestItems = ((PlcReadRequest) msg.getRequest()).getRequestItems();
+        ByteBuffer subCommands = ByteBuffer.allocate(requestItems.size() * SUM_ITEM_HEADER_LENGTH);
+        long readLength = 0;
+        for (ReadRequestItem<?> requestItem : requestItems) {
+            ADSAddress adsAddress = getAdsAddress(requestItem.getAddress());
+            int numBytes = getNumBytes(requestItem);
+            subCommands.put(IndexGroup.of(adsAddress.getIndexGroup()).getBytes());
+            subCommands.put(IndexOffset.of(adsAddress.getIndexOffset()).getBytes());
+            subCommands.put(Length.of(numBytes).getBytes());
+            readLength += Result.NUM_BYTES + numBytes;
+        }
+        Invoke invokeId = Invoke.of(correlationBuilder.incrementAndGet());
+        IndexOffset numItems = IndexOffset.of(requestItems.size());
+        AMSTCPPacket amstcpPacket = ADSReadWriteRequest.of(targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort, invokeId, SUM_READ_INDEX_GROUP, numItems, ReadLength.of(readLength), Data.of(subCommands.array()));
+        out.add(amstcpPacket);
+        requests.put(invokeId.getAsLong(), msg);
+    }
+
+    private void encodeSumWriteRequest(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) throws PlcException {
+        PlcWriteRequest writeRequest = (PlcWriteRequest) msg.getRequest();
+        List<WriteRequestItem<?>> requestItems = writeRequest.getRequestItems();
+        // The data is encoded once, both for sizing the parts and for sending it.
+        List<byte[]> itemData = new ArrayList<>(requestItems.size());
+        for (WriteRequestItem<?> requestItem : requestItems) {
+            itemData.add(encodeData(requestItem.getDatatype(), requestItem.getValues().toArray()));
+        }
+        // Every item only returns its result.
+        List<List<WriteRequestItem<?>>> parts = splitIntoSumCommands(requestItems,
+            i -> SUM_ITEM_HEADER_LENGTH + itemData.get(i).length, i -> Result.NUM_BYTES);
+        if (parts.size() == 1) {
+            encodeSumWritePart(msg, itemData, out);
+            return;
+        }
+        List<CompletableFuture<PlcResponse>> partFutures = new ArrayList<>(parts.size());
+        // The parts are consecutive runs of the items.
+        int firstItem = 0;
+        for (List<WriteRequestItem<?>> part : parts) {
+            PlcRequestContainer<PlcRequest, PlcResponse> partContainer =
+                new PlcRequestContainer<>(new PlcWriteRequest(part), new CompletableFuture<>());
+            encodeSumWritePart(partContainer, itemData.subList(firstItem, firstItem + part.size()), out);
+            partFutures.add(partContainer.getResponseFuture());
+            firstItem += part.size();
+        }
+        completeFromParts(msg, partFutures,
+            (List<WriteResponseItem<?>> responseItems) -> createWriteResponse(writeRequest, responseItems));
+    }
+
+    /**
+     * @param itemData encoded values of the request's items.
+     */
+    private void encodeSumWritePart(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<byte[]> itemData,
+                                    List<Object> out) throws PlcException {
+        List<WriteRequestItem<?>> requestItems = ((PlcWriteRequest) msg.getRequest()).getRequestItems();
+        // The index group, index offset and length of all items come first, followed by the data of every item.
+        int dataLength = 0;
+        for (byte[] bytes : itemData) {
+            dataLength += bytes.length;
+        }
+        ByteBuffer subCommands = ByteBuffer.allocate(requestItems.size() * SUM_ITEM_HEADER_LENGTH + dataLength);
+        for (int i = 0; i < requestItems.size(); i++) {
+            ADSAddress adsAddress = getAdsAddress(requestItems.get(i).getAddress());
+            subCommands.put(IndexGroup.of(adsAddress.getIndexGroup()).getBytes());
+            subCommands.put(IndexOffset.of(adsAddress.getIndexOffset()).getBytes());
+            subCommands.put(Length.of(itemData.get(i).length).getBytes());
+        }
+        for (byte[] bytes : itemData) {
+            subCommands.put(bytes);
+        }
+        Invoke invokeId = Invoke.of(correlationBuilder.incrementAndGet());
+        IndexOffset numItems = IndexOffset.of(requestItems.size());
+        ReadLength readLength = ReadLength.of((long) requestItems.size() * Result.NUM_BYTES);
+        AMSTCPPacket amstcpPacket = ADSReadWriteRequest.of(targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort, invokeId, SUM_WRITE_INDEX_GROUP, numItems, readLength, Data.of(subCommands.array()));
+        out.add(amstcpPacket);
+        requests.put(invokeId.getAsLong(), msg);
+    }
+
+    /**
+     * Split the items into as few sum commands as possible without exceeding the limits of a single sum command.
+     *
+     * @param requestLength  number of bytes the item with the given index takes in the request.
+     * @param responseLength number of bytes the item with the given index takes in the response.
+     */
+    private static <T> List<List<T>> splitIntoSumCommands(List<T> items, IntUnaryOperator requestLength,
+                                                          IntUnaryOperator responseLength) {
+        List<List<T>> parts = new ArrayList<>();
+        List<T> part = new ArrayList<>();
+        long partRequestLength = 0;
+        long partResponseLength = 0;
+        for (int i = 0; i < items.size(); i++) {
+            int itemRequestLength = requestLength.applyAsInt(i);
+            int itemResponseLength = responseLength.applyAsInt(i);
+            if (!part.isEmpty() && ((part.size() == MAX_SUM_COMMAND_ITEMS) ||
+                (partRequestLength + itemRequestLength > MAX_SUM_COMMAND_LENGTH) ||
+                (partResponseLength + itemResponseLength > MAX_SUM_COMMAND_LENGTH))) {
+                parts.add(part);
+                part = new ArrayList<>();
+                partRequestLength = 0;
+                partResponseLength = 0;
+            }
+            part.add(items.get(i));
+            partRequestLength += itemRequestLength;
+            partResponseLength += itemResponseLength;
+        }
+        parts.add(part);
+        return parts;
+    }
+
+    /**
+     * Complete the request with the response items of all its parts (in order), once every part is answered.
+     */
+    private <I extends ResponseItem<?>> void completeFromParts(PlcRequestContainer<PlcRequest, PlcResponse> msg,
+                                                               List<CompletableFuture<PlcResponse>> partFutures,
+                                                               Function<List<I>, PlcResponse> responseFactory) {
+        CompletableFuture.allOf(partFutures.toArray(new CompletableFuture[0])).whenComplete((ignored, e) -> {
+            if (e != null) {
+                Throwable cause = (e instanceof CompletionException) && (e.getCause() != null) ? e.getCause() : e;
+                msg.getResponseFuture().completeExceptionally(cause);
+                return;
+            }
+            List<I> responseItems = new ArrayList<>();
+            for (CompletableFuture<PlcResponse> partFuture : partFutures) {
+                responseItems.addAll(getResponseItems(partFuture.join()));
+            }
+            msg.getResponseFuture().complete(responseFactory.apply(responseItems));
+        });
+    }
+
+    /**
+     * The parts of a request are created by this protocol, so their responses have the item type of the request.
+     */
+    @SuppressWarnings("unchecked")
+    private static <I extends ResponseItem<?>> List<I> getResponseItems(PlcResponse response) {
+        return (List<I>) response.getResponseItems();
+    }
+
+    private void encodeSymbolHandleRequest(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) throws PlcException {
+        ADSSymbolHandleRequest handleRequest = (ADSSymbolHandleRequest) msg.getRequest();
+        List<ReadRequestItem<?>> requestItems = handleRequest.getRequestItems();
+        if (requestItems.isEmpty()) {
+            throw new PlcProtocolException("At least one item required");
+        }
+        int[] nameLengths = new int[requestItems.size()];
+        for (int i = 0; i < requestItems.size(); i++) {
+            nameLengths[i] = encodeSymbolName(handleRequest.getSymbolicAddress(i)).length;
+        }
+        // Every item returns its result, the length of its data and the handle.
+        List<List<ReadRequestItem<?>>> parts = splitIntoSumCommands(requestItems,
+            i -> SUM_READ_WRITE_ITEM_HEADER_LENGTH + nameLengths[i], i -> Result.NUM_BYTES + Length.NUM_BYTES + SYMBOL_HANDLE_LENGTH);
+        if (parts.size() == 1) {
+            encodeSymbolHandlePart(msg, out);
+            return;
+        }
+        List<CompletableFuture<PlcResponse>> partFutures = new ArrayList<>(parts.size());
+        for (List<ReadRequestItem<?>> part : parts) {
+            PlcRequestContainer<PlcRequest, PlcResponse> partContainer =
+                new PlcRequestContainer<>(new ADSSymbolHandleRequest(part), new CompletableFuture<>());
+            encodeSymbolHandlePart(partContainer, out);
+            partFutures.add(partContainer.getResponseFuture());
+        }
+        completeFromParts(msg, partFutures,
+            (List<ReadResponseItem<?>> responseItems) -> new ADSSymbolHandleResponse(handleRequest, responseItems));
+    }
+
+    /**
+     * All symbolic addresses are resolved with a sum command, each of its items being a ReadWrite on the
+     * "handle by name" index group.
+     */
+    private void encodeSymbolHandlePart(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) {
+        ADSSymbolHandleRequest handleRequest = (ADSSymbolHandleRequest) msg.getRequest();
+        int numItems = handleRequest.getRequestItems().size();
+        List<byte[]> names = new ArrayList<>(numItems);
+        int namesLength = 0;
+        for (int i = 0; i < numItems; i++) {
+            byte[] name = encodeSymbolName(handleRequest.getSymbolicAddress(i));
+            names.add(name);
+            namesLength += name.length;
+        }
+        ByteBuffer subCommands = ByteBuffer.allocate(numItems * SUM_READ_WRITE_ITEM_HEADER_LENGTH + namesLength);
+        for (byte[] name : names) {
+            subCommands.put(SYMBOL_HANDLE_BY_NAME_INDEX_GROUP.getBytes());
+            subCommands.put(IndexOffset.of(0).getBytes());
+            subCommands.put(ReadLength.of(SYMBOL_HANDLE_LENGTH).getBytes());
+            subCommands.put(WriteLength.of(name.length).getBytes());
+        }
+        for (byte[] name : names) {
+            subCommands.put(name);
+        }
+        Invoke invokeId = Invoke.of(correlationBuilder.incrementAndGet());
+        ReadLength readLength = ReadLength.of((long) numItems * (Result.NUM_BYTES + Length.NUM_BYTES + SYMBOL_HANDLE_LENGTH));
+        AMSTCPPacket amstcpPacket = ADSReadWriteRequest.of(targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort, invokeId, SUM_READ_WRITE_INDEX_GROUP, IndexOffset.of(numItems), readLength, Data.of(subCommands.array()));
+        out.add(amstcpPacket);
+        requests.put(invokeId.getAsLong(), msg);
+    }
+
+    private static byte[] encodeSymbolName(ADSSymbolicAddress symbolicAddress) {
+        return (symbolicAddress.getSymbolicAddress() + '\0').getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Releasing handles is a write of each handle to the "release handle" index group, so all handles are
+     * released with as few sum writes as possible.
+     */
+    private void encodeSymbolHandleReleaseRequest(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) throws PlcException {
+        ADSSymbolHandleReleaseRequest releaseRequest = (ADSSymbolHandleReleaseRequest) msg.getRequest();
+        List<Long> handles = new ArrayList<>(symbolHandles.values());
+        symbolHandles.clear();
+        for (Long handle = surplusSymbolHandles.poll(); handle != null; handle = surplusSymbolHandles.poll()) {
+            handles.add(handle);
+        }
+        if (handles.isEmpty()) {
+            throw new PlcProtocolException("No handles to be released");
+        }
+        List<WriteRequestItem<?>> writeRequestItems = new ArrayList<>(handles.size());
+        for (Long handle : handles) {
+            writeRequestItems.add(new WriteRequestItem<>(Integer.class,
+                ADSAddress.of(SYMBOL_RELEASE_HANDLE_INDEX_GROUP, 0), handle.intValue()));
+        }
+        PlcRequestContainer<PlcRequest, PlcResponse> writeContainer =
+            new PlcRequestContainer<>(new PlcWriteRequest(writeRequestItems), new CompletableFuture<>());
+        encodeWriteRequest(writeContainer, out);
+        writeContainer.getResponseFuture().whenComplete((writeResponse, e) -> {
+            if (e != null) {
+                msg.getResponseFuture().completeExceptionally(e);
+                return;
+            }
+            for (Object responseItem : writeResponse.getResponseItems()) {
+                ResponseCode responseCode = ((WriteResponseItem<?>) responseItem).getResponseCode();
+                if (responseCode != ResponseCode.OK) {
+                    LOGGER.debug("Releasing a handle failed with {}", responseCode);
+                }
+            }
+            msg.getResponseFuture().complete(new ADSSymbolHandleReleaseResponse(releaseRequest));
+        });
+    }
+
+    private void encodeNotificationSubscriptionRequest(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) throws PlcException {
+        ADSNotificationSubscriptionRequest subscriptionRequest = (ADSNotificationSubscriptionRequest) msg.getRequest();
+        if (subscriptionRequest.getRequestItems().size() != 1) {
+            throw new PlcProtocolException("Only one item supported");
+        }
+        ReadRequestItem<?> readRequestItem = subscriptionRequest.getRequestItems().get(0);
+        ADSAddress adsAddress = getAdsAddress(readRequestItem.getAddress());
+        Invoke invokeId = Invoke.of(correlationBuilder.incrementAndGet());
+        IndexGroup indexGroup = IndexGroup.of(adsAddress.getIndexGroup());
+        IndexOffset indexOffset = IndexOffset.of(adsAddress.getIndexOffset());
+        Length length = Length.of(getNumBytes(readRequestItem));
+        TransmissionMode transmissionMode = subscriptionRequest.getType() == SubscriptionType.CYCLIC ?
+            TRANSMISSION_MODE_CYCLIC : TRANSMISSION_MODE_ON_CHANGE;
+        MaxDelay maxDelay = MaxDelay.of(subscriptionRequest.getMaxDelay().toMillis());
+        CycleTime cycleTime = CycleTime.of(subscriptionRequest.getInterval().toMillis());
+        AMSTCPPacket amstcpPacket = ADSAddDeviceNotificationRequest.of(targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort, invokeId, indexGroup, indexOffset, length, transmissionMode, maxDelay, cycleTime);
+        out.add(amstcpPacket);
+        requests.put(invokeId.getAsLong(), msg);
+    }
+
+    private void encodeNotificationUnsubscriptionRequest(PlcRequestContainer<PlcRequest, PlcResponse> msg, List<Object> out) {
+        ADSNotificationUnsubscriptionRequest unsubscriptionRequest = (ADSNotificationUnsubscriptionRequest) msg.getRequest();
+        Invoke invokeId = Invoke.of(correlationBuilder.incrementAndGet());
+        AMSTCPPacket amstcpPacket = ADSDeleteDeviceNotificationRequest.of(targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort, invokeId, unsubscriptionRequest.getNotificationHandle());
+        out.add(amstcpPacket);
+        requests.put(invokeId.getAsLong(), msg);
+    }
+
     @Override
     protected void decode(ChannelHandlerContext channelHandlerContext, AMSTCPPacket amstcpPacket, List<Object> out) throws Exception {
+        // Notifications are sent by the ADS device on its own, they don't answer any of our requests.
+        if (amstcpPacket instanceof ADSDeviceNotificationRequest) {
+            decodeDeviceNotification((ADSDeviceNotificationRequest) amstcpPacket);
+            return;
+        }
         PlcRequestContainer<PlcRequest, PlcResponse> plcRequestContainer = requests.remove(amstcpPacket.getAmsHeader().getInvokeId().getAsLong());
         if (plcRequestContainer == null) {
             LOGGER.info("Unmapped packet received {}", amstcpPacket);
@@ -143,12 +548,34 @@ public class Plc4XADSProtocol extends MessageToMessageCodec<AMSTCPPacket, PlcReq
         if (request instanceof PlcReadRequest) {
             if (amstcpPacket instanceof ADSReadResponse) {
                 response = decodeReadResponse((ADSReadResponse) amstcpPacket, plcRequestContainer);
+            } else if (amstcpPacket instanceof ADSReadWriteResponse) {
+                response = decodeSumReadResponse((ADSReadWriteResponse) amstcpPacket, plcRequestContainer);
             } else {
                 throw new PlcProtocolException("Wrong type correlated " + amstcpPacket);
             }
         } else if (request instanceof PlcWriteRequest) {
             if (amstcpPacket instanceof ADSWriteResponse) {
                 response = decodeWriteResponse((ADSWriteResponse) amstcpPacket, plcRequestContainer);
+            } else if (amstcpPacket instanceof ADSReadWriteResponse) {
+                response = decodeSumWriteResponse((ADSReadWriteResponse) amstcpPacket, plcRequestContainer);
+            } else {
+                throw new PlcProtocolException("Wrong type correlated " + amstcpPacket);
+            }
+        } else if (request instanceof ADSNotificationSubscriptionRequest) {
+            if (amstcpPacket instanceof ADSAddDeviceNotificationResponse) {
+                response = decodeNotificationSubscriptionResponse((ADSAddDeviceNotificationResponse) amstcpPacket, plcRequestContainer);
+            } else {
+                throw new PlcProtocolException("Wrong type correlated " + amstcpPacket);
+            }
+        } else if (request instanceof ADSSymbolHandleRequest) {
+            if (amstcpPacket instanceof ADSReadWriteResponse) {
+                response = decodeSymbolHandleResponse((ADSReadWriteResponse) amstcpPacket, plcRequestContainer);
+            } else {
+                throw new PlcProtocolException("Wrong type correlated " + amstcpPacket);
+            }
+        } else if (request instanceof ADSNotificationUnsubscriptionRequest) {
+            if (amstcpPacket instanceof ADSDeleteDeviceNotificationResponse) {
+                response = decodeNotificationUnsubscriptionResponse((ADSDeleteDeviceNotificationResponse) amstcpPacket, plcRequestContainer);
             } else {
                 throw new PlcProtocolException("Wrong type correlated " + amstcpPacket);
             }
@@ -167,12 +594,43 @@ public class Plc4XADSProtocol extends MessageToMessageCodec<AMSTCPPacket, PlcReq
         WriteRequestItem requestItem = plcWriteRequest.getRequestItems().get(0);
 
         ResponseCode responseCode = decodeResponseCode(responseMessage.getResult());
+        evictInvalidSymbolHandle(requestItem, responseMessage.getResult());
+
+        return createWriteResponse(plcWriteRequest, Collections.singletonList(new WriteResponseItem<>(requestItem, responseCode)));
+    }
+
+    private PlcResponse decodeSumWriteResponse(ADSReadWriteResponse responseMessage, PlcRequestContainer<PlcRequest, PlcResponse> requestContainer) {
+        PlcWriteRequest plcWriteRequest = (PlcWriteRequest) requestContainer.getRequest();
+        List<WriteRequestItem<?>> requestItems = plcWriteRequest.getRequestItems();
+        List<WriteResponseItem<?>> responseItems = new ArrayList<>(requestItems.size());
+
+        ResponseCode sumResponseCode = decodeResponseCode(responseMessage.getResult());
+        ByteBuffer data = ByteBuffer.wrap(responseMessage.getData().getBytes());
+        if ((sumResponseCode == ResponseCode.OK) && (data.remaining() < requestItems.size() * Result.NUM_BYTES)) {
+            requestContainer.getResponseFuture().completeExceptionally(new PlcProtocolException(
+                "Sum write response too short for " + requestItems.size() + " items: " + data.remaining() + " bytes"));
+            return null;
+        }
+        for (WriteRequestItem<?> requestItem : requestItems) {
+            // If the sum command fails as a whole, so does every single item.
+            ResponseCode responseCode = sumResponseCode;
+            if (sumResponseCode == ResponseCode.OK) {
+                byte[] result = new byte[Result.NUM_BYTES];
+                data.get(result);
+                responseCode = decodeResponseCode(Result.of(result));
+                evictInvalidSymbolHandle(requestItem, Result.of(result));
+            }
+            responseItems.add(new WriteResponseItem<>(requestItem, responseCode));
+        }
+        return createWriteResponse(plcWriteRequest, responseItems);
+    }
 
+    @SuppressWarnings("unchecked")
+    private PlcResponse createWriteResponse(PlcWriteRequest plcWriteRequest, List<WriteResponseItem<?>> responseItems) {
         if (plcWriteRequest instanceof TypeSafePlcWriteRequest) {
-            return new TypeSafePlcWriteResponse((TypeSafePlcWriteRequest) plcWriteRequest, Collections.singletonList(new WriteResponseItem<>(requestItem, responseCode)));
-        } else {
-            return new PlcWriteResponse(plcWriteRequest, Collections.singletonList(new WriteResponseItem<>(requestItem, responseCode)));
+            return new TypeSafePlcWriteResponse((TypeSafePlcWriteRequest) plcWriteRequest, responseItems);
         }
+        return new PlcWriteResponse(plcWriteRequest, responseItems);
     }
 
     @SuppressWarnings("unchecked")
@@ -181,14 +639,245 @@ public class Plc4XADSProtocol extends MessageToMessageCodec<AMSTCPPacket, PlcReq
         ReadRequestItem requestItem = plcReadRequest.getRequestItems().get(0);
 
         ResponseCode responseCode = decodeResponseCode(responseMessage.getResult());
+        evictInvalidSymbolHandle(requestItem, responseMessage.getResult());
         byte[] bytes = responseMessage.getData().getBytes();
         List decoded = decodeData(requestItem.getDatatype(), bytes);
 
+        return createReadResponse(plcReadRequest, Collections.singletonList(new ReadResponseItem<>(requestItem, responseCode, decoded)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private PlcResponse decodeSumReadResponse(ADSReadWriteResponse responseMessage, PlcRequestContainer<PlcRequest, PlcResponse> requestContainer) throws PlcProtocolException {
+        PlcReadRequest plcReadRequest = (PlcReadRequest) requestContainer.getRequest();
+        List<ReadRequestItem<?>> requestItems = plcReadRequest.getRequestItems();
+        List<ReadResponseItem<?>> responseItems = new ArrayList<>(requestItems.size());
+
+        ResponseCode sumResponseCode = decodeResponseCode(responseMessage.getResult());
+        if (sumResponseCode != ResponseCode.OK) {
+            // If the sum command fails as a whole, so does every single item.
+            for (ReadRequestItem requestItem : requestItems) {
+                responseItems.add(new ReadResponseItem<>(requestItem, sumResponseCode, Collections.emptyList()));
+            }
+            return createReadResponse(plcReadRequest, responseItems);
+        }
+
+        // The results of all items come first, followed by the data of every item (of its requested length).
+        ByteBuffer data = ByteBuffer.wrap(responseMessage.getData().getBytes());
+        if (data.remaining() < requestItems.size() * Result.NUM_BYTES) {
+            requestContainer.getResponseFuture().completeExceptionally(new PlcProtocolException(
+                "Sum read response too short for " + requestItems.size() + " items: " + data.remaining() + " bytes"));
+            return null;
+        }
+        ResponseCode[] responseCodes = new ResponseCode[requestItems.size()];
+        for (int i = 0; i < responseCodes.length; i++) {
+            byte[] result = new byte[Result.NUM_BYTES];
+            data.get(result);
+            responseCodes[i] = decodeResponseCode(Result.of(result));
+            evictInvalidSymbolHandle(requestItems.get(i), Result.of(result));
+        }
+        for (int i = 0; i < responseCodes.length; i++) {
+            ReadRequestItem requestItem = requestItems.get(i);
+            int numBytes = getNumBytes(requestItem);
+            if (data.remaining() < numBytes) {
+                requestContainer.getResponseFuture().completeExceptionally(new PlcProtocolException(
+                    "Sum read response lacks the data of item " + i));
+                return null;
+            }
+            byte[] bytes = new byte[numBytes];
+            data.get(bytes);
+            List decoded = responseCodes[i] == ResponseCode.OK ?
+                decodeData(requestItem.getDatatype(), bytes) : Collections.emptyList();
+            responseItems.add(new ReadResponseItem<>(requestItem, responseCodes[i], decoded));
+        }
+        return createReadResponse(plcReadRequest, responseItems);
+    }
+
+    @SuppressWarnings("unchecked")
+    private PlcResponse decodeSymbolHandleResponse(ADSReadWriteResponse responseMessage, PlcRequestContainer<PlcRequest, PlcResponse> requestContainer) {
+        ADSSymbolHandleRequest handleRequest = (ADSSymbolHandleRequest) requestContainer.getRequest();
+        List<ReadRequestItem<?>> requestItems = handleRequest.getRequestItems();
+        List<ReadResponseItem<?>> responseItems = new ArrayList<>(requestItems.size());
+
+        ResponseCode sumResponseCode = decodeResponseCode(responseMessage.getResult());
+        if (sumResponseCode != ResponseCode.OK) {
+            // If the sum command fails as a whole, so does every single item.
+            for (ReadRequestItem<?> requestItem : requestItems) {
+                responseItems.add(new ReadResponseItem<>((ReadRequestItem) requestItem, sumResponseCode, Collections.emptyList()));
+            }
+            return new ADSSymbolHandleResponse(handleRequest, responseItems);
+        }
+
+        // The results and data lengths of all items come first, followed by the handles.
+        ByteBuffer data = ByteBuffer.wrap(responseMessage.getData().getBytes());
+        if (data.remaining() < requestItems.size() * (Result.NUM_BYTES + Length.NUM_BYTES)) {
+            requestContainer.getResponseFuture().completeExceptionally(new PlcProtocolException(
+                "Symbol handle response too short for " + requestItems.size() + " items: " + data.remaining() + " bytes"));
+            return null;
+        }
+        ResponseCode[] responseCodes = new ResponseCode[requestItems.size()];
+        int[] lengths = new int[requestItems.size()];
+        for (int i = 0; i < requestItems.size(); i++) {
+            byte[] result = new byte[Result.NUM_BYTES];
+            data.get(result);
+            responseCodes[i] = decodeResponseCode(Result.of(result));
+            byte[] length = new byte[Length.NUM_BYTES];
+            data.get(length);
+            lengths[i] = (int) Length.of(length).getAsLong();
+        }
+        for (int i = 0; i < requestItems.size(); i++) {
+            if (data.remaining() < lengths[i]) {
+                requestContainer.getResponseFuture().completeExceptionally(new PlcProtocolException(
+                    "Symbol handle response lacks the data of item " + i));
+                return null;
+            }
+            byte[] bytes = new byte[lengths[i]];
+            data.get(bytes);
+            List<Long> handle = Collections.emptyList();
+            if ((responseCodes[i] == ResponseCode.OK) && (bytes.length == SYMBOL_HANDLE_LENGTH)) {
+                // Handles are unsigned 32 bit values, so they must not be sign extended.
+                long handleValue = Integer.toUnsignedLong(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt());
+                handle = Collections.singletonList(cacheSymbolHandle(handleRequest.getSymbolicAddress(i), handleValue));
+            } else if (responseCodes[i] == ResponseCode.OK) {
+                responseCodes[i] = ResponseCode.INTERNAL_ERROR;
+            }
+            responseItems.add(new ReadResponseItem<>((ReadRequestItem) requestItems.get(i), responseCodes[i], handle));
+        }
+        return new ADSSymbolHandleResponse(handleRequest, responseItems);
+    }
+
+    /**
+     * @return the handle to be used for the address (the first one, if it was resolved more than once).
+     */
+    private long cacheSymbolHandle(ADSSymbolicAddress symbolicAddress, long handle) {
+        Long cachedHandle = symbolHandles.putIfAbsent(symbolicAddress.getSymbolicAddress(), handle);
+        if (cachedHandle == null) {
+            return handle;
+        }
+        if (cachedHandle != handle) {
+            surplusSymbolHandles.add(handle);
+        }
+        return cachedHandle;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PlcResponse createReadResponse(PlcReadRequest plcReadRequest, List<ReadResponseItem<?>> responseItems) {
         if (plcReadRequest instanceof TypeSafePlcReadRequest) {
-            return new TypeSafePlcReadResponse((TypeSafePlcReadRequest) plcReadRequest, Collections.singletonList(new ReadResponseItem<>(requestItem, responseCode, decoded)));
-        } else {
-            return new PlcReadResponse(plcReadRequest, Collections.singletonList(new ReadResponseItem<>(requestItem, responseCode, decoded)));
+            return new TypeSafePlcReadResponse((TypeSafePlcReadRequest) plcReadRequest, responseItems);
+        }
+        return new PlcReadResponse(plcReadRequest, responseItems);
+    }
+
+    private PlcResponse decodeNotificationSubscriptionResponse(ADSAddDeviceNotificationResponse responseMessage, PlcRequestContainer<PlcRequest, PlcResponse> requestContainer) {
+        ADSNotificationSubscriptionRequest subscriptionRequest = (ADSNotificationSubscriptionRequest) requestContainer.getRequest();
+        if (decodeResponseCode(responseMessage.getResult()) != ResponseCode.OK) {
+            evictInvalidSymbolHandle(subscriptionRequest.getRequestItems().get(0), responseMessage.getResult());
+            requestContainer.getResponseFuture().completeExceptionally(new PlcProtocolException(
+                "Adding the device notification failed with " + responseMessage.getResult()));
+            return null;
+        }
+        NotificationHandle notificationHandle = responseMessage.getNotificationHandle();
+        subscriptions.put(notificationHandle.getAsLong(), subscriptionRequest);
+        return new ADSNotificationSubscriptionResponse(subscriptionRequest, notificationHandle);
+    }
+
+    private PlcResponse decodeNotificationUnsubscriptionResponse(ADSDeleteDeviceNotificationResponse responseMessage, PlcRequestContainer<PlcRequest, PlcResponse> requestContainer) {
+        ADSNotificationUnsubscriptionRequest unsubscriptionRequest = (ADSNotificationUnsubscriptionRequest) requestContainer.getRequest();
+        // Whatever the device answers, we aren't interested in any further samples.
+        subscriptions.remove(unsubscriptionRequest.getNotificationHandle().getAsLong());
+        if (decodeResponseCode(responseMessage.getResult()) != ResponseCode.OK) {
+            requestContainer.getResponseFuture().completeExceptionally(new PlcProtocolException(
+                "Deleting the device notification failed with " + responseMessage.getResult()));
+            return null;
+        }
+        return new ADSNotificationUnsubscriptionResponse(unsubscriptionRequest);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void decodeDeviceNotification(ADSDeviceNotificationRequest notification) throws PlcProtocolException {
+        // A single notification contains all samples the device collected within the max delay, grouped by the
+        // time they were taken at.
+        for (AdsStampHeader stampHeader : notification.getAdsStampHeaders()) {
+            Instant timestamp = stampHeader.getTimeStamp().getAsInstant();
+            for (AdsNotificationSample sample : stampHeader.getAdsNotificationSamples()) {
+                ADSNotificationSubscriptionRequest subscriptionRequest =
+                    subscriptions.get(sample.getNotificationHandle().getAsLong());
+                if (subscriptionRequest == null) {
+                    LOGGER.debug("Sample for unknown notification handle received {}", sample);
+                    continue;
+                }
+                byte[] bytes = sample.getData().getBytes();
+                // A sample without data is the last one of a handle that became invalid.
+                if (bytes.length == 0) {
+                    LOGGER.info("Notification handle became invalid {}", sample.getNotificationHandle());
+                    subscriptions.remove(sample.getNotificationHandle().getAsLong());
+                    continue;
+                }
+                ReadRequestItem<?> requestItem = subscriptionRequest.getRequestItems().get(0);
+                List decoded = decodeData(requestItem.getDatatype(), bytes);
+                ReadResponseItem<?> responseItem = new ReadResponseItem(requestItem, ResponseCode.OK, decoded);
+                // A failing subscriber must not keep the remaining samples from being delivered.
+                try {
+                    subscriptionRequest.getConsumer().accept(
+                        new PlcSubscriptionEvent(subscriptionRequest, timestamp, Collections.singletonList(responseItem)));
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Consumer of {} failed", subscriptionRequest, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * After an online change or a download, the device no longer knows the handles it handed out before. Such
+     * handles are dropped from the cache, so their symbols are resolved again the next time they are used.
+     */
+    private void evictInvalidSymbolHandle(RequestItem<?> requestItem, Result result) {
+        if (!(requestItem.getAddress() instanceof ADSSymbolicAddress)) {
+            return;
+        }
+        AdsReturnCode returnCode = result.toAdsReturnCode();
+        // Symbol not found or symbol version invalid
+        if ((returnCode == AdsReturnCode.ADS_CODE_1808) || (returnCode == AdsReturnCode.ADS_CODE_1809)) {
+            String symbolicAddress = ((ADSSymbolicAddress) requestItem.getAddress()).getSymbolicAddress();
+            if (symbolHandles.remove(symbolicAddress) != null) {
+                LOGGER.debug("Handle of {} became invalid ({})", symbolicAddress, returnCode);
+            }
+        }
+    }
+
+    /**
+     * @return the address to be sent for the given one, symbolic addresses are accessed by their handle.
+     */
+    private ADSAddress getAdsAddress(Address address) throws PlcProtocolException {
+        if (address instanceof ADSSymbolicAddress) {
+            Long handle = symbolHandles.get(((ADSSymbolicAddress) address).getSymbolicAddress());
+            if (handle == null) {
+                throw new PlcProtocolException("Symbolic address not resolved: " + address);
+            }
+            return ADSAddress.of(SYMBOL_VALUE_BY_HANDLE_INDEX_GROUP, handle);
+        }
+        if (!(address instanceof ADSAddress)) {
+            throw new PlcProtocolException("Address not of type ADSAddress: " + address.getClass());
+        }
+        return (ADSAddress) address;
+    }
+
+    /**
+     * @return number of bytes to be read for the item. Strings have no fixed length, so their size is
+     * taken as number of bytes.
+     */
+    private static int getNumBytes(ReadRequestItem<?> requestItem) throws PlcProtocolException {
+        Class<?> datatype = requestItem.getDatatype();
+        int size = requestItem.getSize();
+        if (datatype == Boolean.class || datatype == Byte.class || datatype == String.class) {
+            return size;
+        } else if (datatype == Short.class) {
+            return size * 2;
+        } else if (datatype == Integer.class || datatype == Float.class) {
+            return size * 4;
+        } else if (datatype == Calendar.class || Calendar.class.isAssignableFrom(datatype)) {
+            return size * TimeStamp.NUM_BYTES;
         }
+        throw new PlcProtocolException("Unsupported datatype " + datatype.getSimpleName());
     }
 
     private ResponseCode decodeResponseCode(Result result) {
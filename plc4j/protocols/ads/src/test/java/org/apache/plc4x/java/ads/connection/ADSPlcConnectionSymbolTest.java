@@ -0,0 +1,118 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.ads.connection;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.ads.api.commands.ADSReadRequest;
+import org.apache.plc4x.java.ads.api.commands.ADSReadResponse;
+import org.apache.plc4x.java.ads.api.commands.ADSReadWriteRequest;
+import org.apache.plc4x.java.ads.api.commands.ADSReadWriteResponse;
+import org.apache.plc4x.java.ads.api.commands.ADSWriteRequest;
+import org.apache.plc4x.java.ads.api.commands.types.Data;
+import org.apache.plc4x.java.ads.api.commands.types.Result;
+import org.apache.plc4x.java.ads.api.generic.AMSTCPPacket;
+import org.apache.plc4x.java.ads.api.generic.types.AMSNetId;
+import org.apache.plc4x.java.ads.api.generic.types.AMSPort;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleReleaseRequest;
+import org.apache.plc4x.java.ads.model.ADSSymbolicAddress;
+import org.apache.plc4x.java.ads.netty.Plc4XADSProtocol;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ADSPlcConnectionSymbolTest {
+
+    private static final AMSNetId targetAmsNetId = AMSNetId.of("1.2.3.4.5.6");
+    private static final AMSPort targetAmsPort = AMSPort.of(7);
+    private static final AMSNetId sourceAmsNetId = AMSNetId.of("8.9.10.11.12.13");
+    private static final AMSPort sourceAmsPort = AMSPort.of(14);
+
+    private static final ADSSymbolicAddress temperature = ADSSymbolicAddress.of("MAIN.fTemperature");
+
+    private EmbeddedChannel channel;
+
+    private Plc4XADSProtocol protocol;
+
+    @Before
+    public void setUp() {
+        protocol = new Plc4XADSProtocol(targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort);
+    }
+
+    @Test
+    public void resolveAgainIfHandlesAreReleasedBeforeSending() throws Exception {
+        // Have all handles released right before the read is sent, as a concurrent close would do.
+        channel = new EmbeddedChannel(protocol, new ChannelOutboundHandlerAdapter() {
+            private boolean released;
+
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+                if (!released && (((PlcRequestContainer) msg).getRequest() instanceof PlcReadRequest)) {
+                    released = true;
+                    ctx.write(new PlcRequestContainer<>(new ADSSymbolHandleReleaseRequest(),
+                        new CompletableFuture<>()));
+                }
+                super.write(ctx, msg, promise);
+            }
+        });
+        ADSPlcConnection SUT = new EmbeddedADSPlcConnection(channel);
+
+        CompletableFuture<PlcReadResponse> readFuture = SUT.read(new PlcReadRequest(Short.class, temperature));
+        respondWithHandle(channel.readOutbound(), 0x2A);
+        assertThat(channel.readOutbound(), instanceOf(ADSWriteRequest.class));
+        respondWithHandle(channel.readOutbound(), 0x2B);
+
+        ADSReadRequest readRequest = channel.readOutbound();
+        assertThat(readRequest.getIndexOffset().getAsLong(), equalTo(0x2BL));
+        channel.writeInbound(ADSReadResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            readRequest.getAmsHeader().getInvokeId(), Result.of(0), Data.of(new byte[]{0x15, 0x00})));
+        PlcReadResponse readResponse = readFuture.getNow(null);
+        assertThat(readResponse.getResponseItems().get(0).getResponseCode(), equalTo(ResponseCode.OK));
+        assertThat(readResponse.getResponseItems().get(0).getValues(), contains((short) 0x15));
+    }
+
+    private void respondWithHandle(AMSTCPPacket request, int handle) {
+        assertThat(request, instanceOf(ADSReadWriteRequest.class));
+        channel.writeInbound(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            request.getAmsHeader().getInvokeId(), Result.of(0), Data.of(new byte[]{
+                0x00, 0x00, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00, (byte) handle, 0x00, 0x00, 0x00})));
+    }
+
+    private static class EmbeddedADSPlcConnection extends ADSPlcConnection {
+
+        private EmbeddedADSPlcConnection(Channel channel) throws Exception {
+            super(InetAddress.getByName("localhost"), targetAmsNetId, targetAmsPort);
+            this.channel = channel;
+        }
+
+    }
+
+}
@@ -22,6 +22,7 @@ package org.apache.plc4x.java.ads.connection;
 import org.apache.plc4x.java.ads.api.generic.types.AMSNetId;
 import org.apache.plc4x.java.ads.api.generic.types.AMSPort;
 import org.apache.plc4x.java.ads.model.ADSAddress;
+import org.apache.plc4x.java.ads.model.ADSSymbolicAddress;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -69,4 +70,12 @@ public class ADSPlcConnectionTests {
             fail("valid data block address");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parseSymbolicAddress() throws Exception {
+        ADSSymbolicAddress address = (ADSSymbolicAddress) adsPlcConnection.parseAddress("MAIN.fTemperature");
+        assertEquals(address.getSymbolicAddress(), "MAIN.fTemperature");
+        address = (ADSSymbolicAddress) adsPlcConnection.parseAddress("GVL.aAxes[3].fPosition");
+        assertEquals(address.getSymbolicAddress(), "GVL.aAxes[3].fPosition");
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package org.apache.plc4x.java.ads.netty;
+
+import org.apache.plc4x.java.ads.api.generic.AMSTCPPacket;
+import org.apache.plc4x.java.ads.api.generic.types.AMSNetId;
+import org.apache.plc4x.java.ads.api.generic.types.AMSPort;
+import org.apache.plc4x.java.api.messages.PlcRequest;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.PlcResponse;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Fixture for tests exchanging packets with a {@link Plc4XADSProtocol} directly, without a channel.
+ */
+public abstract class AbstractPlc4XADSProtocolTest {
+
+    protected static final AMSNetId targetAmsNetId = AMSNetId.of("1.2.3.4.5.6");
+    protected static final AMSPort targetAmsPort = AMSPort.of(7);
+    protected static final AMSNetId sourceAmsNetId = AMSNetId.of("8.9.10.11.12.13");
+    protected static final AMSPort sourceAmsPort = AMSPort.of(14);
+
+    protected Plc4XADSProtocol SUT;
+
+    @Before
+    public void setUpProtocol() {
+        SUT = new Plc4XADSProtocol(targetAmsNetId, targetAmsPort, sourceAmsNetId, sourceAmsPort);
+    }
+
+    protected List<AMSTCPPacket> encode(PlcRequestContainer<PlcRequest, PlcResponse> container) throws Exception {
+        List<Object> out = new ArrayList<>();
+        SUT.encode(null, container, out);
+        List<AMSTCPPacket> packets = new ArrayList<>();
+        for (Object packet : out) {
+            packets.add((AMSTCPPacket) packet);
+        }
+        return packets;
+    }
+
+    protected AMSTCPPacket encodeSingle(PlcRequestContainer<PlcRequest, PlcResponse> container) throws Exception {
+        List<AMSTCPPacket> packets = encode(container);
+        assertThat(packets, hasSize(1));
+        return packets.get(0);
+    }
+
+    protected void decode(AMSTCPPacket packet) throws Exception {
+        SUT.decode(null, packet, new ArrayList<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    protected PlcRequestContainer<PlcRequest, PlcResponse> container(PlcRequest request) {
+        return new PlcRequestContainer<>(request, new CompletableFuture<>());
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package org.apache.plc4x.java.ads.netty;
+
+import org.apache.plc4x.java.ads.api.commands.*;
+import org.apache.plc4x.java.ads.api.commands.types.*;
+import org.apache.plc4x.java.ads.api.generic.AMSTCPPacket;
+import org.apache.plc4x.java.ads.api.generic.types.Invoke;
+import org.apache.plc4x.java.ads.messages.ADSNotificationSubscriptionRequest;
+import org.apache.plc4x.java.ads.messages.ADSNotificationUnsubscriptionRequest;
+import org.apache.plc4x.java.ads.model.ADSAddress;
+import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
+import org.apache.plc4x.java.api.messages.PlcRequest;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.PlcResponse;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionEvent;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.types.SubscriptionType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class Plc4XADSProtocolNotificationTest extends AbstractPlc4XADSProtocolTest {
+
+    private List<PlcSubscriptionEvent> events;
+
+    @Before
+    public void setUp() {
+        events = new ArrayList<>();
+    }
+
+    @Test
+    public void dispatchSamplesByNotificationHandle() throws Exception {
+        ADSNotificationSubscriptionRequest first = subscriptionRequest(SubscriptionType.CYCLIC, 2);
+        ADSNotificationSubscriptionRequest second = subscriptionRequest(SubscriptionType.CHANGE_OF_STATE, 4);
+        ADSAddDeviceNotificationRequest addRequest = (ADSAddDeviceNotificationRequest) encode(first);
+        subscribe(addRequest, 42);
+        subscribe((ADSAddDeviceNotificationRequest) encode(second), 43);
+        assertThat(SUT.getNumSubscriptions(), equalTo(2));
+
+        Instant firstTimestamp = Instant.parse("2018-03-01T10:15:30.1234567Z");
+        Instant secondTimestamp = Instant.parse("2018-03-01T10:15:30.1244567Z");
+        decode(ADSDeviceNotificationRequest.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            Invoke.of(0), Stamps.of(2), Arrays.asList(
+                AdsStampHeader.of(timeStamp(firstTimestamp), Arrays.asList(
+                    AdsNotificationSample.of(NotificationHandle.of(42), Data.of(new byte[]{0x01, 0x00})),
+                    AdsNotificationSample.of(NotificationHandle.of(43), Data.of(new byte[]{0x02, 0x00})),
+                    // Samples of handles we don't know about are dropped.
+                    AdsNotificationSample.of(NotificationHandle.of(44), Data.of(new byte[]{0x03, 0x00})))),
+                AdsStampHeader.of(timeStamp(secondTimestamp), Collections.singletonList(
+                    AdsNotificationSample.of(NotificationHandle.of(42), Data.of(new byte[]{0x04, 0x00})))))));
+
+        assertThat(events, hasSize(3));
+        assertThat(events.get(0).getRequest(), sameInstance(first));
+        assertThat(events.get(0).getTimestamp(), equalTo(firstTimestamp));
+        assertThat(events.get(0).getResponseItem().get().getValues(), contains((short) 1));
+        assertThat(events.get(1).getRequest(), sameInstance(second));
+        assertThat(events.get(1).getTimestamp(), equalTo(firstTimestamp));
+        assertThat(events.get(1).getResponseItem().get().getValues(), contains((short) 2));
+        assertThat(events.get(2).getRequest(), sameInstance(first));
+        assertThat(events.get(2).getTimestamp(), equalTo(secondTimestamp));
+        assertThat(events.get(2).getResponseItem().get().getValues(), contains((short) 4));
+    }
+
+    @Test
+    public void keepDispatchingAfterConsumerFailed() throws Exception {
+        ADSNotificationSubscriptionRequest failing = new ADSNotificationSubscriptionRequest(SubscriptionType.CYCLIC,
+            Duration.ofMillis(1), Duration.ofMillis(10), event -> {
+            throw new IllegalStateException("Consumer failed");
+        }, new ReadRequestItem<>(Short.class, ADSAddress.of(1, 2)));
+        subscribe((ADSAddDeviceNotificationRequest) encode(failing), 42);
+        subscribe((ADSAddDeviceNotificationRequest) encode(subscriptionRequest(SubscriptionType.CYCLIC, 4)), 43);
+
+        decode(ADSDeviceNotificationRequest.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            Invoke.of(0), Stamps.of(1), Collections.singletonList(AdsStampHeader.of(timeStamp(Instant.now()),
+                Arrays.asList(
+                    AdsNotificationSample.of(NotificationHandle.of(42), Data.of(new byte[]{0x01, 0x00})),
+                    AdsNotificationSample.of(NotificationHandle.of(43), Data.of(new byte[]{0x02, 0x00})))))));
+        assertThat(events, hasSize(1));
+        assertThat(events.get(0).getResponseItem().get().getValues(), contains((short) 2));
+        assertThat(SUT.getNumSubscriptions(), equalTo(2));
+    }
+
+    @Test
+    public void encodeTransmissionModeAndTimes() throws Exception {
+        ADSAddDeviceNotificationRequest cyclic = (ADSAddDeviceNotificationRequest) encode(
+            subscriptionRequest(SubscriptionType.CYCLIC, 2));
+        assertThat(cyclic.getIndexGroup().getAsLong(), equalTo(1L));
+        assertThat(cyclic.getIndexOffset().getAsLong(), equalTo(2L));
+        assertThat(cyclic.getTransmissionMode().getAsLong(), equalTo(3L));
+        assertThat(cyclic.getCycleTime().getAsLong(), equalTo(1L));
+        assertThat(cyclic.getMaxDelay().getAsLong(), equalTo(10L));
+        ADSAddDeviceNotificationRequest onChange = (ADSAddDeviceNotificationRequest) encode(
+            subscriptionRequest(SubscriptionType.CHANGE_OF_STATE, 2));
+        assertThat(onChange.getTransmissionMode().getAsLong(), equalTo(4L));
+    }
+
+    @Test
+    public void unsubscribeStopsDispatching() throws Exception {
+        subscribe((ADSAddDeviceNotificationRequest) encode(subscriptionRequest(SubscriptionType.CYCLIC, 2)), 42);
+
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(
+            new ADSNotificationUnsubscriptionRequest(NotificationHandle.of(42)));
+        AMSTCPPacket deleteRequest = encodeSingle(container);
+        assertThat(deleteRequest, instanceOf(ADSDeleteDeviceNotificationRequest.class));
+        decode(ADSDeleteDeviceNotificationResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            deleteRequest.getAmsHeader().getInvokeId(), Result.of(0)));
+        assertThat(container.getResponseFuture().isDone(), equalTo(true));
+        assertThat(SUT.getNumSubscriptions(), equalTo(0));
+
+        decode(ADSDeviceNotificationRequest.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            Invoke.of(0), Stamps.of(1), Collections.singletonList(AdsStampHeader.of(timeStamp(Instant.now()),
+                Collections.singletonList(AdsNotificationSample.of(NotificationHandle.of(42),
+                    Data.of(new byte[]{0x01, 0x00})))))));
+        assertThat(events, empty());
+    }
+
+    @Test
+    public void failSubscriptionRejectedByDevice() throws Exception {
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(
+            subscriptionRequest(SubscriptionType.CYCLIC, 2));
+        AMSTCPPacket addRequest = encodeSingle(container);
+        // ADS error 0x710: symbol not found
+        decode(ADSAddDeviceNotificationResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            addRequest.getAmsHeader().getInvokeId(), Result.of(0x710), NotificationHandle.of(0)));
+        try {
+            container.getResponseFuture().get();
+            fail("The subscription should have failed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(PlcProtocolException.class));
+        }
+        assertThat(SUT.getNumSubscriptions(), equalTo(0));
+    }
+
+    private ADSNotificationSubscriptionRequest subscriptionRequest(SubscriptionType type, int indexOffset) {
+        return new ADSNotificationSubscriptionRequest(type, Duration.ofMillis(1), Duration.ofMillis(10),
+            events::add, new ReadRequestItem<>(Short.class, ADSAddress.of(1, indexOffset)));
+    }
+
+    private void subscribe(ADSAddDeviceNotificationRequest addRequest, long notificationHandle) throws Exception {
+        decode(ADSAddDeviceNotificationResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            addRequest.getAmsHeader().getInvokeId(), Result.of(0), NotificationHandle.of(notificationHandle)));
+    }
+
+    private AMSTCPPacket encode(PlcRequest request) throws Exception {
+        return encodeSingle(container(request));
+    }
+
+    private TimeStamp timeStamp(Instant instant) {
+        // 100ns ticks since 1601-01-01
+        BigInteger seconds = BigInteger.valueOf(instant.getEpochSecond() + 11_644_473_600L);
+        return TimeStamp.ofWinTime(seconds.multiply(BigInteger.valueOf(10_000_000))
+            .add(BigInteger.valueOf(instant.getNano() / 100)));
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package org.apache.plc4x.java.ads.netty;
+
+import org.apache.plc4x.java.ads.api.commands.ADSReadWriteRequest;
+import org.apache.plc4x.java.ads.api.commands.ADSReadWriteResponse;
+import org.apache.plc4x.java.ads.api.commands.types.Data;
+import org.apache.plc4x.java.ads.api.commands.types.Result;
+import org.apache.plc4x.java.ads.api.generic.AMSTCPPacket;
+import org.apache.plc4x.java.ads.model.ADSAddress;
+import org.apache.plc4x.java.api.messages.*;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class Plc4XADSProtocolSumCommandTest extends AbstractPlc4XADSProtocolTest {
+
+    @Test
+    public void readMultipleItemsWithSingleSumCommand() throws Exception {
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(PlcReadRequest.builder()
+            .addItem(Short.class, ADSAddress.of(0x4020, 2))
+            .addItem(Integer.class, ADSAddress.of(0x4020, 4))
+            .build());
+        List<AMSTCPPacket> packets = encode(container);
+        assertThat(packets, hasSize(1));
+        ADSReadWriteRequest request = (ADSReadWriteRequest) packets.get(0);
+        assertThat(request.getIndexGroup().getAsLong(), equalTo(0xF080L));
+        assertThat(request.getIndexOffset().getAsLong(), equalTo(2L));
+        assertThat(request.getReadLength().getAsLong(), equalTo(4L + 2L + 4L + 4L));
+        assertThat(request.getData().getBytes(), equalTo(new byte[]{
+            0x20, 0x40, 0x00, 0x00, 0x02, 0x00, 0x00, 0x00, 0x02, 0x00, 0x00, 0x00,
+            0x20, 0x40, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00}));
+
+        decode(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            request.getAmsHeader().getInvokeId(), Result.of(0), Data.of(new byte[]{
+                // Results
+                0x00, 0x00, 0x00, 0x00, 0x06, 0x00, 0x00, 0x00,
+                // Data
+                0x01, 0x00, 0x00, 0x00, 0x00, 0x00})));
+        PlcReadResponse response = (PlcReadResponse) container.getResponseFuture().getNow(null);
+        assertThat(response.getResponseItems(), hasSize(2));
+        assertThat(response.getResponseItems().get(0).getResponseCode(), equalTo(ResponseCode.OK));
+        assertThat(response.getResponseItems().get(0).getValues(), contains((short) 1));
+        assertThat(response.getResponseItems().get(1).getResponseCode(), equalTo(ResponseCode.INVALID_ADDRESS));
+        assertThat(response.getResponseItems().get(1).getValues(), empty());
+    }
+
+    @Test
+    public void splitLargeReadsIntoMultipleSumCommands() throws Exception {
+        PlcReadRequest.Builder builder = PlcReadRequest.builder();
+        for (int i = 0; i < 501; i++) {
+            builder.addItem(Byte.class, ADSAddress.of(0x4020, i));
+        }
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(builder.build());
+        List<AMSTCPPacket> packets = encode(container);
+        assertThat(packets, hasSize(2));
+        assertThat(((ADSReadWriteRequest) packets.get(0)).getIndexOffset().getAsLong(), equalTo(500L));
+        assertThat(((ADSReadWriteRequest) packets.get(1)).getIndexOffset().getAsLong(), equalTo(1L));
+
+        decode(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            packets.get(1).getAmsHeader().getInvokeId(), Result.of(0), Data.of(new byte[]{0x00, 0x00, 0x00, 0x00, 0x2A})));
+        assertThat(container.getResponseFuture().isDone(), equalTo(false));
+        byte[] data = new byte[500 * 5];
+        for (int i = 0; i < 500; i++) {
+            data[500 * 4 + i] = (byte) i;
+        }
+        decode(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            packets.get(0).getAmsHeader().getInvokeId(), Result.of(0), Data.of(data)));
+
+        PlcReadResponse response = (PlcReadResponse) container.getResponseFuture().getNow(null);
+        assertThat(response.getResponseItems(), hasSize(501));
+        assertThat(response.getResponseItems().get(0).getValues(), contains((byte) 0));
+        assertThat(response.getResponseItems().get(499).getValues(), contains((byte) 499));
+        assertThat(response.getResponseItems().get(500).getValues(), contains((byte) 0x2A));
+        assertThat(response.getResponseItems().get(500).getRequestItem(),
+            sameInstance(response.getRequest().getRequestItems().get(500)));
+    }
+
+    @Test
+    public void failAllItemsIfSumCommandFails() throws Exception {
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(PlcReadRequest.builder()
+            .addItem(Short.class, ADSAddress.of(0x4020, 2))
+            .addItem(Short.class, ADSAddress.of(0x4020, 4))
+            .build());
+        AMSTCPPacket request = encode(container).get(0);
+        // ADS error 0x1: internal error
+        decode(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            request.getAmsHeader().getInvokeId(), Result.of(1), Data.of(new byte[0])));
+        PlcReadResponse response = (PlcReadResponse) container.getResponseFuture().getNow(null);
+        assertThat(response.getResponseItems().get(0).getResponseCode(), equalTo(ResponseCode.INTERNAL_ERROR));
+        assertThat(response.getResponseItems().get(1).getResponseCode(), equalTo(ResponseCode.INTERNAL_ERROR));
+    }
+
+    @Test
+    public void writeMultipleItemsWithSingleSumCommand() throws Exception {
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(PlcWriteRequest.builder()
+            .addItem(ADSAddress.of(0x4020, 2), (short) 1)
+            .addItem(ADSAddress.of(0x4020, 4), 2)
+            .build());
+        List<AMSTCPPacket> packets = encode(container);
+        assertThat(packets, hasSize(1));
+        ADSReadWriteRequest request = (ADSReadWriteRequest) packets.get(0);
+        assertThat(request.getIndexGroup().getAsLong(), equalTo(0xF081L));
+        assertThat(request.getIndexOffset().getAsLong(), equalTo(2L));
+        assertThat(request.getReadLength().getAsLong(), equalTo(8L));
+        assertThat(request.getData().getBytes(), equalTo(new byte[]{
+            0x20, 0x40, 0x00, 0x00, 0x02, 0x00, 0x00, 0x00, 0x02, 0x00, 0x00, 0x00,
+            0x20, 0x40, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00,
+            0x01, 0x00, 0x02, 0x00, 0x00, 0x00}));
+
+        decode(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            request.getAmsHeader().getInvokeId(), Result.of(0), Data.of(new byte[]{
+                0x00, 0x00, 0x00, 0x00, 0x06, 0x00, 0x00, 0x00})));
+        PlcWriteResponse response = (PlcWriteResponse) container.getResponseFuture().getNow(null);
+        assertThat(response.getResponseItems(), hasSize(2));
+        assertThat(response.getResponseItems().get(0).getResponseCode(), equalTo(ResponseCode.OK));
+        assertThat(response.getResponseItems().get(1).getResponseCode(), equalTo(ResponseCode.INVALID_ADDRESS));
+    }
+
+    @Test
+    public void splitLargeWritesIntoMultipleSumCommands() throws Exception {
+        Byte[] values = new Byte[40000];
+        Arrays.fill(values, (byte) 0x00);
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(PlcWriteRequest.builder()
+            .addItem(Byte.class, ADSAddress.of(0x4020, 0), values)
+            .addItem(Byte.class, ADSAddress.of(0x4020, 40000), values)
+            .build());
+        List<AMSTCPPacket> packets = encode(container);
+        assertThat(packets, hasSize(2));
+
+        for (AMSTCPPacket packet : packets) {
+            assertThat(((ADSReadWriteRequest) packet).getIndexOffset().getAsLong(), equalTo(1L));
+            decode(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+                packet.getAmsHeader().getInvokeId(), Result.of(0), Data.of(new byte[]{0x00, 0x00, 0x00, 0x00})));
+        }
+        PlcWriteResponse response = (PlcWriteResponse) container.getResponseFuture().getNow(null);
+        assertThat(response.getResponseItems(), hasSize(2));
+        assertThat(response.getResponseItems().get(1).getResponseCode(), equalTo(ResponseCode.OK));
+    }
+
+}
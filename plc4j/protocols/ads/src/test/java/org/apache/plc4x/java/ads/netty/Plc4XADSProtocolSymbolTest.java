@@ -0,0 +1,126 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package org.apache.plc4x.java.ads.netty;
+
+import org.apache.plc4x.java.ads.api.commands.ADSReadRequest;
+import org.apache.plc4x.java.ads.api.commands.ADSReadResponse;
+import org.apache.plc4x.java.ads.api.commands.ADSReadWriteRequest;
+import org.apache.plc4x.java.ads.api.commands.ADSReadWriteResponse;
+import org.apache.plc4x.java.ads.api.commands.ADSWriteRequest;
+import org.apache.plc4x.java.ads.api.commands.types.Data;
+import org.apache.plc4x.java.ads.api.commands.types.Result;
+import org.apache.plc4x.java.ads.api.generic.AMSTCPPacket;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleReleaseRequest;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleRequest;
+import org.apache.plc4x.java.ads.messages.ADSSymbolHandleResponse;
+import org.apache.plc4x.java.ads.model.ADSSymbolicAddress;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequest;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.PlcResponse;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class Plc4XADSProtocolSymbolTest extends AbstractPlc4XADSProtocolTest {
+
+    private static final ADSSymbolicAddress temperature = ADSSymbolicAddress.of("MAIN.fTemperature");
+    private static final ADSSymbolicAddress unknown = ADSSymbolicAddress.of("MAIN.unknown");
+
+    @Test
+    public void resolveSymbolsWithSingleSumCommand() throws Exception {
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(new ADSSymbolHandleRequest(Arrays.asList(
+            new ReadRequestItem<>(Long.class, temperature), new ReadRequestItem<>(Long.class, unknown))));
+        ADSReadWriteRequest request = (ADSReadWriteRequest) encode(container).get(0);
+        assertThat(request.getIndexGroup().getAsLong(), equalTo(0xF082L));
+        assertThat(request.getIndexOffset().getAsLong(), equalTo(2L));
+        assertThat(request.getReadLength().getAsLong(), equalTo(2L * 12L));
+        byte[] data = request.getData().getBytes();
+        // Two sub commands of 16 bytes followed by the zero terminated names.
+        assertThat(data.length, equalTo(32 + 18 + 13));
+        assertThat(Arrays.copyOfRange(data, 0, 16), equalTo(new byte[]{
+            0x03, (byte) 0xF0, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00, 0x12, 0x00, 0x00, 0x00}));
+        assertThat(new String(data, 32, 17, "ISO-8859-1"), equalTo("MAIN.fTemperature"));
+
+        decode(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            request.getAmsHeader().getInvokeId(), Result.of(0), Data.of(new byte[]{
+                // Results and lengths
+                0x00, 0x00, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00,
+                0x10, 0x07, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+                // Handle
+                0x2A, 0x00, 0x00, (byte) 0x80})));
+        ADSSymbolHandleResponse response = (ADSSymbolHandleResponse) container.getResponseFuture().getNow(null);
+        assertThat(response.getResponseItems().get(0).getResponseCode(), equalTo(ResponseCode.OK));
+        assertThat(response.getResponseItems().get(0).getValues(), contains(0x8000002AL));
+        assertThat(response.getResponseItems().get(1).getResponseCode(), not(equalTo(ResponseCode.OK)));
+        assertThat(SUT.isResolved(temperature), equalTo(true));
+        assertThat(SUT.isResolved(unknown), equalTo(false));
+        assertThat(SUT.getNumSymbolHandles(), equalTo(1));
+    }
+
+    @Test
+    public void readResolvedSymbolsByHandle() throws Exception {
+        resolve(temperature, 0x2A);
+        ADSReadRequest request = (ADSReadRequest) encode(container(
+            new PlcReadRequest(Float.class, temperature))).get(0);
+        assertThat(request.getIndexGroup().getAsLong(), equalTo(0xF005L));
+        assertThat(request.getIndexOffset().getAsLong(), equalTo(0x2AL));
+        assertThat(request.getLength().getAsLong(), equalTo(4L));
+    }
+
+    @Test
+    public void releaseAllHandles() throws Exception {
+        resolve(temperature, 0x2A);
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(new ADSSymbolHandleReleaseRequest());
+        ADSWriteRequest request = (ADSWriteRequest) encode(container).get(0);
+        assertThat(request.getIndexGroup().getAsLong(), equalTo(0xF006L));
+        assertThat(request.getData().getBytes(), equalTo(new byte[]{0x2A, 0x00, 0x00, 0x00}));
+        assertThat(SUT.getNumSymbolHandles(), equalTo(0));
+        assertThat(SUT.isResolved(temperature), equalTo(false));
+    }
+
+    @Test
+    public void evictHandlesInvalidatedByTheDevice() throws Exception {
+        resolve(temperature, 0x2A);
+        PlcRequestContainer<PlcRequest, PlcResponse> container = container(
+            new PlcReadRequest(Float.class, temperature));
+        AMSTCPPacket request = encode(container).get(0);
+        // ADS error 0x711: symbol version invalid (e.g. after an online change)
+        decode(ADSReadResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            request.getAmsHeader().getInvokeId(), Result.of(0x711), Data.of(new byte[0])));
+        PlcReadResponse response = (PlcReadResponse) container.getResponseFuture().getNow(null);
+        assertThat(response.getResponseItems().get(0).getResponseCode(), not(equalTo(ResponseCode.OK)));
+        assertThat(SUT.isResolved(temperature), equalTo(false));
+    }
+
+    private void resolve(ADSSymbolicAddress address, int handle) throws Exception {
+        AMSTCPPacket request = encode(container(new ADSSymbolHandleRequest(
+            Arrays.asList(new ReadRequestItem<>(Long.class, address))))).get(0);
+        decode(ADSReadWriteResponse.of(sourceAmsNetId, sourceAmsPort, targetAmsNetId, targetAmsPort,
+            request.getAmsHeader().getInvokeId(), Result.of(0), Data.of(new byte[]{
+                0x00, 0x00, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00, (byte) handle, 0x00, 0x00, 0x00})));
+    }
+
+}
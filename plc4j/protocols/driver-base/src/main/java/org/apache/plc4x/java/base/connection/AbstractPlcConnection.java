@@ -23,19 +23,31 @@ import io.netty.channel.ChannelHandler;
 import org.apache.plc4x.java.api.connection.PlcConnection;
 import org.apache.plc4x.java.api.connection.PlcLister;
 import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
 import org.apache.plc4x.java.api.connection.PlcWriter;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractPlcConnection implements PlcConnection {
 
+    /**
+     * Default time within which the connection including the session setup has to be established.
+     */
+    public static final long DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+
     protected final ChannelFactory channelFactory;
     protected final boolean awaitSessionSetupComplete;
-    protected Channel channel;
-    protected boolean connected;
+    protected volatile Channel channel;
+    protected volatile boolean connected;
+    private volatile long connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+    // Created on demand for connections able to read, but not to subscribe natively.
+    private PollingPlcSubscriber pollingSubscriber;
 
     protected AbstractPlcConnection(ChannelFactory channelFactory) {
         this(channelFactory, false);
@@ -48,44 +60,125 @@ public abstract class AbstractPlcConnection implements PlcConnection {
     }
 
 
+    /**
+     * @return time within which the connection including the session setup has to be established.
+     */
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        if (connectTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Connect timeout must be positive, but was " + connectTimeoutMs);
+        }
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
     @Override
     public void connect() throws PlcConnectionException {
         try {
-            // As we don't just want to wait till the connection is established,
-            // define a future we can use to signal back that the s7 session is
-            // finished initializing.
-            CompletableFuture<Void> sessionSetupCompleteFuture = new CompletableFuture<>();
-
-            // Have the channel factory create a new channel instance.
-            channel = channelFactory.createChannel(getChannelHandler(sessionSetupCompleteFuture));
-
-            // Send an event to the pipeline telling the Protocol filters what's going on.
-            sendChannelCreatedEvent();
-
-            // Wait till the connection is established.
-            if (awaitSessionSetupComplete) {
-                sessionSetupCompleteFuture.get();
-            }
-
-            // Set the connection to "connected"
-            connected = true;
+            connectAsync().get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new PlcConnectionException(e);
         } catch (ExecutionException e) {
-            throw new PlcConnectionException(e);
+            if (e.getCause() instanceof PlcConnectionException) {
+                throw (PlcConnectionException) e.getCause();
+            }
+            throw new PlcConnectionException(e.getCause());
+        }
+    }
+
+    /**
+     * Establish the connection without blocking: the channel is connected and the session set up by the
+     * event loop, which completes the returned future. If this takes longer than the connect timeout, the
+     * channel is closed and the future completed exceptionally.
+     */
+    @Override
+    public CompletableFuture<PlcConnection> connectAsync() {
+        CompletableFuture<PlcConnection> connectFuture = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeoutMs);
+
+        // As we don't just want to wait till the connection is established,
+        // define a future we can use to signal back that the session is
+        // finished initializing.
+        CompletableFuture<Void> sessionSetupCompleteFuture = new CompletableFuture<>();
+
+        // Have the channel factory create a new channel instance.
+        channelFactory.createChannelAsync(getChannelHandler(sessionSetupCompleteFuture), connectTimeoutMs)
+            .whenComplete((newChannel, channelError) -> {
+                if (channelError != null) {
+                    connectFuture.completeExceptionally(toConnectionException(channelError));
+                    return;
+                }
+                channel = newChannel;
+                try {
+                    // Send an event to the pipeline telling the Protocol filters what's going on.
+                    sendChannelCreatedEvent();
+                } catch (RuntimeException e) {
+                    newChannel.close();
+                    connectFuture.completeExceptionally(toConnectionException(e));
+                    return;
+                }
+                if (!awaitSessionSetupComplete) {
+                    connected = true;
+                    connectFuture.complete(this);
+                    return;
+                }
+
+                // Give up, if the session setup takes longer than what's left of the timeout.
+                long remainingNanos = Math.max(deadline - System.nanoTime(), 0);
+                ScheduledFuture<?> timeout = newChannel.eventLoop().schedule(() ->
+                        sessionSetupCompleteFuture.completeExceptionally(new PlcConnectionException(
+                            "Session setup not completed within " + connectTimeoutMs + "ms")),
+                    remainingNanos, TimeUnit.NANOSECONDS);
+                sessionSetupCompleteFuture.whenComplete((aVoid, setupError) -> {
+                    timeout.cancel(false);
+                    if (setupError != null) {
+                        newChannel.close();
+                        connectFuture.completeExceptionally(toConnectionException(setupError));
+                    } else {
+                        // Set the connection to "connected"
+                        connected = true;
+                        connectFuture.complete(this);
+                    }
+                });
+            });
+        return connectFuture;
+    }
+
+    private PlcConnectionException toConnectionException(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable instanceof PlcConnectionException) {
+            return (PlcConnectionException) throwable;
         }
+        return new PlcConnectionException(throwable);
     }
 
+    /**
+     * Close the channel. The event loop group it is registered with is shared with other
+     * connections, so it keeps running.
+     */
     @Override
     public void close() {
+        synchronized (this) {
+            if (pollingSubscriber != null) {
+                pollingSubscriber.close();
+            }
+        }
+        if (channel != null) {
+            channel.close().awaitUninterruptibly();
+        }
         channel = null;
         connected = false;
     }
 
     @Override
     public boolean isConnected() {
-        return connected;
+        // The PLC might have closed the connection in the meantime.
+        return connected && (channel != null) && channel.isActive();
     }
 
     public Channel getChannel() {
@@ -122,4 +215,33 @@ public abstract class AbstractPlcConnection implements PlcConnection {
         return Optional.empty();
     }
 
+    /**
+     * @return this connection, if it supports subscriptions itself. Otherwise a subscriber polling
+     * the values, if the connection is able to read.
+     */
+    @Override
+    public Optional<PlcSubscriber> getSubscriber() {
+        if (this instanceof PlcSubscriber) {
+            return Optional.of((PlcSubscriber) this);
+        }
+        if (this instanceof PlcReader) {
+            return Optional.of(getPollingSubscriber());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return subscriber polling the values using this connection, for subscriptions the protocol
+     * can't handle natively.
+     */
+    protected synchronized PollingPlcSubscriber getPollingSubscriber() {
+        if (!(this instanceof PlcReader)) {
+            throw new UnsupportedOperationException("The connection doesn't support reading");
+        }
+        if (pollingSubscriber == null) {
+            pollingSubscriber = new PollingPlcSubscriber((PlcReader) this);
+        }
+        return pollingSubscriber;
+    }
+
 }
@@ -22,9 +22,30 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface ChannelFactory {
 
     Channel createChannel(ChannelHandler channelHandler)
         throws PlcConnectionException;
 
+    /**
+     * Create a channel without waiting for the connection to be established.
+     *
+     * The default implementation calls {@link #createChannel(ChannelHandler)} and therefore blocks.
+     *
+     * @param channelHandler   handler initializing the channel pipeline.
+     * @param connectTimeoutMs time after which the connection attempt is given up.
+     * @return future completed with the connected channel, or exceptionally with a {@link PlcConnectionException}.
+     */
+    default CompletableFuture<Channel> createChannelAsync(ChannelHandler channelHandler, long connectTimeoutMs) {
+        CompletableFuture<Channel> future = new CompletableFuture<>();
+        try {
+            future.complete(createChannel(channelHandler));
+        } catch (PlcConnectionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
 }
@@ -0,0 +1,47 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.base.connection;
+
+import io.netty.channel.EventLoopGroup;
+import org.apache.plc4x.java.api.ExecutorAware;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Implemented by drivers whose connections run on netty event loops, so the application is able to
+ * choose the event loop group shared by these connections (e.g. through the {@code PlcDriverManager}).
+ */
+public interface EventLoopGroupAware extends ExecutorAware {
+
+    /**
+     * @param eventLoopGroup group used by all connections created from now on. The connections don't
+     *                       shut it down when they are closed, this is up to the caller.
+     */
+    void setEventLoopGroup(EventLoopGroup eventLoopGroup);
+
+    @Override
+    default void setExecutor(ScheduledExecutorService executor) {
+        if (!(executor instanceof EventLoopGroup)) {
+            throw new IllegalArgumentException(
+                "Connections of this driver run on netty event loops, an EventLoopGroup is required");
+        }
+        setEventLoopGroup((EventLoopGroup) executor);
+    }
+
+}
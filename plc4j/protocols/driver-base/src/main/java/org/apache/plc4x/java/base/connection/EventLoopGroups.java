@@ -0,0 +1,99 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.base.connection;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Event loop groups for the channels of connections. Instead of starting threads of its own, every
+ * connection uses a group shared with other connections, which is never shut down by a connection.
+ *
+ * If netty's native epoll transport is on the classpath and supported by the system (Linux), it is
+ * used instead of NIO. It is looked up by reflection, so it is an optional runtime dependency only.
+ */
+public class EventLoopGroups {
+
+    private static final String EPOLL_PACKAGE = "io.netty.channel.epoll.";
+
+    private EventLoopGroups() {
+        // Utility class
+    }
+
+    /**
+     * @return the group used by all connections no other group has been configured for. It is created
+     * on first use and runs daemon threads, which live as long as the application.
+     */
+    public static EventLoopGroup getDefault() {
+        return DefaultHolder.DEFAULT_GROUP;
+    }
+
+    /**
+     * Create a new group, which has to be shut down by the caller once all its connections are closed.
+     *
+     * @param numThreads number of threads (0 for netty's default of twice the number of cores).
+     */
+    public static EventLoopGroup create(int numThreads) {
+        ThreadFactory threadFactory = new DefaultThreadFactory("plc4x-io", true);
+        if (isEpollAvailable()) {
+            try {
+                return (EventLoopGroup) Class.forName(EPOLL_PACKAGE + "EpollEventLoopGroup")
+                    .getConstructor(int.class, ThreadFactory.class).newInstance(numThreads, threadFactory);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Use NIO instead.
+            }
+        }
+        return new NioEventLoopGroup(numThreads, threadFactory);
+    }
+
+    /**
+     * @return true if the native epoll transport is on the classpath and works on this system.
+     */
+    public static boolean isEpollAvailable() {
+        try {
+            return (Boolean) Class.forName(EPOLL_PACKAGE + "Epoll").getMethod("isAvailable").invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the type of socket channels the given group is able to run.
+     */
+    public static Class<? extends Channel> getSocketChannelClass(EventLoopGroup group) {
+        if (group.getClass().getName().startsWith(EPOLL_PACKAGE)) {
+            try {
+                return Class.forName(EPOLL_PACKAGE + "EpollSocketChannel").asSubclass(Channel.class);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Epoll event loop group without epoll socket channel", e);
+            }
+        }
+        return NioSocketChannel.class;
+    }
+
+    private static class DefaultHolder {
+        private static final EventLoopGroup DEFAULT_GROUP = create(0);
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.base.connection;
+
+import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionEvent;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionRequest;
+import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.api.types.SubscriptionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Subscriber for drivers whose protocol can't push values: the items are read every interval and
+ * the values (for change of state subscriptions only those which changed) are handed to the consumer.
+ *
+ * The reads are scheduled on an event loop group shared by all connections, so polling doesn't need
+ * any threads of its own. If a read isn't answered within the interval, the next one is skipped.
+ */
+public class PollingPlcSubscriber implements PlcSubscriber, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PollingPlcSubscriber.class);
+
+    private final PlcReader reader;
+    private final ScheduledExecutorService scheduler;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    public PollingPlcSubscriber(PlcReader reader) {
+        this(reader, EventLoopGroups.getDefault());
+    }
+
+    public PollingPlcSubscriber(PlcReader reader, ScheduledExecutorService scheduler) {
+        this.reader = reader;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public CompletableFuture<PlcSubscriptionHandle> subscribe(PlcSubscriptionRequest subscriptionRequest) {
+        Objects.requireNonNull(subscriptionRequest, "Subscription request must not be null");
+        Subscription subscription = new Subscription(subscriptionRequest);
+        subscriptions.add(subscription);
+        long intervalNanos = subscriptionRequest.getInterval().toNanos();
+        subscription.start(scheduler.scheduleAtFixedRate(subscription::poll, 0, intervalNanos, TimeUnit.NANOSECONDS));
+        return CompletableFuture.completedFuture(subscription);
+    }
+
+    @Override
+    public CompletableFuture<Void> unsubscribe(PlcSubscriptionHandle subscriptionHandle) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!subscriptions.remove(subscriptionHandle)) {
+            future.completeExceptionally(new IllegalArgumentException("Unknown subscription " + subscriptionHandle));
+            return future;
+        }
+        ((Subscription) subscriptionHandle).cancel();
+        future.complete(null);
+        return future;
+    }
+
+    /**
+     * @return number of subscriptions currently being polled.
+     */
+    public int getNumSubscriptions() {
+        return subscriptions.size();
+    }
+
+    /**
+     * End all subscriptions (as the connection is closed).
+     */
+    @Override
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.cancel();
+        }
+        subscriptions.clear();
+    }
+
+    private final class Subscription implements PlcSubscriptionHandle {
+
+        private final PlcSubscriptionRequest request;
+        private final PlcReadRequest readRequest;
+        // Set while a read is pending, so slow PLCs don't pile up reads.
+        private final AtomicBoolean polling = new AtomicBoolean();
+        // Values (or response codes) of the last poll, only used for change of state subscriptions.
+        // Only accessed by one poll at a time.
+        private final Object[] lastStates;
+        private volatile ScheduledFuture<?> task;
+        private volatile boolean cancelled;
+
+        private Subscription(PlcSubscriptionRequest request) {
+            this.request = request;
+            this.readRequest = new PlcReadRequest(new ArrayList<>(request.getRequestItems()));
+            this.lastStates = new Object[request.getNumberOfItems()];
+        }
+
+        @Override
+        public PlcSubscriptionRequest getRequest() {
+            return request;
+        }
+
+        private void start(ScheduledFuture<?> task) {
+            this.task = task;
+            // Might have been unsubscribed before the task was set.
+            if (cancelled) {
+                task.cancel(false);
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> scheduledTask = task;
+            if (scheduledTask != null) {
+                scheduledTask.cancel(false);
+            }
+        }
+
+        private void poll() {
+            if (cancelled || !polling.compareAndSet(false, true)) {
+                return;
+            }
+            CompletableFuture<? extends PlcReadResponse> readFuture;
+            try {
+                readFuture = reader.read(readRequest);
+            } catch (RuntimeException e) {
+                polling.set(false);
+                logger.debug("Error polling {}", request, e);
+                return;
+            }
+            readFuture.whenComplete((response, throwable) -> {
+                try {
+                    if (throwable != null) {
+                        // E.g. the connection is being re-established, just try again next time.
+                        logger.debug("Error polling {}", request, throwable);
+                    } else {
+                        deliver(response);
+                    }
+                } finally {
+                    polling.set(false);
+                }
+            });
+        }
+
+        private void deliver(PlcReadResponse response) {
+            if (cancelled) {
+                return;
+            }
+            List<? extends ReadResponseItem<?>> responseItems = response.getResponseItems();
+            if (request.getType() == SubscriptionType.CHANGE_OF_STATE) {
+                List<ReadResponseItem<?>> changedItems = new ArrayList<>();
+                for (int i = 0; i < responseItems.size(); i++) {
+                    ReadResponseItem<?> responseItem = responseItems.get(i);
+                    Object state = (responseItem.getResponseCode() == ResponseCode.OK) ?
+                        responseItem.getValues() : responseItem.getResponseCode();
+                    if (!state.equals(lastStates[i])) {
+                        lastStates[i] = state;
+                        changedItems.add(responseItem);
+                    }
+                }
+                if (changedItems.isEmpty()) {
+                    return;
+                }
+                responseItems = changedItems;
+            }
+            try {
+                request.getConsumer().accept(new PlcSubscriptionEvent(request, Instant.now(), responseItems));
+            } catch (RuntimeException e) {
+                logger.warn("Consumer of {} failed", request, e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,368 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.base.connection;
+
+import io.netty.channel.Channel;
+import org.apache.plc4x.java.api.connection.PlcConnection;
+import org.apache.plc4x.java.api.connection.PlcLister;
+import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
+import org.apache.plc4x.java.api.connection.PlcWriter;
+import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
+import org.apache.plc4x.java.api.exceptions.PlcException;
+import org.apache.plc4x.java.api.exceptions.PlcIoException;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcWriteRequest;
+import org.apache.plc4x.java.api.messages.PlcWriteResponse;
+import org.apache.plc4x.java.api.model.Address;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Connection wrapper, which transparently re-establishes the connection when it is lost (e.g. because the
+ * PLC restarted). Reconnect attempts are made with a jittered exponential backoff and run the whole session
+ * setup of the wrapped connection again.
+ *
+ * Reads issued while the connection is down, or lost together with the connection, are queued and sent
+ * once it is re-established (at most {@link #MAX_REPLAYS} times). As writes aren't necessarily idempotent,
+ * they are only replayed with {@link WritePolicy#REPLAY}. Otherwise they are failed immediately.
+ */
+public class ReconnectingPlcConnection implements PlcConnection, PlcReader, PlcWriter {
+
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 30000;
+    // Upper bound for the number of requests waiting for the connection to be re-established.
+    public static final int MAX_QUEUED_REQUESTS = 1024;
+    // Number of times a request is replayed, before it's failed (it might be what brings the connection down).
+    public static final int MAX_REPLAYS = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconnectingPlcConnection.class);
+
+    /**
+     * What happens to writes while the connection is down.
+     */
+    public enum WritePolicy {
+        /**
+         * Fail writes with a {@link PlcIoException}, so the application decides if repeating them is safe.
+         */
+        FAIL_FAST,
+        /**
+         * Queue writes and send them as soon as the connection is re-established, just like reads.
+         */
+        REPLAY
+    }
+
+    private final AbstractPlcConnection connection;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final WritePolicy writePolicy;
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by this.
+    private final Queue<PendingRequest<?>> queuedRequests = new ArrayDeque<>();
+    private boolean reconnecting = false;
+    private boolean closed = false;
+    private int numFailedAttempts = 0;
+
+    public ReconnectingPlcConnection(AbstractPlcConnection connection) {
+        this(connection, DEFAULT_INITIAL_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS, WritePolicy.FAIL_FAST,
+            EventLoopGroups.getDefault());
+    }
+
+    /**
+     * @param connection       connection to be kept alive.
+     * @param initialBackoffMs time to wait before the first reconnect attempt, doubled with every failed one.
+     * @param maxBackoffMs     upper bound for the time between two reconnect attempts.
+     * @param writePolicy      what happens to writes while the connection is down.
+     * @param scheduler        used for scheduling reconnect attempts.
+     */
+    public ReconnectingPlcConnection(AbstractPlcConnection connection, long initialBackoffMs, long maxBackoffMs,
+                                     WritePolicy writePolicy, ScheduledExecutorService scheduler) {
+        if ((initialBackoffMs <= 0) || (maxBackoffMs < initialBackoffMs)) {
+            throw new IllegalArgumentException(
+                "Invalid backoff range " + initialBackoffMs + "ms - " + maxBackoffMs + "ms");
+        }
+        this.connection = connection;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.writePolicy = writePolicy;
+        this.scheduler = scheduler;
+    }
+
+    public AbstractPlcConnection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public void connect() throws PlcConnectionException {
+        connection.connect();
+        watch(connection.getChannel());
+    }
+
+    @Override
+    public CompletableFuture<PlcConnection> connectAsync() {
+        return connection.connectAsync().thenApply(connected -> {
+            watch(connection.getChannel());
+            return this;
+        });
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connection.isConnected();
+    }
+
+    /**
+     * @return true while the connection is being re-established.
+     */
+    public synchronized boolean isReconnecting() {
+        return reconnecting;
+    }
+
+    @Override
+    public void close() {
+        List<PendingRequest<?>> abandonedRequests;
+        synchronized (this) {
+            closed = true;
+            abandonedRequests = new ArrayList<>(queuedRequests);
+            queuedRequests.clear();
+        }
+        for (PendingRequest<?> abandonedRequest : abandonedRequests) {
+            abandonedRequest.fail(new PlcConnectionException("Connection closed"));
+        }
+        connection.close();
+    }
+
+    @Override
+    public Address parseAddress(String addressString) throws PlcException {
+        return connection.parseAddress(addressString);
+    }
+
+    @Override
+    public Optional<PlcLister> getLister() {
+        return connection.getLister();
+    }
+
+    @Override
+    public Optional<PlcReader> getReader() {
+        return connection.getReader().map(reader -> this);
+    }
+
+    @Override
+    public Optional<PlcWriter> getWriter() {
+        return connection.getWriter().map(writer -> this);
+    }
+
+    /**
+     * @return the subscriber of the wrapped connection. Polled subscriptions continue after the connection
+     * was re-established, native ones have to be made again.
+     */
+    @Override
+    public Optional<PlcSubscriber> getSubscriber() {
+        return connection.getSubscriber();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<PlcReadResponse> read(PlcReadRequest readRequest) {
+        PlcReader reader = connection.getReader().orElseThrow(
+            () -> new UnsupportedOperationException("The connection doesn't support reading"));
+        return submit(new PendingRequest<>(
+            () -> (CompletableFuture<PlcReadResponse>) reader.read(readRequest), true));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<PlcWriteResponse> write(PlcWriteRequest writeRequest) {
+        PlcWriter writer = connection.getWriter().orElseThrow(
+            () -> new UnsupportedOperationException("The connection doesn't support writing"));
+        return submit(new PendingRequest<>(
+            () -> (CompletableFuture<PlcWriteResponse>) writer.write(writeRequest),
+            writePolicy == WritePolicy.REPLAY));
+    }
+
+    private <R> CompletableFuture<R> submit(PendingRequest<R> pendingRequest) {
+        if (enqueue(pendingRequest)) {
+            return pendingRequest.responseFuture;
+        }
+        pendingRequest.send();
+        return pendingRequest.responseFuture;
+    }
+
+    /**
+     * Queue the request, if the connection is currently down.
+     *
+     * @return false, if the request should be sent right away.
+     */
+    private boolean enqueue(PendingRequest<?> pendingRequest) {
+        PlcException error;
+        synchronized (this) {
+            if (closed) {
+                error = new PlcConnectionException("Connection closed");
+            } else if (!reconnecting && connection.isConnected()) {
+                return false;
+            } else if (!pendingRequest.replayable) {
+                error = new PlcIoException("Connection lost, currently reconnecting");
+            } else if (queuedRequests.size() >= MAX_QUEUED_REQUESTS) {
+                error = new PlcIoException("Too many requests waiting for the connection to be re-established");
+            } else {
+                queuedRequests.add(pendingRequest);
+                error = null;
+            }
+        }
+        // The connection might have been lost without us having noticed yet.
+        startReconnecting();
+        if (error != null) {
+            pendingRequest.fail(error);
+        }
+        return true;
+    }
+
+    private void watch(Channel channel) {
+        channel.closeFuture().addListener(future -> startReconnecting());
+    }
+
+    private void startReconnecting() {
+        synchronized (this) {
+            if (closed || reconnecting || connection.isConnected()) {
+                return;
+            }
+            reconnecting = true;
+        }
+        logger.warn("Connection lost, reconnecting");
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        long backoffMs;
+        synchronized (this) {
+            // Full backoff doubles with every failed attempt, the jitter keeps connections lost at
+            // the same time (e.g. to the same PLC) from reconnecting in lock step.
+            int exponent = Math.min(numFailedAttempts, 30);
+            long fullBackoffMs = Math.min(initialBackoffMs << exponent, maxBackoffMs);
+            backoffMs = (fullBackoffMs / 2) + ThreadLocalRandom.current().nextLong((fullBackoffMs / 2) + 1);
+        }
+        scheduler.schedule(this::reconnect, backoffMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void reconnect() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        connection.connectAsync().whenComplete((connected, throwable) -> {
+            if (throwable != null) {
+                synchronized (this) {
+                    numFailedAttempts++;
+                }
+                logger.debug("Reconnect attempt failed", throwable);
+                scheduleReconnect();
+                return;
+            }
+            List<PendingRequest<?>> replayedRequests;
+            boolean closedInTheMeantime;
+            synchronized (this) {
+                closedInTheMeantime = closed;
+                reconnecting = false;
+                numFailedAttempts = 0;
+                replayedRequests = new ArrayList<>(queuedRequests);
+                queuedRequests.clear();
+            }
+            if (closedInTheMeantime) {
+                connection.close();
+                return;
+            }
+            logger.info("Connection re-established, replaying {} requests", replayedRequests.size());
+            watch(connection.getChannel());
+            for (PendingRequest<?> replayedRequest : replayedRequests) {
+                replayedRequest.send();
+            }
+        });
+    }
+
+    private boolean isConnectionLost(Throwable throwable) {
+        if ((throwable instanceof CompletionException) && (throwable.getCause() != null)) {
+            throwable = throwable.getCause();
+        }
+        return (throwable instanceof ClosedChannelException) || !connection.isConnected();
+    }
+
+    private final class PendingRequest<R> {
+
+        private final Supplier<CompletableFuture<R>> sender;
+        private final boolean replayable;
+        private final CompletableFuture<R> responseFuture = new CompletableFuture<>();
+        private int numReplays = 0;
+
+        private PendingRequest(Supplier<CompletableFuture<R>> sender, boolean replayable) {
+            this.sender = sender;
+            this.replayable = replayable;
+        }
+
+        private void send() {
+            CompletableFuture<R> future;
+            try {
+                future = sender.get();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    responseFuture.complete(response);
+                } else if (replayable && isConnectionLost(throwable)) {
+                    if (numReplays >= MAX_REPLAYS) {
+                        responseFuture.completeExceptionally(new PlcIoException(
+                            "Connection lost while sending the request, gave up after " + numReplays + " replays",
+                            throwable));
+                        return;
+                    }
+                    numReplays++;
+                    if (!enqueue(this)) {
+                        // Already reconnected in the meantime.
+                        send();
+                    }
+                } else {
+                    responseFuture.completeExceptionally(throwable);
+                }
+            });
+        }
+
+        private void fail(Throwable throwable) {
+            responseFuture.completeExceptionally(throwable);
+        }
+
+    }
+
+}
@@ -21,34 +21,39 @@ package org.apache.plc4x.java.base.connection;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.EventLoopGroup;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 
 import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
 
 public class TcpSocketChannelFactory implements ChannelFactory {
 
     private final InetAddress address;
     private final int port;
+    private final EventLoopGroup eventLoopGroup;
 
     public TcpSocketChannelFactory(InetAddress address, int port) {
+        this(address, port, EventLoopGroups.getDefault());
+    }
+
+    /**
+     * @param eventLoopGroup group the channels are registered with (it isn't shut down when they are closed).
+     */
+    public TcpSocketChannelFactory(InetAddress address, int port, EventLoopGroup eventLoopGroup) {
         this.address = address;
         this.port = port;
+        this.eventLoopGroup = eventLoopGroup;
     }
 
     @Override
     public Channel createChannel(ChannelHandler channelHandler)
         throws PlcConnectionException {
         try {
-            Bootstrap bootstrap = new Bootstrap();
-            bootstrap.group(new NioEventLoopGroup());
-            bootstrap.channel(NioSocketChannel.class);
-            bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
-            bootstrap.option(ChannelOption.TCP_NODELAY, true);
-            bootstrap.handler(channelHandler);
+            Bootstrap bootstrap = createBootstrap(channelHandler);
             // Start the client.
             ChannelFuture f = bootstrap.connect(address, port).sync();
             f.awaitUninterruptibly();
@@ -60,4 +65,30 @@ public class TcpSocketChannelFactory implements ChannelFactory {
         }
     }
 
+    @Override
+    public CompletableFuture<Channel> createChannelAsync(ChannelHandler channelHandler, long connectTimeoutMs) {
+        Bootstrap bootstrap = createBootstrap(channelHandler);
+        bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) Math.min(connectTimeoutMs, Integer.MAX_VALUE));
+        CompletableFuture<Channel> future = new CompletableFuture<>();
+        bootstrap.connect(address, port).addListener((ChannelFutureListener) f -> {
+            if (f.isSuccess()) {
+                future.complete(f.channel());
+            } else {
+                future.completeExceptionally(new PlcConnectionException(
+                    "Error connecting to " + address.getHostAddress() + ":" + port, f.cause()));
+            }
+        });
+        return future;
+    }
+
+    private Bootstrap createBootstrap(ChannelHandler channelHandler) {
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(eventLoopGroup);
+        bootstrap.channel(EventLoopGroups.getSocketChannelClass(eventLoopGroup));
+        bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
+        bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        bootstrap.handler(channelHandler);
+        return bootstrap;
+    }
+
 }
@@ -0,0 +1,59 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.base.connection;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class EventLoopGroupAwareTest {
+
+    private final AtomicReference<EventLoopGroup> eventLoopGroup = new AtomicReference<>();
+
+    private final EventLoopGroupAware driver = eventLoopGroup::set;
+
+    @Test
+    public void acceptEventLoopGroupAsExecutor() {
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        try {
+            driver.setExecutor(group);
+            assertThat(eventLoopGroup.get(), sameInstance(group));
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectOtherExecutors() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            driver.setExecutor(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.base.connection;
+
+import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionEvent;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionRequest;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.api.types.SubscriptionType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class PollingPlcSubscriberTest {
+
+    private final AtomicInteger numReads = new AtomicInteger();
+    // Values returned by the reader: the first item counts the reads, the second one is constant.
+    private final PlcReader reader = readRequest -> {
+        int read = numReads.incrementAndGet();
+        List<ReadResponseItem<?>> responseItems = new ArrayList<>();
+        responseItems.add(responseItem(readRequest.getRequestItems().get(0), read / 2));
+        responseItems.add(responseItem(readRequest.getRequestItems().get(1), 42));
+        return CompletableFuture.completedFuture(new PlcReadResponse(readRequest, responseItems));
+    };
+    private final BlockingQueue<PlcSubscriptionEvent> events = new LinkedBlockingQueue<>();
+
+    private ScheduledExecutorService scheduler;
+    private PollingPlcSubscriber subscriber;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        subscriber = new PollingPlcSubscriber(reader, scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        subscriber.close();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void deliverValuesEveryInterval() throws Exception {
+        PlcSubscriptionRequest request = subscriptionRequest(SubscriptionType.CYCLIC);
+        subscriber.subscribe(request).get();
+
+        for (int i = 0; i < 3; i++) {
+            PlcSubscriptionEvent event = events.poll(1, TimeUnit.SECONDS);
+            assertThat(event.getRequest(), sameInstance(request));
+            assertThat(event.getResponseItems(), hasSize(2));
+            assertThat(event.getValue(request.getRequestItems().get(1)).get().getValues(),
+                equalTo(Collections.singletonList(42)));
+        }
+    }
+
+    @Test
+    public void deliverOnlyChangedValues() throws Exception {
+        PlcSubscriptionRequest request = subscriptionRequest(SubscriptionType.CHANGE_OF_STATE);
+        subscriber.subscribe(request).get();
+
+        // Initially both values are new.
+        assertThat(events.poll(1, TimeUnit.SECONDS).getResponseItems(), hasSize(2));
+        // The first value changes every other read, the second one never.
+        for (int i = 0; i < 3; i++) {
+            PlcSubscriptionEvent event = events.poll(1, TimeUnit.SECONDS);
+            assertThat(event.getResponseItems(), hasSize(1));
+            assertThat(event.getResponseItem().get().getRequestItem(),
+                sameInstance(request.getRequestItems().get(0)));
+        }
+        assertThat(numReads.get() >= 6, equalTo(true));
+    }
+
+    @Test
+    public void stopPollingAfterUnsubscribing() throws Exception {
+        PlcSubscriptionHandle handle = subscriber.subscribe(subscriptionRequest(SubscriptionType.CYCLIC)).get();
+        events.poll(1, TimeUnit.SECONDS);
+        subscriber.unsubscribe(handle).get();
+        assertThat(subscriber.getNumSubscriptions(), equalTo(0));
+
+        Thread.sleep(20);
+        events.clear();
+        Thread.sleep(20);
+        assertThat(events.poll(), nullValue());
+    }
+
+    private PlcSubscriptionRequest subscriptionRequest(SubscriptionType type) {
+        Address address = new Address() {
+        };
+        return new PlcSubscriptionRequest(type, Duration.ofMillis(1), events::add, Arrays.asList(
+            new ReadRequestItem<>(Integer.class, address), new ReadRequestItem<>(Integer.class, address)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReadResponseItem<?> responseItem(ReadRequestItem<?> requestItem, int value) {
+        return new ReadResponseItem<>((ReadRequestItem<Integer>) requestItem, ResponseCode.OK,
+            Collections.singletonList(value));
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.base.connection;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.apache.plc4x.java.api.connection.PlcConnection;
+import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcWriter;
+import org.apache.plc4x.java.api.exceptions.PlcIoException;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcWriteRequest;
+import org.apache.plc4x.java.api.messages.PlcWriteResponse;
+import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.base.connection.ReconnectingPlcConnection.WritePolicy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReconnectingPlcConnectionTest {
+
+    private static final Address ADDRESS = new Address() {
+    };
+
+    // Reconnect attempts scheduled by the connection, run by the test when it sees fit.
+    private final Queue<Runnable> scheduledTasks = new ArrayDeque<>();
+
+    private StubConnection stubConnection;
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        stubConnection = new StubConnection();
+        scheduler = mock(ScheduledExecutorService.class);
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            scheduledTasks.add(invocation.getArgument(0));
+            return null;
+        });
+    }
+
+    @Test
+    public void reconnectAndReplayReads() throws Exception {
+        ReconnectingPlcConnection connection = new ReconnectingPlcConnection(stubConnection, 100, 100,
+            WritePolicy.FAIL_FAST, scheduler);
+        connection.connect();
+        Channel firstChannel = stubConnection.getChannel();
+
+        // The PLC restarts.
+        firstChannel.close();
+        assertThat(connection.isReconnecting(), equalTo(true));
+        CompletableFuture<PlcWriteResponse> writeFuture =
+            connection.write(new PlcWriteRequest(Short.class, ADDRESS, (short) 1));
+        assertThat(writeFuture.isCompletedExceptionally(), equalTo(true));
+        CompletableFuture<PlcReadResponse> readFuture = connection.read(new PlcReadRequest(Short.class, ADDRESS));
+        assertThat(readFuture.isDone(), equalTo(false));
+        assertThat(stubConnection.reads, hasSize(0));
+
+        // The connection is re-established and the read sent on the new channel.
+        runScheduledTasks();
+        assertThat(connection.isReconnecting(), equalTo(false));
+        assertThat(connection.isConnected(), equalTo(true));
+        assertThat(stubConnection.getChannel(), not(sameInstance(firstChannel)));
+        assertThat(stubConnection.reads, hasSize(1));
+        PlcReadResponse response = new PlcReadResponse(
+            new PlcReadRequest(Short.class, ADDRESS), Collections.emptyList());
+        stubConnection.reads.poll().complete(response);
+        assertThat(readFuture.getNow(null), sameInstance(response));
+
+        connection.close();
+        assertThat(connection.isConnected(), equalTo(false));
+    }
+
+    @Test
+    public void retryFailedReconnectAttempts() throws Exception {
+        ReconnectingPlcConnection connection = new ReconnectingPlcConnection(stubConnection, 100, 100,
+            WritePolicy.FAIL_FAST, scheduler);
+        connection.connect();
+        stubConnection.getChannel().close();
+
+        stubConnection.connectionRefused = true;
+        runScheduledTasks();
+        assertThat(connection.isReconnecting(), equalTo(true));
+        assertThat(scheduledTasks, hasSize(1));
+
+        stubConnection.connectionRefused = false;
+        runScheduledTasks();
+        assertThat(connection.isReconnecting(), equalTo(false));
+        assertThat(connection.isConnected(), equalTo(true));
+    }
+
+    @Test
+    public void giveUpReplayingAfterMaxReplays() throws Exception {
+        ReconnectingPlcConnection connection = new ReconnectingPlcConnection(stubConnection, 100, 100,
+            WritePolicy.FAIL_FAST, scheduler);
+        connection.connect();
+        CompletableFuture<PlcReadResponse> readFuture = connection.read(new PlcReadRequest(Short.class, ADDRESS));
+
+        // Every time the read is sent, the connection goes down with it.
+        for (int i = 0; i <= ReconnectingPlcConnection.MAX_REPLAYS; i++) {
+            assertThat(stubConnection.reads, hasSize(1));
+            stubConnection.getChannel().close();
+            stubConnection.reads.poll().completeExceptionally(new ClosedChannelException());
+            runScheduledTasks();
+        }
+        assertThat(stubConnection.reads, hasSize(0));
+        try {
+            readFuture.get();
+            fail("Expected the read to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(PlcIoException.class));
+        }
+    }
+
+    @Test
+    public void failQueuedRequestsOnClose() throws Exception {
+        ReconnectingPlcConnection connection = new ReconnectingPlcConnection(stubConnection, 10000, 10000,
+            WritePolicy.REPLAY, scheduler);
+        connection.connect();
+        stubConnection.getChannel().close();
+
+        CompletableFuture<PlcWriteResponse> writeFuture =
+            connection.write(new PlcWriteRequest(Short.class, ADDRESS, (short) 1));
+        assertThat(writeFuture.isDone(), equalTo(false));
+        connection.close();
+        assertThat(writeFuture.isCompletedExceptionally(), equalTo(true));
+
+        // Reconnect attempts scheduled before closing have no effect.
+        runScheduledTasks();
+        assertThat(connection.isConnected(), equalTo(false));
+    }
+
+    private void runScheduledTasks() {
+        Queue<Runnable> dueTasks = new ArrayDeque<>(scheduledTasks);
+        scheduledTasks.clear();
+        for (Runnable task : dueTasks) {
+            task.run();
+        }
+    }
+
+    /**
+     * Connection on an embedded channel, which leaves answering the requests to the test.
+     */
+    private static class StubConnection extends AbstractPlcConnection implements PlcReader, PlcWriter {
+
+        private final Queue<CompletableFuture<PlcReadResponse>> reads = new ArrayDeque<>();
+        private boolean connectionRefused = false;
+
+        private StubConnection() {
+            super(new TestChannelFactory());
+        }
+
+        @Override
+        public CompletableFuture<PlcConnection> connectAsync() {
+            if (connectionRefused) {
+                CompletableFuture<PlcConnection> connectFuture = new CompletableFuture<>();
+                connectFuture.completeExceptionally(new ClosedChannelException());
+                return connectFuture;
+            }
+            return super.connectAsync();
+        }
+
+        @Override
+        protected ChannelHandler getChannelHandler(CompletableFuture<Void> sessionSetupCompleteFuture) {
+            return new ChannelInboundHandlerAdapter();
+        }
+
+        @Override
+        public Address parseAddress(String addressString) {
+            return ADDRESS;
+        }
+
+        @Override
+        public CompletableFuture<PlcReadResponse> read(PlcReadRequest readRequest) {
+            CompletableFuture<PlcReadResponse> readFuture = new CompletableFuture<>();
+            reads.add(readFuture);
+            return readFuture;
+        }
+
+        @Override
+        public CompletableFuture<PlcWriteResponse> write(PlcWriteRequest writeRequest) {
+            return new CompletableFuture<>();
+        }
+
+    }
+
+}
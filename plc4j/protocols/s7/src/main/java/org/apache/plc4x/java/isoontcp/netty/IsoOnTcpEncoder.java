@@ -0,0 +1,66 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.isoontcp.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import org.apache.plc4x.java.isoontcp.netty.model.IsoOnTcpMessage;
+import org.apache.plc4x.java.netty.util.HeaderSpace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol.HEADER_LENGTH;
+import static org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER;
+
+public class IsoOnTcpEncoder extends MessageToMessageEncoder<IsoOnTcpMessage> {
+
+    private static final Logger logger = LoggerFactory.getLogger(IsoOnTcpEncoder.class);
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, IsoOnTcpMessage in, List<Object> out) throws Exception {
+        logger.debug("ISO on TCP Message sent");
+        // At this point of processing all higher levels have already serialized their payload.
+        // This data is passed to the lower levels in form of an IoBuffer.
+        final ByteBuf userData = in.getUserData();
+
+        int packetSize = userData.readableBytes() + HEADER_LENGTH;
+
+        // Put the header in front of the payload (without copying the payload).
+        ByteBuf buf = HeaderSpace.prepend(ctx.alloc(), userData, HEADER_LENGTH,
+            header -> encodeHeader(header, packetSize));
+
+        out.add(buf);
+    }
+
+    /**
+     * Write the header of a packet with the given size (including the header).
+     */
+    public static void encodeHeader(ByteBuf buf, int packetSize) {
+        // Version (is always constant 0x03)
+        buf.writeByte(ISO_ON_TCP_MAGIC_NUMBER);
+        // Reserved (is always constant 0x00)
+        buf.writeByte((byte) 0x00);
+        // Packet length (including ISOonTCP header)
+        buf.writeShort((short) packetSize);
+    }
+
+}
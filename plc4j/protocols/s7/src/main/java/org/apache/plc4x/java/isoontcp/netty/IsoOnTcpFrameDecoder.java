@@ -0,0 +1,110 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.isoontcp.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
+import org.apache.plc4x.java.isoontcp.netty.model.IsoOnTcpMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol.HEADER_LENGTH;
+import static org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER;
+import static org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol.MAX_PACKET_LENGTH;
+import static org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol.MIN_PACKET_LENGTH;
+
+/**
+ * Cumulates the received data and cuts it into ISO on TCP packets. Packets split over multiple
+ * reads are put together, multiple packets received at once are all passed on. The payload of
+ * every packet is passed on as a slice of the received data (without copying it).
+ */
+public class IsoOnTcpFrameDecoder extends ByteToMessageDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IsoOnTcpFrameDecoder.class);
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Got Data: {}", ByteBufUtil.hexDump(in));
+        }
+        // Wait till at least the header is available, so we know how big the packet is.
+        if (in.readableBytes() < HEADER_LENGTH) {
+            return;
+        }
+        int packetStart = in.readerIndex();
+        if (in.getByte(packetStart) != ISO_ON_TCP_MAGIC_NUMBER) {
+            skipToNextPacket(ctx, in, String.format("Expecting ISO on TCP magic number: %02X", ISO_ON_TCP_MAGIC_NUMBER));
+            return;
+        }
+        // Byte 1 is a reserved byte set to 0x00
+        if (in.getByte(packetStart + 1) != 0x00) {
+            skipToNextPacket(ctx, in, String.format("Invalid ISO on TCP reserved byte: %02X", in.getByte(packetStart + 1)));
+            return;
+        }
+        int packetLength = in.getUnsignedShort(packetStart + 2);
+        if (!isValidPacketLength(packetLength)) {
+            skipToNextPacket(ctx, in, "Invalid ISO on TCP packet length: " + packetLength);
+            return;
+        }
+        // Wait till the rest of the packet has arrived.
+        if (in.readableBytes() < packetLength) {
+            return;
+        }
+        logger.debug("ISO on TCP Message received");
+        // Pass on a slice of the payload (Retained, as the cumulated data is released as soon as it's consumed).
+        ByteBuf payload = in.retainedSlice(packetStart + HEADER_LENGTH, packetLength - HEADER_LENGTH);
+        in.skipBytes(packetLength);
+        out.add(new IsoOnTcpMessage(payload));
+    }
+
+    /**
+     * The data at the current position isn't a valid packet. Report it and skip everything till the
+     * next possible start of a packet, so the following packets can still be read.
+     */
+    private void skipToNextPacket(ChannelHandlerContext ctx, ByteBuf in, String message) {
+        logger.warn(message);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Got Data: {}", ByteBufUtil.hexDump(in));
+        }
+        // Payload bytes may be 0x03 too, so only a complete valid header is taken for the start of a packet.
+        // A candidate at the very end is kept till the rest of its header has arrived.
+        int nextPacketStart = in.indexOf(in.readerIndex() + 1, in.writerIndex(), ISO_ON_TCP_MAGIC_NUMBER);
+        while ((nextPacketStart >= 0) && (in.writerIndex() - nextPacketStart >= HEADER_LENGTH) &&
+            !isPacketHeader(in, nextPacketStart)) {
+            nextPacketStart = in.indexOf(nextPacketStart + 1, in.writerIndex(), ISO_ON_TCP_MAGIC_NUMBER);
+        }
+        in.readerIndex((nextPacketStart >= 0) ? nextPacketStart : in.writerIndex());
+        ctx.fireExceptionCaught(new PlcProtocolException(message));
+    }
+
+    private static boolean isPacketHeader(ByteBuf in, int index) {
+        return (in.getByte(index) == ISO_ON_TCP_MAGIC_NUMBER) && (in.getByte(index + 1) == 0x00) &&
+            isValidPacketLength(in.getUnsignedShort(index + 2));
+    }
+
+    private static boolean isValidPacketLength(int packetLength) {
+        return (packetLength >= MIN_PACKET_LENGTH) && (packetLength <= MAX_PACKET_LENGTH);
+    }
+
+}
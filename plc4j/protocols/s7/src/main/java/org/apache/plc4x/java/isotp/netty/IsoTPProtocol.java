@@ -30,6 +30,7 @@ import org.apache.plc4x.java.isotp.netty.model.tpdus.*;
 import org.apache.plc4x.java.isotp.netty.model.types.*;
 import org.apache.plc4x.java.netty.events.S7ConnectionEvent;
 import org.apache.plc4x.java.netty.events.S7ConnectionState;
+import org.apache.plc4x.java.netty.util.HeaderSpace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +40,9 @@ import java.util.List;
 
 public class IsoTPProtocol extends MessageToMessageCodec<IsoOnTcpMessage, Tpdu> {
 
+    // Header of a data tpdu (length, tpdu code and tpdu number / end of transmission)
+    public static final int DATA_HEADER_LENGTH = 3;
+
     private static final Logger logger = LoggerFactory.getLogger(IsoTPProtocol.class);
 
     private final byte rackNo;
@@ -82,10 +86,32 @@ public class IsoTPProtocol extends MessageToMessageCodec<IsoOnTcpMessage, Tpdu>
             return;
         }
 
-        ByteBuf buf = Unpooled.buffer();
+        switch (in.getTpduCode()) {
+            case CONNECTION_REQUEST:
+            case CONNECTION_CONFIRM:
+            case DATA:
+            case DISCONNECT_REQUEST:
+            case DISCONNECT_CONFIRM:
+            case TPDU_ERROR:
+                break;
+            default:
+                if (logger.isErrorEnabled()) {
+                    logger.error("TDPU Value {} not implemented yet", in.getTpduCode().name());
+                }
+                return;
+        }
+
+        // Put the header in front of the user-data (without copying the user-data).
+        short headerLength = getHeaderLength(in);
+        ByteBuf buf = HeaderSpace.prepend(ctx.alloc(), in.getUserData(), headerLength,
+            header -> encodeHeader(in, headerLength, header));
 
+        out.add(new IsoOnTcpMessage(buf));
+    }
+
+    private void encodeHeader(Tpdu in, short headerLength, ByteBuf buf) {
         // Header length indicator field (The length byte doesn't count)
-        buf.writeByte((byte) (getHeaderLength(in) - 1));
+        buf.writeByte((byte) (headerLength - 1));
         // TPDU Code (First 4 bits), Initial Credit Allocation (Second 4 bits)
         buf.writeByte(in.getTpduCode().getCode());
         // The fixed header of a TCP TP Packet depends highly on the selected type.
@@ -105,15 +131,8 @@ public class IsoTPProtocol extends MessageToMessageCodec<IsoOnTcpMessage, Tpdu>
                 encodeError(in, buf);
                 break;
             default:
-                if (logger.isErrorEnabled()) {
-                    logger.error("TDPU Value {} not implemented yet", in.getTpduCode().name());
-                }
-                return;
+                break;
         }
-        // Add the user-data itself.
-        buf.writeBytes(in.getUserData());
-
-        out.add(new IsoOnTcpMessage(buf));
     }
 
     private void encodeError(Tpdu in, ByteBuf buf) {
@@ -140,6 +159,18 @@ public class IsoTPProtocol extends MessageToMessageCodec<IsoOnTcpMessage, Tpdu>
         // Note: A Data TPDU in Class 0 doesn't have parameters
     }
 
+    /**
+     * Write the header of a data tpdu containing a complete message (end of transmission set).
+     * Used by upper layers encoding entire packets up front.
+     */
+    public static void encodeDataHeader(ByteBuf buf, byte tpduRef) {
+        // Header length indicator field (The length byte doesn't count)
+        buf.writeByte((byte) (DATA_HEADER_LENGTH - 1));
+        buf.writeByte(TpduCode.DATA.getCode());
+        // EOT (Bit 8 = 1) / TPDU (All other bits)
+        buf.writeByte((byte) (tpduRef | 0x80));
+    }
+
     private void encodeConnecton(Tpdu in, ByteBuf buf) {
         ConnectionTpdu connectionTpdu = (ConnectionTpdu) in;
         buf.writeShort(connectionTpdu.getDestinationReference());
@@ -212,7 +243,8 @@ public class IsoTPProtocol extends MessageToMessageCodec<IsoOnTcpMessage, Tpdu>
                 // TODO: check if null is a valid value (fails test: org.apache.plc4x.java.isotp.netty.IsoTPProtocolTest.decodeConnectionConfirm)
                 tpduSizeParameter = tpdu.getParameter(TpduSizeParameter.class).orElse(null);
             }
-            out.add(new IsoTPMessage(tpdu, userData));
+            // The incoming message is released after decoding, so retain the buffer we pass on.
+            out.add(new IsoTPMessage(tpdu, userData.retain()));
         }
     }
 
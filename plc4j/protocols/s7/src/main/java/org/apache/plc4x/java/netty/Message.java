@@ -19,8 +19,14 @@ under the License.
 package org.apache.plc4x.java.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCounted;
 
-public class Message {
+/**
+ * Base of all messages passed between the protocol layers. The reference count is the one of
+ * the user data buffer, so netty releases it as soon as a layer has finished processing the
+ * message. Messages without user data aren't reference counted.
+ */
+public class Message implements ReferenceCounted {
 
     private final ByteBuf userData;
 
@@ -32,4 +38,51 @@ public class Message {
         return userData;
     }
 
+    @Override
+    public int refCnt() {
+        return (userData != null) ? userData.refCnt() : 1;
+    }
+
+    @Override
+    public Message retain() {
+        if (userData != null) {
+            userData.retain();
+        }
+        return this;
+    }
+
+    @Override
+    public Message retain(int increment) {
+        if (userData != null) {
+            userData.retain(increment);
+        }
+        return this;
+    }
+
+    @Override
+    public Message touch() {
+        if (userData != null) {
+            userData.touch();
+        }
+        return this;
+    }
+
+    @Override
+    public Message touch(Object hint) {
+        if (userData != null) {
+            userData.touch(hint);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return (userData != null) && userData.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return (userData != null) && userData.release(decrement);
+    }
+
 }
@@ -0,0 +1,40 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.netty.events;
+
+import java.util.List;
+
+/**
+ * Fired when requests are given up without a response, e.g. because they expired. The PLC may still
+ * be processing them, but their responses won't be waited for anymore, so the layers below can free
+ * everything held for these requests.
+ */
+public class S7RequestsAbandonedEvent {
+
+    private final List<Short> tpduReferences;
+
+    public S7RequestsAbandonedEvent(List<Short> tpduReferences) {
+        this.tpduReferences = tpduReferences;
+    }
+
+    public List<Short> getTpduReferences() {
+        return tpduReferences;
+    }
+
+}
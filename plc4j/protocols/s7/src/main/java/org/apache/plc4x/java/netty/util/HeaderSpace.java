@@ -0,0 +1,84 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.netty.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.function.Consumer;
+
+/**
+ * Helps the protocol layers put their headers in front of the data of the upper layers
+ * without copying it: The upper most layer allocates its buffer with enough space in front
+ * of the reader index to hold the headers of all lower layers, which then write their
+ * headers directly into this space.
+ */
+public class HeaderSpace {
+
+    private HeaderSpace() {
+        // Utility class
+    }
+
+    /**
+     * Allocate a (pooled, preferably direct) buffer with the given space reserved for headers
+     * of lower layers.
+     *
+     * @param alloc       allocator of the channel.
+     * @param headerSpace number of bytes reserved in front of the reader index.
+     * @param size        number of bytes the caller is going to write.
+     * @return buffer with reader and writer index set right after the reserved space.
+     */
+    public static ByteBuf allocate(ByteBufAllocator alloc, int headerSpace, int size) {
+        ByteBuf buf = alloc.ioBuffer(headerSpace + size);
+        buf.writerIndex(headerSpace);
+        buf.readerIndex(headerSpace);
+        return buf;
+    }
+
+    /**
+     * Put a header in front of the given payload. If the payload has enough space reserved, the header
+     * is written into this space, otherwise a composite buffer of a new header buffer and the payload
+     * is created. In both cases the payload data is not copied.
+     *
+     * @param alloc        allocator used if no space was reserved.
+     * @param payload      data of the upper layers (retained for the returned buffer).
+     * @param headerLength number of bytes the header writer writes.
+     * @param headerWriter writes the header.
+     * @return buffer containing the header followed by the payload.
+     */
+    public static ByteBuf prepend(ByteBufAllocator alloc, ByteBuf payload, int headerLength,
+                                  Consumer<ByteBuf> headerWriter) {
+        if ((payload.readerIndex() >= headerLength) && !payload.isReadOnly()) {
+            int headerStart = payload.readerIndex() - headerLength;
+            ByteBuf header = payload.slice(headerStart, headerLength);
+            header.writerIndex(0);
+            headerWriter.accept(header);
+            payload.readerIndex(headerStart);
+            return payload.retain();
+        }
+
+        ByteBuf header = alloc.ioBuffer(headerLength);
+        headerWriter.accept(header);
+        if (!payload.isReadable()) {
+            return header;
+        }
+        return alloc.compositeBuffer(2).addComponents(true, header, payload.retain());
+    }
+
+}
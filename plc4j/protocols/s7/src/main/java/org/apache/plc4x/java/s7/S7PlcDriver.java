@@ -18,10 +18,13 @@ under the License.
 */
 package org.apache.plc4x.java.s7;
 
+import io.netty.channel.EventLoopGroup;
 import org.apache.plc4x.java.api.PlcDriver;
 import org.apache.plc4x.java.api.authentication.PlcAuthentication;
 import org.apache.plc4x.java.api.connection.PlcConnection;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
+import org.apache.plc4x.java.base.connection.EventLoopGroupAware;
+import org.apache.plc4x.java.base.connection.EventLoopGroups;
 import org.apache.plc4x.java.s7.connection.S7PlcConnection;
 
 import java.net.InetAddress;
@@ -36,10 +39,12 @@ import java.util.regex.Pattern;
  * - ISO on TCP (https://tools.ietf.org/html/rfc1006)
  * - TCP
  */
-public class S7PlcDriver implements PlcDriver {
+public class S7PlcDriver implements PlcDriver, EventLoopGroupAware {
 
     private static final Pattern S7_URI_PATTERN = Pattern.compile("^s7://(?<host>.*)/(?<rack>\\d{1,4})/(?<slot>\\d{1,4})(?<params>\\?.*)?");
 
+    private volatile EventLoopGroup eventLoopGroup = EventLoopGroups.getDefault();
+
     @Override
     public String getProtocolCode() {
         return "s7";
@@ -65,7 +70,7 @@ public class S7PlcDriver implements PlcDriver {
 
         try {
             InetAddress serverInetAddress = InetAddress.getByName(host);
-            return new S7PlcConnection(serverInetAddress, rack, slot, params);
+            return new S7PlcConnection(serverInetAddress, rack, slot, params, eventLoopGroup);
         } catch (UnknownHostException e) {
             throw new PlcConnectionException("Error parsing address", e);
         }
@@ -76,4 +81,9 @@ public class S7PlcDriver implements PlcDriver {
         throw new PlcConnectionException("Basic S7 connections don't support authentication.");
     }
 
+    @Override
+    public void setEventLoopGroup(EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+    }
+
 }
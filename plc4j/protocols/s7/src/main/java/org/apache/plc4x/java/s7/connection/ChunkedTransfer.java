@@ -0,0 +1,105 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.connection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+/**
+ * Transfers a large range of bytes as a sequence of chunks, each of them fitting into a single
+ * S7 message. Up to the given number of chunks are in flight at the same time, the next chunk
+ * is sent as soon as one of them is done. The transfer stops at the first chunk failing.
+ *
+ * @param <T> result of a single chunk.
+ */
+class ChunkedTransfer<T> {
+
+    private final int numChunks;
+    private final int window;
+    private final IntFunction<CompletableFuture<T>> chunkTransfer;
+    private final List<T> results;
+    private final CompletableFuture<List<T>> future;
+
+    private int nextChunk;
+    private int completedChunks;
+
+    /**
+     * @param numChunks     number of chunks to transfer.
+     * @param window        maximum number of chunks in flight (e.g. the max AMQ negotiated with the PLC).
+     * @param chunkTransfer starts the transfer of the chunk with the given index.
+     */
+    ChunkedTransfer(int numChunks, int window, IntFunction<CompletableFuture<T>> chunkTransfer) {
+        this.numChunks = numChunks;
+        this.window = Math.max(window, 1);
+        this.chunkTransfer = chunkTransfer;
+        this.results = new ArrayList<>(Collections.nCopies(numChunks, null));
+        this.future = new CompletableFuture<>();
+    }
+
+    /**
+     * @return the results of all chunks in chunk order.
+     */
+    CompletableFuture<List<T>> start() {
+        if (numChunks == 0) {
+            future.complete(results);
+            return future;
+        }
+        for (int i = 0; i < Math.min(window, numChunks); i++) {
+            sendNextChunk();
+        }
+        return future;
+    }
+
+    private void sendNextChunk() {
+        int chunk;
+        synchronized (this) {
+            if (future.isDone() || (nextChunk >= numChunks)) {
+                return;
+            }
+            chunk = nextChunk++;
+        }
+        CompletableFuture<T> chunkFuture;
+        try {
+            chunkFuture = chunkTransfer.apply(chunk);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        chunkFuture.whenComplete((result, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            boolean done;
+            synchronized (this) {
+                results.set(chunk, result);
+                done = ++completedChunks == numChunks;
+            }
+            if (done) {
+                future.complete(results);
+            } else {
+                sendNextChunk();
+            }
+        });
+    }
+
+}
@@ -18,16 +18,25 @@ under the License.
 */
 package org.apache.plc4x.java.s7.connection;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.plc4x.java.api.connection.PlcReader;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
 import org.apache.plc4x.java.api.connection.PlcWriter;
 import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 import org.apache.plc4x.java.api.exceptions.PlcException;
+import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
 import org.apache.plc4x.java.api.messages.*;
+import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.messages.items.WriteResponseItem;
 import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.api.types.SubscriptionType;
 import org.apache.plc4x.java.base.connection.AbstractPlcConnection;
 import org.apache.plc4x.java.base.connection.ChannelFactory;
+import org.apache.plc4x.java.base.connection.EventLoopGroups;
 import org.apache.plc4x.java.base.connection.TcpSocketChannelFactory;
 import org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol;
 import org.apache.plc4x.java.isotp.netty.IsoTPProtocol;
@@ -39,19 +48,36 @@ import org.apache.plc4x.java.netty.events.S7ConnectionState;
 import org.apache.plc4x.java.s7.model.S7Address;
 import org.apache.plc4x.java.s7.model.S7BitAddress;
 import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.messages.S7BulkWriteResult;
+import org.apache.plc4x.java.s7.messages.S7CyclicSubscriptionRequest;
+import org.apache.plc4x.java.s7.messages.S7CyclicSubscriptionResponse;
+import org.apache.plc4x.java.s7.messages.S7CyclicUnsubscriptionRequest;
+import org.apache.plc4x.java.s7.messages.S7CyclicUnsubscriptionResponse;
+import org.apache.plc4x.java.s7.messages.S7PreparedReadRequest;
 import org.apache.plc4x.java.s7.netty.Plc4XS7Protocol;
 import org.apache.plc4x.java.s7.netty.S7Protocol;
 import org.apache.plc4x.java.s7.netty.model.types.MemoryArea;
+import org.apache.plc4x.java.s7.netty.strategies.S7ReadOptimizer;
+import org.apache.plc4x.java.s7.netty.strategies.S7ReadBatcher;
+import org.apache.plc4x.java.s7.netty.strategies.S7RequestPacker;
+import org.apache.plc4x.java.s7.netty.strategies.S7WriteBatcher;
+import org.apache.plc4x.java.s7.netty.util.ByteBufferWriteRequestItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class S7PlcConnection extends AbstractPlcConnection implements PlcReader, PlcWriter {
+public class S7PlcConnection extends AbstractPlcConnection implements PlcReader, PlcWriter, PlcSubscriber {
 
     private static final int ISO_ON_TCP_PORT = 102;
 
@@ -59,22 +85,45 @@ public class S7PlcConnection extends AbstractPlcConnection implements PlcReader,
         Pattern.compile("^DATA_BLOCKS/(?<blockNumber>\\d{1,4})/(?<byteOffset>\\d{1,4})");
     private static final Pattern S7_ADDRESS_PATTERN =
         Pattern.compile("^(?<memoryArea>.*?)/(?<byteOffset>\\d{1,4})(?:/(?<bitOffset>\\d))?");
+    // Upper bound for the number of parsed addresses kept per connection.
+    private static final int MAX_CACHED_ADDRESSES = 1024;
 
     private static final Logger logger = LoggerFactory.getLogger(S7PlcConnection.class);
 
     private final int rack;
     private final int slot;
+    // Least recently used addresses are dropped first, guarded by itself.
+    private final Map<String, S7Address> addressCache =
+        new LinkedHashMap<String, S7Address>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, S7Address> eldest) {
+                return size() > MAX_CACHED_ADDRESSES;
+            }
+        };
 
     private final TpduSize paramPduSize;
     private final short paramMaxAmqCaller;
     private final short paramMaxAmqCallee;
+    private final int paramReadMergeGap;
+    private final long paramWriteLingerUs;
+    private final long paramReadLingerUs;
+    private final int paramReadMaxBatchSize;
 
     public S7PlcConnection(InetAddress address, int rack, int slot, String params) {
-        this(new TcpSocketChannelFactory(address, ISO_ON_TCP_PORT), rack, slot, params);
+        this(address, rack, slot, params, EventLoopGroups.getDefault());
+    }
+
+    /**
+     * @param eventLoopGroup group the connection runs on, usually shared with other connections
+     *                       (it isn't shut down when closing the connection).
+     */
+    public S7PlcConnection(InetAddress address, int rack, int slot, String params, EventLoopGroup eventLoopGroup) {
+        this(new TcpSocketChannelFactory(address, ISO_ON_TCP_PORT, eventLoopGroup), rack, slot, params);
 
         logger.info("Configured S7cConnection with: host-name {}, rack {}, slot {}, pdu-size {}, max-amq-caller {}, " +
-                "max-amq-callee {}", address.getHostAddress(), rack, slot,
-            paramPduSize, paramMaxAmqCaller, paramMaxAmqCallee);
+                "max-amq-callee {}, read-merge-gap {}, write-linger-us {}, read-linger-us {}, read-max-batch-size {}",
+            address.getHostAddress(), rack, slot, paramPduSize, paramMaxAmqCaller, paramMaxAmqCallee,
+            paramReadMergeGap, paramWriteLingerUs, paramReadLingerUs, paramReadMaxBatchSize);
     }
 
     public S7PlcConnection(ChannelFactory channelFactory, int rack, int slot, String params) {
@@ -86,6 +135,13 @@ public class S7PlcConnection extends AbstractPlcConnection implements PlcReader,
         int paramPduSize = 1024;
         short paramMaxAmqCaller = 8;
         short paramMaxAmqCallee = 8;
+        // Merging of read items is disabled by default.
+        int paramReadMergeGap = -1;
+        // Batching of write requests is disabled by default.
+        long paramWriteLingerUs = 0;
+        // Batching of read requests is disabled by default.
+        long paramReadLingerUs = 0;
+        int paramReadMaxBatchSize = 0;
 
         if (!StringUtils.isEmpty(params)) {
             for (String param : params.split("&")) {
@@ -103,6 +159,21 @@ public class S7PlcConnection extends AbstractPlcConnection implements PlcReader,
                         case "max-amq-callee":
                             paramMaxAmqCallee = Short.parseShort(paramValue);
                             break;
+                        case "read-merge-gap":
+                            paramReadMergeGap = Integer.parseInt(paramValue);
+                            break;
+                        case "write-linger-us":
+                            paramWriteLingerUs = Long.parseLong(paramValue);
+                            break;
+                        case "read-linger-us":
+                            paramReadLingerUs = Long.parseLong(paramValue);
+                            break;
+                        case "read-max-batch-size":
+                            paramReadMaxBatchSize = Integer.parseInt(paramValue);
+                            break;
+                        case "connect-timeout-ms":
+                            setConnectTimeoutMs(Long.parseLong(paramValue));
+                            break;
                         default:
                             logger.debug("Unknown parameter {} with value {}", paramName, paramValue);
                     }
@@ -117,6 +188,10 @@ public class S7PlcConnection extends AbstractPlcConnection implements PlcReader,
         this.paramPduSize = TpduSize.valueForGivenSize(paramPduSize);
         this.paramMaxAmqCaller = paramMaxAmqCaller;
         this.paramMaxAmqCallee = paramMaxAmqCallee;
+        this.paramReadMergeGap = paramReadMergeGap;
+        this.paramWriteLingerUs = paramWriteLingerUs;
+        this.paramReadLingerUs = paramReadLingerUs;
+        this.paramReadMaxBatchSize = paramReadMaxBatchSize;
     }
 
     @Override
@@ -140,11 +215,28 @@ public class S7PlcConnection extends AbstractPlcConnection implements PlcReader,
                 pipeline.addLast(new IsoOnTcpProtocol());
                 pipeline.addLast(new IsoTPProtocol((byte) rack, (byte) slot, paramPduSize));
                 pipeline.addLast(new S7Protocol(paramMaxAmqCaller, paramMaxAmqCallee, (short) paramPduSize.getValue()));
-                pipeline.addLast(new Plc4XS7Protocol());
+                Plc4XS7Protocol plc4XS7Protocol = new Plc4XS7Protocol(createReadOptimizer());
+                pipeline.addLast(plc4XS7Protocol);
+                if (paramWriteLingerUs > 0) {
+                    pipeline.addLast(new S7WriteBatcher(paramWriteLingerUs, plc4XS7Protocol::getPduSize));
+                }
+                if (paramReadLingerUs > 0) {
+                    pipeline.addLast(new S7ReadBatcher(
+                        paramReadLingerUs, paramReadMaxBatchSize, plc4XS7Protocol::getPduSize));
+                }
             }
         };
     }
 
+    private S7ReadOptimizer createReadOptimizer() {
+        if (paramReadMergeGap < 0) {
+            return null;
+        }
+        // A merged range has to fit into a single read response.
+        return new S7ReadOptimizer(paramReadMergeGap,
+            new S7RequestPacker(paramPduSize.getValue()).getMaxReadItemDataSize());
+    }
+
     @Override
     protected void sendChannelCreatedEvent() {
         // Send an event to the pipeline telling the Protocol filters what's going on.
@@ -171,6 +263,22 @@ public class S7PlcConnection extends AbstractPlcConnection implements PlcReader,
         return paramMaxAmqCallee;
     }
 
+    public int getParamReadMergeGap() {
+        return paramReadMergeGap;
+    }
+
+    public long getParamWriteLingerUs() {
+        return paramWriteLingerUs;
+    }
+
+    public long getParamReadLingerUs() {
+        return paramReadLingerUs;
+    }
+
+    public int getParamReadMaxBatchSize() {
+        return paramReadMaxBatchSize;
+    }
+
     @Override
     public void close() {
         if ((channel != null) && channel.isOpen()) {
@@ -179,19 +287,34 @@ public class S7PlcConnection extends AbstractPlcConnection implements PlcReader,
                 (short) 0x0000, (short) 0x000F, DisconnectReason.NORMAL, Collections.emptyList(),
                 null);
             ChannelFuture sendDisconnectRequestFuture = channel.writeAndFlush(disconnectRequest);
-            sendDisconnectRequestFuture.addListener((ChannelFutureListener) future -> {
-                // Close the session itself.
-                channel.closeFuture().await();
-                channel.eventLoop().parent().shutdownGracefully();
-            });
             sendDisconnectRequestFuture.awaitUninterruptibly();
         }
+        // Close the session itself (the event loop is shared with other connections, so it keeps running).
         super.close();
     }
 
 
+    /**
+     * Parse the given address string. Parsed addresses are cached, so polling the same addresses
+     * over and over neither parses them again nor re-encodes their S7ANY parameter items.
+     */
     @Override
     public Address parseAddress(String addressString) throws PlcException {
+        synchronized (addressCache) {
+            S7Address address = addressCache.get(addressString);
+            if (address != null) {
+                return address;
+            }
+        }
+        // Parsed without holding the lock, if another thread was faster its address is used.
+        S7Address address = parseS7Address(addressString);
+        synchronized (addressCache) {
+            S7Address cachedAddress = addressCache.putIfAbsent(addressString, address);
+            return (cachedAddress != null) ? cachedAddress : address;
+        }
+    }
+
+    private S7Address parseS7Address(String addressString) throws PlcException {
         Matcher datablockAddressMatcher = S7_DATABLOCK_ADDRESS_PATTERN.matcher(addressString);
         if (datablockAddressMatcher.matches()) {
             int datablockNumber = Integer.parseInt(datablockAddressMatcher.group("blockNumber"));
@@ -214,20 +337,236 @@ public class S7PlcConnection extends AbstractPlcConnection implements PlcReader,
 
     @Override
     public CompletableFuture<PlcReadResponse> read(PlcReadRequest readRequest) {
-        CompletableFuture<PlcReadResponse> readFuture = new CompletableFuture<>();
-        PlcRequestContainer<PlcReadRequest, PlcReadResponse> container =
-            new PlcRequestContainer<>(readRequest, readFuture);
-        channel.writeAndFlush(container);
-        return readFuture;
+        return send(readRequest);
     }
 
     @Override
     public CompletableFuture<PlcWriteResponse> write(PlcWriteRequest writeRequest) {
-        CompletableFuture<PlcWriteResponse> writeFuture = new CompletableFuture<>();
-        PlcRequestContainer<PlcWriteRequest, PlcWriteResponse> container =
-            new PlcRequestContainer<>(writeRequest, writeFuture);
-        channel.writeAndFlush(container);
-        return writeFuture;
+        return send(writeRequest);
+    }
+
+    /**
+     * Encode a read request once, so it can be read again and again (e.g. when polling) without
+     * encoding it every time. Should be called after connecting, as the encoding depends on the
+     * negotiated pdu size.
+     *
+     * @param readRequest request to be prepared.
+     * @return the prepared request, which can be passed to {@link #read(S7PreparedReadRequest)}.
+     */
+    public S7PreparedReadRequest prepare(PlcReadRequest readRequest) throws PlcException {
+        return getPlc4XS7Protocol().prepareReadRequest(readRequest, channel.pipeline().get(S7Protocol.class));
+    }
+
+    /**
+     * Read a prepared request. The response is the one of the request that has been prepared.
+     */
+    public CompletableFuture<PlcReadResponse> read(S7PreparedReadRequest preparedRequest) {
+        return send(preparedRequest);
+    }
+
+    /**
+     * Read a range of bytes into the given buffer. The range is read in chunks fitting into the
+     * negotiated pdu size, keeping as many of them in flight as the PLC accepts.
+     *
+     * @param address first byte of the range (data block or memory area address).
+     * @param length  number of bytes to read.
+     * @param target  buffer the bytes are put into, starting at its position (the position isn't changed).
+     * @return the target buffer once all bytes have been read.
+     */
+    public CompletableFuture<ByteBuffer> readBytes(S7Address address, int length, ByteBuffer target) {
+        if (target.remaining() < length) {
+            throw new IllegalArgumentException("The target buffer can't hold " + length + " bytes");
+        }
+        checkByteRange(address, length);
+        if (!isConnected()) {
+            return notConnected();
+        }
+        int start = target.position();
+        int chunkSize = new S7RequestPacker(getPlc4XS7Protocol().getPduSize()).getMaxReadItemDataSize();
+        int numChunks = (length + chunkSize - 1) / chunkSize;
+        ChunkedTransfer<Void> transfer = new ChunkedTransfer<>(numChunks, getMaxAmqCaller(), chunk -> {
+            int chunkOffset = chunk * chunkSize;
+            int chunkLength = Math.min(chunkSize, length - chunkOffset);
+            PlcReadRequest readRequest =
+                new PlcReadRequest(Byte.class, offsetAddress(address, chunkOffset), chunkLength);
+            return read(readRequest).thenApply(readResponse -> {
+                ReadResponseItem<?> responseItem = readResponse.getResponseItem().orElse(null);
+                ByteBuffer data = ((responseItem != null) && (responseItem.getResponseCode() == ResponseCode.OK)) ?
+                    responseItem.getRawData().orElse(null) : null;
+                if ((data == null) || (data.remaining() != chunkLength)) {
+                    throw new CompletionException(new PlcProtocolException("Reading " + chunkLength +
+                        " bytes at offset " + chunkOffset + " failed" + ((responseItem != null) ?
+                        " with response code " + responseItem.getResponseCode() : "")));
+                }
+                // Every chunk is put into its own part of the buffer.
+                ByteBuffer chunkTarget = target.duplicate();
+                chunkTarget.position(start + chunkOffset);
+                chunkTarget.put(data);
+                return null;
+            });
+        });
+        return transfer.start().thenApply(results -> target);
+    }
+
+    /**
+     * Write a range of bytes. The range is written in chunks fitting into the negotiated pdu size,
+     * keeping as many of them in flight as the PLC accepts. The data is sent as it is, without
+     * being boxed or copied into intermediate arrays.
+     *
+     * @param address first byte of the range (data block or memory area address).
+     * @param source  the bytes between position and limit are written (the buffer must not be modified
+     *                until the returned future is completed, its position isn't changed).
+     * @return the result of every chunk as well as the overall outcome.
+     */
+    public CompletableFuture<S7BulkWriteResult> writeBytes(S7Address address, ByteBuffer source) {
+        int length = source.remaining();
+        checkByteRange(address, length);
+        if (!isConnected()) {
+            return notConnected();
+        }
+        ByteBuffer data = source.slice();
+        int chunkSize = new S7RequestPacker(getPlc4XS7Protocol().getPduSize()).getMaxWriteItemDataSize();
+        int numChunks = (length + chunkSize - 1) / chunkSize;
+        ChunkedTransfer<WriteResponseItem<?>> transfer = new ChunkedTransfer<>(numChunks, getMaxAmqCaller(),
+            chunk -> writeChunk(address, data, chunk * chunkSize, Math.min(chunkSize, length - chunk * chunkSize)));
+        return transfer.start().thenApply(S7BulkWriteResult::new);
+    }
+
+    private CompletableFuture<WriteResponseItem<?>> writeChunk(S7Address address, ByteBuffer data,
+                                                               int chunkOffset, int chunkLength) {
+        ByteBuffer chunkData = data.duplicate();
+        chunkData.position(chunkOffset);
+        chunkData.limit(chunkOffset + chunkLength);
+        PlcWriteRequest writeRequest = new PlcWriteRequest(
+            new ByteBufferWriteRequestItem(offsetAddress(address, chunkOffset), chunkData));
+        return write(writeRequest).thenApply(writeResponse -> writeResponse.getResponseItem().orElseThrow(
+            () -> new CompletionException(new PlcProtocolException(
+                "No response for the bytes at offset " + chunkOffset))));
+    }
+
+    /**
+     * Write the readable bytes of the given buffer (see {@link #writeBytes(S7Address, ByteBuffer)}).
+     * The readable bytes of composite buffers are copied, all others are referenced.
+     */
+    public CompletableFuture<S7BulkWriteResult> writeBytes(S7Address address, ByteBuf source) {
+        return writeBytes(address, source.nioBuffer());
+    }
+
+    /**
+     * Have the PLC push the values of the requested items every cycle instead of polling them.
+     *
+     * @param subscriptionRequest items, cycle time and consumer of the pushed values.
+     * @return the response containing the job id needed for ending the subscription.
+     */
+    public CompletableFuture<S7CyclicSubscriptionResponse> subscribeCyclic(
+        S7CyclicSubscriptionRequest subscriptionRequest) {
+        return send(subscriptionRequest);
+    }
+
+    /**
+     * End a cyclic subscription (no more values are handed to its consumer afterwards).
+     */
+    public CompletableFuture<S7CyclicUnsubscriptionResponse> unsubscribeCyclic(
+        S7CyclicUnsubscriptionRequest unsubscriptionRequest) {
+        return send(unsubscriptionRequest);
+    }
+
+    /**
+     * Cyclic subscriptions with a cycle time the PLC supports (a multiple of 100ms) are pushed by the
+     * PLC, all others are polled.
+     */
+    @Override
+    public CompletableFuture<PlcSubscriptionHandle> subscribe(PlcSubscriptionRequest subscriptionRequest) {
+        if ((subscriptionRequest.getType() != SubscriptionType.CYCLIC) ||
+            !S7CyclicSubscriptionRequest.isSupportedCycleTime(subscriptionRequest.getInterval())) {
+            return getPollingSubscriber().subscribe(subscriptionRequest);
+        }
+        S7CyclicSubscriptionRequest cyclicSubscriptionRequest = new S7CyclicSubscriptionRequest(
+            subscriptionRequest.getInterval(),
+            readResponse -> subscriptionRequest.getConsumer().accept(new PlcSubscriptionEvent(
+                subscriptionRequest, Instant.now(), readResponse.getResponseItems())),
+            new ArrayList<>(subscriptionRequest.getRequestItems()));
+        return subscribeCyclic(cyclicSubscriptionRequest).thenApply(
+            subscriptionResponse -> new CyclicSubscriptionHandle(subscriptionRequest, subscriptionResponse));
+    }
+
+    @Override
+    public CompletableFuture<Void> unsubscribe(PlcSubscriptionHandle subscriptionHandle) {
+        if (!(subscriptionHandle instanceof CyclicSubscriptionHandle)) {
+            return getPollingSubscriber().unsubscribe(subscriptionHandle);
+        }
+        S7CyclicSubscriptionResponse subscriptionResponse =
+            ((CyclicSubscriptionHandle) subscriptionHandle).getSubscriptionResponse();
+        return unsubscribeCyclic(new S7CyclicUnsubscriptionRequest(subscriptionResponse))
+            .thenApply(unsubscriptionResponse -> null);
+    }
+
+    private Plc4XS7Protocol getPlc4XS7Protocol() {
+        return channel.pipeline().get(Plc4XS7Protocol.class);
+    }
+
+    private int getMaxAmqCaller() {
+        return channel.pipeline().get(S7Protocol.class).getMaxAmqCaller();
+    }
+
+    private void checkByteRange(S7Address address, int length) {
+        if (address instanceof S7BitAddress) {
+            throw new IllegalArgumentException("Ranges of bytes can't start at a bit address (bit " +
+                ((S7BitAddress) address).getBitOffset() + " of byte " + (address.getByteOffset() & 0xFFFF) + ")");
+        }
+        // S7ANY addresses contain a 16 bit byte offset.
+        if ((length < 0) || ((address.getByteOffset() & 0xFFFF) + length > 0x10000)) {
+            throw new IllegalArgumentException("Invalid range of " + length + " bytes at offset " +
+                (address.getByteOffset() & 0xFFFF));
+        }
+    }
+
+    private S7Address offsetAddress(S7Address address, int offset) {
+        short byteOffset = (short) ((address.getByteOffset() & 0xFFFF) + offset);
+        if (address instanceof S7DataBlockAddress) {
+            return new S7DataBlockAddress(((S7DataBlockAddress) address).getDataBlockNumber(), byteOffset);
+        }
+        return new S7Address(address.getMemoryArea(), byteOffset);
+    }
+
+    private <T> CompletableFuture<T> notConnected() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new PlcConnectionException("The connection is not connected"));
+        return future;
+    }
+
+    private <T extends PlcRequest, R extends PlcResponse> CompletableFuture<R> send(T request) {
+        CompletableFuture<R> responseFuture = new CompletableFuture<>();
+        PlcRequestContainer<T, R> container = new PlcRequestContainer<>(request, responseFuture);
+        channel.writeAndFlush(container).addListener((ChannelFutureListener) future -> {
+            // Requests that can't be encoded (e.g. items exceeding the pdu size) would never be answered.
+            if (!future.isSuccess()) {
+                responseFuture.completeExceptionally(future.cause());
+            }
+        });
+        return responseFuture;
+    }
+
+    private static final class CyclicSubscriptionHandle implements PlcSubscriptionHandle {
+
+        private final PlcSubscriptionRequest request;
+        private final S7CyclicSubscriptionResponse subscriptionResponse;
+
+        private CyclicSubscriptionHandle(PlcSubscriptionRequest request,
+                                         S7CyclicSubscriptionResponse subscriptionResponse) {
+            this.request = request;
+            this.subscriptionResponse = subscriptionResponse;
+        }
+
+        @Override
+        public PlcSubscriptionRequest getRequest() {
+            return request;
+        }
+
+        private S7CyclicSubscriptionResponse getSubscriptionResponse() {
+            return subscriptionResponse;
+        }
+
     }
 
 }
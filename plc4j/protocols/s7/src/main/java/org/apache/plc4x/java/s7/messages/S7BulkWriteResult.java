@@ -0,0 +1,59 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.messages;
+
+import org.apache.plc4x.java.api.messages.items.WriteResponseItem;
+import org.apache.plc4x.java.api.types.ResponseCode;
+
+import java.util.List;
+
+/**
+ * Outcome of writing a range of bytes in chunks. Every chunk has its own response item
+ * (its request item tells the address and size of the chunk).
+ */
+public class S7BulkWriteResult {
+
+    private final List<WriteResponseItem<?>> chunkResults;
+
+    public S7BulkWriteResult(List<WriteResponseItem<?>> chunkResults) {
+        this.chunkResults = chunkResults;
+    }
+
+    public List<WriteResponseItem<?>> getChunkResults() {
+        return chunkResults;
+    }
+
+    /**
+     * @return {@link ResponseCode#OK} if all chunks were written, otherwise the response code
+     * of the first failed chunk.
+     */
+    public ResponseCode getResponseCode() {
+        for (WriteResponseItem<?> chunkResult : chunkResults) {
+            if (chunkResult.getResponseCode() != ResponseCode.OK) {
+                return chunkResult.getResponseCode();
+            }
+        }
+        return ResponseCode.OK;
+    }
+
+    public boolean isSuccessful() {
+        return getResponseCode() == ResponseCode.OK;
+    }
+
+}
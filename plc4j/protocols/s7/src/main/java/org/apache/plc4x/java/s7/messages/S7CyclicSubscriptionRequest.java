@@ -0,0 +1,110 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.messages;
+
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequest;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.s7.netty.model.types.CyclicTimeBase;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Asks the PLC to send the values of the given items every cycle without being polled.
+ * The values are handed to the consumer on the event loop of the connection, so it shouldn't block.
+ */
+public class S7CyclicSubscriptionRequest extends PlcRequest<ReadRequestItem<?>> {
+
+    // The cycle time is transferred as a single byte factor of the time base.
+    private static final int MAX_TIME_FACTOR = 0xFF;
+
+    private final Duration cycleTime;
+    private final CyclicTimeBase timeBase;
+    private final byte timeFactor;
+    private final Consumer<PlcReadResponse> consumer;
+
+    /**
+     * @param cycleTime    interval the PLC sends the values in (a multiple of 100ms, at most 2550s).
+     * @param consumer     receives the values of every cycle.
+     * @param requestItems items to be sent.
+     */
+    public S7CyclicSubscriptionRequest(Duration cycleTime, Consumer<PlcReadResponse> consumer,
+                                       List<ReadRequestItem<?>> requestItems) {
+        super(requestItems);
+        Objects.requireNonNull(cycleTime, "Cycle time must not be null");
+        Objects.requireNonNull(consumer, "Consumer must not be null");
+        this.cycleTime = cycleTime;
+        this.consumer = consumer;
+
+        this.timeBase = getTimeBase(cycleTime);
+        this.timeFactor = (byte) (cycleTime.toMillis() / timeBase.getMillis());
+    }
+
+    /**
+     * @return true, if the PLC is able to push values in the given interval.
+     */
+    public static boolean isSupportedCycleTime(Duration cycleTime) {
+        return findTimeBase(cycleTime) != null;
+    }
+
+    /**
+     * Find the finest time base able to represent the given cycle time.
+     */
+    private static CyclicTimeBase getTimeBase(Duration cycleTime) {
+        CyclicTimeBase timeBase = findTimeBase(cycleTime);
+        if (timeBase == null) {
+            throw new IllegalArgumentException("Cycle time " + cycleTime + " can't be represented by the PLC");
+        }
+        return timeBase;
+    }
+
+    private static CyclicTimeBase findTimeBase(Duration cycleTime) {
+        long millis = cycleTime.toMillis();
+        for (CyclicTimeBase timeBase : CyclicTimeBase.values()) {
+            if ((millis > 0) && ((millis % timeBase.getMillis()) == 0) &&
+                ((millis / timeBase.getMillis()) <= MAX_TIME_FACTOR)) {
+                return timeBase;
+            }
+        }
+        return null;
+    }
+
+    public Duration getCycleTime() {
+        return cycleTime;
+    }
+
+    public CyclicTimeBase getTimeBase() {
+        return timeBase;
+    }
+
+    /**
+     * @return cycle time in multiples of the time base (unsigned).
+     */
+    public byte getTimeFactor() {
+        return timeFactor;
+    }
+
+    public Consumer<PlcReadResponse> getConsumer() {
+        return consumer;
+    }
+
+}
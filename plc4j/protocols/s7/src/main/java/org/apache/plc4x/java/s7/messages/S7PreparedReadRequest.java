@@ -0,0 +1,96 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.messages;
+
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcRequest;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.s7.netty.strategies.OptimizedReadItem;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Read request which has been encoded once, so it can be sent again and again without
+ * optimizing, packing and encoding its items every time. It consists of the complete packets
+ * sent to the PLC (only the pdu reference is filled in when sending them), along with the
+ * information where the data of the request items is located in the responses.
+ *
+ * The packets are only valid for the pdu size they were prepared for. If the connection
+ * negotiated a different pdu size, the request is read as if it hadn't been prepared.
+ */
+public class S7PreparedReadRequest extends PlcRequest<ReadRequestItem<?>> {
+
+    private final PlcReadRequest readRequest;
+    private final int pduSize;
+    private final List<PreparedMessage> messages;
+
+    public S7PreparedReadRequest(PlcReadRequest readRequest, int pduSize, List<PreparedMessage> messages) {
+        super(readRequest.getRequestItems());
+        Objects.requireNonNull(messages, "Messages must not be null");
+        this.readRequest = readRequest;
+        this.pduSize = pduSize;
+        this.messages = messages;
+    }
+
+    /**
+     * @return the request which has been prepared (responses are created for this request).
+     */
+    public PlcReadRequest getReadRequest() {
+        return readRequest;
+    }
+
+    public int getPduSize() {
+        return pduSize;
+    }
+
+    public List<PreparedMessage> getMessages() {
+        return messages;
+    }
+
+    /**
+     * One of the S7 messages the request is split into.
+     */
+    public static class PreparedMessage {
+
+        private final byte[] packet;
+        private final List<OptimizedReadItem> items;
+
+        public PreparedMessage(byte[] packet, List<OptimizedReadItem> items) {
+            this.packet = packet;
+            this.items = items;
+        }
+
+        /**
+         * @return the complete ISO on TCP packet (must not be modified).
+         */
+        public byte[] getPacket() {
+            return packet;
+        }
+
+        /**
+         * @return the items of the message, in the order their data is returned.
+         */
+        public List<OptimizedReadItem> getItems() {
+            return items;
+        }
+
+    }
+
+}
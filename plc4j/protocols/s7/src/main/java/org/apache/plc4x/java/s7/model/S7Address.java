@@ -19,12 +19,20 @@ under the License.
 package org.apache.plc4x.java.s7.model;
 
 import org.apache.plc4x.java.api.model.Address;
+import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
 import org.apache.plc4x.java.s7.netty.model.types.MemoryArea;
+import org.apache.plc4x.java.s7.netty.model.types.SpecificationType;
+import org.apache.plc4x.java.s7.netty.model.types.TransportSize;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class S7Address implements Address {
 
     private final MemoryArea memoryArea;
     private final short byteOffset;
+    // Last S7ANY item created for each transport size (indexed by ordinal).
+    private final AtomicReferenceArray<S7AnyVarParameterItem> s7AnyItems =
+        new AtomicReferenceArray<>(TransportSize.values().length);
 
     public S7Address(MemoryArea memoryArea, short byteOffset) {
         this.memoryArea = memoryArea;
@@ -39,4 +47,24 @@ public class S7Address implements Address {
         return byteOffset;
     }
 
+    /**
+     * Get the S7ANY parameter item addressing the given number of elements at this address.
+     * Items are kept per transport size, so repeatedly reading or writing the same address
+     * reuses the item along with its encoded bytes.
+     */
+    public S7AnyVarParameterItem getS7AnyItem(TransportSize transportSize, short numElements) {
+        int index = transportSize.ordinal();
+        S7AnyVarParameterItem item = s7AnyItems.get(index);
+        if ((item == null) || (item.getNumElements() != numElements)) {
+            item = createS7AnyItem(transportSize, numElements);
+            s7AnyItems.set(index, item);
+        }
+        return item;
+    }
+
+    protected S7AnyVarParameterItem createS7AnyItem(TransportSize transportSize, short numElements) {
+        return new S7AnyVarParameterItem(SpecificationType.VARIABLE_SPECIFICATION, memoryArea,
+            transportSize, numElements, (short) 0, byteOffset, (byte) 0);
+    }
+
 }
@@ -18,7 +18,10 @@ under the License.
 */
 package org.apache.plc4x.java.s7.model;
 
+import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
 import org.apache.plc4x.java.s7.netty.model.types.MemoryArea;
+import org.apache.plc4x.java.s7.netty.model.types.SpecificationType;
+import org.apache.plc4x.java.s7.netty.model.types.TransportSize;
 
 public class S7BitAddress extends S7Address {
 
@@ -33,4 +36,10 @@ public class S7BitAddress extends S7Address {
         return bitOffset;
     }
 
+    @Override
+    protected S7AnyVarParameterItem createS7AnyItem(TransportSize transportSize, short numElements) {
+        return new S7AnyVarParameterItem(SpecificationType.VARIABLE_SPECIFICATION, getMemoryArea(),
+            transportSize, numElements, (short) 0, getByteOffset(), bitOffset);
+    }
+
 }
@@ -18,13 +18,17 @@ under the License.
 */
 package org.apache.plc4x.java.s7.netty;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.handler.codec.MessageToMessageCodec;
 import org.apache.plc4x.java.api.exceptions.PlcException;
 import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
 import org.apache.plc4x.java.api.messages.*;
 import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
 import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.messages.items.ResponseItem;
 import org.apache.plc4x.java.api.messages.items.WriteRequestItem;
 import org.apache.plc4x.java.api.messages.items.WriteResponseItem;
 import org.apache.plc4x.java.api.messages.specific.TypeSafePlcReadRequest;
@@ -33,51 +37,206 @@ import org.apache.plc4x.java.api.messages.specific.TypeSafePlcWriteRequest;
 import org.apache.plc4x.java.api.messages.specific.TypeSafePlcWriteResponse;
 import org.apache.plc4x.java.api.model.Address;
 import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.netty.events.S7RequestsAbandonedEvent;
 import org.apache.plc4x.java.s7.model.S7Address;
-import org.apache.plc4x.java.s7.model.S7BitAddress;
-import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.messages.S7CyclicSubscriptionRequest;
+import org.apache.plc4x.java.s7.messages.S7CyclicSubscriptionResponse;
+import org.apache.plc4x.java.s7.messages.S7CyclicUnsubscriptionRequest;
+import org.apache.plc4x.java.s7.messages.S7CyclicUnsubscriptionResponse;
+import org.apache.plc4x.java.s7.messages.S7PreparedReadRequest;
+import org.apache.plc4x.java.s7.netty.model.messages.PreparedRequestMessage;
 import org.apache.plc4x.java.s7.netty.model.messages.S7Message;
 import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
 import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.params.CpuServicesParameter;
+import org.apache.plc4x.java.s7.netty.model.params.SetupCommunicationParameter;
 import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
-import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
 import org.apache.plc4x.java.s7.netty.model.params.items.VarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.payloads.CyclicDataSubscriptionPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.CyclicDataUnsubscriptionPayload;
 import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
 import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
 import org.apache.plc4x.java.s7.netty.model.types.*;
-
+import org.apache.plc4x.java.s7.netty.strategies.OptimizedReadItem;
+import org.apache.plc4x.java.s7.netty.strategies.S7ReadOptimizer;
+import org.apache.plc4x.java.s7.netty.strategies.S7RequestPacker;
+import org.apache.plc4x.java.s7.netty.util.BigEndianReadResponseItem;
+import org.apache.plc4x.java.s7.netty.util.ByteBufferWriteRequestItem;
+import org.apache.plc4x.java.s7.netty.util.TpduReferenceTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.apache.plc4x.java.s7.netty.util.BigEndianDecoder.decodeData;
 import static org.apache.plc4x.java.s7.netty.util.BigEndianEncoder.encodeData;
 
 public class Plc4XS7Protocol extends MessageToMessageCodec<S7Message, PlcRequestContainer> {
 
-    private static final AtomicInteger tpduGenerator = new AtomicInteger(1);
+    // Minimum pdu size every S7 device supports (Used until the actual size is negotiated).
+    public static final short DEFAULT_PDU_SIZE = 240;
+    public static final long DEFAULT_REQUEST_TIMEOUT_MS = 10000;
+
+    // Userdata parameter and data header of cyclic data messages are 14 bytes
+    // longer than the parameter head of read var messages.
+    private static final int CYCLIC_DATA_OVERHEAD = 14;
+
+    private static final Logger logger = LoggerFactory.getLogger(Plc4XS7Protocol.class);
+
+    private final TpduReferenceTable<PendingRequest> requests;
+    // Active cyclic subscriptions by job id (a single byte assigned by the PLC).
+    private final CyclicSubscription[] subscriptions;
+    private final long requestTimeoutMs;
+    private ScheduledFuture<?> sweeper;
+    private ChannelHandlerContext context;
 
-    private Map<Short, PlcRequestContainer> requests;
+    private S7ReadOptimizer readOptimizer;
+    private S7RequestPacker requestPacker;
 
     public Plc4XS7Protocol() {
-        this.requests = new HashMap<>();
+        this(null);
+    }
+
+    /**
+     * @param readOptimizer optimizer used for merging read items or null if items should be read as requested.
+     */
+    public Plc4XS7Protocol(S7ReadOptimizer readOptimizer) {
+        this(readOptimizer, DEFAULT_REQUEST_TIMEOUT_MS);
+    }
+
+    /**
+     * @param readOptimizer    optimizer used for merging read items or null if items should be read as requested.
+     * @param requestTimeoutMs time after which requests without response are failed (0 to wait forever).
+     */
+    public Plc4XS7Protocol(S7ReadOptimizer readOptimizer, long requestTimeoutMs) {
+        this.requests = new TpduReferenceTable<>();
+        this.subscriptions = new CyclicSubscription[0x100];
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.readOptimizer = readOptimizer;
+        this.requestPacker = new S7RequestPacker(DEFAULT_PDU_SIZE);
+    }
+
+    /**
+     * @return the pdu size requests are currently split by.
+     */
+    public int getPduSize() {
+        return requestPacker.getPduSize();
+    }
+
+    public long getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    /**
+     * @return number of S7 messages still waiting for a response.
+     */
+    public int getNumPendingRequests() {
+        return requests.size();
+    }
+
+    /**
+     * @return number of cyclic subscriptions the PLC is pushing values for.
+     */
+    public int getNumSubscriptions() {
+        int numSubscriptions = 0;
+        for (CyclicSubscription subscription : subscriptions) {
+            if (subscription != null) {
+                numSubscriptions++;
+            }
+        }
+        return numSubscriptions;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        context = ctx;
+        if (requestTimeoutMs > 0) {
+            // Check for expired requests a few times per timeout period.
+            long period = Math.max(requestTimeoutMs / 4, 1);
+            sweeper = ctx.executor().scheduleAtFixedRate(
+                () -> failExpiredRequests(System.nanoTime()), period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (sweeper != null) {
+            sweeper.cancel(false);
+            sweeper = null;
+        }
+        context = null;
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // There will be no more responses to any pending requests.
+        for (PendingRequest pendingRequest : requests.removeAll()) {
+            pendingRequest.getContainer().getResponseFuture().completeExceptionally(new ClosedChannelException());
+        }
+        // Subscriptions end with the connection.
+        Arrays.fill(subscriptions, null);
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * Fail all requests the plc didn't respond to within the request timeout.
+     *
+     * @param nanoTime current time as returned by {@link System#nanoTime()}.
+     */
+    public void failExpiredRequests(long nanoTime) {
+        long deadline = nanoTime - TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs);
+        List<Short> expiredReferences = requests.getExpiredReferences(deadline);
+        if (expiredReferences.isEmpty()) {
+            return;
+        }
+        for (Short tpduReference : expiredReferences) {
+            PendingRequest pendingRequest = requests.remove(tpduReference);
+            pendingRequest.getContainer().getResponseFuture().completeExceptionally(
+                new TimeoutException("No response received within " + requestTimeoutMs + "ms"));
+        }
+        // Let the lower layers free whatever they keep for these requests (e.g. their slot in the send window).
+        if (context != null) {
+            context.pipeline().fireUserEventTriggered(new S7RequestsAbandonedEvent(expiredReferences));
+        }
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, PlcRequestContainer msg, List<Object> out) throws Exception {
         PlcRequest request = msg.getRequest();
         if (request instanceof PlcReadRequest) {
-            encodeReadRequest(msg, out);
+            encodeReadRequest(msg, (PlcReadRequest) request, out);
+        } else if (request instanceof S7PreparedReadRequest) {
+            encodePreparedReadRequest(ctx, msg, out);
         } else if (request instanceof PlcWriteRequest) {
             encodeWriteRequest(msg, out);
+        } else if (request instanceof S7CyclicSubscriptionRequest) {
+            encodeCyclicSubscriptionRequest(msg, out);
+        } else if (request instanceof S7CyclicUnsubscriptionRequest) {
+            encodeCyclicUnsubscriptionRequest(msg, out);
         }
     }
 
     private void encodeWriteRequest(PlcRequestContainer msg, List<Object> out) throws PlcException {
-        List<VarParameterItem> parameterItems = new LinkedList<>();
-        List<VarPayloadItem> payloadItems = new LinkedList<>();
+        List<VarParameterItem> parameterItems = new ArrayList<>();
+        List<VarPayloadItem> payloadItems = new ArrayList<>();
 
         PlcWriteRequest writeRequest = (PlcWriteRequest) msg.getRequest();
         for (WriteRequestItem requestItem : writeRequest.getRequestItems()) {
+            // Raw bytes are sent as they are, without boxing and encoding every single one.
+            if (requestItem instanceof ByteBufferWriteRequestItem) {
+                ByteBufferWriteRequestItem byteBufferItem = (ByteBufferWriteRequestItem) requestItem;
+                parameterItems.add(encodeVarParameterItem(
+                    requestItem.getAddress(), TransportSize.BYTE, byteBufferItem.getSize()));
+                payloadItems.add(new VarPayloadItem(DataTransportErrorCode.RESERVED,
+                    DataTransportSize.BYTE_WORD_DWORD, Unpooled.wrappedBuffer(byteBufferItem.getData())));
+                continue;
+            }
+
             // Try to get the correct S7 transport size for the given data type.
             // (Map PLC4X data type to S7 data type)
             TransportSize transportSize = encodeTransportSize(requestItem.getDatatype());
@@ -100,38 +259,191 @@ public class Plc4XS7Protocol extends MessageToMessageCodec<S7Message, PlcRequest
 
             payloadItems.add(varPayloadItem);
         }
+        // Distribute the items over as many messages as needed to stay within the pdu size.
+        List<List<Integer>> messages = requestPacker.packWriteItems(parameterItems, payloadItems);
+        if (messages.size() == 1) {
+            out.add(createWriteRequest(msg, parameterItems, payloadItems, null));
+            return;
+        }
+
+        SplitRequest splitRequest = new SplitRequest(msg, parameterItems.size(), messages.size());
+        for (List<Integer> messageItemIndexes : messages) {
+            List<VarParameterItem> messageParameterItems = new ArrayList<>(messageItemIndexes.size());
+            List<VarPayloadItem> messagePayloadItems = new ArrayList<>(messageItemIndexes.size());
+            for (Integer itemIndex : messageItemIndexes) {
+                messageParameterItems.add(parameterItems.get(itemIndex));
+                messagePayloadItems.add(payloadItems.get(itemIndex));
+            }
+            out.add(createWriteRequest(msg, messageParameterItems, messagePayloadItems,
+                new RequestPart(splitRequest, null, messageItemIndexes)));
+        }
+    }
+
+    private S7RequestMessage createWriteRequest(PlcRequestContainer msg, List<VarParameterItem> parameterItems,
+                                                List<VarPayloadItem> payloadItems, RequestPart requestPart)
+        throws PlcProtocolException {
         VarParameter writeVarParameter = new VarParameter(ParameterType.WRITE_VAR, parameterItems);
         VarPayload writeVarPayload = new VarPayload(ParameterType.WRITE_VAR, payloadItems);
 
         // Assemble the request.
-        S7RequestMessage s7WriteRequest = new S7RequestMessage(MessageType.JOB,
-            (short) tpduGenerator.getAndIncrement(), Collections.singletonList(writeVarParameter),
+        return new S7RequestMessage(MessageType.JOB,
+            allocateTpduReference(msg, requestPart), Collections.singletonList(writeVarParameter),
             Collections.singletonList(writeVarPayload));
+    }
 
-        requests.put(s7WriteRequest.getTpduReference(), msg);
+    private void encodeReadRequest(PlcRequestContainer msg, PlcReadRequest readRequest, List<Object> out)
+        throws PlcException {
+        List<VarParameterItem> parameterItems = new ArrayList<>();
+        encodeParameterItems(parameterItems, readRequest.getRequestItems());
 
-        out.add(s7WriteRequest);
+        List<List<OptimizedReadItem>> messages = packReadItems(parameterItems);
+        if ((messages.size() == 1) && (messages.get(0).size() == parameterItems.size())) {
+            // Nothing merged, nothing split: The response can be decoded as it is.
+            out.add(createReadRequest(msg, parameterItems, null));
+            return;
+        }
+
+        SplitRequest splitRequest = new SplitRequest(msg, parameterItems.size(), messages.size());
+        for (List<OptimizedReadItem> messageItems : messages) {
+            out.add(createReadRequest(msg, getParameterItems(messageItems),
+                new RequestPart(splitRequest, messageItems, null)));
+        }
     }
 
-    private void encodeReadRequest(PlcRequestContainer msg, List<Object> out) throws PlcException {
-        List<VarParameterItem> parameterItems = new LinkedList<>();
+    /**
+     * Merge (if enabled) and distribute the given items over as many messages as needed to keep
+     * requests and responses within the pdu size.
+     *
+     * @return the items of every message.
+     */
+    private List<List<OptimizedReadItem>> packReadItems(List<VarParameterItem> parameterItems)
+        throws PlcProtocolException {
+        // If enabled, try to merge items located next to each other.
+        List<OptimizedReadItem> optimizedItems;
+        if ((readOptimizer != null) && (parameterItems.size() > 1)) {
+            optimizedItems = readOptimizer.optimize(parameterItems);
+        } else {
+            optimizedItems = new ArrayList<>(parameterItems.size());
+            for (int i = 0; i < parameterItems.size(); i++) {
+                optimizedItems.add(new OptimizedReadItem(parameterItems.get(i),
+                    Collections.singletonList(new OptimizedReadItem.Slice(i, 0, -1)), false));
+            }
+        }
 
-        PlcReadRequest readRequest = (PlcReadRequest) msg.getRequest();
-        encodeParameterItems(parameterItems, readRequest);
+        List<List<Integer>> messages = requestPacker.packReadItems(getParameterItems(optimizedItems));
+        List<List<OptimizedReadItem>> messageItems = new ArrayList<>(messages.size());
+        for (List<Integer> messageItemIndexes : messages) {
+            List<OptimizedReadItem> items = new ArrayList<>(messageItemIndexes.size());
+            for (Integer itemIndex : messageItemIndexes) {
+                items.add(optimizedItems.get(itemIndex));
+            }
+            messageItems.add(items);
+        }
+        return messageItems;
+    }
+
+    private List<VarParameterItem> getParameterItems(List<OptimizedReadItem> optimizedItems) {
+        List<VarParameterItem> parameterItems = new ArrayList<>(optimizedItems.size());
+        for (OptimizedReadItem optimizedItem : optimizedItems) {
+            parameterItems.add(optimizedItem.getParameterItem());
+        }
+        return parameterItems;
+    }
+
+    /**
+     * Do all the work of encoding the given read request up front, so reading it again and again only
+     * takes copying the prepared packets. The result is only valid for the currently negotiated pdu size.
+     *
+     * @param readRequest request to be prepared.
+     * @param s7Protocol  protocol layer encoding the packets.
+     */
+    public S7PreparedReadRequest prepareReadRequest(PlcReadRequest readRequest, S7Protocol s7Protocol)
+        throws PlcException {
+        List<VarParameterItem> parameterItems = new ArrayList<>();
+        encodeParameterItems(parameterItems, readRequest.getRequestItems());
+
+        List<List<OptimizedReadItem>> messages = packReadItems(parameterItems);
+        List<S7PreparedReadRequest.PreparedMessage> preparedMessages = new ArrayList<>(messages.size());
+        for (List<OptimizedReadItem> messageItems : messages) {
+            VarParameter readVarParameter = new VarParameter(ParameterType.READ_VAR, getParameterItems(messageItems));
+            // The pdu reference is filled in every time the packet is sent.
+            byte[] packet = s7Protocol.encodePacket(new S7RequestMessage(MessageType.JOB, (short) 0,
+                Collections.singletonList(readVarParameter), Collections.emptyList()));
+            preparedMessages.add(new S7PreparedReadRequest.PreparedMessage(packet, messageItems));
+        }
+        return new S7PreparedReadRequest(readRequest, requestPacker.getPduSize(), preparedMessages);
+    }
+
+    private void encodePreparedReadRequest(ChannelHandlerContext ctx, PlcRequestContainer msg, List<Object> out)
+        throws PlcException {
+        S7PreparedReadRequest preparedRequest = (S7PreparedReadRequest) msg.getRequest();
+        // The packets might not fit anymore, if a different pdu size has been negotiated in the meantime.
+        if (preparedRequest.getPduSize() != requestPacker.getPduSize()) {
+            encodeReadRequest(msg, preparedRequest.getReadRequest(), out);
+            return;
+        }
+
+        List<S7PreparedReadRequest.PreparedMessage> messages = preparedRequest.getMessages();
+        SplitRequest splitRequest = new SplitRequest(msg, preparedRequest.getNumberOfItems(), messages.size());
+        for (S7PreparedReadRequest.PreparedMessage message : messages) {
+            short tpduReference = allocateTpduReference(msg, new RequestPart(splitRequest, message.getItems(), null));
+            byte[] template = message.getPacket();
+            ByteBuf packet = ctx.alloc().ioBuffer(template.length).writeBytes(template);
+            packet.setShort(S7Protocol.PACKET_TPDU_REFERENCE_OFFSET, tpduReference);
+            out.add(new PreparedRequestMessage(tpduReference, packet));
+        }
+    }
+
+    private S7RequestMessage createReadRequest(PlcRequestContainer msg, List<VarParameterItem> parameterItems,
+                                               RequestPart requestPart) throws PlcProtocolException {
         VarParameter readVarParameter = new VarParameter(ParameterType.READ_VAR, parameterItems);
 
         // Assemble the request.
-        S7RequestMessage s7ReadRequest = new S7RequestMessage(MessageType.JOB,
-            (short) tpduGenerator.getAndIncrement(), Collections.singletonList(readVarParameter),
+        return new S7RequestMessage(MessageType.JOB,
+            allocateTpduReference(msg, requestPart), Collections.singletonList(readVarParameter),
             Collections.emptyList());
+    }
 
-        requests.put(s7ReadRequest.getTpduReference(), msg);
+    private void encodeCyclicSubscriptionRequest(PlcRequestContainer msg, List<Object> out) throws PlcException {
+        S7CyclicSubscriptionRequest subscriptionRequest = (S7CyclicSubscriptionRequest) msg.getRequest();
+        List<VarParameterItem> parameterItems = new ArrayList<>();
+        encodeParameterItems(parameterItems, subscriptionRequest.getRequestItems());
+
+        // The values of all items are pushed in one message, so they can't be split.
+        S7RequestPacker packer = new S7RequestPacker(requestPacker.getPduSize() - CYCLIC_DATA_OVERHEAD);
+        if (packer.packReadItems(parameterItems).size() > 1) {
+            throw new PlcProtocolException("The items of a cyclic subscription have to fit into a single message");
+        }
 
-        out.add(s7ReadRequest);
+        CpuServicesParameter parameter = new CpuServicesParameter(UserDataType.REQUEST,
+            UserDataFunctionGroup.CYCLIC_DATA, CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY, (byte) 0x00);
+        CyclicDataSubscriptionPayload payload = new CyclicDataSubscriptionPayload(
+            subscriptionRequest.getTimeBase(), subscriptionRequest.getTimeFactor(), parameterItems);
+        out.add(new S7RequestMessage(MessageType.USER_DATA, allocateTpduReference(msg, null),
+            Collections.singletonList(parameter), Collections.singletonList(payload)));
     }
 
-    private void encodeParameterItems(List<VarParameterItem> parameterItems, PlcReadRequest readRequest) throws PlcException {
-        for (ReadRequestItem requestItem : readRequest.getRequestItems()) {
+    private void encodeCyclicUnsubscriptionRequest(PlcRequestContainer msg, List<Object> out)
+        throws PlcProtocolException {
+        S7CyclicUnsubscriptionRequest unsubscriptionRequest = (S7CyclicUnsubscriptionRequest) msg.getRequest();
+        CpuServicesParameter parameter = new CpuServicesParameter(UserDataType.REQUEST,
+            UserDataFunctionGroup.CYCLIC_DATA, CpuServicesParameter.SUB_FUNCTION_CYCLIC_UNSUBSCRIBE, (byte) 0x00);
+        CyclicDataUnsubscriptionPayload payload = new CyclicDataUnsubscriptionPayload(unsubscriptionRequest.getJobId());
+        out.add(new S7RequestMessage(MessageType.USER_DATA, allocateTpduReference(msg, null),
+            Collections.singletonList(parameter), Collections.singletonList(payload)));
+    }
+
+    private short allocateTpduReference(PlcRequestContainer msg, RequestPart requestPart) throws PlcProtocolException {
+        try {
+            return requests.allocate(new PendingRequest(msg, requestPart), System.nanoTime());
+        } catch (IllegalStateException e) {
+            throw new PlcProtocolException("Too many pending requests", e);
+        }
+    }
+
+    private void encodeParameterItems(List<VarParameterItem> parameterItems, List<ReadRequestItem<?>> requestItems)
+        throws PlcException {
+        for (ReadRequestItem requestItem : requestItems) {
             // Try to get the correct S7 transport size for the given data type.
             // (Map PLC4X data type to S7 data type)
             TransportSize transportSize = encodeTransportSize(requestItem.getDatatype());
@@ -148,22 +460,50 @@ public class Plc4XS7Protocol extends MessageToMessageCodec<S7Message, PlcRequest
     @SuppressWarnings("unchecked")
     @Override
     protected void decode(ChannelHandlerContext ctx, S7Message msg, List<Object> out) throws Exception {
+        Optional<CpuServicesParameter> cpuServicesParameter = msg.getParameter(CpuServicesParameter.class);
+        if (cpuServicesParameter.isPresent() &&
+            (cpuServicesParameter.get().getFunctionGroup() == UserDataFunctionGroup.CYCLIC_DATA)) {
+            decodeCyclicData(msg, cpuServicesParameter.get());
+            return;
+        }
         if (!(msg instanceof S7ResponseMessage)) {
             return;
         }
         S7ResponseMessage responseMessage = (S7ResponseMessage) msg;
+
+        // The response to the setup communication request tells us the pdu size the PLC agreed on.
+        Optional<SetupCommunicationParameter> setupCommunicationParameter =
+            responseMessage.getParameter(SetupCommunicationParameter.class);
+        if (setupCommunicationParameter.isPresent()) {
+            setPduSize(setupCommunicationParameter.get().getPduLength());
+            return;
+        }
+
         short tpduReference = responseMessage.getTpduReference();
-        if (requests.containsKey(tpduReference)) {
-            PlcRequestContainer requestContainer = requests.remove(tpduReference);
+        PendingRequest pendingRequest = requests.remove(tpduReference);
+        if (pendingRequest != null) {
+            PlcRequestContainer requestContainer = pendingRequest.getContainer();
+            RequestPart requestPart = pendingRequest.getRequestPart();
+            if (requestPart != null) {
+                decodeRequestPart(responseMessage, requestPart);
+                return;
+            }
             PlcRequest request = requestContainer.getRequest();
             PlcResponse response = null;
 
-            // Handle the response to a read request.
-            if (request instanceof PlcReadRequest) {
-                response = decodeReadRequest(responseMessage, requestContainer);
-            }
-            else if (request instanceof PlcWriteRequest) {
-                response = decodeWriteRequest(responseMessage, requestContainer);
+            try {
+                // Handle the response to a read request.
+                PlcReadRequest readRequest = getReadRequest(request);
+                if (readRequest != null) {
+                    response = decodeReadRequest(responseMessage, readRequest);
+                }
+                else if (request instanceof PlcWriteRequest) {
+                    response = decodeWriteRequest(responseMessage, requestContainer);
+                }
+            } catch (PlcProtocolException e) {
+                // The request isn't pending anymore, so nobody else is going to complete it.
+                requestContainer.getResponseFuture().completeExceptionally(e);
+                return;
             }
 
             // Confirm the response being handled.
@@ -175,9 +515,8 @@ public class Plc4XS7Protocol extends MessageToMessageCodec<S7Message, PlcRequest
 
     @SuppressWarnings("unchecked")
     private PlcResponse decodeWriteRequest(S7ResponseMessage responseMessage, PlcRequestContainer requestContainer) throws PlcProtocolException {
-        PlcResponse response;
         PlcWriteRequest plcWriteRequest = (PlcWriteRequest) requestContainer.getRequest();
-        List<WriteResponseItem<?>> responseItems = new LinkedList<>();
+        List<WriteResponseItem<?>> responseItems = new ArrayList<>(plcWriteRequest.getNumberOfItems());
         VarPayload payload = responseMessage.getPayload(VarPayload.class)
             .orElseThrow(() -> new PlcProtocolException("No VarPayload supplied"));
         // If the numbers of items don't match, we're in big trouble as the only
@@ -202,20 +541,13 @@ public class Plc4XS7Protocol extends MessageToMessageCodec<S7Message, PlcRequest
             responseItems.add(responseItem);
         }
 
-        if (plcWriteRequest instanceof TypeSafePlcWriteRequest) {
-            response = new TypeSafePlcWriteResponse((TypeSafePlcWriteRequest) plcWriteRequest, responseItems);
-        } else {
-            response = new PlcWriteResponse(plcWriteRequest, responseItems);
-        }
-        return response;
+        return createWriteResponse(plcWriteRequest, responseItems);
     }
 
     @SuppressWarnings("unchecked")
-    private PlcResponse decodeReadRequest(S7ResponseMessage responseMessage, PlcRequestContainer requestContainer) throws PlcProtocolException {
-        PlcResponse response;
-        PlcReadRequest plcReadRequest = (PlcReadRequest) requestContainer.getRequest();
-
-        List<ReadResponseItem<?>> responseItems = new LinkedList<>();
+    private PlcResponse decodeReadRequest(S7ResponseMessage responseMessage, PlcReadRequest plcReadRequest)
+        throws PlcProtocolException {
+        List<ReadResponseItem<?>> responseItems = new ArrayList<>(plcReadRequest.getNumberOfItems());
         VarPayload payload = responseMessage.getPayload(VarPayload.class)
             .orElseThrow(() -> new PlcProtocolException("No VarPayload supplied"));
         // If the numbers of items don't match, we're in big trouble as the only
@@ -235,26 +567,235 @@ public class Plc4XS7Protocol extends MessageToMessageCodec<S7Message, PlcRequest
 
             ResponseCode responseCode = decodeResponseCode(payloadItem.getReturnCode());
 
-            ReadResponseItem responseItem;
-            // Something went wrong.
-            if (responseCode != ResponseCode.OK) {
-                responseItem = new ReadResponseItem<>(requestItem, responseCode, null);
+            responseItems.add(decodeReadResponseItem(requestItem, responseCode, payloadItem.getDataBuffer()));
+        }
+        return createReadResponse(plcReadRequest, responseItems);
+    }
+
+    private void decodeCyclicData(S7Message msg, CpuServicesParameter parameter) throws PlcProtocolException {
+        // Values pushed by the PLC every cycle.
+        if (parameter.getUserDataType() == UserDataType.PUSH) {
+            CyclicSubscription subscription = subscriptions[parameter.getSequenceNumber() & 0xFF];
+            if (subscription != null) {
+                PlcReadRequest readRequest = subscription.getReadRequest();
+                PlcReadResponse response = new PlcReadResponse(readRequest, decodeCyclicDataItems(msg, readRequest));
+                try {
+                    subscription.getRequest().getConsumer().accept(response);
+                } catch (RuntimeException e) {
+                    logger.warn("Consumer of {} failed", subscription.getRequest(), e);
+                }
             }
-            // All Ok.
-            else {
-                byte[] data = payloadItem.getData();
-                Class<?> datatype = requestItem.getDatatype();
-                List<?> value = decodeData(datatype, data);
-                responseItem = new ReadResponseItem(requestItem, responseCode, value);
+            return;
+        }
+
+        PendingRequest pendingRequest = requests.remove(msg.getTpduReference());
+        if ((parameter.getUserDataType() != UserDataType.RESPONSE) || (pendingRequest == null)) {
+            return;
+        }
+        PlcRequestContainer requestContainer = pendingRequest.getContainer();
+        if (parameter.getErrorCode() != 0) {
+            requestContainer.getResponseFuture().completeExceptionally(new PlcProtocolException(
+                "Cyclic data request failed with error code 0x" + Integer.toHexString(parameter.getErrorCode() & 0xFFFF)));
+            return;
+        }
+        PlcRequest request = requestContainer.getRequest();
+        if (request instanceof S7CyclicSubscriptionRequest) {
+            S7CyclicSubscriptionRequest subscriptionRequest = (S7CyclicSubscriptionRequest) request;
+            // The PLC identifies the subscription by the sequence number of all following pushes.
+            byte jobId = parameter.getSequenceNumber();
+            CyclicSubscription subscription = new CyclicSubscription(subscriptionRequest);
+            List<ReadResponseItem<?>> responseItems;
+            try {
+                responseItems = decodeCyclicDataItems(msg, subscription.getReadRequest());
+            } catch (PlcProtocolException e) {
+                // The request is no longer pending, so nobody else will complete it.
+                requestContainer.getResponseFuture().completeExceptionally(e);
+                return;
+            }
+            subscriptions[jobId & 0xFF] = subscription;
+            requestContainer.getResponseFuture().complete(
+                new S7CyclicSubscriptionResponse(subscriptionRequest, jobId, responseItems));
+        } else if (request instanceof S7CyclicUnsubscriptionRequest) {
+            S7CyclicUnsubscriptionRequest unsubscriptionRequest = (S7CyclicUnsubscriptionRequest) request;
+            subscriptions[unsubscriptionRequest.getJobId() & 0xFF] = null;
+            requestContainer.getResponseFuture().complete(new S7CyclicUnsubscriptionResponse(unsubscriptionRequest));
+        }
+    }
+
+    private List<ReadResponseItem<?>> decodeCyclicDataItems(S7Message msg, PlcReadRequest readRequest)
+        throws PlcProtocolException {
+        Optional<VarPayload> payload = msg.getPayload(VarPayload.class);
+        // Not every PLC sends the current values along with the confirmation of a subscription.
+        if (!payload.isPresent()) {
+            return Collections.emptyList();
+        }
+        List<VarPayloadItem> payloadItems = payload.get().getPayloadItems();
+        if (readRequest.getRequestItems().size() != payloadItems.size()) {
+            throw new PlcProtocolException(
+                "The number of requested items doesn't match the number of returned items");
+        }
+        List<ReadResponseItem<?>> responseItems = new ArrayList<>(payloadItems.size());
+        for (int i = 0; i < payloadItems.size(); i++) {
+            VarPayloadItem payloadItem = payloadItems.get(i);
+            responseItems.add(decodeReadResponseItem(readRequest.getRequestItems().get(i),
+                decodeResponseCode(payloadItem.getReturnCode()), payloadItem.getDataBuffer()));
+        }
+        return responseItems;
+    }
+
+    private void setPduSize(int pduSize) {
+        requestPacker = new S7RequestPacker(pduSize);
+        // Merged ranges have to fit into a single response too.
+        if (readOptimizer != null) {
+            readOptimizer = new S7ReadOptimizer(readOptimizer.getMaxGap(),
+                Math.min(readOptimizer.getMaxRangeSize(), requestPacker.getMaxReadItemDataSize()));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void decodeRequestPart(S7ResponseMessage responseMessage, RequestPart requestPart) {
+        SplitRequest splitRequest = requestPart.getSplitRequest();
+        // If another part already failed, the request has been completed exceptionally.
+        if (splitRequest.getContainer().getResponseFuture().isDone()) {
+            return;
+        }
+        try {
+            if (requestPart.getReadItems() != null) {
+                decodeReadRequestPart(responseMessage, splitRequest, requestPart.getReadItems());
+            } else {
+                decodeWriteRequestPart(responseMessage, splitRequest, requestPart.getWriteItemIndexes());
+            }
+        } catch (PlcProtocolException e) {
+            splitRequest.getContainer().getResponseFuture().completeExceptionally(e);
+            return;
+        }
+
+        // Only after the responses to all parts have arrived, the response can be assembled.
+        if (splitRequest.partCompleted()) {
+            PlcRequest request = splitRequest.getContainer().getRequest();
+            PlcReadRequest readRequest = getReadRequest(request);
+            PlcResponse response;
+            if (readRequest != null) {
+                List<ReadResponseItem<?>> responseItems = new ArrayList<>(splitRequest.getResponseItems().length);
+                for (ResponseItem<?> responseItem : splitRequest.getResponseItems()) {
+                    responseItems.add((ReadResponseItem<?>) responseItem);
+                }
+                response = createReadResponse(readRequest, responseItems);
+            } else {
+                List<WriteResponseItem<?>> responseItems = new ArrayList<>(splitRequest.getResponseItems().length);
+                for (ResponseItem<?> responseItem : splitRequest.getResponseItems()) {
+                    responseItems.add((WriteResponseItem<?>) responseItem);
+                }
+                response = createWriteResponse((PlcWriteRequest) request, responseItems);
+            }
+            splitRequest.getContainer().getResponseFuture().complete(response);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void decodeReadRequestPart(S7ResponseMessage responseMessage, SplitRequest splitRequest,
+                                       List<OptimizedReadItem> optimizedItems) throws PlcProtocolException {
+        PlcReadRequest plcReadRequest = getReadRequest(splitRequest.getContainer().getRequest());
+
+        VarPayload payload = responseMessage.getPayload(VarPayload.class)
+            .orElseThrow(() -> new PlcProtocolException("No VarPayload supplied"));
+        // Here the payload items are aligned with the optimized items we sent.
+        if (optimizedItems.size() != payload.getPayloadItems().size()) {
+            throw new PlcProtocolException(
+                "The number of requested items doesn't match the number of returned items");
+        }
+        List<ReadRequestItem<?>> requestItems = plcReadRequest.getRequestItems();
+        ResponseItem<?>[] responseItems = splitRequest.getResponseItems();
+        Iterator<VarPayloadItem> payloadItems = payload.getPayloadItems().iterator();
+        for (OptimizedReadItem optimizedItem : optimizedItems) {
+            VarPayloadItem payloadItem = payloadItems.next();
+            ResponseCode responseCode = decodeResponseCode(payloadItem.getReturnCode());
+            ByteBuf data = payloadItem.getDataBuffer();
+            for (OptimizedReadItem.Slice slice : optimizedItem.getSlices()) {
+                ReadRequestItem requestItem = requestItems.get(slice.getRequestItemIndex());
+                ByteBuf itemData = data;
+                ResponseCode itemResponseCode = responseCode;
+                // Cut the data of the current item out of the merged range.
+                if ((responseCode == ResponseCode.OK) && optimizedItem.isMerged()) {
+                    int end = slice.getByteOffset() + slice.getByteLength();
+                    if ((data == null) || (end > data.readableBytes())) {
+                        itemResponseCode = ResponseCode.INTERNAL_ERROR;
+                    } else {
+                        itemData = data.slice(data.readerIndex() + slice.getByteOffset(), slice.getByteLength());
+                    }
+                }
+                responseItems[slice.getRequestItemIndex()] =
+                    decodeReadResponseItem(requestItem, itemResponseCode, itemData);
             }
-            responseItems.add(responseItem);
         }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void decodeWriteRequestPart(S7ResponseMessage responseMessage, SplitRequest splitRequest,
+                                        List<Integer> itemIndexes) throws PlcProtocolException {
+        PlcWriteRequest plcWriteRequest = (PlcWriteRequest) splitRequest.getContainer().getRequest();
+
+        VarPayload payload = responseMessage.getPayload(VarPayload.class)
+            .orElseThrow(() -> new PlcProtocolException("No VarPayload supplied"));
+        // Here the payload items are aligned with the items of this part.
+        if (itemIndexes.size() != payload.getPayloadItems().size()) {
+            throw new PlcProtocolException(
+                "The number of requested items doesn't match the number of returned items");
+        }
+        ResponseItem<?>[] responseItems = splitRequest.getResponseItems();
+        Iterator<VarPayloadItem> payloadItems = payload.getPayloadItems().iterator();
+        for (Integer itemIndex : itemIndexes) {
+            WriteRequestItem requestItem = plcWriteRequest.getRequestItems().get(itemIndex);
+            ResponseCode responseCode = decodeResponseCode(payloadItems.next().getReturnCode());
+            responseItems[itemIndex] = new WriteResponseItem(requestItem, responseCode);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ReadResponseItem<?> decodeReadResponseItem(ReadRequestItem requestItem, ResponseCode responseCode,
+                                                       ByteBuf data) throws PlcProtocolException {
+        // Something went wrong.
+        if (responseCode != ResponseCode.OK) {
+            return new ReadResponseItem<>(requestItem, responseCode, Collections.emptyList());
+        }
+        // All Ok.
+        Class<?> datatype = requestItem.getDatatype();
+        if (BigEndianReadResponseItem.isSupported(datatype)) {
+            // Keep primitive values in the received form, they are only boxed if requested.
+            byte[] bytes = new byte[data.readableBytes()];
+            data.getBytes(data.readerIndex(), bytes);
+            return new BigEndianReadResponseItem(requestItem, responseCode, bytes);
+        }
+        List<?> value = decodeData(datatype, data);
+        return new ReadResponseItem(requestItem, responseCode, value);
+    }
+
+    /**
+     * @return the read request the given request is or stands for, null if it's no read request.
+     */
+    private PlcReadRequest getReadRequest(PlcRequest request) {
+        if (request instanceof PlcReadRequest) {
+            return (PlcReadRequest) request;
+        } else if (request instanceof S7PreparedReadRequest) {
+            return ((S7PreparedReadRequest) request).getReadRequest();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PlcResponse createReadResponse(PlcReadRequest plcReadRequest, List<ReadResponseItem<?>> responseItems) {
         if (plcReadRequest instanceof TypeSafePlcReadRequest) {
-            response = new TypeSafePlcReadResponse((TypeSafePlcReadRequest) plcReadRequest, responseItems);
-        } else {
-            response = new PlcReadResponse(plcReadRequest, responseItems);
+            return new TypeSafePlcReadResponse((TypeSafePlcReadRequest) plcReadRequest, responseItems);
         }
-        return response;
+        return new PlcReadResponse(plcReadRequest, responseItems);
+    }
+
+    @SuppressWarnings("unchecked")
+    private PlcResponse createWriteResponse(PlcWriteRequest plcWriteRequest, List<WriteResponseItem<?>> responseItems) {
+        if (plcWriteRequest instanceof TypeSafePlcWriteRequest) {
+            return new TypeSafePlcWriteResponse((TypeSafePlcWriteRequest) plcWriteRequest, responseItems);
+        }
+        return new PlcWriteResponse(plcWriteRequest, responseItems);
     }
 
     ////////////////////////////////////////////////////////////////////////////////
@@ -266,25 +807,7 @@ public class Plc4XS7Protocol extends MessageToMessageCodec<S7Message, PlcRequest
         if (!(address instanceof S7Address)) {
             throw new PlcProtocolException("Can only use S7Address types on S7 connection");
         }
-        S7Address s7Address = (S7Address) address;
-        if (s7Address instanceof S7DataBlockAddress) {
-            S7DataBlockAddress s7DataBlockAddress = (S7DataBlockAddress) s7Address;
-            return new S7AnyVarParameterItem(
-                SpecificationType.VARIABLE_SPECIFICATION, s7Address.getMemoryArea(),
-                transportSize, (short) size,
-                s7DataBlockAddress.getDataBlockNumber(), s7DataBlockAddress.getByteOffset(), (byte) 0);
-        } else if (s7Address instanceof S7BitAddress) {
-            S7BitAddress s7BitAddress = (S7BitAddress) s7Address;
-            return new S7AnyVarParameterItem(
-                SpecificationType.VARIABLE_SPECIFICATION, s7Address.getMemoryArea(),
-                transportSize, (short) size, (short) 0,
-                s7Address.getByteOffset(), s7BitAddress.getBitOffset());
-        } else {
-            return new S7AnyVarParameterItem(
-                SpecificationType.VARIABLE_SPECIFICATION, s7Address.getMemoryArea(),
-                transportSize, (short) size, (short) 0,
-                s7Address.getByteOffset(), (byte) 0);
-        }
+        return ((S7Address) address).getS7AnyItem(transportSize, (short) size);
     }
 
     private TransportSize encodeTransportSize(Class<?> datatype) {
@@ -346,4 +869,125 @@ public class Plc4XS7Protocol extends MessageToMessageCodec<S7Message, PlcRequest
         }
     }
 
+    ////////////////////////////////////////////////////////////////////////////////
+    // Pending and split requests.
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * A request waiting for the response to the S7 message sent with its tpdu reference.
+     */
+    static class PendingRequest {
+
+        private final PlcRequestContainer container;
+        private final RequestPart requestPart;
+
+        PendingRequest(PlcRequestContainer container) {
+            this(container, null);
+        }
+
+        private PendingRequest(PlcRequestContainer container, RequestPart requestPart) {
+            this.container = container;
+            this.requestPart = requestPart;
+        }
+
+        private PlcRequestContainer getContainer() {
+            return container;
+        }
+
+        /**
+         * @return the part of a split request this message serves or null if the request wasn't split.
+         */
+        private RequestPart getRequestPart() {
+            return requestPart;
+        }
+
+    }
+
+    /**
+     * A cyclic subscription the PLC is pushing values for.
+     */
+    private static class CyclicSubscription {
+
+        private final S7CyclicSubscriptionRequest request;
+        // Pushed values are handed to the consumer as responses to this request.
+        private final PlcReadRequest readRequest;
+
+        private CyclicSubscription(S7CyclicSubscriptionRequest request) {
+            this.request = request;
+            this.readRequest = new PlcReadRequest(request.getRequestItems());
+        }
+
+        private S7CyclicSubscriptionRequest getRequest() {
+            return request;
+        }
+
+        private PlcReadRequest getReadRequest() {
+            return readRequest;
+        }
+
+    }
+
+    /**
+     * A request that was sent as multiple S7 messages. The response items of all
+     * messages are collected in the order of the original request items.
+     */
+    private static class SplitRequest {
+
+        private final PlcRequestContainer container;
+        private final ResponseItem<?>[] responseItems;
+        private int pendingParts;
+
+        private SplitRequest(PlcRequestContainer container, int numItems, int numParts) {
+            this.container = container;
+            this.responseItems = new ResponseItem<?>[numItems];
+            this.pendingParts = numParts;
+        }
+
+        private PlcRequestContainer getContainer() {
+            return container;
+        }
+
+        private ResponseItem<?>[] getResponseItems() {
+            return responseItems;
+        }
+
+        /**
+         * @return true if this was the last outstanding part.
+         */
+        private boolean partCompleted() {
+            return --pendingParts == 0;
+        }
+
+    }
+
+    /**
+     * One S7 message of a split request and the request items it serves.
+     */
+    private static class RequestPart {
+
+        private final SplitRequest splitRequest;
+        private final List<OptimizedReadItem> readItems;
+        private final List<Integer> writeItemIndexes;
+
+        private RequestPart(SplitRequest splitRequest, List<OptimizedReadItem> readItems,
+                            List<Integer> writeItemIndexes) {
+            this.splitRequest = splitRequest;
+            this.readItems = readItems;
+            this.writeItemIndexes = writeItemIndexes;
+        }
+
+        private SplitRequest getSplitRequest() {
+            return splitRequest;
+        }
+
+        private List<OptimizedReadItem> getReadItems() {
+            return readItems;
+        }
+
+        private List<Integer> getWriteItemIndexes() {
+            return writeItemIndexes;
+        }
+
+    }
+
 }
@@ -22,20 +22,31 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.plc4x.java.isoontcp.netty.IsoOnTcpEncoder;
+import org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol;
+import org.apache.plc4x.java.isotp.netty.IsoTPProtocol;
 import org.apache.plc4x.java.isotp.netty.model.IsoTPMessage;
 import org.apache.plc4x.java.isotp.netty.model.tpdus.DataTpdu;
 import org.apache.plc4x.java.netty.events.S7ConnectionEvent;
 import org.apache.plc4x.java.netty.events.S7ConnectionState;
+import org.apache.plc4x.java.netty.events.S7RequestsAbandonedEvent;
+import org.apache.plc4x.java.netty.util.HeaderSpace;
+import org.apache.plc4x.java.s7.netty.model.messages.PreparedRequestMessage;
 import org.apache.plc4x.java.s7.netty.model.messages.S7Message;
 import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
 import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
 import org.apache.plc4x.java.s7.netty.model.messages.SetupCommunicationRequestMessage;
+import org.apache.plc4x.java.s7.netty.model.params.CpuServicesParameter;
 import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
 import org.apache.plc4x.java.s7.netty.model.params.S7Parameter;
 import org.apache.plc4x.java.s7.netty.model.params.SetupCommunicationParameter;
 import org.apache.plc4x.java.s7.netty.model.params.items.VarParameterItem;
 import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.payloads.CyclicDataSubscriptionPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.CyclicDataUnsubscriptionPayload;
 import org.apache.plc4x.java.s7.netty.model.payloads.S7Payload;
 import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
 import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
@@ -43,24 +54,72 @@ import org.apache.plc4x.java.s7.netty.model.types.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.nio.channels.ClosedChannelException;
+import java.util.*;
 
 public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
 
     public static final byte S7_PROTOCOL_MAGIC_NUMBER = 0x32;
 
+    // ISO on TCP and ISO TP data tpdu header
+    private static final int LOWER_LAYER_HEADER_SPACE =
+        IsoOnTcpProtocol.HEADER_LENGTH + IsoTPProtocol.DATA_HEADER_LENGTH;
+
+    // Position of the pdu reference in a complete packet (lower layer headers and the first 4 bytes of the header).
+    public static final int PACKET_TPDU_REFERENCE_OFFSET = LOWER_LAYER_HEADER_SPACE + 4;
+
+    // Tpdu reference of the data tpdus messages are sent in.
+    private static final byte DATA_TPDU_REFERENCE = 1;
+
+    // Method of userdata parameters.
+    private static final byte USER_DATA_METHOD_REQUEST = 0x11;
+    private static final byte USER_DATA_METHOD_RESPONSE = 0x12;
+    // Function code in the data of a cyclic data unsubscription.
+    private static final byte CYCLIC_UNSUBSCRIBE_FUNCTION = 0x01;
+
     private static final Logger logger = LoggerFactory.getLogger(S7Protocol.class);
 
     private short maxAmqCaller;
     private short maxAmqCallee;
     private short pduSize;
 
+    // References of the requests sent to the PLC, which haven't been answered yet.
+    private final Set<Short> pendingRequests;
+    // Requests waiting for a free slot as the PLC can't accept any more unanswered requests.
+    private final Queue<QueuedRequest> queuedRequests;
+
     public S7Protocol(short requestedMaxAmqCaller, short requestedMaxAmqCallee, short requestedPduSize) {
         this.maxAmqCaller = requestedMaxAmqCaller;
         this.maxAmqCallee = requestedMaxAmqCallee;
         this.pduSize = requestedPduSize;
+        this.pendingRequests = new HashSet<>();
+        this.queuedRequests = new ArrayDeque<>();
+    }
+
+    public short getMaxAmqCaller() {
+        return maxAmqCaller;
+    }
+
+    public short getMaxAmqCallee() {
+        return maxAmqCallee;
+    }
+
+    public short getPduSize() {
+        return pduSize;
+    }
+
+    /**
+     * @return number of requests currently waiting for a response from the PLC.
+     */
+    public int getNumPendingRequests() {
+        return pendingRequests.size();
+    }
+
+    /**
+     * @return number of requests waiting to be sent.
+     */
+    public int getNumQueuedRequests() {
+        return queuedRequests.size();
     }
 
     @Override
@@ -72,22 +131,121 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
                 new SetupCommunicationRequestMessage((short) 7, maxAmqCaller, maxAmqCallee, pduSize);
 
             ctx.channel().writeAndFlush(setupCommunicationRequest);
+        } else if (evt instanceof S7RequestsAbandonedEvent) {
+            // Nobody waits for these responses anymore, so their slots are free for other requests.
+            for (Short tpduReference : ((S7RequestsAbandonedEvent) evt).getTpduReferences()) {
+                releaseRequest(ctx, tpduReference);
+            }
         } else {
             super.userEventTriggered(ctx, evt);
         }
     }
 
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        // The PLC only accepts a limited number of unanswered jobs (max AMQ caller), so
+        // everything exceeding this limit has to wait till one of the pending jobs is answered.
+        // Setting up the communication is the exception, as this is where this limit is negotiated.
+        if ((msg instanceof S7RequestMessage) && !(msg instanceof SetupCommunicationRequestMessage)) {
+            S7RequestMessage request = (S7RequestMessage) msg;
+            if (!queuedRequests.isEmpty() || (pendingRequests.size() >= getSendWindowSize())) {
+                logger.debug("Queueing request {} ({} pending)", request.getTpduReference(), pendingRequests.size());
+                queuedRequests.add(new QueuedRequest(request, promise));
+                return;
+            }
+            sendRequest(ctx, request, promise);
+            return;
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // Nothing will be answered anymore.
+        pendingRequests.clear();
+        QueuedRequest queuedRequest;
+        while ((queuedRequest = queuedRequests.poll()) != null) {
+            ReferenceCountUtil.release(queuedRequest.getRequest());
+            queuedRequest.getPromise().tryFailure(new ClosedChannelException());
+        }
+        super.channelInactive(ctx);
+    }
+
+    private int getSendWindowSize() {
+        // Always allow at least one request, even if the PLC reports nonsense.
+        return Math.max(maxAmqCaller, 1);
+    }
+
+    private void releaseRequest(ChannelHandlerContext ctx, short tpduReference) throws Exception {
+        if (!pendingRequests.remove(tpduReference)) {
+            return;
+        }
+        // Send as many of the queued requests as the PLC is able to accept.
+        boolean sent = false;
+        while (!queuedRequests.isEmpty() && (pendingRequests.size() < getSendWindowSize())) {
+            QueuedRequest queuedRequest = queuedRequests.poll();
+            sendRequest(ctx, queuedRequest.getRequest(), queuedRequest.getPromise());
+            sent = true;
+        }
+        if (sent) {
+            ctx.flush();
+        }
+    }
+
+    private void sendRequest(ChannelHandlerContext ctx, S7RequestMessage request, ChannelPromise promise) throws Exception {
+        short tpduReference = request.getTpduReference();
+        pendingRequests.add(tpduReference);
+        // A request which couldn't be sent will never be answered, so its slot has to be freed right away.
+        ChannelPromise sendPromise = promise.unvoid();
+        sendPromise.addListener(future -> {
+            if (!future.isSuccess()) {
+                releaseRequest(ctx, tpduReference);
+            }
+        });
+        super.write(ctx, request, sendPromise);
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, S7Message in, List<Object> out) {
         logger.debug("S7 Message sent");
 
-        ByteBuf buf = Unpooled.buffer();
+        // Prepared requests are complete packets already, which don't need any further encoding.
+        if (in instanceof PreparedRequestMessage) {
+            out.add(in.getUserData().retain());
+            return;
+        }
+
+        // Reserve space for the headers of the lower layers, so they don't have to copy our data.
+        ByteBuf buf = HeaderSpace.allocate(ctx.alloc(), LOWER_LAYER_HEADER_SPACE, getMessageLength(in));
+
+        encodeHeader(in, buf);
+        encodeParameters(in, buf);
+        encodePayloads(in, buf);
+
+        out.add(new DataTpdu(true, DATA_TPDU_REFERENCE, Collections.emptyList(), buf));
+    }
 
+    /**
+     * Encode the given message into a complete ISO on TCP packet, including the headers of the
+     * lower layers. Such a packet can be sent as {@link PreparedRequestMessage} after patching the
+     * pdu reference at {@link #PACKET_TPDU_REFERENCE_OFFSET}.
+     */
+    public byte[] encodePacket(S7Message in) {
+        byte[] packet = new byte[LOWER_LAYER_HEADER_SPACE + getMessageLength(in)];
+        ByteBuf buf = Unpooled.wrappedBuffer(packet);
+        buf.writerIndex(0);
+
+        IsoOnTcpEncoder.encodeHeader(buf, packet.length);
+        IsoTPProtocol.encodeDataHeader(buf, DATA_TPDU_REFERENCE);
         encodeHeader(in, buf);
         encodeParameters(in, buf);
         encodePayloads(in, buf);
+        return packet;
+    }
 
-        out.add(new DataTpdu(true, (byte) 1, Collections.emptyList(), buf));
+    private int getMessageLength(S7Message in) {
+        return ((in instanceof S7ResponseMessage) ? 12 : 10) +
+            getParametersLength(in.getParameters()) + getPayloadsLength(in.getPayloads());
     }
 
     private void encodePayloads(S7Message in, ByteBuf buf) {
@@ -95,16 +253,52 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
             ParameterType parameterType = payload.getType();
             if (parameterType == ParameterType.READ_VAR || parameterType == ParameterType.WRITE_VAR) {
                 VarPayload varPayload = (VarPayload) payload;
-                for (VarPayloadItem payloadItem : varPayload.getPayloadItems()) {
+                List<VarPayloadItem> payloadItems = varPayload.getPayloadItems();
+                for (int i = 0; i < payloadItems.size(); i++) {
+                    VarPayloadItem payloadItem = payloadItems.get(i);
+                    int dataLength = payloadItem.getDataLength();
                     buf.writeByte(payloadItem.getReturnCode().getCode());
                     buf.writeByte(payloadItem.getDataTransportSize().getCode());
-                    buf.writeShort(payloadItem.getData().length);
-                    buf.writeBytes(payloadItem.getData());
+                    // Depending on the transport size, the length is given in bits or bytes.
+                    // (Single bits are transferred as one byte each, so their length equals the number of bytes)
+                    DataTransportSize dataTransportSize = payloadItem.getDataTransportSize();
+                    buf.writeShort((dataTransportSize.isSizeInBits() && (dataTransportSize != DataTransportSize.BIT)) ?
+                        dataLength * 8 : dataLength);
+                    ByteBuf data = payloadItem.getDataBuffer();
+                    buf.writeBytes(data, data.readerIndex(), dataLength);
+                    // Every item with an odd length is followed by a fill byte (except the last one).
+                    if (((dataLength % 2) == 1) && (i < payloadItems.size() - 1)) {
+                        buf.writeByte(0x00);
+                    }
+                }
+            } else if (payload instanceof CyclicDataSubscriptionPayload) {
+                CyclicDataSubscriptionPayload subscriptionPayload = (CyclicDataSubscriptionPayload) payload;
+                List<VarParameterItem> items = subscriptionPayload.getItems();
+                encodeUserDataHeader(buf, 4 + (items.size() * 12));
+                buf.writeShort(items.size());
+                buf.writeByte(subscriptionPayload.getTimeBase().getCode());
+                buf.writeByte(subscriptionPayload.getTimeFactor());
+                for (VarParameterItem item : items) {
+                    if (item.getAddressingMode() == VariableAddressingMode.S7ANY) {
+                        ((S7AnyVarParameterItem) item).encode(buf);
+                    } else {
+                        logger.error("writing this item type not implemented");
+                    }
                 }
+            } else if (payload instanceof CyclicDataUnsubscriptionPayload) {
+                encodeUserDataHeader(buf, 2);
+                buf.writeByte(CYCLIC_UNSUBSCRIBE_FUNCTION);
+                buf.writeByte(((CyclicDataUnsubscriptionPayload) payload).getJobId());
             }
         }
     }
 
+    private void encodeUserDataHeader(ByteBuf buf, int dataLength) {
+        buf.writeByte(DataTransportErrorCode.OK.getCode());
+        buf.writeByte(DataTransportSize.OCTET_STRING.getCode());
+        buf.writeShort(dataLength);
+    }
+
     private void encodeParameters(S7Message in, ByteBuf buf) {
         for (S7Parameter s7Parameter : in.getParameters()) {
             buf.writeByte(s7Parameter.getType().getCode());
@@ -116,6 +310,9 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
                 case SETUP_COMMUNICATION:
                     encodeSetupCommunication(buf, (SetupCommunicationParameter) s7Parameter);
                     break;
+                case CPU_SERVICES:
+                    encodeCpuServices(buf, (CpuServicesParameter) s7Parameter);
+                    break;
                 default:
                     logger.error("writing this parameter type not implemented");
             }
@@ -148,6 +345,26 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
         buf.writeShort(s7Parameter.getPduLength());
     }
 
+    private void encodeCpuServices(ByteBuf buf, CpuServicesParameter s7Parameter) {
+        boolean isRequest = s7Parameter.getUserDataType() == UserDataType.REQUEST;
+        // Rest of the parameter head (0x00 0x01 0x12)
+        buf.writeByte((byte) 0x01);
+        buf.writeByte((byte) 0x12);
+        // Length of the rest of this parameter
+        buf.writeByte(isRequest ? (byte) 0x04 : (byte) 0x08);
+        buf.writeByte(isRequest ? USER_DATA_METHOD_REQUEST : USER_DATA_METHOD_RESPONSE);
+        // Type in the upper 4 bits, function group in the lower 4 bits
+        buf.writeByte((byte) ((s7Parameter.getUserDataType().getCode() << 4) |
+            (s7Parameter.getFunctionGroup().getCode() & 0x0F)));
+        buf.writeByte(s7Parameter.getSubFunction());
+        buf.writeByte(s7Parameter.getSequenceNumber());
+        if (!isRequest) {
+            buf.writeByte(s7Parameter.getDataUnitReference());
+            buf.writeByte(s7Parameter.isLastDataUnit() ? (byte) 0x00 : (byte) 0x01);
+            buf.writeShort(s7Parameter.getErrorCode());
+        }
+    }
+
     private void encodeReadWriteVar(ByteBuf buf, VarParameter s7Parameter) {
         List<VarParameterItem> items = s7Parameter.getItems();
         // ReadRequestItem count (Read one variable at a time)
@@ -155,35 +372,15 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
         for (VarParameterItem item : items) {
             VariableAddressingMode addressMode = item.getAddressingMode();
             if (addressMode == VariableAddressingMode.S7ANY) {
-                encodeS7AnyParameterItem(buf, (S7AnyVarParameterItem) item);
+                ((S7AnyVarParameterItem) item).encode(buf);
             } else {
                 logger.error("writing this item type not implemented");
             }
         }
     }
 
-    private void encodeS7AnyParameterItem(ByteBuf buf, S7AnyVarParameterItem s7AnyRequestItem) {
-        buf.writeByte(s7AnyRequestItem.getSpecificationType().getCode());
-        // Length of this item (excluding spec type and length)
-        buf.writeByte((byte) 0x0a);
-        buf.writeByte(s7AnyRequestItem.getAddressingMode().getCode());
-        buf.writeByte(s7AnyRequestItem.getTransportSize().getCode());
-        buf.writeShort(s7AnyRequestItem.getNumElements());
-        buf.writeShort(s7AnyRequestItem.getDataBlockNumber());
-        buf.writeByte(s7AnyRequestItem.getMemoryArea().getCode());
-        // A S7 address is 3 bytes long. Unfortunately the byte-offset is NOT located in
-        // byte 1 and byte 2 and the bit offset in byte 3. Siemens used the last 3 bits of
-        // byte 3 for the bit-offset and the remaining 5 bits of byte 3 to contain the lowest
-        // 5 bits of the byte-offset. The highest 5 bits of byte 1 are probably left unused
-        // for future extensions.
-        buf.writeShort((short) (s7AnyRequestItem.getByteOffset() >> 5));
-        buf.writeByte((byte) ((
-                (s7AnyRequestItem.getByteOffset() & 0x1F) << 3)
-                | (s7AnyRequestItem.getBitOffset() & 0x07)));
-    }
-
     @Override
-    protected void decode(ChannelHandlerContext ctx, IsoTPMessage in, List<Object> out) {
+    protected void decode(ChannelHandlerContext ctx, IsoTPMessage in, List<Object> out) throws Exception {
         if (logger.isTraceEnabled()) {
             logger.trace("Got Data: {}", ByteBufUtil.hexDump(in.getUserData()));
         }
@@ -217,25 +414,42 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
         List<S7Parameter> s7Parameters = new LinkedList<>();
         SetupCommunicationParameter setupCommunicationParameter = null;
         VarParameter readWriteVarParameter = null;
+        CpuServicesParameter cpuServicesParameter = null;
         int i = 0;
 
         while (i < headerParametersLength) {
-            S7Parameter parameter = parseParameter(userData, isResponse, headerParametersLength - i);
+            S7Parameter parameter = parseParameter(userData, isResponse);
+            if (parameter == null) {
+                // Without knowing the length of the parameter, the rest can't be parsed.
+                userData.skipBytes(Math.min(headerParametersLength - i - 1, userData.readableBytes()));
+                break;
+            }
             s7Parameters.add(parameter);
             if (parameter instanceof SetupCommunicationParameter) {
                 setupCommunicationParameter = (SetupCommunicationParameter) parameter;
             }
+            if (parameter instanceof CpuServicesParameter) {
+                cpuServicesParameter = (CpuServicesParameter) parameter;
+            }
             if (readWriteVarParameter == null)  {
                 readWriteVarParameter = decodeReadWriteParameter(parameter);
             }
             i += getParameterLength(parameter);
         }
 
-        List<S7Payload> s7Payloads = decodePayloads(userData, isResponse, userDataLength, readWriteVarParameter);
+        List<S7Payload> s7Payloads = (cpuServicesParameter != null) ?
+            decodeCpuServicesPayloads(userData, userDataLength, cpuServicesParameter) :
+            decodePayloads(userData, isResponse, userDataLength, readWriteVarParameter);
 
         if (isResponse) {
             setupCommunications(ctx, setupCommunicationParameter);
             out.add(new S7ResponseMessage(messageType, tpduReference, s7Parameters, s7Payloads, errorClass, errorCode));
+            releaseRequest(ctx, tpduReference);
+        } else if ((cpuServicesParameter != null) &&
+            (cpuServicesParameter.getUserDataType() == UserDataType.RESPONSE)) {
+            // Userdata responses have no error class and code in the header, the error code is part of the parameter.
+            out.add(new S7ResponseMessage(messageType, tpduReference, s7Parameters, s7Payloads, errorClass, errorCode));
+            releaseRequest(ctx, tpduReference);
         } else {
             out.add(new S7RequestMessage(messageType, tpduReference, s7Parameters, s7Payloads));
         }
@@ -280,21 +494,13 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
                 // This is a response to a WRITE_VAR request (It only contains the return code for every sent item.
                 if ((readWriteVarParameter.getType() == ParameterType.WRITE_VAR) && isResponse) {
                     // Initialize a rudimentary payload (This is updated in the Plc4XS7Protocol class
-                    VarPayloadItem payload = new VarPayloadItem(dataTransportErrorCode, null, null);
+                    VarPayloadItem payload = new VarPayloadItem(dataTransportErrorCode, null, (byte[]) null);
                     payloadItems.add(payload);
                     i += 1;
                 }
                 // This is a response to a READ_VAR request.
                 else if ((readWriteVarParameter.getType() == ParameterType.READ_VAR) && isResponse) {
-                    DataTransportSize dataTransportSize = DataTransportSize.valueOf(userData.readByte());
-                    short length = (dataTransportSize.isSizeInBits()) ?
-                        (short) Math.ceil(userData.readShort() / 8.0) : userData.readShort();
-                    byte[] data = new byte[length];
-                    userData.readBytes(data);
-                    // Initialize a rudimentary payload (This is updated in the Plc4XS7Protocol class
-                    VarPayloadItem payload = new VarPayloadItem(dataTransportErrorCode, dataTransportSize, data);
-                    payloadItems.add(payload);
-                    i += getPayloadLength(payload);
+                    i += decodeReadDataItem(userData, dataTransportErrorCode, payloadItems, i, userDataLength);
                 }
             }
 
@@ -304,7 +510,62 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
         return s7Payloads;
     }
 
-    private S7Parameter parseParameter(ByteBuf in, boolean isResponse, int restLength) {
+    /**
+     * Decode one item of read data (the return code has already been read).
+     *
+     * @return number of bytes consumed (excluding the return code).
+     */
+    private int decodeReadDataItem(ByteBuf userData, DataTransportErrorCode dataTransportErrorCode,
+                                   List<VarPayloadItem> payloadItems, int offset, int dataLength) {
+        DataTransportSize dataTransportSize = DataTransportSize.valueOf(userData.readByte());
+        short length = (dataTransportSize.isSizeInBits()) ?
+            (short) Math.ceil(userData.readShort() / 8.0) : userData.readShort();
+        // Reference the data instead of copying it (released together with the response message).
+        ByteBuf data = userData.readRetainedSlice(length);
+        // Initialize a rudimentary payload (This is updated in the Plc4XS7Protocol class
+        VarPayloadItem payload = new VarPayloadItem(dataTransportErrorCode, dataTransportSize, data);
+        payloadItems.add(payload);
+        int consumed = getPayloadLength(payload);
+        // Every item with an odd length is followed by a fill byte (except the last one).
+        if (((length % 2) == 1) && (offset + consumed < dataLength)) {
+            userData.readByte();
+            consumed += 1;
+        }
+        return consumed;
+    }
+
+    private List<S7Payload> decodeCpuServicesPayloads(ByteBuf userData, short userDataLength,
+                                                      CpuServicesParameter parameter) {
+        if (userDataLength < 4) {
+            userData.skipBytes(userDataLength);
+            return Collections.emptyList();
+        }
+        DataTransportErrorCode returnCode = DataTransportErrorCode.valueOf(userData.readByte());
+        // Transport size (octet string)
+        userData.readByte();
+        int dataLength = Math.min(userData.readUnsignedShort(), userDataLength - 4);
+
+        // Responses to cyclic data subscriptions and the following pushes contain the values of the items
+        // in the same format as a read var response, preceded by the number of items.
+        if ((returnCode == DataTransportErrorCode.OK) && (dataLength >= 2) &&
+            (parameter.getFunctionGroup() == UserDataFunctionGroup.CYCLIC_DATA) &&
+            (parameter.getSubFunction() == CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY) &&
+            (parameter.getUserDataType() != UserDataType.REQUEST)) {
+            int numItems = userData.readUnsignedShort();
+            List<VarPayloadItem> payloadItems = new ArrayList<>(numItems);
+            int i = 2;
+            while ((payloadItems.size() < numItems) && (i < dataLength)) {
+                DataTransportErrorCode dataTransportErrorCode = DataTransportErrorCode.valueOf(userData.readByte());
+                i += 1;
+                i += decodeReadDataItem(userData, dataTransportErrorCode, payloadItems, i, dataLength);
+            }
+            return Collections.singletonList(new VarPayload(ParameterType.CPU_SERVICES, payloadItems));
+        }
+        userData.skipBytes(dataLength);
+        return Collections.emptyList();
+    }
+
+    private S7Parameter parseParameter(ByteBuf in, boolean isResponse) {
         ParameterType parameterType = ParameterType.valueOf(in.readByte());
         if (parameterType == null) {
             logger.error("Could not find parameter type");
@@ -312,12 +573,7 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
         }
         switch (parameterType) {
             case CPU_SERVICES:
-                // Just read in the rest of the header as content of this parameter.
-                // Will have to do a lot more investigation on how this parameter is
-                // constructed.
-                byte[] cpuServices = new byte[restLength - 1];
-                in.readBytes(cpuServices);
-                return null;
+                return parseCpuServicesParameter(in);
             case READ_VAR:
             case WRITE_VAR:
                 List<VarParameterItem> varParamameter;
@@ -343,6 +599,28 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
         return null;
     }
 
+    private CpuServicesParameter parseCpuServicesParameter(ByteBuf in) {
+        // Rest of the parameter head (0x00 0x01 0x12)
+        in.skipBytes(2);
+        // Length of the rest of this parameter
+        byte length = in.readByte();
+        // Method (request or response)
+        in.readByte();
+        byte typeAndGroup = in.readByte();
+        UserDataType userDataType = UserDataType.valueOf((byte) ((typeAndGroup >> 4) & 0x0F));
+        UserDataFunctionGroup functionGroup = UserDataFunctionGroup.valueOf((byte) (typeAndGroup & 0x0F));
+        byte subFunction = in.readByte();
+        byte sequenceNumber = in.readByte();
+        if (length < 8) {
+            return new CpuServicesParameter(userDataType, functionGroup, subFunction, sequenceNumber);
+        }
+        byte dataUnitReference = in.readByte();
+        boolean lastDataUnit = in.readByte() == 0x00;
+        short errorCode = in.readShort();
+        return new CpuServicesParameter(userDataType, functionGroup, subFunction, sequenceNumber,
+            dataUnitReference, lastDataUnit, errorCode);
+    }
+
     private List<VarParameterItem> parseReadWriteVarParameter(ByteBuf in, byte numItems) {
         List<VarParameterItem> items = new LinkedList<>();
         for (int i = 0; i < numItems; i++) {
@@ -359,12 +637,12 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
                 short length = in.readShort();
                 short dbNumber = in.readShort();
                 MemoryArea memoryArea = MemoryArea.valueOf(in.readByte());
-                short byteAddress = (short) (in.readShort() << 5);
+                short byteAddress = (short) (in.readUnsignedShort() << 5);
                 byte tmp = in.readByte();
                 // Only the least 3 bits are the bit address, the
                 byte bitAddress = (byte) (tmp & 0x07);
                 // Bits 4-8 belong to the byte address
-                byteAddress = (short) (byteAddress | (tmp >> 3));
+                byteAddress = (short) (byteAddress | ((tmp & 0xFF) >> 3));
                 S7AnyVarParameterItem item = new S7AnyVarParameterItem(
                         specificationType, memoryArea, transportSize,
                         length, dbNumber, byteAddress, bitAddress);
@@ -397,9 +675,18 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
         for (S7Payload payload : payloads) {
             if(payload instanceof VarPayload) {
                 VarPayload varPayload = (VarPayload) payload;
-                for (VarPayloadItem payloadItem : varPayload.getPayloadItems()) {
+                List<VarPayloadItem> payloadItems = varPayload.getPayloadItems();
+                for (int i = 0; i < payloadItems.size(); i++) {
+                    VarPayloadItem payloadItem = payloadItems.get(i);
                     l += getPayloadLength(payloadItem);
+                    if (((payloadItem.getDataLength() % 2) == 1) && (i < payloadItems.size() - 1)) {
+                        l += 1;
+                    }
                 }
+            } else if (payload instanceof CyclicDataSubscriptionPayload) {
+                l += 8 + (((CyclicDataSubscriptionPayload) payload).getItems().size() * 12);
+            } else if (payload instanceof CyclicDataUnsubscriptionPayload) {
+                l += 6;
             }
         }
         return l;
@@ -416,6 +703,8 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
                 return getReadWriteVarParameterLength((VarParameter) parameter);
             case SETUP_COMMUNICATION:
                 return 8;
+            case CPU_SERVICES:
+                return (short) ((((CpuServicesParameter) parameter).getUserDataType() == UserDataType.REQUEST) ? 8 : 12);
             default:
                 logger.error("Not implemented");
                 return 0;
@@ -440,7 +729,30 @@ public class S7Protocol extends MessageToMessageCodec<IsoTPMessage, S7Message> {
         if (payloadItem == null) {
             return 0;
         }
-        return (short) (4 + payloadItem.getData().length);
+        return (short) (4 + payloadItem.getDataLength());
+    }
+
+    /**
+     * A request held back until the PLC is able to accept it.
+     */
+    private static class QueuedRequest {
+
+        private final S7RequestMessage request;
+        private final ChannelPromise promise;
+
+        private QueuedRequest(S7RequestMessage request, ChannelPromise promise) {
+            this.request = request;
+            this.promise = promise;
+        }
+
+        private S7RequestMessage getRequest() {
+            return request;
+        }
+
+        private ChannelPromise getPromise() {
+            return promise;
+        }
+
     }
 
 }
@@ -0,0 +1,37 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.model.messages;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.plc4x.java.s7.netty.model.types.MessageType;
+
+import java.util.Collections;
+
+/**
+ * Request which has already been encoded into a complete ISO on TCP packet (see
+ * {@link org.apache.plc4x.java.s7.netty.S7Protocol#encodePacket(S7Message)}). The packet is the user
+ * data of this message and is sent as it is, bypassing the encoders of all lower layers.
+ */
+public class PreparedRequestMessage extends S7RequestMessage {
+
+    public PreparedRequestMessage(short tpduReference, ByteBuf packet) {
+        super(MessageType.JOB, tpduReference, Collections.emptyList(), Collections.emptyList(), packet);
+    }
+
+}
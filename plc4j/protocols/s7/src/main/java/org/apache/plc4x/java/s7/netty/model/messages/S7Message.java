@@ -18,9 +18,12 @@ under the License.
 */
 package org.apache.plc4x.java.s7.netty.model.messages;
 
+import io.netty.buffer.ByteBuf;
 import org.apache.plc4x.java.netty.Message;
 import org.apache.plc4x.java.s7.netty.model.params.S7Parameter;
 import org.apache.plc4x.java.s7.netty.model.payloads.S7Payload;
+import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
 import org.apache.plc4x.java.s7.netty.model.types.MessageType;
 
 import java.util.List;
@@ -34,7 +37,12 @@ public abstract class S7Message extends Message {
     private final List<S7Payload> payloads;
 
     protected S7Message(MessageType messageType, short tpduReference, List<S7Parameter> parameters, List<S7Payload> payloads) {
-        super(null);
+        this(messageType, tpduReference, parameters, payloads, null);
+    }
+
+    protected S7Message(MessageType messageType, short tpduReference, List<S7Parameter> parameters,
+                        List<S7Payload> payloads, ByteBuf userData) {
+        super(userData);
         this.messageType = messageType;
         this.tpduReference = tpduReference;
         this.parameters = parameters;
@@ -79,4 +87,28 @@ public abstract class S7Message extends Message {
         return Optional.empty();
     }
 
-}
\ No newline at end of file
+    /**
+     * Received payload items reference the buffer of the frame they were received in,
+     * so releasing the message releases them.
+     */
+    @Override
+    public boolean release() {
+        if (payloads != null) {
+            for (S7Payload payload : payloads) {
+                if (payload instanceof VarPayload) {
+                    for (VarPayloadItem payloadItem : ((VarPayload) payload).getPayloadItems()) {
+                        payloadItem.release();
+                    }
+                }
+            }
+        }
+        return super.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        // Payload items are only owned by this message, so there's nothing to count.
+        return release();
+    }
+
+}
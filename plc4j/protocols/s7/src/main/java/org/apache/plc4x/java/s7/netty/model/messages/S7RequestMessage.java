@@ -18,6 +18,7 @@ under the License.
 */
 package org.apache.plc4x.java.s7.netty.model.messages;
 
+import io.netty.buffer.ByteBuf;
 import org.apache.plc4x.java.s7.netty.model.params.S7Parameter;
 import org.apache.plc4x.java.s7.netty.model.payloads.S7Payload;
 import org.apache.plc4x.java.s7.netty.model.types.MessageType;
@@ -30,4 +31,9 @@ public class S7RequestMessage extends S7Message {
         super(messageType, tpduReference, s7Parameters, s7Payloads);
     }
 
+    protected S7RequestMessage(MessageType messageType, short tpduReference, List<S7Parameter> s7Parameters,
+                               List<S7Payload> s7Payloads, ByteBuf userData) {
+        super(messageType, tpduReference, s7Parameters, s7Payloads, userData);
+    }
+
 }
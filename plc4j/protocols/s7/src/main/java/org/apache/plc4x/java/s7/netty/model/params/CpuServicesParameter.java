@@ -19,13 +19,77 @@ under the License.
 package org.apache.plc4x.java.s7.netty.model.params;
 
 import org.apache.plc4x.java.s7.netty.model.types.ParameterType;
+import org.apache.plc4x.java.s7.netty.model.types.UserDataFunctionGroup;
+import org.apache.plc4x.java.s7.netty.model.types.UserDataType;
 
+/**
+ * Parameter of userdata messages. Requests only contain the type, function group, sub function and
+ * sequence number, responses and pushes additionally contain data unit information and an error code.
+ */
 public class CpuServicesParameter implements S7Parameter {
 
+    // Sub functions of the cyclic data function group.
+    public static final byte SUB_FUNCTION_CYCLIC_MEMORY = 0x01;
+    public static final byte SUB_FUNCTION_CYCLIC_UNSUBSCRIBE = 0x04;
+
+    private final UserDataType userDataType;
+    private final UserDataFunctionGroup functionGroup;
+    private final byte subFunction;
+    private final byte sequenceNumber;
+    private final byte dataUnitReference;
+    private final boolean lastDataUnit;
+    private final short errorCode;
+
+    public CpuServicesParameter(UserDataType userDataType, UserDataFunctionGroup functionGroup, byte subFunction,
+                                byte sequenceNumber) {
+        this(userDataType, functionGroup, subFunction, sequenceNumber, (byte) 0x00, true, (short) 0x0000);
+    }
+
+    public CpuServicesParameter(UserDataType userDataType, UserDataFunctionGroup functionGroup, byte subFunction,
+                                byte sequenceNumber, byte dataUnitReference, boolean lastDataUnit, short errorCode) {
+        this.userDataType = userDataType;
+        this.functionGroup = functionGroup;
+        this.subFunction = subFunction;
+        this.sequenceNumber = sequenceNumber;
+        this.dataUnitReference = dataUnitReference;
+        this.lastDataUnit = lastDataUnit;
+        this.errorCode = errorCode;
+    }
+
     @Override
     public ParameterType getType() {
         return ParameterType.CPU_SERVICES;
     }
 
+    public UserDataType getUserDataType() {
+        return userDataType;
+    }
+
+    public UserDataFunctionGroup getFunctionGroup() {
+        return functionGroup;
+    }
+
+    public byte getSubFunction() {
+        return subFunction;
+    }
+
+    /**
+     * @return sequence number of the message (for cyclic data responses and pushes this is the job id).
+     */
+    public byte getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public byte getDataUnitReference() {
+        return dataUnitReference;
+    }
+
+    public boolean isLastDataUnit() {
+        return lastDataUnit;
+    }
+
+    public short getErrorCode() {
+        return errorCode;
+    }
 
 }
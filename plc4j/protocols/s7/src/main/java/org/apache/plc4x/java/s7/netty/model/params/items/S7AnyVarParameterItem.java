@@ -18,6 +18,7 @@ under the License.
 */
 package org.apache.plc4x.java.s7.netty.model.params.items;
 
+import io.netty.buffer.ByteBuf;
 import org.apache.plc4x.java.s7.netty.model.types.MemoryArea;
 import org.apache.plc4x.java.s7.netty.model.types.SpecificationType;
 import org.apache.plc4x.java.s7.netty.model.types.TransportSize;
@@ -32,6 +33,8 @@ public class S7AnyVarParameterItem implements VarParameterItem {
     private final short dataBlockNumber;
     private final short byteOffset;
     private final byte bitOffset;
+    // Encoded form of the item (only created once, as items are reused for polling the same address).
+    private volatile byte[] encoded;
 
     public S7AnyVarParameterItem(SpecificationType specificationType, MemoryArea memoryArea, TransportSize transportSize, short numElements, short dataBlockNumber, short byteOffset, byte bitOffset) {
         this.specificationType = specificationType;
@@ -76,4 +79,41 @@ public class S7AnyVarParameterItem implements VarParameterItem {
         return bitOffset;
     }
 
+    /**
+     * Write the encoded item (including specification type and length) to the given buffer.
+     */
+    public void encode(ByteBuf buf) {
+        byte[] bytes = encoded;
+        if (bytes == null) {
+            bytes = encode();
+            encoded = bytes;
+        }
+        buf.writeBytes(bytes);
+    }
+
+    private byte[] encode() {
+        byte[] bytes = new byte[12];
+        bytes[0] = specificationType.getCode();
+        // Length of this item (excluding spec type and length)
+        bytes[1] = (byte) 0x0a;
+        bytes[2] = getAddressingMode().getCode();
+        bytes[3] = transportSize.getCode();
+        bytes[4] = (byte) (numElements >> 8);
+        bytes[5] = (byte) numElements;
+        bytes[6] = (byte) (dataBlockNumber >> 8);
+        bytes[7] = (byte) dataBlockNumber;
+        bytes[8] = memoryArea.getCode();
+        // A S7 address is 3 bytes long. Unfortunately the byte-offset is NOT located in
+        // byte 1 and byte 2 and the bit offset in byte 3. Siemens used the last 3 bits of
+        // byte 3 for the bit-offset and the remaining 5 bits of byte 3 to contain the lowest
+        // 5 bits of the byte-offset. The highest 5 bits of byte 1 are probably left unused
+        // for future extensions.
+        // (The byte offset is unsigned, so data blocks up to 64KB can be addressed)
+        int unsignedByteOffset = byteOffset & 0xFFFF;
+        bytes[9] = (byte) (unsignedByteOffset >> 13);
+        bytes[10] = (byte) (unsignedByteOffset >> 5);
+        bytes[11] = (byte) (((unsignedByteOffset & 0x1F) << 3) | (bitOffset & 0x07));
+        return bytes;
+    }
+
 }
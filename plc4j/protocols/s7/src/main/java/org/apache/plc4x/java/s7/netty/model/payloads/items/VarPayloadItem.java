@@ -18,6 +18,9 @@ under the License.
 */
 package org.apache.plc4x.java.s7.netty.model.payloads.items;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import org.apache.plc4x.java.s7.netty.model.types.DataTransportErrorCode;
 import org.apache.plc4x.java.s7.netty.model.types.DataTransportSize;
 
@@ -26,11 +29,24 @@ public class VarPayloadItem {
     private final DataTransportErrorCode returnCode;
     private final DataTransportSize dataTransportSize;
     private final byte[] data;
+    private final ByteBuf dataBuffer;
 
     public VarPayloadItem(DataTransportErrorCode returnCode, DataTransportSize dataTransportSize, byte[] data) {
         this.returnCode = returnCode;
         this.dataTransportSize = dataTransportSize;
         this.data = data;
+        this.dataBuffer = null;
+    }
+
+    /**
+     * Create an item directly referencing the data in the received message (without copying it).
+     * The item takes over the buffer and releases it as part of {@link #release()}.
+     */
+    public VarPayloadItem(DataTransportErrorCode returnCode, DataTransportSize dataTransportSize, ByteBuf dataBuffer) {
+        this.returnCode = returnCode;
+        this.dataTransportSize = dataTransportSize;
+        this.data = null;
+        this.dataBuffer = dataBuffer;
     }
 
     public DataTransportErrorCode getReturnCode() {
@@ -41,8 +57,40 @@ public class VarPayloadItem {
         return dataTransportSize;
     }
 
+    /**
+     * @return the data as byte array (Items referencing a buffer have to copy their data for this).
+     */
     public byte[] getData() {
+        if (dataBuffer != null) {
+            return ByteBufUtil.getBytes(dataBuffer);
+        }
         return data;
     }
 
+    /**
+     * @return the data as buffer without copying it or null if this item has no data.
+     */
+    public ByteBuf getDataBuffer() {
+        if (dataBuffer != null) {
+            return dataBuffer;
+        }
+        return (data != null) ? Unpooled.wrappedBuffer(data) : null;
+    }
+
+    public int getDataLength() {
+        if (dataBuffer != null) {
+            return dataBuffer.readableBytes();
+        }
+        return (data != null) ? data.length : 0;
+    }
+
+    /**
+     * Release the referenced buffer (if any).
+     */
+    public void release() {
+        if ((dataBuffer != null) && (dataBuffer.refCnt() > 0)) {
+            dataBuffer.release();
+        }
+    }
+
 }
@@ -0,0 +1,60 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.model.types;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit of the cycle time of cyclic data subscriptions (the cycle time is a multiple of it).
+ */
+public enum CyclicTimeBase {
+    MILLISECONDS_100((byte) 0x00, 100),
+    SECONDS_1((byte) 0x01, 1000),
+    SECONDS_10((byte) 0x02, 10000);
+
+    private static Map<Byte, CyclicTimeBase> map = null;
+
+    private final byte code;
+    private final int millis;
+
+    CyclicTimeBase(byte code, int millis) {
+        this.code = code;
+        this.millis = millis;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public int getMillis() {
+        return millis;
+    }
+
+    public static CyclicTimeBase valueOf(byte code) {
+        if (map == null) {
+            map = new HashMap<>();
+            for (CyclicTimeBase timeBase : CyclicTimeBase.values()) {
+                map.put(timeBase.code, timeBase);
+            }
+        }
+        return map.get(code);
+    }
+
+}
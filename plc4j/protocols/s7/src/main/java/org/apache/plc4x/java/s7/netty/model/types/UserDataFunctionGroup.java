@@ -0,0 +1,59 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.model.types;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Function group of a userdata (cpu services) message, encoded in the lower 4 bits of the type/function group byte.
+ */
+public enum UserDataFunctionGroup {
+    MODE_TRANSITION((byte) 0x00),
+    PROGRAMMER_COMMANDS((byte) 0x01),
+    CYCLIC_DATA((byte) 0x02),
+    BLOCK_FUNCTIONS((byte) 0x03),
+    CPU_FUNCTIONS((byte) 0x04),
+    SECURITY((byte) 0x05),
+    PBC_BSEND_BRECV((byte) 0x06),
+    TIME_FUNCTIONS((byte) 0x07);
+
+    private static Map<Byte, UserDataFunctionGroup> map = null;
+
+    private final byte code;
+
+    UserDataFunctionGroup(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static UserDataFunctionGroup valueOf(byte code) {
+        if (map == null) {
+            map = new HashMap<>();
+            for (UserDataFunctionGroup functionGroup : UserDataFunctionGroup.values()) {
+                map.put(functionGroup.code, functionGroup);
+            }
+        }
+        return map.get(code);
+    }
+
+}
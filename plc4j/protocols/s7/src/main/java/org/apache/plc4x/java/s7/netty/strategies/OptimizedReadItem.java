@@ -0,0 +1,93 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import org.apache.plc4x.java.s7.netty.model.params.items.VarParameterItem;
+
+import java.util.List;
+
+/**
+ * A single item as it is sent to the PLC, together with the information which of the
+ * original request items it serves and where their data is located in the response.
+ */
+public class OptimizedReadItem {
+
+    private final VarParameterItem parameterItem;
+    private final List<Slice> slices;
+    private final boolean merged;
+
+    public OptimizedReadItem(VarParameterItem parameterItem, List<Slice> slices, boolean merged) {
+        this.parameterItem = parameterItem;
+        this.slices = slices;
+        this.merged = merged;
+    }
+
+    public VarParameterItem getParameterItem() {
+        return parameterItem;
+    }
+
+    public List<Slice> getSlices() {
+        return slices;
+    }
+
+    /**
+     * @return true if this item is a byte range combining multiple request items, false if it
+     * is the unchanged item of exactly one request item (in this case the entire data belongs to it).
+     */
+    public boolean isMerged() {
+        return merged;
+    }
+
+    public int getFirstRequestItemIndex() {
+        return slices.get(0).getRequestItemIndex();
+    }
+
+    /**
+     * Part of the response data belonging to one request item.
+     */
+    public static class Slice {
+
+        private final int requestItemIndex;
+        private final int byteOffset;
+        private final int byteLength;
+
+        public Slice(int requestItemIndex, int byteOffset, int byteLength) {
+            this.requestItemIndex = requestItemIndex;
+            this.byteOffset = byteOffset;
+            this.byteLength = byteLength;
+        }
+
+        public int getRequestItemIndex() {
+            return requestItemIndex;
+        }
+
+        public int getByteOffset() {
+            return byteOffset;
+        }
+
+        /**
+         * @return number of bytes belonging to the request item or -1 if all data belongs to it.
+         */
+        public int getByteLength() {
+            return byteLength;
+        }
+
+    }
+
+}
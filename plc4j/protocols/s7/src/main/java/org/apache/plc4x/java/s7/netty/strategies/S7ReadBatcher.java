@@ -0,0 +1,89 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.messages.items.ResponseItem;
+import org.apache.plc4x.java.api.messages.specific.TypeSafePlcReadRequest;
+import org.apache.plc4x.java.api.messages.specific.TypeSafePlcReadResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Batches read requests submitted within a short linger time into shared S7 read jobs.
+ */
+public class S7ReadBatcher extends S7RequestBatcher<PlcReadRequest, PlcReadResponse> {
+
+    /**
+     * @param lingerTimeUs time in microseconds to wait for further read requests.
+     * @param maxBatchSize maximum number of items read in one batch (0 for no limit besides the pdu size).
+     * @param pduSize      supplies the currently negotiated pdu size.
+     */
+    public S7ReadBatcher(long lingerTimeUs, int maxBatchSize, IntSupplier pduSize) {
+        super(PlcReadRequest.class, lingerTimeUs, maxBatchSize, pduSize);
+    }
+
+    @Override
+    protected int estimateRequestSize(PlcReadRequest request) {
+        return request.getNumberOfItems() * S7RequestPacker.S7ANY_ITEM_SIZE;
+    }
+
+    @Override
+    protected int estimateResponseSize(PlcReadRequest request) {
+        int size = 0;
+        for (ReadRequestItem<?> requestItem : request.getRequestItems()) {
+            int dataSize = estimateElementSize(requestItem.getDatatype()) * requestItem.getSize();
+            size += S7RequestPacker.PAYLOAD_ITEM_HEADER_SIZE + dataSize + (dataSize % 2);
+        }
+        return size;
+    }
+
+    @Override
+    protected PlcReadRequest createBatchRequest(List<PlcReadRequest> requests) {
+        List<ReadRequestItem<?>> requestItems = new ArrayList<>();
+        for (PlcReadRequest request : requests) {
+            requestItems.addAll(request.getRequestItems());
+        }
+        return new PlcReadRequest(requestItems);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected PlcReadResponse createResponse(PlcReadRequest request, List<ResponseItem<?>> responseItems) {
+        if (request instanceof TypeSafePlcReadRequest) {
+            return new TypeSafePlcReadResponse((TypeSafePlcReadRequest) request, (List) responseItems);
+        }
+        return new PlcReadResponse(request, (List<ReadResponseItem<?>>) (List) responseItems);
+    }
+
+    private int estimateElementSize(Class<?> datatype) {
+        if ((datatype == Boolean.class) || (datatype == Byte.class) || (datatype == String.class)) {
+            return 1;
+        } else if (datatype == Short.class) {
+            return 2;
+        }
+        return 4;
+    }
+
+}
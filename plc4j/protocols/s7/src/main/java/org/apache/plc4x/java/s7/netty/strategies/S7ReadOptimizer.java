@@ -0,0 +1,165 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.params.items.VarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.types.MemoryArea;
+import org.apache.plc4x.java.s7.netty.model.types.SpecificationType;
+import org.apache.plc4x.java.s7.netty.model.types.TransportSize;
+
+import java.util.*;
+
+/**
+ * Merges read items located in the same memory area (and data block) whose byte ranges
+ * overlap, touch or are separated by no more than a configurable gap into a single
+ * BYTE-range read. This reduces the number of items (and the per-item overhead) sent
+ * to the PLC. The resulting {@link OptimizedReadItem}s contain the information needed
+ * to slice the response data back into the data of the original items.
+ */
+public class S7ReadOptimizer {
+
+    private final int maxGap;
+    private final int maxRangeSize;
+
+    /**
+     * @param maxGap       maximum number of unused bytes between two items that may be read
+     *                     along in order to merge them.
+     * @param maxRangeSize maximum number of bytes a merged range may contain (Usually derived
+     *                     from the pdu size, as the response has to fit into one pdu).
+     */
+    public S7ReadOptimizer(int maxGap, int maxRangeSize) {
+        if (maxGap < 0) {
+            throw new IllegalArgumentException("maxGap must not be negative");
+        }
+        this.maxGap = maxGap;
+        this.maxRangeSize = maxRangeSize;
+    }
+
+    public int getMaxGap() {
+        return maxGap;
+    }
+
+    public int getMaxRangeSize() {
+        return maxRangeSize;
+    }
+
+    /**
+     * Optimize the given list of items.
+     *
+     * @param items items in the order of the original request items.
+     * @return optimized items ordered by the first request item they contain.
+     */
+    public List<OptimizedReadItem> optimize(List<VarParameterItem> items) {
+        List<OptimizedReadItem> result = new ArrayList<>(items.size());
+        // Group all candidates by memory area and data block (in order of their first appearance).
+        Map<Long, List<Integer>> candidateGroups = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            VarParameterItem item = items.get(i);
+            if (isMergeable(item)) {
+                S7AnyVarParameterItem s7AnyItem = (S7AnyVarParameterItem) item;
+                long key = ((long) (s7AnyItem.getMemoryArea().getCode() & 0xFF) << 16) |
+                    (s7AnyItem.getDataBlockNumber() & 0xFFFF);
+                candidateGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            } else {
+                result.add(unmerged(item, i));
+            }
+        }
+
+        for (List<Integer> group : candidateGroups.values()) {
+            group.sort(Comparator.comparingInt(index -> getStartOffset(items.get(index))));
+            List<Integer> range = new ArrayList<>();
+            int rangeStart = 0;
+            int rangeEnd = 0;
+            for (Integer index : group) {
+                S7AnyVarParameterItem item = (S7AnyVarParameterItem) items.get(index);
+                int start = getStartOffset(item);
+                int end = start + getByteLength(item);
+                if (!range.isEmpty() && (start <= rangeEnd + maxGap) &&
+                    (Math.max(end, rangeEnd) - rangeStart <= maxRangeSize)) {
+                    range.add(index);
+                    rangeEnd = Math.max(end, rangeEnd);
+                    continue;
+                }
+                if (!range.isEmpty()) {
+                    result.add(toOptimizedItem(items, range, rangeStart, rangeEnd));
+                }
+                range = new ArrayList<>();
+                range.add(index);
+                rangeStart = start;
+                rangeEnd = end;
+            }
+            if (!range.isEmpty()) {
+                result.add(toOptimizedItem(items, range, rangeStart, rangeEnd));
+            }
+        }
+
+        // Keep the order of the original request as far as possible.
+        result.sort(Comparator.comparingInt(OptimizedReadItem::getFirstRequestItemIndex));
+        return result;
+    }
+
+    private OptimizedReadItem toOptimizedItem(List<VarParameterItem> items, List<Integer> range,
+                                              int rangeStart, int rangeEnd) {
+        if (range.size() == 1) {
+            return unmerged(items.get(range.get(0)), range.get(0));
+        }
+        S7AnyVarParameterItem first = (S7AnyVarParameterItem) items.get(range.get(0));
+        S7AnyVarParameterItem rangeItem = new S7AnyVarParameterItem(
+            SpecificationType.VARIABLE_SPECIFICATION, first.getMemoryArea(), TransportSize.BYTE,
+            (short) (rangeEnd - rangeStart), first.getDataBlockNumber(), (short) rangeStart, (byte) 0);
+        List<OptimizedReadItem.Slice> slices = new ArrayList<>(range.size());
+        range.sort(Comparator.naturalOrder());
+        for (Integer index : range) {
+            S7AnyVarParameterItem item = (S7AnyVarParameterItem) items.get(index);
+            slices.add(new OptimizedReadItem.Slice(
+                index, getStartOffset(item) - rangeStart, getByteLength(item)));
+        }
+        return new OptimizedReadItem(rangeItem, slices, true);
+    }
+
+    private OptimizedReadItem unmerged(VarParameterItem item, int index) {
+        return new OptimizedReadItem(item, Collections.singletonList(
+            new OptimizedReadItem.Slice(index, 0, -1)), false);
+    }
+
+    private boolean isMergeable(VarParameterItem item) {
+        if (!(item instanceof S7AnyVarParameterItem)) {
+            return false;
+        }
+        S7AnyVarParameterItem s7AnyItem = (S7AnyVarParameterItem) item;
+        TransportSize transportSize = s7AnyItem.getTransportSize();
+        MemoryArea memoryArea = s7AnyItem.getMemoryArea();
+        // Bits can't be sliced out of a byte range and counters and timers are
+        // not addressed by byte offsets, so these can't be merged.
+        return (transportSize != null) && (transportSize != TransportSize.BIT) &&
+            (transportSize.getSizeInBytes() > 0) && (s7AnyItem.getBitOffset() == 0) &&
+            (memoryArea != null) && (memoryArea != MemoryArea.COUNTERS) && (memoryArea != MemoryArea.TIMERS) &&
+            (getByteLength(s7AnyItem) <= maxRangeSize);
+    }
+
+    private int getStartOffset(VarParameterItem item) {
+        return ((S7AnyVarParameterItem) item).getByteOffset() & 0xFFFF;
+    }
+
+    private int getByteLength(S7AnyVarParameterItem item) {
+        return item.getNumElements() * item.getTransportSize().getSizeInBytes();
+    }
+
+}
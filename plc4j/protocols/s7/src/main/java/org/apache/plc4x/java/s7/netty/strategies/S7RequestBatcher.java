@@ -0,0 +1,224 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.apache.plc4x.java.api.messages.PlcRequest;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.PlcResponse;
+import org.apache.plc4x.java.api.messages.items.ResponseItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Collects the requests of one type submitted within a short linger time and passes them on as one
+ * request, so their items share S7 messages instead of every request needing its own round trip.
+ * The batch is sent as soon as the linger time is over, as soon as it would no longer fit into a
+ * single pdu or as soon as it reaches the maximum number of items. Every caller gets a response
+ * containing only the items of its own request.
+ *
+ * Has to be placed behind (closer to the application than) the {@link org.apache.plc4x.java.s7.netty.Plc4XS7Protocol}.
+ *
+ * @param <REQUEST>  type of the requests that are batched.
+ * @param <RESPONSE> type of the responses to these requests.
+ */
+public abstract class S7RequestBatcher<REQUEST extends PlcRequest, RESPONSE extends PlcResponse>
+    extends ChannelOutboundHandlerAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(S7RequestBatcher.class);
+
+    private final Class<REQUEST> requestType;
+    private final long lingerTimeUs;
+    private final int maxBatchSize;
+    private final IntSupplier pduSize;
+
+    private List<BatchedRequest> batch;
+    private int batchItems;
+    private int batchRequestSize;
+    private int batchResponseSize;
+    private ScheduledFuture<?> sendTask;
+
+    /**
+     * @param requestType  type of the requests that are batched (all others are passed on immediately).
+     * @param lingerTimeUs time in microseconds to wait for further requests.
+     * @param maxBatchSize maximum number of items in one batch (0 for no limit besides the pdu size).
+     * @param pduSize      supplies the currently negotiated pdu size.
+     */
+    protected S7RequestBatcher(Class<REQUEST> requestType, long lingerTimeUs, int maxBatchSize, IntSupplier pduSize) {
+        this.requestType = requestType;
+        this.lingerTimeUs = lingerTimeUs;
+        this.maxBatchSize = maxBatchSize;
+        this.pduSize = pduSize;
+        this.batch = new ArrayList<>();
+    }
+
+    public long getLingerTimeUs() {
+        return lingerTimeUs;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return estimated number of bytes the items of the given request occupy in an S7 request.
+     */
+    protected abstract int estimateRequestSize(REQUEST request);
+
+    /**
+     * @return estimated number of bytes the items of the given request occupy in an S7 response.
+     */
+    protected abstract int estimateResponseSize(REQUEST request);
+
+    /**
+     * @return request containing the items of all given requests (in the given order).
+     */
+    protected abstract REQUEST createBatchRequest(List<REQUEST> requests);
+
+    /**
+     * @return response to the given request consisting of the given items.
+     */
+    protected abstract RESPONSE createResponse(REQUEST request, List<ResponseItem<?>> responseItems);
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof PlcRequestContainer) || !requestType.isInstance(((PlcRequestContainer) msg).getRequest())) {
+            super.write(ctx, msg, promise);
+            return;
+        }
+        PlcRequestContainer container = (PlcRequestContainer) msg;
+        REQUEST request = requestType.cast(container.getRequest());
+        int numItems = request.getNumberOfItems();
+        int requestSize = estimateRequestSize(request);
+        int responseSize = estimateResponseSize(request);
+        int requestCapacity = pduSize.getAsInt() - S7RequestPacker.REQUEST_OVERHEAD;
+        int responseCapacity = pduSize.getAsInt() - S7RequestPacker.RESPONSE_OVERHEAD;
+        if (!batch.isEmpty() && ((batchRequestSize + requestSize > requestCapacity) ||
+            (batchResponseSize + responseSize > responseCapacity) ||
+            ((maxBatchSize > 0) && (batchItems + numItems > maxBatchSize)))) {
+            sendBatch(ctx);
+        }
+        batch.add(new BatchedRequest(container, promise));
+        batchItems += numItems;
+        batchRequestSize += requestSize;
+        batchResponseSize += responseSize;
+        if ((batchRequestSize >= requestCapacity) || (batchResponseSize >= responseCapacity) ||
+            ((maxBatchSize > 0) && (batchItems >= maxBatchSize))) {
+            sendBatch(ctx);
+        } else if (sendTask == null) {
+            sendTask = ctx.executor().schedule(() -> sendBatch(ctx), lingerTimeUs, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void sendBatch(ChannelHandlerContext ctx) {
+        if (sendTask != null) {
+            sendTask.cancel(false);
+            sendTask = null;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<BatchedRequest> requests = batch;
+        batch = new ArrayList<>();
+        batchItems = 0;
+        batchRequestSize = 0;
+        batchResponseSize = 0;
+
+        if (requests.size() == 1) {
+            ctx.writeAndFlush(requests.get(0).getContainer(), requests.get(0).getPromise());
+            return;
+        }
+
+        logger.trace("Sending {} requests as one", requests.size());
+        List<REQUEST> plcRequests = new ArrayList<>(requests.size());
+        for (BatchedRequest request : requests) {
+            plcRequests.add(request.getRequest());
+        }
+        CompletableFuture<RESPONSE> future = new CompletableFuture<>();
+        ctx.writeAndFlush(new PlcRequestContainer<>(createBatchRequest(plcRequests), future)).addListener(
+            writeFuture -> {
+                if (writeFuture.isSuccess()) {
+                    for (BatchedRequest request : requests) {
+                        request.getPromise().trySuccess();
+                    }
+                    future.whenComplete((response, throwable) -> completeRequests(requests, response, throwable));
+                } else {
+                    // Probably one of the requests couldn't be encoded, so don't let it fail the others.
+                    logger.debug("Sending batch failed, sending the requests separately", writeFuture.cause());
+                    for (BatchedRequest request : requests) {
+                        ctx.writeAndFlush(request.getContainer(), request.getPromise());
+                    }
+                }
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void completeRequests(List<BatchedRequest> requests, RESPONSE response, Throwable throwable) {
+        if (throwable != null) {
+            for (BatchedRequest request : requests) {
+                request.getContainer().getResponseFuture().completeExceptionally(throwable);
+            }
+            return;
+        }
+        List<? extends ResponseItem<?>> responseItems = response.getResponseItems();
+        int offset = 0;
+        for (BatchedRequest request : requests) {
+            int numItems = request.getRequest().getNumberOfItems();
+            List<ResponseItem<?>> requestResponseItems =
+                new ArrayList<>(responseItems.subList(offset, offset + numItems));
+            offset += numItems;
+            request.getContainer().getResponseFuture().complete(
+                createResponse(request.getRequest(), requestResponseItems));
+        }
+    }
+
+    private class BatchedRequest {
+
+        private final PlcRequestContainer container;
+        private final ChannelPromise promise;
+
+        private BatchedRequest(PlcRequestContainer container, ChannelPromise promise) {
+            this.container = container;
+            this.promise = promise;
+        }
+
+        private PlcRequestContainer getContainer() {
+            return container;
+        }
+
+        private REQUEST getRequest() {
+            return requestType.cast(container.getRequest());
+        }
+
+        private ChannelPromise getPromise() {
+            return promise;
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
+import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.params.items.VarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
+import org.apache.plc4x.java.s7.netty.model.types.TransportSize;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Distributes the items of a read or write request over as few S7 messages as possible,
+ * making sure both the request and the expected response fit into the negotiated pdu size.
+ */
+public class S7RequestPacker {
+
+    // Header of a JOB message (10 bytes) plus function code and item count of the parameter (2 bytes).
+    public static final int REQUEST_OVERHEAD = 12;
+    // Header of an ACK_DATA message (12 bytes) plus function code and item count of the parameter (2 bytes).
+    public static final int RESPONSE_OVERHEAD = 14;
+    // Size of one S7ANY address item in the parameter.
+    public static final int S7ANY_ITEM_SIZE = 12;
+    // Return code, transport size and length of a payload item.
+    public static final int PAYLOAD_ITEM_HEADER_SIZE = 4;
+
+    private final int pduSize;
+
+    public S7RequestPacker(int pduSize) {
+        this.pduSize = pduSize;
+    }
+
+    public int getPduSize() {
+        return pduSize;
+    }
+
+    /**
+     * @return the maximum number of data bytes a single item in a read response can contain.
+     */
+    public int getMaxReadItemDataSize() {
+        return pduSize - RESPONSE_OVERHEAD - PAYLOAD_ITEM_HEADER_SIZE;
+    }
+
+    /**
+     * @return the maximum number of data bytes a single item in a write request can contain.
+     */
+    public int getMaxWriteItemDataSize() {
+        int size = pduSize - REQUEST_OVERHEAD - S7ANY_ITEM_SIZE - PAYLOAD_ITEM_HEADER_SIZE;
+        // Keep it even, so there's no need for a fill byte.
+        return size - (size % 2);
+    }
+
+    /**
+     * Pack the items of a read request.
+     *
+     * @param items address items that should be read.
+     * @return lists of item indexes, each of them fitting into one read request.
+     * @throws PlcProtocolException if a single item alone would exceed the pdu size.
+     */
+    public List<List<Integer>> packReadItems(List<VarParameterItem> items) throws PlcProtocolException {
+        int[] requestSizes = new int[items.size()];
+        int[] responseSizes = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            requestSizes[i] = S7ANY_ITEM_SIZE;
+            responseSizes[i] = getPayloadItemSize(getExpectedDataSize(items.get(i)));
+        }
+        return pack(requestSizes, responseSizes);
+    }
+
+    /**
+     * Pack the items of a write request.
+     *
+     * @param items        address items that should be written.
+     * @param payloadItems data that should be written (aligned with the address items).
+     * @return lists of item indexes, each of them fitting into one write request.
+     * @throws PlcProtocolException if a single item alone would exceed the pdu size.
+     */
+    public List<List<Integer>> packWriteItems(List<VarParameterItem> items, List<VarPayloadItem> payloadItems)
+        throws PlcProtocolException {
+        int[] requestSizes = new int[items.size()];
+        int[] responseSizes = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            requestSizes[i] = S7ANY_ITEM_SIZE + getPayloadItemSize(payloadItems.get(i).getDataLength());
+            // A write response only contains the return code for every item.
+            responseSizes[i] = 1;
+        }
+        return pack(requestSizes, responseSizes);
+    }
+
+    private List<List<Integer>> pack(int[] requestSizes, int[] responseSizes) throws PlcProtocolException {
+        int requestCapacity = pduSize - REQUEST_OVERHEAD;
+        int responseCapacity = pduSize - RESPONSE_OVERHEAD;
+        List<Integer> indexes = new ArrayList<>(requestSizes.length);
+        for (int i = 0; i < requestSizes.length; i++) {
+            if ((requestSizes[i] > requestCapacity) || (responseSizes[i] > responseCapacity)) {
+                throw new PlcProtocolException("Item " + i + " doesn't fit into a single message with pdu size " +
+                    pduSize + " (request " + requestSizes[i] + " bytes, response " + responseSizes[i] + " bytes)");
+            }
+            indexes.add(i);
+        }
+
+        // First fit decreasing: Place the biggest items first and put every item in the first
+        // message it fits into. Which of the two sizes is more critical depends on the request
+        // type, so sort by the relative size of the more critical one.
+        indexes.sort(Comparator.comparingDouble((Integer i) -> Math.max(
+            (double) requestSizes[i] / requestCapacity, (double) responseSizes[i] / responseCapacity)).reversed());
+        List<List<Integer>> messages = new ArrayList<>();
+        List<int[]> messageSizes = new ArrayList<>();
+        for (Integer index : indexes) {
+            boolean placed = false;
+            for (int m = 0; m < messages.size(); m++) {
+                int[] sizes = messageSizes.get(m);
+                if ((sizes[0] + requestSizes[index] <= requestCapacity) &&
+                    (sizes[1] + responseSizes[index] <= responseCapacity)) {
+                    messages.get(m).add(index);
+                    sizes[0] += requestSizes[index];
+                    sizes[1] += responseSizes[index];
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) {
+                List<Integer> message = new ArrayList<>();
+                message.add(index);
+                messages.add(message);
+                messageSizes.add(new int[]{requestSizes[index], responseSizes[index]});
+            }
+        }
+
+        // Keep the items of every message (and the messages themselves) in request order.
+        for (List<Integer> message : messages) {
+            message.sort(Comparator.naturalOrder());
+        }
+        messages.sort(Comparator.comparingInt(message -> message.get(0)));
+        return messages;
+    }
+
+    private int getExpectedDataSize(VarParameterItem item) {
+        if (!(item instanceof S7AnyVarParameterItem)) {
+            return 0;
+        }
+        S7AnyVarParameterItem s7AnyItem = (S7AnyVarParameterItem) item;
+        TransportSize transportSize = s7AnyItem.getTransportSize();
+        int elementSize = ((transportSize != null) && (transportSize.getSizeInBytes() > 0)) ?
+            transportSize.getSizeInBytes() : 1;
+        return s7AnyItem.getNumElements() * elementSize;
+    }
+
+    private int getPayloadItemSize(int dataSize) {
+        // Items with an odd length are followed by a fill byte (unless it's the last item).
+        return PAYLOAD_ITEM_HEADER_SIZE + dataSize + (dataSize % 2);
+    }
+
+}
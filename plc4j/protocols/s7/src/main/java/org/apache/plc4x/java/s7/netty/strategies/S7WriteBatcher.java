@@ -0,0 +1,101 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import org.apache.plc4x.java.api.messages.PlcWriteRequest;
+import org.apache.plc4x.java.api.messages.PlcWriteResponse;
+import org.apache.plc4x.java.api.messages.items.ResponseItem;
+import org.apache.plc4x.java.api.messages.items.WriteRequestItem;
+import org.apache.plc4x.java.api.messages.items.WriteResponseItem;
+import org.apache.plc4x.java.api.messages.specific.TypeSafePlcWriteRequest;
+import org.apache.plc4x.java.api.messages.specific.TypeSafePlcWriteResponse;
+import org.apache.plc4x.java.s7.netty.util.ByteBufferWriteRequestItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Batches write requests submitted within a short linger time into shared S7 write jobs.
+ */
+public class S7WriteBatcher extends S7RequestBatcher<PlcWriteRequest, PlcWriteResponse> {
+
+    /**
+     * @param lingerTimeUs time in microseconds to wait for further write requests.
+     * @param pduSize      supplies the currently negotiated pdu size.
+     */
+    public S7WriteBatcher(long lingerTimeUs, IntSupplier pduSize) {
+        super(PlcWriteRequest.class, lingerTimeUs, 0, pduSize);
+    }
+
+    @Override
+    protected int estimateRequestSize(PlcWriteRequest request) {
+        int size = 0;
+        for (WriteRequestItem<?> requestItem : request.getRequestItems()) {
+            int dataSize = 0;
+            if (requestItem instanceof ByteBufferWriteRequestItem) {
+                dataSize = ((ByteBufferWriteRequestItem) requestItem).getSize();
+            } else {
+                for (Object value : requestItem.getValues()) {
+                    dataSize += estimateValueSize(value);
+                }
+            }
+            size += S7RequestPacker.S7ANY_ITEM_SIZE + S7RequestPacker.PAYLOAD_ITEM_HEADER_SIZE +
+                dataSize + (dataSize % 2);
+        }
+        return size;
+    }
+
+    @Override
+    protected int estimateResponseSize(PlcWriteRequest request) {
+        // A write response only contains the return code for every item.
+        return request.getNumberOfItems();
+    }
+
+    @Override
+    protected PlcWriteRequest createBatchRequest(List<PlcWriteRequest> requests) {
+        List<WriteRequestItem<?>> requestItems = new ArrayList<>();
+        for (PlcWriteRequest request : requests) {
+            requestItems.addAll(request.getRequestItems());
+        }
+        return new PlcWriteRequest(requestItems);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected PlcWriteResponse createResponse(PlcWriteRequest request, List<ResponseItem<?>> responseItems) {
+        if (request instanceof TypeSafePlcWriteRequest) {
+            return new TypeSafePlcWriteResponse((TypeSafePlcWriteRequest) request, (List) responseItems);
+        }
+        return new PlcWriteResponse(request, (List<WriteResponseItem<?>>) (List) responseItems);
+    }
+
+    private int estimateValueSize(Object value) {
+        if ((value instanceof Boolean) || (value instanceof Byte)) {
+            return 1;
+        } else if (value instanceof Short) {
+            return 2;
+        } else if (value instanceof String) {
+            // Terminated by a 0 byte.
+            return ((String) value).length() + 1;
+        }
+        return 4;
+    }
+
+}
@@ -18,9 +18,11 @@
  */
 package org.apache.plc4x.java.s7.netty.util;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class BigEndianDecoder {
@@ -29,38 +31,43 @@ public class BigEndianDecoder {
         // Utility class
     }
 
-    @SuppressWarnings("unchecked")
     public static <T> List<T> decodeData(Class<T> datatype, byte[] s7Data) throws PlcProtocolException {
+        return decodeData(datatype, Unpooled.wrappedBuffer(s7Data));
+    }
 
-        List<Object> result = new LinkedList<>();
-        int i = 0;
-        final int length = s7Data.length;
-        while (i < length) {
+    /**
+     * Decode the readable bytes of the given buffer without changing its reader index
+     * (so the data can be decoded directly from the received frame without copying it).
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> decodeData(Class<T> datatype, ByteBuf s7Data) throws PlcProtocolException {
+        final int start = s7Data.readerIndex();
+        final int end = s7Data.writerIndex();
+        List<Object> result = new ArrayList<>(getExpectedNumberOfValues(datatype, end - start));
+        int i = start;
+        while (i < end) {
             if (datatype == Boolean.class) {
-                result.add((s7Data[i] & 0x01) == 0x01);
+                result.add((s7Data.getByte(i) & 0x01) == 0x01);
                 i += 1;
             } else if (datatype == Byte.class) {
-                result.add(s7Data[i]);
+                result.add(s7Data.getByte(i));
                 i += 1;
             } else if (datatype == Short.class) {
-                result.add((short) (((s7Data[i] & 0xff) << 8) | (s7Data[i + 1] & 0xff)));
+                result.add(s7Data.getShort(i));
                 i += 2;
             } else if (datatype == Integer.class) {
-                result.add(((s7Data[i] & 0xff) << 24) | ((s7Data[i + 1] & 0xff) << 16) |
-                    ((s7Data[i + 2] & 0xff) << 8) | (s7Data[i + 3] & 0xff));
+                result.add(s7Data.getInt(i));
                 i += 4;
             } else if (datatype == Float.class) {
                 // Description of the Real number format:
                 // https://www.sps-lehrgang.de/zahlenformate-step7/#c144
                 // https://de.wikipedia.org/wiki/IEEE_754
-                int intValue = ((s7Data[i] & 0xff) << 24) | ((s7Data[i + 1] & 0xff) << 16) |
-                    ((s7Data[i + 2] & 0xff) << 8) | (s7Data[i + 3] & 0xff);
-                result.add(Float.intBitsToFloat(intValue));
+                result.add(Float.intBitsToFloat(s7Data.getInt(i)));
                 i += 4;
             } else if (datatype == String.class) {
                 StringBuilder builder = new StringBuilder();
-                while (s7Data[i] != (byte) 0x0 && i < length) {
-                    builder.append((char) s7Data[i]);
+                while ((i < end) && (s7Data.getByte(i) != (byte) 0x0)) {
+                    builder.append((char) s7Data.getByte(i));
                     i++;
                 }
                 i++; // skip terminating character
@@ -71,4 +78,16 @@ public class BigEndianDecoder {
         }
         return (List<T>) result;
     }
+
+    private static int getExpectedNumberOfValues(Class<?> datatype, int numBytes) {
+        if (datatype == Short.class) {
+            return numBytes / 2;
+        } else if ((datatype == Integer.class) || (datatype == Float.class)) {
+            return numBytes / 4;
+        } else if (datatype == String.class) {
+            return 1;
+        }
+        return numBytes;
+    }
+
 }
@@ -0,0 +1,153 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.util;
+
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.types.ResponseCode;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read response item keeping the big endian data received from the plc. Primitive arrays are
+ * decoded directly from this data, the list of boxed values is only built if it is requested.
+ */
+public class BigEndianReadResponseItem<T> extends ReadResponseItem<T> {
+
+    private final byte[] data;
+
+    public BigEndianReadResponseItem(ReadRequestItem<T> requestItem, ResponseCode responseCode, byte[] data) {
+        super(requestItem, responseCode);
+        if (!isSupported(requestItem.getDatatype())) {
+            throw new IllegalArgumentException(
+                "Unsupported datatype " + requestItem.getDatatype().getSimpleName());
+        }
+        this.data = data;
+    }
+
+    /**
+     * @return true if values of the given datatype can be kept as primitive array.
+     */
+    public static boolean isSupported(Class<?> datatype) {
+        return (datatype == Boolean.class) || (datatype == Byte.class) || (datatype == Short.class) ||
+            (datatype == Integer.class) || (datatype == Float.class);
+    }
+
+    @Override
+    public boolean hasPrimitiveValues() {
+        return true;
+    }
+
+    @Override
+    public boolean[] getBooleanArray() {
+        checkDatatype(Boolean.class);
+        boolean[] array = new boolean[data.length];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (data[i] & 0x01) == 0x01;
+        }
+        return array;
+    }
+
+    @Override
+    public byte[] getByteArray() {
+        checkDatatype(Byte.class);
+        return data.clone();
+    }
+
+    @Override
+    public short[] getShortArray() {
+        checkDatatype(Short.class);
+        short[] array = new short[data.length / 2];
+        ByteBuffer.wrap(data).asShortBuffer().get(array);
+        return array;
+    }
+
+    @Override
+    public int[] getIntArray() {
+        checkDatatype(Integer.class);
+        int[] array = new int[data.length / 4];
+        ByteBuffer.wrap(data).asIntBuffer().get(array);
+        return array;
+    }
+
+    @Override
+    public float[] getFloatArray() {
+        checkDatatype(Float.class);
+        float[] array = new float[data.length / 4];
+        ByteBuffer.wrap(data).asFloatBuffer().get(array);
+        return array;
+    }
+
+    @Override
+    public Optional<ByteBuffer> getRawData() {
+        return Optional.of(ByteBuffer.wrap(data).asReadOnlyBuffer());
+    }
+
+    @Override
+    protected List<T> decodeValues() {
+        Class<T> datatype = getRequestItem().getDatatype();
+        List<Object> values;
+        if (datatype == Boolean.class) {
+            values = new ArrayList<>(data.length);
+            for (boolean value : getBooleanArray()) {
+                values.add(value);
+            }
+        } else if (datatype == Byte.class) {
+            values = new ArrayList<>(data.length);
+            for (byte value : data) {
+                values.add(value);
+            }
+        } else if (datatype == Short.class) {
+            short[] array = getShortArray();
+            values = new ArrayList<>(array.length);
+            for (short value : array) {
+                values.add(value);
+            }
+        } else if (datatype == Integer.class) {
+            int[] array = getIntArray();
+            values = new ArrayList<>(array.length);
+            for (int value : array) {
+                values.add(value);
+            }
+        } else {
+            float[] array = getFloatArray();
+            values = new ArrayList<>(array.length);
+            for (float value : array) {
+                values.add(value);
+            }
+        }
+        return castList(values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> castList(List<Object> values) {
+        return (List<T>) values;
+    }
+
+    private void checkDatatype(Class<?> datatype) {
+        if (getRequestItem().getDatatype() != datatype) {
+            throw new IllegalStateException("Values of type " + getRequestItem().getDatatype().getSimpleName() +
+                " can't be returned as " + datatype.getSimpleName() + " array");
+        }
+    }
+
+}
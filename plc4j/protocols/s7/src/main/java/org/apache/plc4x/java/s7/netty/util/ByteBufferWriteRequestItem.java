@@ -0,0 +1,65 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.util;
+
+import org.apache.plc4x.java.api.messages.items.WriteRequestItem;
+import org.apache.plc4x.java.api.model.Address;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write request item referencing the bytes to write in a buffer. The bytes are sent as they are,
+ * the list of boxed values is only built if it is requested.
+ */
+public class ByteBufferWriteRequestItem extends WriteRequestItem<Byte> {
+
+    private final ByteBuffer data;
+
+    /**
+     * @param address first byte to write.
+     * @param data    the bytes between position and limit are written (referenced, not copied).
+     */
+    public ByteBufferWriteRequestItem(Address address, ByteBuffer data) {
+        super(Byte.class, address);
+        this.data = data.slice();
+    }
+
+    /**
+     * @return a read-only view of the bytes to write.
+     */
+    public ByteBuffer getData() {
+        return data.asReadOnlyBuffer();
+    }
+
+    public int getSize() {
+        return data.remaining();
+    }
+
+    @Override
+    public List<Byte> getValues() {
+        List<Byte> values = new ArrayList<>(data.remaining());
+        for (int i = 0; i < data.remaining(); i++) {
+            values.add(data.get(i));
+        }
+        return values;
+    }
+
+}
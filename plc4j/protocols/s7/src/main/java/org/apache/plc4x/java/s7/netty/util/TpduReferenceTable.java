@@ -0,0 +1,157 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps track of the requests currently in flight on one connection, indexed by their tpdu reference.
+ *
+ * Lookups are simple array accesses. References are handed out round robin and only if their slot is
+ * free, so a reference is never used twice at the same time and a freed reference is only reused after
+ * all other references have been used (which makes it unlikely that a late response is mistaken for the
+ * response to a newer request).
+ *
+ * This class is not thread safe, it's meant to be used from the event loop of the connection's channel.
+ */
+public class TpduReferenceTable<T> {
+
+    public static final int SIZE = 0x10000;
+
+    private final Object[] entries;
+    private final long[] timestamps;
+    private int numEntries;
+    private int nextReference;
+
+    public TpduReferenceTable() {
+        entries = new Object[SIZE];
+        timestamps = new long[SIZE];
+        numEntries = 0;
+        // Reference 0 is never used.
+        nextReference = 1;
+    }
+
+    /**
+     * Store the given entry using the next free reference.
+     *
+     * @param entry     entry to store.
+     * @param timestamp time the entry is created (used for finding expired entries).
+     * @return the reference the entry is stored with.
+     * @throws IllegalStateException if all references are in use.
+     */
+    public short allocate(T entry, long timestamp) {
+        if (numEntries >= SIZE - 1) {
+            throw new IllegalStateException("All " + (SIZE - 1) + " tpdu references are in use");
+        }
+        int reference = nextReference;
+        while (entries[reference] != null) {
+            reference = nextReference(reference);
+        }
+        nextReference = nextReference(reference);
+        put(reference, entry, timestamp);
+        return (short) reference;
+    }
+
+    /**
+     * Store the given entry with an explicitly chosen reference.
+     *
+     * @throws IllegalStateException if the reference is already in use.
+     */
+    public void put(short reference, T entry, long timestamp) {
+        int index = Short.toUnsignedInt(reference);
+        if (entries[index] != null) {
+            throw new IllegalStateException("Tpdu reference " + index + " is already in use");
+        }
+        put(index, entry, timestamp);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(short reference) {
+        return (T) entries[Short.toUnsignedInt(reference)];
+    }
+
+    /**
+     * @return the entry stored with the given reference or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(short reference) {
+        int index = Short.toUnsignedInt(reference);
+        T entry = (T) entries[index];
+        if (entry != null) {
+            entries[index] = null;
+            numEntries--;
+        }
+        return entry;
+    }
+
+    /**
+     * @return the references of all entries created before the given deadline.
+     */
+    public List<Short> getExpiredReferences(long deadline) {
+        if (numEntries == 0) {
+            return Collections.emptyList();
+        }
+        List<Short> expired = new ArrayList<>();
+        for (int i = 0, found = 0; (i < SIZE) && (found < numEntries); i++) {
+            if (entries[i] != null) {
+                found++;
+                // Compare the difference to deal with overflows of System.nanoTime().
+                if (timestamps[i] - deadline < 0) {
+                    expired.add((short) i);
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Remove all entries.
+     *
+     * @return the removed entries.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> removeAll() {
+        List<T> removed = new ArrayList<>(numEntries);
+        for (int i = 0; (i < SIZE) && (numEntries > 0); i++) {
+            if (entries[i] != null) {
+                removed.add((T) entries[i]);
+                entries[i] = null;
+                numEntries--;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return numEntries;
+    }
+
+    private void put(int index, T entry, long timestamp) {
+        entries[index] = entry;
+        timestamps[index] = timestamp;
+        numEntries++;
+    }
+
+    private static int nextReference(int reference) {
+        return (reference == SIZE - 1) ? 1 : reference + 1;
+    }
+
+}
@@ -39,6 +39,7 @@ import static org.hamcrest.core.IsNull.notNullValue;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.hamcrest.core.StringContains.containsString;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 
@@ -130,6 +131,94 @@ public class IsoOnTcpProtocolTest extends NettyTestBase {
         assertThat(obj, nullValue() );
     }
 
+    /**
+     * If a packet is split over multiple reads, it has to be put together.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void decodeFragmented() {
+        EmbeddedChannel channel = new EmbeddedChannel(new IsoOnTcpProtocol());
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER,
+            (byte) 0x00, (byte) 0x00}));
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{(byte) 0x09,
+            (byte) 0x01, (byte) 0x02, (byte) 0x03}));
+        assertThat(channel.readInbound(), nullValue());
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{(byte) 0x04, (byte) 0x05}));
+        channel.checkException();
+        IsoOnTcpMessage isoOnTcpMessage = channel.readInbound();
+        assertThat(isoOnTcpMessage.getUserData().readableBytes(), equalTo(5));
+        assertThat(isoOnTcpMessage.getUserData().getByte(4), equalTo((byte) 0x05));
+    }
+
+    /**
+     * If multiple packets are received at once, all of them have to be decoded.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void decodeCoalesced() {
+        EmbeddedChannel channel = new EmbeddedChannel(new IsoOnTcpProtocol());
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{
+            IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER, (byte) 0x00, (byte) 0x00, (byte) 0x07,
+            (byte) 0x01, (byte) 0x02, (byte) 0x03,
+            IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER, (byte) 0x00, (byte) 0x00, (byte) 0x08,
+            (byte) 0x04, (byte) 0x05, (byte) 0x06, (byte) 0x07}));
+        channel.checkException();
+        IsoOnTcpMessage first = channel.readInbound();
+        IsoOnTcpMessage second = channel.readInbound();
+        assertThat(first.getUserData().readableBytes(), equalTo(3));
+        assertThat(second.getUserData().readableBytes(), equalTo(4));
+        assertThat(second.getUserData().getByte(0), equalTo((byte) 0x04));
+    }
+
+    /**
+     * Invalid data has to be reported and skipped, but the following packets still have to be decoded.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void decodeAfterInvalidData() {
+        EmbeddedChannel channel = new EmbeddedChannel(new IsoOnTcpProtocol());
+        try {
+            channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{
+                (byte) 0x12, (byte) 0x34,
+                IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER, (byte) 0x00, (byte) 0x00, (byte) 0x02,
+                IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER, (byte) 0x00, (byte) 0x00, (byte) 0x07,
+                (byte) 0x01, (byte) 0x02, (byte) 0x03}));
+            fail("Expected the invalid data to be reported");
+        } catch (Throwable throwable) {
+            assertThat(throwable, instanceOf(PlcProtocolException.class));
+        }
+        IsoOnTcpMessage isoOnTcpMessage = channel.readInbound();
+        assertThat(isoOnTcpMessage.getUserData().readableBytes(), equalTo(3));
+        assertThat(channel.readInbound(), nullValue());
+    }
+
+    /**
+     * When skipping invalid data, 0x03 bytes not followed by a valid header must not be taken for the
+     * start of a packet.
+     */
+    @Test
+    @Category(FastTests.class)
+    public void decodeAfterInvalidDataContainingMagicBytes() {
+        EmbeddedChannel channel = new EmbeddedChannel(new IsoOnTcpProtocol());
+        try {
+            channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{
+                (byte) 0x12,
+                // Neither the reserved byte nor the lengths are valid.
+                IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER, (byte) 0x01, (byte) 0x00, (byte) 0x07,
+                IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER, (byte) 0x00, (byte) 0x00, (byte) 0x06,
+                IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER, (byte) 0x00, (byte) 0x7F, (byte) 0xFF,
+                IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER, (byte) 0x00, (byte) 0x00, (byte) 0x07,
+                (byte) 0x01, (byte) 0x02, (byte) 0x03}));
+            fail("Expected the invalid data to be reported");
+        } catch (Throwable throwable) {
+            assertThat(throwable, instanceOf(PlcProtocolException.class));
+        }
+        IsoOnTcpMessage isoOnTcpMessage = channel.readInbound();
+        assertThat(isoOnTcpMessage.getUserData().readableBytes(), equalTo(3));
+        assertThat(isoOnTcpMessage.getUserData().getByte(0), equalTo((byte) 0x01));
+        assertThat(channel.readInbound(), nullValue());
+    }
+
     /**
      * If logging is set to `DEBUG` then a hexdump of the entire captured packet
      * should be logged
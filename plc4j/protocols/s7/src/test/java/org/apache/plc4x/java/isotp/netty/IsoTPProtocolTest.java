@@ -20,6 +20,7 @@ package org.apache.plc4x.java.isotp.netty;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.plc4x.java.isoontcp.netty.model.IsoOnTcpMessage;
 import org.apache.plc4x.java.isotp.netty.model.IsoTPMessage;
@@ -42,6 +43,7 @@ import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class IsoTPProtocolTest {
 
@@ -58,6 +60,7 @@ public class IsoTPProtocolTest {
 
         isoTPProtocol = new IsoTPProtocol(rackNo, slotNo, tpduSize);
         ctx = mock(ChannelHandlerContext.class, RETURNS_DEEP_STUBS);
+        when(ctx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
         buf = Unpooled.buffer();
         out = new ArrayList<>();
     }
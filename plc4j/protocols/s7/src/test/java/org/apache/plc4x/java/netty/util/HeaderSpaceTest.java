@@ -0,0 +1,104 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.netty.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol;
+import org.apache.plc4x.java.isotp.netty.IsoTPProtocol;
+import org.apache.plc4x.java.isotp.netty.model.types.TpduCode;
+import org.apache.plc4x.java.isotp.netty.model.types.TpduSize;
+import org.apache.plc4x.java.s7.netty.S7Protocol;
+import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
+import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.types.*;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collections;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class HeaderSpaceTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void writeHeaderIntoReservedSpace() {
+        ByteBuf payload = HeaderSpace.allocate(UnpooledByteBufAllocator.DEFAULT, 2, 1);
+        payload.writeByte(0x03);
+
+        ByteBuf buf = HeaderSpace.prepend(UnpooledByteBufAllocator.DEFAULT, payload, 2,
+            header -> header.writeByte(0x01).writeByte(0x02));
+
+        assertThat(buf, sameInstance(payload));
+        assertThat(buf.readableBytes(), equalTo(3));
+        assertThat(buf.readByte(), equalTo((byte) 0x01));
+        assertThat(buf.readByte(), equalTo((byte) 0x02));
+        assertThat(buf.readByte(), equalTo((byte) 0x03));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void useCompositeBufferWithoutReservedSpace() {
+        ByteBuf payload = Unpooled.wrappedBuffer(new byte[]{0x03});
+
+        ByteBuf buf = HeaderSpace.prepend(UnpooledByteBufAllocator.DEFAULT, payload, 2,
+            header -> header.writeByte(0x01).writeByte(0x02));
+
+        assertThat(buf, instanceOf(CompositeByteBuf.class));
+        assertThat(buf.readableBytes(), equalTo(3));
+        assertThat(buf.getByte(0), equalTo((byte) 0x01));
+        assertThat(buf.getByte(2), equalTo((byte) 0x03));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void encodeS7MessageInOneBuffer() {
+        EmbeddedChannel channel = new EmbeddedChannel(new IsoOnTcpProtocol(),
+            new IsoTPProtocol((byte) 0, (byte) 0, TpduSize.SIZE_256),
+            new S7Protocol((short) 1, (short) 1, (short) 240));
+        channel.writeOutbound(new S7RequestMessage(MessageType.JOB, (short) 1,
+            singletonList(new VarParameter(ParameterType.READ_VAR, singletonList(new S7AnyVarParameterItem(
+                SpecificationType.VARIABLE_SPECIFICATION, MemoryArea.DATA_BLOCKS, TransportSize.BYTE,
+                (short) 1, (short) 1, (short) 0, (byte) 0)))),
+            Collections.emptyList()));
+
+        ByteBuf frame = channel.readOutbound();
+        // All headers are located in the buffer the S7 message was encoded in.
+        assertThat(frame, not(instanceOf(CompositeByteBuf.class)));
+        // ISO on TCP header + ISO TP data header + S7 header + read var parameter with one item
+        assertThat(frame.readableBytes(), equalTo(4 + 3 + 10 + 2 + 12));
+        assertThat(frame.getByte(0), equalTo(IsoOnTcpProtocol.ISO_ON_TCP_MAGIC_NUMBER));
+        assertThat(frame.getShort(2), equalTo((short) frame.readableBytes()));
+        assertThat(frame.getByte(5), equalTo(TpduCode.DATA.getCode()));
+        assertThat(frame.getByte(7), equalTo(S7Protocol.S7_PROTOCOL_MAGIC_NUMBER));
+        frame.release();
+    }
+
+}
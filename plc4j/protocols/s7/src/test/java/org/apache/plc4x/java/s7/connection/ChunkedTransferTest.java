@@ -0,0 +1,85 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.connection;
+
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ChunkedTransferTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void keepWindowOfChunksInFlight() throws Exception {
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        CompletableFuture<List<Integer>> result = new ChunkedTransfer<Integer>(4, 2, chunk -> {
+            CompletableFuture<Integer> chunkFuture = new CompletableFuture<>();
+            chunks.add(chunkFuture);
+            return chunkFuture;
+        }).start();
+        assertThat(chunks, hasSize(2));
+
+        // Every completed chunk makes room for the next one.
+        chunks.get(1).complete(1);
+        assertThat(chunks, hasSize(3));
+        chunks.get(2).complete(2);
+        assertThat(chunks, hasSize(4));
+        chunks.get(3).complete(3);
+        assertThat(result.isDone(), equalTo(false));
+        chunks.get(0).complete(0);
+
+        // The results are in chunk order, no matter in which order the chunks completed.
+        assertThat(result.get(), equalTo(Arrays.asList(0, 1, 2, 3)));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void stopAtFirstFailedChunk() {
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        CompletableFuture<List<Integer>> result = new ChunkedTransfer<Integer>(4, 2, chunk -> {
+            CompletableFuture<Integer> chunkFuture = new CompletableFuture<>();
+            chunks.add(chunkFuture);
+            return chunkFuture;
+        }).start();
+
+        chunks.get(0).completeExceptionally(new IllegalStateException());
+        chunks.get(1).complete(1);
+        assertThat(result.isCompletedExceptionally(), equalTo(true));
+        assertThat(chunks, hasSize(2));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void completeEmptyTransferImmediately() {
+        CompletableFuture<List<Integer>> result = new ChunkedTransfer<Integer>(0, 2, chunk -> {
+            throw new IllegalStateException("No chunk expected");
+        }).start();
+        assertThat(result.getNow(null), hasSize(0));
+    }
+
+}
@@ -19,8 +19,18 @@ under the License.
 
 package org.apache.plc4x.java.s7.connection;
 
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.connection.PlcConnection;
+import org.apache.plc4x.java.api.connection.PlcSubscriber;
+import org.apache.plc4x.java.api.exceptions.PlcConnectionException;
 import org.apache.plc4x.java.api.exceptions.PlcException;
+import org.apache.plc4x.java.api.messages.PlcSubscriptionRequest;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.model.PlcSubscriptionHandle;
+import org.apache.plc4x.java.api.types.SubscriptionType;
+import org.apache.plc4x.java.base.connection.TestChannelFactory;
 import org.apache.plc4x.java.isotp.netty.model.types.TpduSize;
+import org.apache.plc4x.java.s7.messages.S7BulkWriteResult;
 import org.apache.plc4x.java.s7.model.S7Address;
 import org.apache.plc4x.java.s7.model.S7BitAddress;
 import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
@@ -30,8 +40,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.hamcrest.core.StringStartsWith.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -60,6 +77,42 @@ public class S7PlcConnectionTests {
         assertThat("Max AMQ Callee size is incorrect", s7PlcConnection.getParamMaxAmqCallee(), equalTo(8) );
     }
 
+    @Test
+    public void connectAsyncTimesOutWithoutSessionSetup() throws Exception {
+        // The PLC never answers the connection request.
+        S7PlcConnection connection = new S7PlcConnection(new TestChannelFactory(), 1, 2, "connect-timeout-ms=1");
+        assertThat(connection.getConnectTimeoutMs(), equalTo(1L));
+        CompletableFuture<PlcConnection> future = connection.connectAsync();
+        assertThat(future.isDone(), equalTo(false));
+
+        Thread.sleep(10);
+        EmbeddedChannel channel = (EmbeddedChannel) connection.getChannel();
+        channel.runScheduledPendingTasks();
+        try {
+            future.get();
+            fail("Connecting should have timed out");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(PlcConnectionException.class));
+        }
+        assertThat(channel.isOpen(), equalTo(false));
+        assertThat(connection.isConnected(), equalTo(false));
+    }
+
+    @Test
+    public void pollSubscriptionsThePlcCantPush() throws Exception {
+        PlcSubscriber subscriber = s7PlcConnection.getSubscriber().orElseThrow(IllegalStateException::new);
+        assertThat(subscriber, sameInstance(s7PlcConnection));
+        // The PLC only pushes values cyclically.
+        PlcSubscriptionRequest request = new PlcSubscriptionRequest(
+            SubscriptionType.CHANGE_OF_STATE, Duration.ofSeconds(1), event -> { },
+            new ReadRequestItem<>(Short.class, new S7DataBlockAddress((short) 1, (short) 0)));
+        // Subscribing doesn't involve the PLC, so it works without being connected.
+        PlcSubscriptionHandle handle = subscriber.subscribe(request).get();
+        assertThat(handle.getRequest(), sameInstance(request));
+        subscriber.unsubscribe(handle).get();
+        assertThat(subscriber.unsubscribe(handle).isCompletedExceptionally(), equalTo(true));
+    }
+
     @Test
     public void emptyParseAddress() {
         try {
@@ -111,4 +164,53 @@ public class S7PlcConnectionTests {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void readBytesFailsIfNotConnected() throws Exception {
+        CompletableFuture<ByteBuffer> future = s7PlcConnection.readBytes(
+            new S7DataBlockAddress((short) 1, (short) 0), 4, ByteBuffer.allocate(4));
+        try {
+            future.get();
+            fail("Reading without being connected should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(PlcConnectionException.class));
+        }
+    }
+
+    @Test
+    public void writeBytesFailsIfNotConnected() throws Exception {
+        CompletableFuture<S7BulkWriteResult> future = s7PlcConnection.writeBytes(
+            new S7DataBlockAddress((short) 1, (short) 0), ByteBuffer.allocate(4));
+        try {
+            future.get();
+            fail("Writing without being connected should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(PlcConnectionException.class));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectByteRangesAtBitAddresses() {
+        s7PlcConnection.readBytes(new S7BitAddress(MemoryArea.FLAGS, (short) 1, (byte) 3), 4, ByteBuffer.allocate(4));
+    }
+
+    @Test
+    public void parseAddressIsCached() throws PlcException {
+        S7Address address = (S7Address) s7PlcConnection.parseAddress("DATA_BLOCKS/20/100");
+
+        assertThat("address not cached", s7PlcConnection.parseAddress("DATA_BLOCKS/20/100"), sameInstance(address));
+    }
+
+    @Test
+    public void parseAddressKeepsRecentlyUsedAddressesCached() throws PlcException {
+        S7Address hotAddress = (S7Address) s7PlcConnection.parseAddress("DATA_BLOCKS/20/100");
+        S7Address coldAddress = (S7Address) s7PlcConnection.parseAddress("DATA_BLOCKS/20/101");
+        // More addresses than the cache holds.
+        for (int i = 0; i < 2000; i++) {
+            s7PlcConnection.parseAddress("DATA_BLOCKS/1/" + i);
+            assertThat(s7PlcConnection.parseAddress("DATA_BLOCKS/20/100"), sameInstance(hotAddress));
+        }
+
+        assertThat(s7PlcConnection.parseAddress("DATA_BLOCKS/20/101"), not(sameInstance(coldAddress)));
+    }
+
+}
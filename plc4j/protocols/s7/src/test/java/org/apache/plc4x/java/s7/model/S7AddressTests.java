@@ -19,12 +19,16 @@ under the License.
 
 package org.apache.plc4x.java.s7.model;
 
+import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
 import org.apache.plc4x.java.s7.netty.model.types.MemoryArea;
+import org.apache.plc4x.java.s7.netty.model.types.TransportSize;
 import org.apache.plc4x.test.FastTests;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class S7AddressTests {
@@ -60,4 +64,19 @@ public class S7AddressTests {
         assertThat(s7Address.getByteOffset(), equalTo((short) 0x50));
     }
 
-}
\ No newline at end of file
+    @Test
+    @Category(FastTests.class)
+    public void testS7AnyItemIsReused() {
+        S7DataBlockAddress s7Address = new S7DataBlockAddress((short) 1, (short) 0x50);
+        S7AnyVarParameterItem item = s7Address.getS7AnyItem(TransportSize.WORD, (short) 2);
+
+        assertThat(item.getDataBlockNumber(), equalTo((short) 1));
+        assertThat(item.getByteOffset(), equalTo((short) 0x50));
+        assertThat(item.getNumElements(), equalTo((short) 2));
+        assertThat(s7Address.getS7AnyItem(TransportSize.WORD, (short) 2), sameInstance(item));
+        assertThat(s7Address.getS7AnyItem(TransportSize.WORD, (short) 3), not(sameInstance(item)));
+        assertThat(s7Address.getS7AnyItem(TransportSize.BYTE, (short) 3).getTransportSize(),
+            equalTo(TransportSize.BYTE));
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.s7.messages.S7CyclicSubscriptionRequest;
+import org.apache.plc4x.java.s7.messages.S7CyclicSubscriptionResponse;
+import org.apache.plc4x.java.s7.messages.S7CyclicUnsubscriptionRequest;
+import org.apache.plc4x.java.s7.messages.S7CyclicUnsubscriptionResponse;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.params.CpuServicesParameter;
+import org.apache.plc4x.java.s7.netty.model.payloads.CyclicDataSubscriptionPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.CyclicDataUnsubscriptionPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
+import org.apache.plc4x.java.s7.netty.model.types.*;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CyclicSubscriptionTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void chooseFinestTimeBase() {
+        assertThat(subscriptionRequest(Duration.ofMillis(500), response -> { }).getTimeBase(),
+            equalTo(CyclicTimeBase.MILLISECONDS_100));
+        S7CyclicSubscriptionRequest request = subscriptionRequest(Duration.ofMinutes(1), response -> { });
+        assertThat(request.getTimeBase(), equalTo(CyclicTimeBase.SECONDS_1));
+        assertThat(request.getTimeFactor(), equalTo((byte) 60));
+        assertThat(subscriptionRequest(Duration.ofMinutes(10), response -> { }).getTimeBase(),
+            equalTo(CyclicTimeBase.SECONDS_10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @Category(FastTests.class)
+    public void rejectCycleTimeBelowTimeBase() {
+        subscriptionRequest(Duration.ofMillis(10), response -> { });
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void routePushedValuesToConsumer() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol());
+        List<PlcReadResponse> pushedResponses = new ArrayList<>();
+
+        // Subscribe
+        CompletableFuture<S7CyclicSubscriptionResponse> subscribed = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(
+            subscriptionRequest(Duration.ofMillis(200), pushedResponses::add), subscribed));
+        S7RequestMessage subscriptionMessage = channel.readOutbound();
+        assertThat(subscriptionMessage.getMessageType(), equalTo(MessageType.USER_DATA));
+        CyclicDataSubscriptionPayload subscriptionPayload = subscriptionMessage
+            .getPayload(CyclicDataSubscriptionPayload.class).orElseThrow(IllegalStateException::new);
+        assertThat(subscriptionPayload.getTimeBase(), equalTo(CyclicTimeBase.MILLISECONDS_100));
+        assertThat(subscriptionPayload.getTimeFactor(), equalTo((byte) 2));
+        assertThat(subscriptionPayload.getItems(), hasSize(1));
+
+        channel.writeInbound(new S7ResponseMessage(MessageType.USER_DATA, subscriptionMessage.getTpduReference(),
+            singletonList(parameter(UserDataType.RESPONSE, CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY,
+                (byte) 0x03, (short) 0x0000)),
+            singletonList(values((short) 1)), (byte) 0x00, (byte) 0x00));
+        S7CyclicSubscriptionResponse subscriptionResponse = subscribed.getNow(null);
+        assertThat(subscriptionResponse.getJobId(), equalTo((byte) 0x03));
+        assertThat(subscriptionResponse.getResponseItems().get(0).getValues(), equalTo(singletonList((short) 1)));
+
+        // Receive pushed values
+        channel.writeInbound(push((byte) 0x03, (short) 2));
+        channel.writeInbound(push((byte) 0x04, (short) 3));
+        assertThat(pushedResponses, hasSize(1));
+        assertThat(pushedResponses.get(0).getResponseItems().get(0).getValues(), equalTo(singletonList((short) 2)));
+
+        // Unsubscribe
+        CompletableFuture<S7CyclicUnsubscriptionResponse> unsubscribed = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(
+            new S7CyclicUnsubscriptionRequest(subscriptionResponse), unsubscribed));
+        S7RequestMessage unsubscriptionMessage = channel.readOutbound();
+        assertThat(unsubscriptionMessage.getPayload(CyclicDataUnsubscriptionPayload.class)
+            .orElseThrow(IllegalStateException::new).getJobId(), equalTo((byte) 0x03));
+        channel.writeInbound(new S7ResponseMessage(MessageType.USER_DATA, unsubscriptionMessage.getTpduReference(),
+            singletonList(parameter(UserDataType.RESPONSE, CpuServicesParameter.SUB_FUNCTION_CYCLIC_UNSUBSCRIBE,
+                (byte) 0x00, (short) 0x0000)),
+            Collections.emptyList(), (byte) 0x00, (byte) 0x00));
+        assertThat(unsubscribed.isDone(), equalTo(true));
+
+        channel.writeInbound(push((byte) 0x03, (short) 4));
+        assertThat(pushedResponses, hasSize(1));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void failSubscriptionRejectedByPlc() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol());
+        CompletableFuture<S7CyclicSubscriptionResponse> subscribed = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(
+            subscriptionRequest(Duration.ofSeconds(1), response -> { }), subscribed));
+        S7RequestMessage subscriptionMessage = channel.readOutbound();
+
+        channel.writeInbound(new S7ResponseMessage(MessageType.USER_DATA, subscriptionMessage.getTpduReference(),
+            singletonList(parameter(UserDataType.RESPONSE, CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY,
+                (byte) 0x00, (short) 0x8104)),
+            Collections.emptyList(), (byte) 0x00, (byte) 0x00));
+        try {
+            subscribed.get();
+            fail("Expected the subscription to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(PlcProtocolException.class));
+        }
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void failSubscriptionWithMismatchingItems() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol());
+        CompletableFuture<S7CyclicSubscriptionResponse> subscribed = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(
+            subscriptionRequest(Duration.ofSeconds(1), response -> { }), subscribed));
+        S7RequestMessage subscriptionMessage = channel.readOutbound();
+
+        VarPayloadItem item = values((short) 1).getPayloadItems().get(0);
+        channel.writeInbound(new S7ResponseMessage(MessageType.USER_DATA, subscriptionMessage.getTpduReference(),
+            singletonList(parameter(UserDataType.RESPONSE, CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY,
+                (byte) 0x03, (short) 0x0000)),
+            singletonList(new VarPayload(ParameterType.CPU_SERVICES, Arrays.asList(item, item))),
+            (byte) 0x00, (byte) 0x00));
+        try {
+            subscribed.get();
+            fail("Expected the subscription to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(PlcProtocolException.class));
+        }
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void keepPushingAfterConsumerFailed() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol());
+        List<PlcReadResponse> pushedResponses = new ArrayList<>();
+        CompletableFuture<S7CyclicSubscriptionResponse> subscribed = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(subscriptionRequest(Duration.ofSeconds(1), response -> {
+            pushedResponses.add(response);
+            if (pushedResponses.size() == 1) {
+                throw new IllegalStateException("Consumer failed");
+            }
+        }), subscribed));
+        S7RequestMessage subscriptionMessage = channel.readOutbound();
+        channel.writeInbound(new S7ResponseMessage(MessageType.USER_DATA, subscriptionMessage.getTpduReference(),
+            singletonList(parameter(UserDataType.RESPONSE, CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY,
+                (byte) 0x03, (short) 0x0000)),
+            Collections.emptyList(), (byte) 0x00, (byte) 0x00));
+
+        // The failure of the consumer must neither reach the pipeline nor end the subscription.
+        channel.writeInbound(push((byte) 0x03, (short) 2));
+        channel.writeInbound(push((byte) 0x03, (short) 3));
+        channel.checkException();
+        assertThat(pushedResponses, hasSize(2));
+    }
+
+    private S7CyclicSubscriptionRequest subscriptionRequest(Duration cycleTime,
+                                                            Consumer<PlcReadResponse> consumer) {
+        List<ReadRequestItem<?>> items = new ArrayList<>();
+        items.add(new ReadRequestItem<>(Short.class, new S7DataBlockAddress((short) 1, (short) 0)));
+        return new S7CyclicSubscriptionRequest(cycleTime, consumer, items);
+    }
+
+    private CpuServicesParameter parameter(UserDataType userDataType, byte subFunction, byte sequenceNumber,
+                                           short errorCode) {
+        return new CpuServicesParameter(userDataType, UserDataFunctionGroup.CYCLIC_DATA, subFunction,
+            sequenceNumber, (byte) 0x00, true, errorCode);
+    }
+
+    private S7RequestMessage push(byte jobId, short value) {
+        return new S7RequestMessage(MessageType.USER_DATA, (short) 0x0000,
+            singletonList(parameter(UserDataType.PUSH, CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY,
+                jobId, (short) 0x0000)),
+            singletonList(values(value)));
+    }
+
+    private VarPayload values(short value) {
+        return new VarPayload(ParameterType.CPU_SERVICES, singletonList(new VarPayloadItem(
+            DataTransportErrorCode.OK, DataTransportSize.BYTE_WORD_DWORD,
+            new byte[]{(byte) (value >> 8), (byte) value})));
+    }
+
+}
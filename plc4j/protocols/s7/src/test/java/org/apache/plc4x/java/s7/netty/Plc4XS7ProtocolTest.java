@@ -36,6 +36,7 @@ import org.apache.plc4x.java.s7.netty.model.types.DataTransportErrorCode;
 import org.apache.plc4x.java.s7.netty.model.types.DataTransportSize;
 import org.apache.plc4x.java.s7.netty.model.types.MessageType;
 import org.apache.plc4x.java.s7.netty.model.types.ParameterType;
+import org.apache.plc4x.java.s7.netty.util.TpduReferenceTable;
 import org.apache.plc4x.test.FastTests;
 import org.junit.Before;
 import org.junit.Test;
@@ -124,8 +125,10 @@ public class Plc4XS7ProtocolTest extends NettyTestBase {
                 // We need to put in a fake tpdu reference
                 Field requests = Plc4XS7Protocol.class.getDeclaredField("requests");
                 requests.setAccessible(true);
-                Map<Short, PlcRequestContainer> requestContainerMap = (Map<Short, PlcRequestContainer>) requests.get(SUT);
-                requestContainerMap.put(fakeTpduReference, createMockedContainer(new TypeSafePlcReadRequest(type, address)));
+                TpduReferenceTable<Plc4XS7Protocol.PendingRequest> requestTable =
+                    (TpduReferenceTable<Plc4XS7Protocol.PendingRequest>) requests.get(SUT);
+                requestTable.put(fakeTpduReference, new Plc4XS7Protocol.PendingRequest(
+                    createMockedContainer(new TypeSafePlcReadRequest(type, address))), System.nanoTime());
             }
             S7ResponseMessage msg = new S7ResponseMessage(
                 MessageType.ACK,
@@ -146,8 +149,10 @@ public class Plc4XS7ProtocolTest extends NettyTestBase {
                 // We need to put in a fake tpdu reference
                 Field requests = Plc4XS7Protocol.class.getDeclaredField("requests");
                 requests.setAccessible(true);
-                Map<Short, PlcRequestContainer> requestContainerMap = (Map<Short, PlcRequestContainer>) requests.get(SUT);
-                requestContainerMap.put(fakeTpduReference, createMockedContainer(new TypeSafePlcWriteRequest(type, address, fakeValueFor(type))));
+                TpduReferenceTable<Plc4XS7Protocol.PendingRequest> requestTable =
+                    (TpduReferenceTable<Plc4XS7Protocol.PendingRequest>) requests.get(SUT);
+                requestTable.put(fakeTpduReference, new Plc4XS7Protocol.PendingRequest(
+                    createMockedContainer(new TypeSafePlcWriteRequest(type, address, fakeValueFor(type)))), System.nanoTime());
             }
             S7ResponseMessage msg = new S7ResponseMessage(
                 MessageType.ACK,
@@ -0,0 +1,142 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequest;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.isoontcp.netty.IsoOnTcpProtocol;
+import org.apache.plc4x.java.isotp.netty.IsoTPProtocol;
+import org.apache.plc4x.java.isotp.netty.model.types.TpduSize;
+import org.apache.plc4x.java.s7.messages.S7PreparedReadRequest;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.model.messages.PreparedRequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.params.SetupCommunicationParameter;
+import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
+import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
+import org.apache.plc4x.java.s7.netty.model.types.*;
+import org.apache.plc4x.java.s7.netty.strategies.S7ReadOptimizer;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class PreparedReadRequestTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void preparedPacketMatchesEncodedRequest() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new IsoOnTcpProtocol(),
+            new IsoTPProtocol((byte) 1, (byte) 2, TpduSize.SIZE_256),
+            new S7Protocol((short) 8, (short) 8, (short) 240), new Plc4XS7Protocol());
+        PlcReadRequest readRequest = readRequest();
+        S7PreparedReadRequest preparedRequest = channel.pipeline().get(Plc4XS7Protocol.class)
+            .prepareReadRequest(readRequest, channel.pipeline().get(S7Protocol.class));
+        assertThat(preparedRequest.getMessages(), hasSize(1));
+
+        read(channel, readRequest);
+        ByteBuf encoded = channel.readOutbound();
+        read(channel, preparedRequest);
+        ByteBuf prepared = channel.readOutbound();
+
+        // Apart from the pdu reference, both packets are the same.
+        short tpduReference = prepared.getShort(S7Protocol.PACKET_TPDU_REFERENCE_OFFSET);
+        assertThat(tpduReference, not(equalTo(encoded.getShort(S7Protocol.PACKET_TPDU_REFERENCE_OFFSET))));
+        prepared.setShort(S7Protocol.PACKET_TPDU_REFERENCE_OFFSET,
+            encoded.getShort(S7Protocol.PACKET_TPDU_REFERENCE_OFFSET));
+        assertThat(ByteBufUtil.hexDump(prepared), equalTo(ByteBufUtil.hexDump(encoded)));
+        assertThat(channel.pipeline().get(S7Protocol.class).getNumPendingRequests(), equalTo(2));
+        encoded.release();
+        prepared.release();
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void decodeMergedItemsOfPreparedRequest() throws Exception {
+        Plc4XS7Protocol protocol = new Plc4XS7Protocol(new S7ReadOptimizer(4, 200));
+        EmbeddedChannel channel = new EmbeddedChannel(protocol);
+        PlcReadRequest readRequest = readRequest();
+        S7PreparedReadRequest preparedRequest =
+            protocol.prepareReadRequest(readRequest, new S7Protocol((short) 8, (short) 8, (short) 240));
+
+        CompletableFuture<PlcReadResponse> future = read(channel, preparedRequest);
+        PreparedRequestMessage request = channel.readOutbound();
+        request.release();
+        channel.writeInbound(new S7ResponseMessage(MessageType.ACK_DATA, request.getTpduReference(),
+            singletonList(new VarParameter(ParameterType.READ_VAR, null)),
+            singletonList(new VarPayload(ParameterType.READ_VAR, singletonList(new VarPayloadItem(
+                DataTransportErrorCode.OK, DataTransportSize.BYTE_WORD_DWORD,
+                new byte[] {0x00, 0x01, 0x00, 0x00, 0x00, 0x02})))),
+            (byte) 0x00, (byte) 0x00));
+
+        PlcReadResponse response = future.getNow(null);
+        assertThat(response.getRequest(), sameInstance(readRequest));
+        assertThat(response.getResponseItems().get(0).getValues(), equalTo(singletonList((short) 1)));
+        assertThat(response.getResponseItems().get(1).getValues(), equalTo(singletonList((short) 2)));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void encodeRequestAgainAfterPduSizeChanged() throws Exception {
+        Plc4XS7Protocol protocol = new Plc4XS7Protocol();
+        EmbeddedChannel channel = new EmbeddedChannel(protocol);
+        S7PreparedReadRequest preparedRequest =
+            protocol.prepareReadRequest(readRequest(), new S7Protocol((short) 8, (short) 8, (short) 240));
+
+        channel.writeInbound(new S7ResponseMessage(MessageType.ACK_DATA, (short) 0,
+            singletonList(new SetupCommunicationParameter((short) 8, (short) 8, (short) 480)),
+            Collections.emptyList(), (byte) 0x00, (byte) 0x00));
+        read(channel, preparedRequest);
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(request, not(instanceOf(PreparedRequestMessage.class)));
+        assertThat(request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new).getItems(),
+            hasSize(2));
+    }
+
+    private PlcReadRequest readRequest() {
+        return PlcReadRequest.builder()
+            .addItem(Short.class, new S7DataBlockAddress((short) 1, (short) 0))
+            .addItem(Short.class, new S7DataBlockAddress((short) 1, (short) 4))
+            .build();
+    }
+
+    private CompletableFuture<PlcReadResponse> read(EmbeddedChannel channel, PlcRequest request) {
+        CompletableFuture<PlcReadResponse> future = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(request, future));
+        return future;
+    }
+
+}
@@ -20,12 +20,28 @@ package org.apache.plc4x.java.s7.netty;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
 import org.apache.plc4x.java.isotp.netty.model.IsoTPMessage;
+import org.apache.plc4x.java.isotp.netty.model.tpdus.DataTpdu;
 import org.apache.plc4x.java.isotp.netty.model.tpdus.Tpdu;
 import org.apache.plc4x.java.netty.NettyTestBase;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.model.messages.PreparedRequestMessage;
 import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.params.CpuServicesParameter;
 import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
 import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.payloads.CyclicDataSubscriptionPayload;
 import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
 import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
 import org.apache.plc4x.java.s7.netty.model.types.*;
@@ -34,12 +50,23 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.singletonList;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class S7ProtocolTest extends NettyTestBase {
 
@@ -55,7 +82,9 @@ public class S7ProtocolTest extends NettyTestBase {
     public void encode() throws Exception {
         //TODO: finish me
         LinkedList<Object> out = new LinkedList<>();
-        SUT.encode(null, new S7RequestMessage(
+        ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+        when(ctx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        SUT.encode(ctx, new S7RequestMessage(
             MessageType.ACK,
             (short) 1,
             singletonList(new VarParameter(ParameterType.WRITE_VAR, singletonList(new S7AnyVarParameterItem(
@@ -92,4 +121,256 @@ public class S7ProtocolTest extends NettyTestBase {
         assertThat(out, hasSize(1));
     }
 
+    @Test
+    @Category(FastTests.class)
+    public void limitPendingRequestsToMaxAmqCaller() throws Exception {
+        S7Protocol protocol = new S7Protocol((short) 2, (short) 2, (short) 240);
+        EmbeddedChannel channel = new EmbeddedChannel(protocol);
+        for (short tpduReference = 1; tpduReference <= 3; tpduReference++) {
+            channel.writeOutbound(readRequest(tpduReference));
+        }
+        assertThat(channel.readOutbound(), instanceOf(DataTpdu.class));
+        assertThat(channel.readOutbound(), instanceOf(DataTpdu.class));
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(protocol.getNumPendingRequests(), equalTo(2));
+        assertThat(protocol.getNumQueuedRequests(), equalTo(1));
+
+        // Answering one request frees a slot for the queued one.
+        channel.writeInbound(new IsoTPMessage(mock(Tpdu.class), readResponse((short) 2)));
+        assertThat(channel.readOutbound(), instanceOf(DataTpdu.class));
+        assertThat(protocol.getNumPendingRequests(), equalTo(2));
+        assertThat(protocol.getNumQueuedRequests(), equalTo(0));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void freeSlotsOfRequestsWithoutResponse() throws Exception {
+        S7Protocol protocol = new S7Protocol((short) 1, (short) 1, (short) 240);
+        Plc4XS7Protocol plc4XProtocol = new Plc4XS7Protocol();
+        EmbeddedChannel channel = new EmbeddedChannel(protocol, plc4XProtocol);
+        List<CompletableFuture<PlcReadResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<PlcReadResponse> future = new CompletableFuture<>();
+            channel.writeOutbound(new PlcRequestContainer<>(new PlcReadRequest(Byte.class,
+                new S7DataBlockAddress((short) 1, (short) i)), future));
+            futures.add(future);
+        }
+        assertThat(channel.readOutbound(), instanceOf(DataTpdu.class));
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(protocol.getNumQueuedRequests(), equalTo(2));
+
+        // The PLC drops every response, so each request expires and makes room for the next one.
+        long timeout = TimeUnit.MILLISECONDS.toNanos(Plc4XS7Protocol.DEFAULT_REQUEST_TIMEOUT_MS);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            now += timeout + 1;
+            plc4XProtocol.failExpiredRequests(now);
+            assertThat(futures.get(i).isCompletedExceptionally(), equalTo(true));
+            if (i < 2) {
+                assertThat(channel.readOutbound(), instanceOf(DataTpdu.class));
+            }
+        }
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(protocol.getNumPendingRequests(), equalTo(0));
+        assertThat(protocol.getNumQueuedRequests(), equalTo(0));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void freeSlotsOfRequestsNotSent() throws Exception {
+        S7Protocol protocol = new S7Protocol((short) 1, (short) 1, (short) 240);
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            private boolean failed;
+
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+                if (failed) {
+                    super.write(ctx, msg, promise);
+                    return;
+                }
+                failed = true;
+                ReferenceCountUtil.release(msg);
+                promise.setFailure(new IOException("Connection reset"));
+            }
+        }, protocol);
+        ChannelFuture failed = channel.writeAndFlush(readRequest((short) 1));
+        assertThat(failed.cause(), instanceOf(IOException.class));
+        assertThat(protocol.getNumPendingRequests(), equalTo(0));
+
+        channel.writeOutbound(readRequest((short) 2));
+        assertThat(channel.readOutbound(), instanceOf(DataTpdu.class));
+        assertThat(protocol.getNumPendingRequests(), equalTo(1));
+        assertThat(protocol.getNumQueuedRequests(), equalTo(0));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void releaseQueuedRequestsOnClose() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new S7Protocol((short) 1, (short) 1, (short) 240));
+        channel.writeOutbound(readRequest((short) 1));
+        ByteBuf packet = Unpooled.directBuffer().writeZero(16);
+        ChannelFuture queued = channel.writeAndFlush(new PreparedRequestMessage((short) 2, packet));
+        assertThat(queued.isDone(), equalTo(false));
+
+        channel.close();
+        assertThat(queued.cause(), instanceOf(ClosedChannelException.class));
+        assertThat(packet.refCnt(), equalTo(0));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void decodeReadResponseWithoutCopying() throws Exception {
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeByte(0x32);
+        frame.writeByte(MessageType.ACK_DATA.getCode());
+        frame.writeShort(0x0000);
+        frame.writeShort(0x0001);
+        // Parameter and data length
+        frame.writeShort(0x0002);
+        frame.writeShort(0x0006);
+        // Error class and code
+        frame.writeShort(0x0000);
+        frame.writeByte(ParameterType.READ_VAR.getCode());
+        frame.writeByte(0x01);
+        // One item with 16 bits of data
+        frame.writeByte(DataTransportErrorCode.OK.getCode());
+        frame.writeByte(DataTransportSize.BYTE_WORD_DWORD.getCode());
+        frame.writeShort(16);
+        frame.writeShort(0x1234);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new S7Protocol((short) 1, (short) 1, (short) 240));
+        channel.writeInbound(new IsoTPMessage(mock(Tpdu.class), frame));
+        S7ResponseMessage response = channel.readInbound();
+
+        VarPayloadItem payloadItem = response.getPayload(VarPayload.class)
+            .orElseThrow(IllegalStateException::new).getPayloadItems().get(0);
+        ByteBuf data = payloadItem.getDataBuffer();
+        assertThat(data.readableBytes(), equalTo(2));
+        assertThat(data.getShort(data.readerIndex()), equalTo((short) 0x1234));
+        // The data still references the frame, which is freed together with the response.
+        assertThat(frame.refCnt(), equalTo(1));
+        response.release();
+        assertThat(frame.refCnt(), equalTo(0));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void encodeCyclicDataSubscription() {
+        EmbeddedChannel channel = new EmbeddedChannel(new S7Protocol((short) 1, (short) 1, (short) 240));
+        channel.writeOutbound(new S7RequestMessage(MessageType.USER_DATA, (short) 1,
+            singletonList(new CpuServicesParameter(UserDataType.REQUEST, UserDataFunctionGroup.CYCLIC_DATA,
+                CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY, (byte) 0x00)),
+            singletonList(new CyclicDataSubscriptionPayload(CyclicTimeBase.SECONDS_1, (byte) 5,
+                singletonList(new S7AnyVarParameterItem(SpecificationType.VARIABLE_SPECIFICATION,
+                    MemoryArea.DATA_BLOCKS, TransportSize.WORD, (short) 1, (short) 1, (short) 0, (byte) 0))))));
+
+        DataTpdu tpdu = channel.readOutbound();
+        ByteBuf buf = tpdu.getUserData().slice();
+        assertThat(buf.readableBytes(), equalTo(10 + 8 + 8 + 12));
+        assertThat(buf.getByte(1), equalTo(MessageType.USER_DATA.getCode()));
+        // Parameter and data length
+        assertThat(buf.getShort(6), equalTo((short) 8));
+        assertThat(buf.getShort(8), equalTo((short) 20));
+        // Method, type and function group, sub function
+        assertThat(buf.getByte(14), equalTo((byte) 0x11));
+        assertThat(buf.getByte(15), equalTo((byte) 0x42));
+        assertThat(buf.getByte(16), equalTo(CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY));
+        // Return code, transport size and length of the data, item count, time base and factor
+        assertThat(buf.getByte(18), equalTo(DataTransportErrorCode.OK.getCode()));
+        assertThat(buf.getByte(19), equalTo(DataTransportSize.OCTET_STRING.getCode()));
+        assertThat(buf.getShort(20), equalTo((short) 16));
+        assertThat(buf.getShort(22), equalTo((short) 1));
+        assertThat(buf.getByte(24), equalTo(CyclicTimeBase.SECONDS_1.getCode()));
+        assertThat(buf.getByte(25), equalTo((byte) 5));
+        assertThat(buf.getByte(26), equalTo(SpecificationType.VARIABLE_SPECIFICATION.getCode()));
+        buf.release();
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void decodeCyclicDataPush() {
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeByte(0x32);
+        frame.writeByte(MessageType.USER_DATA.getCode());
+        frame.writeShort(0x0000);
+        frame.writeShort(0x0000);
+        // Parameter and data length
+        frame.writeShort(0x000C);
+        frame.writeShort(0x000C);
+        // Parameter: push of cyclic data for job 5
+        frame.writeByte(ParameterType.CPU_SERVICES.getCode());
+        frame.writeBytes(new byte[]{0x01, 0x12, 0x08, 0x12, 0x02, 0x01, 0x05, 0x00, 0x00, 0x00, 0x00});
+        // Data: one item with 16 bits of data
+        frame.writeByte(DataTransportErrorCode.OK.getCode());
+        frame.writeByte(DataTransportSize.OCTET_STRING.getCode());
+        frame.writeShort(0x0008);
+        frame.writeShort(0x0001);
+        frame.writeByte(DataTransportErrorCode.OK.getCode());
+        frame.writeByte(DataTransportSize.BYTE_WORD_DWORD.getCode());
+        frame.writeShort(16);
+        frame.writeShort(0x1234);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new S7Protocol((short) 1, (short) 1, (short) 240));
+        channel.writeInbound(new IsoTPMessage(mock(Tpdu.class), frame));
+        S7RequestMessage push = channel.readInbound();
+
+        CpuServicesParameter parameter = push.getParameter(CpuServicesParameter.class)
+            .orElseThrow(IllegalStateException::new);
+        assertThat(parameter.getUserDataType(), equalTo(UserDataType.PUSH));
+        assertThat(parameter.getFunctionGroup(), equalTo(UserDataFunctionGroup.CYCLIC_DATA));
+        assertThat(parameter.getSequenceNumber(), equalTo((byte) 0x05));
+        assertThat(parameter.isLastDataUnit(), equalTo(true));
+        VarPayloadItem payloadItem = push.getPayload(VarPayload.class)
+            .orElseThrow(IllegalStateException::new).getPayloadItems().get(0);
+        ByteBuf data = payloadItem.getDataBuffer();
+        assertThat(data.getShort(data.readerIndex()), equalTo((short) 0x1234));
+        push.release();
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void encodeByteOffsetsAbove32k() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new S7Protocol((short) 1, (short) 1, (short) 240));
+        channel.writeOutbound(new S7RequestMessage(MessageType.JOB, (short) 1,
+            singletonList(new VarParameter(ParameterType.READ_VAR, singletonList(new S7AnyVarParameterItem(
+                SpecificationType.VARIABLE_SPECIFICATION, MemoryArea.DATA_BLOCKS, TransportSize.BYTE,
+                (short) 1, (short) 1, (short) 40000, (byte) 0)))),
+            Collections.emptyList()));
+        DataTpdu tpdu = channel.readOutbound();
+
+        // Decode the request as if it was sent to us.
+        LinkedList<Object> out = new LinkedList<>();
+        SUT.decode(null, new IsoTPMessage(mock(Tpdu.class), tpdu.getUserData()), out);
+        S7RequestMessage request = (S7RequestMessage) out.get(0);
+        S7AnyVarParameterItem item = (S7AnyVarParameterItem) request.getParameter(VarParameter.class)
+            .orElseThrow(IllegalStateException::new).getItems().get(0);
+        assertThat(item.getByteOffset() & 0xFFFF, equalTo(40000));
+        tpdu.getUserData().release();
+    }
+
+    private S7RequestMessage readRequest(short tpduReference) {
+        return new S7RequestMessage(MessageType.JOB, tpduReference,
+            singletonList(new VarParameter(ParameterType.READ_VAR, singletonList(new S7AnyVarParameterItem(
+                SpecificationType.VARIABLE_SPECIFICATION, MemoryArea.DATA_BLOCKS, TransportSize.BYTE,
+                (short) 1, (short) 1, (short) 0, (byte) 0)))),
+            Collections.emptyList());
+    }
+
+    private ByteBuf readResponse(short tpduReference) {
+        ByteBuf buffer = Unpooled.buffer();
+        buffer.writeByte(0x32);
+        buffer.writeByte(MessageType.ACK_DATA.getCode());
+        buffer.writeShort(0x0000);
+        buffer.writeShort(tpduReference);
+        // Parameter: READ_VAR without any items
+        buffer.writeShort(0x0002);
+        buffer.writeShort(0x0000);
+        // Error class and code
+        buffer.writeByte(0x00);
+        buffer.writeByte(0x00);
+        buffer.writeByte(ParameterType.READ_VAR.getCode());
+        buffer.writeByte(0x00);
+        return buffer;
+    }
+
 }
@@ -25,6 +25,8 @@ import org.apache.plc4x.java.s7.netty.model.types.MemoryArea;
 import org.apache.plc4x.java.s7.netty.model.types.ParameterType;
 import org.apache.plc4x.java.s7.netty.model.types.SpecificationType;
 import org.apache.plc4x.java.s7.netty.model.types.TransportSize;
+import org.apache.plc4x.java.s7.netty.model.types.UserDataFunctionGroup;
+import org.apache.plc4x.java.s7.netty.model.types.UserDataType;
 import org.apache.plc4x.test.FastTests;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -60,8 +62,13 @@ public class S7ParameterTests {
     @Test
     @Category(FastTests.class)
     public void cpuServicesParameter() {
-        CpuServicesParameter cpuParameter = new CpuServicesParameter();
+        CpuServicesParameter cpuParameter = new CpuServicesParameter(UserDataType.REQUEST,
+            UserDataFunctionGroup.CYCLIC_DATA, CpuServicesParameter.SUB_FUNCTION_CYCLIC_MEMORY, (byte) 0x00);
         assertThat("Unexpected parameter type", cpuParameter.getType(), equalTo(ParameterType.CPU_SERVICES));
+        assertThat("Unexpected user data type", cpuParameter.getUserDataType(), equalTo(UserDataType.REQUEST));
+        assertThat("Unexpected function group", cpuParameter.getFunctionGroup(),
+            equalTo(UserDataFunctionGroup.CYCLIC_DATA));
+        assertThat("Unexpected last data unit", cpuParameter.isLastDataUnit(), equalTo(true));
     }
     
     @Test
@@ -0,0 +1,128 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.specific.TypeSafePlcReadRequest;
+import org.apache.plc4x.java.api.messages.specific.TypeSafePlcReadResponse;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.Plc4XS7Protocol;
+import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
+import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
+import org.apache.plc4x.java.s7.netty.model.types.*;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class S7ReadBatcherTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void batchReadsWithinLingerTime() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol(), new S7ReadBatcher(50000, 0, () -> 240));
+        CompletableFuture<PlcReadResponse> first = read(channel,
+            new TypeSafePlcReadRequest<>(Short.class, new S7DataBlockAddress((short) 1, (short) 0)));
+        CompletableFuture<PlcReadResponse> second = read(channel, PlcReadRequest.builder()
+            .addItem(Byte.class, new S7DataBlockAddress((short) 2, (short) 0))
+            .addItem(Short.class, new S7DataBlockAddress((short) 3, (short) 0))
+            .build());
+        assertThat(channel.readOutbound(), nullValue());
+
+        Thread.sleep(100);
+        channel.runScheduledPendingTasks();
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new).getItems(),
+            hasSize(3));
+
+        channel.writeInbound(new S7ResponseMessage(MessageType.ACK_DATA, request.getTpduReference(),
+            singletonList(new VarParameter(ParameterType.READ_VAR, null)),
+            singletonList(new VarPayload(ParameterType.READ_VAR, Arrays.asList(
+                payloadItem(0x00, 0x01), payloadItem(0x02), payloadItem(0x00, 0x03)))),
+            (byte) 0x00, (byte) 0x00));
+        PlcReadResponse firstResponse = first.getNow(null);
+        assertThat(firstResponse, instanceOf(TypeSafePlcReadResponse.class));
+        assertThat(firstResponse.getResponseItems(), hasSize(1));
+        assertThat(firstResponse.getResponseItems().get(0).getValues().get(0), equalTo((short) 1));
+        PlcReadResponse secondResponse = second.getNow(null);
+        assertThat(secondResponse.getResponseItems(), hasSize(2));
+        assertThat(secondResponse.getResponseItems().get(0).getValues().get(0), equalTo((byte) 2));
+        assertThat(secondResponse.getResponseItems().get(1).getValues().get(0), equalTo((short) 3));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void sendBatchOnceMaxBatchSizeIsReached() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol(),
+            new S7ReadBatcher(1000000, 2, () -> 240));
+        read(channel, new PlcReadRequest(Short.class, new S7DataBlockAddress((short) 1, (short) 0)));
+        assertThat(channel.readOutbound(), nullValue());
+        read(channel, new PlcReadRequest(Short.class, new S7DataBlockAddress((short) 1, (short) 2)));
+
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new).getItems(),
+            hasSize(2));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void sendBatchOnceResponseWouldExceedPdu() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol(),
+            new S7ReadBatcher(1000000, 0, () -> 240));
+        // Every response item occupies 4 + 120 bytes, so only one fits into the 226 bytes available.
+        read(channel, new PlcReadRequest(Byte.class, new S7DataBlockAddress((short) 1, (short) 0), 120));
+        assertThat(channel.readOutbound(), nullValue());
+        read(channel, new PlcReadRequest(Byte.class, new S7DataBlockAddress((short) 1, (short) 200), 120));
+
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new).getItems(),
+            hasSize(1));
+        assertThat(channel.readOutbound(), nullValue());
+    }
+
+    private CompletableFuture<PlcReadResponse> read(EmbeddedChannel channel, PlcReadRequest request) {
+        CompletableFuture<PlcReadResponse> future = new CompletableFuture<>();
+        channel.writeAndFlush(new PlcRequestContainer<>(request, future));
+        return future;
+    }
+
+    private VarPayloadItem payloadItem(int... data) {
+        byte[] bytes = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            bytes[i] = (byte) data[i];
+        }
+        return new VarPayloadItem(DataTransportErrorCode.OK, DataTransportSize.BYTE_WORD_DWORD, bytes);
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.items.ReadResponseItem;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.Plc4XS7Protocol;
+import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
+import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.params.items.VarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
+import org.apache.plc4x.java.s7.netty.model.types.*;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class S7ReadOptimizerTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void mergeAdjacentItems() {
+        S7ReadOptimizer SUT = new S7ReadOptimizer(0, 200);
+        List<OptimizedReadItem> optimized = SUT.optimize(Arrays.asList(
+            dbItem(TransportSize.WORD, 1, 10),
+            dbItem(TransportSize.BYTE, 1, 12),
+            dbItem(TransportSize.REAL, 1, 13)));
+
+        assertThat(optimized, hasSize(1));
+        OptimizedReadItem item = optimized.get(0);
+        assertThat(item.isMerged(), is(true));
+        S7AnyVarParameterItem rangeItem = (S7AnyVarParameterItem) item.getParameterItem();
+        assertThat(rangeItem.getTransportSize(), equalTo(TransportSize.BYTE));
+        assertThat(rangeItem.getByteOffset(), equalTo((short) 10));
+        assertThat(rangeItem.getNumElements(), equalTo((short) 7));
+        assertThat(item.getSlices(), hasSize(3));
+        assertThat(item.getSlices().get(2).getRequestItemIndex(), equalTo(2));
+        assertThat(item.getSlices().get(2).getByteOffset(), equalTo(3));
+        assertThat(item.getSlices().get(2).getByteLength(), equalTo(4));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void mergeOverlappingItems() {
+        S7ReadOptimizer SUT = new S7ReadOptimizer(0, 200);
+        List<OptimizedReadItem> optimized = SUT.optimize(Arrays.asList(
+            dbItem(TransportSize.DWORD, 1, 20),
+            dbItem(TransportSize.WORD, 1, 22)));
+
+        assertThat(optimized, hasSize(1));
+        S7AnyVarParameterItem rangeItem = (S7AnyVarParameterItem) optimized.get(0).getParameterItem();
+        assertThat(rangeItem.getByteOffset(), equalTo((short) 20));
+        assertThat(rangeItem.getNumElements(), equalTo((short) 4));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void respectGapTolerance() {
+        List<VarParameterItem> items = Arrays.asList(
+            dbItem(TransportSize.BYTE, 1, 0),
+            dbItem(TransportSize.BYTE, 1, 4));
+
+        assertThat(new S7ReadOptimizer(2, 200).optimize(items), hasSize(2));
+        List<OptimizedReadItem> optimized = new S7ReadOptimizer(3, 200).optimize(items);
+        assertThat(optimized, hasSize(1));
+        assertThat(((S7AnyVarParameterItem) optimized.get(0).getParameterItem()).getNumElements(), equalTo((short) 5));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void dontMergeDifferentBlocksOrBits() {
+        S7ReadOptimizer SUT = new S7ReadOptimizer(10, 200);
+        List<OptimizedReadItem> optimized = SUT.optimize(Arrays.asList(
+            dbItem(TransportSize.BYTE, 1, 0),
+            dbItem(TransportSize.BYTE, 2, 1),
+            new S7AnyVarParameterItem(SpecificationType.VARIABLE_SPECIFICATION, MemoryArea.DATA_BLOCKS,
+                TransportSize.BIT, (short) 1, (short) 1, (short) 2, (byte) 3)));
+
+        assertThat(optimized, hasSize(3));
+        for (int i = 0; i < optimized.size(); i++) {
+            assertThat(optimized.get(i).isMerged(), is(false));
+            assertThat(optimized.get(i).getFirstRequestItemIndex(), equalTo(i));
+        }
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void respectMaxRangeSize() {
+        S7ReadOptimizer SUT = new S7ReadOptimizer(0, 8);
+        List<OptimizedReadItem> optimized = SUT.optimize(Arrays.asList(
+            dbItem(TransportSize.DWORD, 1, 0),
+            dbItem(TransportSize.DWORD, 1, 4),
+            dbItem(TransportSize.DWORD, 1, 8)));
+
+        assertThat(optimized, hasSize(2));
+        assertThat(optimized.get(0).isMerged(), is(true));
+        assertThat(optimized.get(1).isMerged(), is(false));
+        assertThat(optimized.get(1).getFirstRequestItemIndex(), equalTo(2));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void readThroughProtocol() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol(new S7ReadOptimizer(0, 200)));
+        PlcReadRequest readRequest = PlcReadRequest.builder()
+            .addItem(Short.class, new S7DataBlockAddress((short) 1, (short) 10))
+            .addItem(Byte.class, new S7DataBlockAddress((short) 1, (short) 12))
+            .addItem(Short.class, new S7DataBlockAddress((short) 1, (short) 11))
+            .build();
+        CompletableFuture<PlcReadResponse> future = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(readRequest, future));
+
+        S7RequestMessage request = channel.readOutbound();
+        VarParameter parameter = request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new);
+        assertThat(parameter.getItems(), hasSize(1));
+
+        channel.writeInbound(new S7ResponseMessage(MessageType.ACK_DATA, request.getTpduReference(),
+            singletonList(new VarParameter(ParameterType.READ_VAR, null)),
+            singletonList(new VarPayload(ParameterType.READ_VAR, singletonList(new VarPayloadItem(
+                DataTransportErrorCode.OK, DataTransportSize.BYTE_WORD_DWORD, new byte[]{0x01, 0x02, 0x03})))),
+            (byte) 0x00, (byte) 0x00));
+
+        PlcReadResponse response = future.getNow(null);
+        assertThat(response.getResponseItems(), hasSize(3));
+        ReadResponseItem<?> first = response.getResponseItems().get(0);
+        assertThat(first.getResponseCode(), equalTo(ResponseCode.OK));
+        assertThat(first.getValues().get(0), equalTo((short) 0x0102));
+        assertThat(response.getResponseItems().get(1).getValues().get(0), equalTo((byte) 0x03));
+        assertThat(response.getResponseItems().get(2).getValues().get(0), equalTo((short) 0x0203));
+    }
+
+    private S7AnyVarParameterItem dbItem(TransportSize transportSize, int dataBlock, int byteOffset) {
+        return new S7AnyVarParameterItem(SpecificationType.VARIABLE_SPECIFICATION, MemoryArea.DATA_BLOCKS,
+            transportSize, (short) 1, (short) dataBlock, (short) byteOffset, (byte) 0);
+    }
+
+}
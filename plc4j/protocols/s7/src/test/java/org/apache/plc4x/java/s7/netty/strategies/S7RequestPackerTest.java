@@ -0,0 +1,209 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
+import org.apache.plc4x.java.api.messages.*;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.Plc4XS7Protocol;
+import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.params.SetupCommunicationParameter;
+import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
+import org.apache.plc4x.java.s7.netty.model.params.items.S7AnyVarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.params.items.VarParameterItem;
+import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
+import org.apache.plc4x.java.s7.netty.model.types.*;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class S7RequestPackerTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void keepSmallRequestInOneMessage() throws Exception {
+        S7RequestPacker SUT = new S7RequestPacker(240);
+        List<List<Integer>> messages = SUT.packReadItems(Arrays.asList(
+            dbItem(TransportSize.WORD, 1, 0),
+            dbItem(TransportSize.BYTE, 1, 10),
+            dbItem(TransportSize.REAL, 2, 0)));
+
+        assertThat(messages, hasSize(1));
+        assertThat(messages.get(0), equalTo(Arrays.asList(0, 1, 2)));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void splitByRequestSize() throws Exception {
+        // 240 - 12 bytes overhead leave room for 19 S7ANY items per request.
+        S7RequestPacker SUT = new S7RequestPacker(240);
+        List<VarParameterItem> items = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            items.add(dbItem(TransportSize.BYTE, 1, i * 10));
+        }
+        List<List<Integer>> messages = SUT.packReadItems(items);
+
+        assertThat(messages, hasSize(2));
+        assertThat(messages.get(0), hasSize(19));
+        assertThat(messages.get(1), hasSize(11));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void splitByResponseSize() throws Exception {
+        S7RequestPacker SUT = new S7RequestPacker(240);
+        // Every item occupies 4 + 100 bytes in the response, so only two fit into one pdu,
+        // but the small item still fits next to them.
+        List<List<Integer>> messages = SUT.packReadItems(Arrays.asList(
+            dbArrayItem(100, 0),
+            dbArrayItem(100, 100),
+            dbArrayItem(100, 200),
+            dbItem(TransportSize.WORD, 1, 300)));
+
+        assertThat(messages, hasSize(2));
+        assertThat(messages.get(0), equalTo(Arrays.asList(0, 1, 3)));
+        assertThat(messages.get(1), equalTo(singletonList(2)));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void splitWriteByRequestSize() throws Exception {
+        S7RequestPacker SUT = new S7RequestPacker(240);
+        List<VarParameterItem> items = Arrays.asList(dbArrayItem(101, 0), dbArrayItem(101, 200));
+        List<VarPayloadItem> payloadItems = Arrays.asList(
+            new VarPayloadItem(DataTransportErrorCode.RESERVED, DataTransportSize.BYTE_WORD_DWORD, new byte[101]),
+            new VarPayloadItem(DataTransportErrorCode.RESERVED, DataTransportSize.BYTE_WORD_DWORD, new byte[101]));
+
+        // 2 * (12 + 4 + 101 + 1) = 236 bytes exceed the 228 bytes available.
+        assertThat(SUT.packWriteItems(items, payloadItems), hasSize(2));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void fitMaxWriteItemIntoOneMessage() throws Exception {
+        S7RequestPacker SUT = new S7RequestPacker(240);
+        // 240 - 12 bytes overhead - 12 bytes S7ANY item - 4 bytes payload item header
+        int maxSize = SUT.getMaxWriteItemDataSize();
+        assertThat(maxSize, equalTo(212));
+        assertThat(SUT.packWriteItems(singletonList(dbArrayItem(maxSize, 0)), singletonList(
+            new VarPayloadItem(DataTransportErrorCode.RESERVED, DataTransportSize.BYTE_WORD_DWORD,
+                new byte[maxSize]))), hasSize(1));
+        // Odd sizes are rounded down to avoid the fill byte.
+        assertThat(new S7RequestPacker(241).getMaxWriteItemDataSize(), equalTo(212));
+    }
+
+    @Test(expected = PlcProtocolException.class)
+    @Category(FastTests.class)
+    public void rejectItemExceedingPduSize() throws Exception {
+        new S7RequestPacker(240).packReadItems(singletonList(dbArrayItem(230, 0)));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    @SuppressWarnings("unchecked")
+    public void splitAndReassembleThroughProtocol() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol());
+        PlcReadRequest.Builder builder = PlcReadRequest.builder();
+        for (int i = 0; i < 25; i++) {
+            builder.addItem(Short.class, new S7DataBlockAddress((short) 1, (short) (i * 4)));
+        }
+        PlcReadRequest readRequest = builder.build();
+        CompletableFuture<PlcReadResponse> future = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(readRequest, future));
+
+        S7RequestMessage first = channel.readOutbound();
+        S7RequestMessage second = channel.readOutbound();
+        assertThat(getItems(first), hasSize(19));
+        assertThat(getItems(second), hasSize(6));
+
+        // Answer the second request first, the response still has to be in request order.
+        channel.writeInbound(createReadResponse(second, 19));
+        assertThat(future.isDone(), equalTo(false));
+        channel.writeInbound(createReadResponse(first, 0));
+
+        PlcReadResponse response = future.getNow(null);
+        assertThat(response.getResponseItems(), hasSize(25));
+        for (int i = 0; i < 25; i++) {
+            assertThat(response.getResponseItems().get(i).getResponseCode(), equalTo(ResponseCode.OK));
+            assertThat(response.getResponseItems().get(i).getValues().get(0), equalTo((short) i));
+        }
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void useNegotiatedPduSize() throws Exception {
+        Plc4XS7Protocol SUT = new Plc4XS7Protocol();
+        EmbeddedChannel channel = new EmbeddedChannel(SUT);
+        channel.writeInbound(new S7ResponseMessage(MessageType.ACK_DATA, (short) 7,
+            singletonList(new SetupCommunicationParameter((short) 8, (short) 8, (short) 480)),
+            Collections.emptyList(), (byte) 0x00, (byte) 0x00));
+        assertThat(SUT.getPduSize(), equalTo(480));
+
+        PlcReadRequest.Builder builder = PlcReadRequest.builder();
+        for (int i = 0; i < 25; i++) {
+            builder.addItem(Short.class, new S7DataBlockAddress((short) 1, (short) (i * 4)));
+        }
+        channel.writeOutbound(new PlcRequestContainer<>(builder.build(), new CompletableFuture<>()));
+
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(getItems(request), hasSize(25));
+    }
+
+    private List<VarParameterItem> getItems(S7RequestMessage request) {
+        return request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new).getItems();
+    }
+
+    private S7ResponseMessage createReadResponse(S7RequestMessage request, int firstValue) {
+        List<VarPayloadItem> payloadItems = new ArrayList<>();
+        for (int i = 0; i < getItems(request).size(); i++) {
+            payloadItems.add(new VarPayloadItem(DataTransportErrorCode.OK, DataTransportSize.BYTE_WORD_DWORD,
+                new byte[]{0x00, (byte) (firstValue + i)}));
+        }
+        return new S7ResponseMessage(MessageType.ACK_DATA, request.getTpduReference(),
+            singletonList(new VarParameter(ParameterType.READ_VAR, null)),
+            singletonList(new VarPayload(ParameterType.READ_VAR, payloadItems)),
+            (byte) 0x00, (byte) 0x00);
+    }
+
+    private S7AnyVarParameterItem dbArrayItem(int numBytes, int byteOffset) {
+        return new S7AnyVarParameterItem(SpecificationType.VARIABLE_SPECIFICATION, MemoryArea.DATA_BLOCKS,
+            TransportSize.BYTE, (short) numBytes, (short) 1, (short) byteOffset, (byte) 0);
+    }
+
+    private S7AnyVarParameterItem dbItem(TransportSize transportSize, int dataBlock, int byteOffset) {
+        return new S7AnyVarParameterItem(SpecificationType.VARIABLE_SPECIFICATION, MemoryArea.DATA_BLOCKS,
+            transportSize, (short) 1, (short) dataBlock, (short) byteOffset, (byte) 0);
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.strategies;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.PlcWriteRequest;
+import org.apache.plc4x.java.api.messages.PlcWriteResponse;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.Plc4XS7Protocol;
+import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.params.VarParameter;
+import org.apache.plc4x.java.s7.netty.model.payloads.VarPayload;
+import org.apache.plc4x.java.s7.netty.model.payloads.items.VarPayloadItem;
+import org.apache.plc4x.java.s7.netty.model.types.*;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class S7WriteBatcherTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void batchWritesWithinLingerTime() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol(), new S7WriteBatcher(50000, () -> 240));
+        CompletableFuture<PlcWriteResponse> first = write(channel, new PlcWriteRequest(Short.class,
+            new S7DataBlockAddress((short) 1, (short) 0), (short) 1));
+        CompletableFuture<PlcWriteResponse> second = write(channel, PlcWriteRequest.builder()
+            .addItem(Short.class, new S7DataBlockAddress((short) 1, (short) 2), (short) 2)
+            .addItem(Integer.class, new S7DataBlockAddress((short) 1, (short) 4), 3)
+            .build());
+        assertThat(channel.readOutbound(), nullValue());
+
+        Thread.sleep(100);
+        channel.runScheduledPendingTasks();
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new).getItems(),
+            hasSize(3));
+        assertThat(channel.readOutbound(), nullValue());
+
+        channel.writeInbound(new S7ResponseMessage(MessageType.ACK_DATA, request.getTpduReference(),
+            singletonList(new VarParameter(ParameterType.WRITE_VAR, null)),
+            singletonList(new VarPayload(ParameterType.WRITE_VAR, Arrays.asList(
+                payloadItem(DataTransportErrorCode.OK),
+                payloadItem(DataTransportErrorCode.NOT_FOUND),
+                payloadItem(DataTransportErrorCode.OK)))),
+            (byte) 0x00, (byte) 0x00));
+        PlcWriteResponse firstResponse = first.getNow(null);
+        assertThat(firstResponse.getResponseItems(), hasSize(1));
+        assertThat(firstResponse.getResponseItems().get(0).getResponseCode(), equalTo(ResponseCode.OK));
+        PlcWriteResponse secondResponse = second.getNow(null);
+        assertThat(secondResponse.getResponseItems(), hasSize(2));
+        assertThat(secondResponse.getResponseItems().get(0).getResponseCode(), equalTo(ResponseCode.NOT_FOUND));
+        assertThat(secondResponse.getResponseItems().get(1).getRequestItem(),
+            equalTo(secondResponse.getRequest().getRequestItems().get(1)));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void sendBatchOncePduIsFull() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol(),
+            new S7WriteBatcher(1000000, () -> 240));
+        // Every request occupies 12 + 4 + 100 bytes, so only one fits into the 228 bytes available.
+        write(channel, new PlcWriteRequest(Byte.class, new S7DataBlockAddress((short) 1, (short) 0), bytes(100)));
+        assertThat(channel.readOutbound(), nullValue());
+        write(channel, new PlcWriteRequest(Byte.class, new S7DataBlockAddress((short) 1, (short) 100), bytes(100)));
+
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new).getItems(),
+            hasSize(1));
+        assertThat(channel.readOutbound(), nullValue());
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void sendRequestsSeparatelyIfBatchFails() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol(), new S7WriteBatcher(50000, () -> 240));
+        ChannelFuture valid = channel.write(new PlcRequestContainer<>(new PlcWriteRequest(Short.class,
+            new S7DataBlockAddress((short) 1, (short) 0), (short) 1), new CompletableFuture<>()));
+        // There is no S7 data type for doubles.
+        ChannelFuture invalid = channel.write(new PlcRequestContainer<>(new PlcWriteRequest(Double.class,
+            new S7DataBlockAddress((short) 1, (short) 2), 1.0), new CompletableFuture<>()));
+
+        Thread.sleep(100);
+        channel.runScheduledPendingTasks();
+        assertThat(valid.isSuccess(), equalTo(true));
+        assertThat(invalid.isDone() && !invalid.isSuccess(), equalTo(true));
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(request.getParameter(VarParameter.class).orElseThrow(IllegalStateException::new).getItems(),
+            hasSize(1));
+    }
+
+    private CompletableFuture<PlcWriteResponse> write(EmbeddedChannel channel, PlcWriteRequest request) {
+        CompletableFuture<PlcWriteResponse> future = new CompletableFuture<>();
+        channel.writeAndFlush(new PlcRequestContainer<>(request, future));
+        return future;
+    }
+
+    private Byte[] bytes(int numBytes) {
+        Byte[] bytes = new Byte[numBytes];
+        Arrays.fill(bytes, (byte) 0x00);
+        return bytes;
+    }
+
+    private VarPayloadItem payloadItem(DataTransportErrorCode returnCode) {
+        return new VarPayloadItem(returnCode, null, (byte[]) null);
+    }
+
+}
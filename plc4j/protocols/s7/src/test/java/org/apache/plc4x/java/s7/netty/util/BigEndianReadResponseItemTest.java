@@ -0,0 +1,99 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.util;
+
+import org.apache.plc4x.java.api.messages.items.ReadRequestItem;
+import org.apache.plc4x.java.api.messages.specific.TypeSafePlcReadRequest;
+import org.apache.plc4x.java.api.messages.specific.TypeSafePlcReadResponse;
+import org.apache.plc4x.java.api.types.ResponseCode;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class BigEndianReadResponseItemTest {
+
+    private static final byte[] DATA = new byte[]{0x3F, (byte) 0x80, 0x00, 0x00, 0x40, 0x00, 0x00, 0x01};
+
+    @Test
+    @Category(FastTests.class)
+    public void decodePrimitiveArrays() {
+        assertThat(item(Boolean.class).getBooleanArray(),
+            equalTo(new boolean[]{true, false, false, false, false, false, false, true}));
+        assertThat(item(Byte.class).getByteArray(), equalTo(DATA));
+        assertThat(item(Short.class).getShortArray(),
+            equalTo(new short[]{0x3F80, 0x0000, 0x4000, 0x0001}));
+        assertThat(item(Integer.class).getIntArray(), equalTo(new int[]{0x3F800000, 0x40000001}));
+        assertThat(item(Float.class).getFloatArray(),
+            equalTo(new float[]{1.0f, Float.intBitsToFloat(0x40000001)}));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void decodeBoxedValuesOnDemand() {
+        assertThat(item(Short.class).getValues(),
+            equalTo(Arrays.asList((short) 0x3F80, (short) 0x0000, (short) 0x4000, (short) 0x0001)));
+        assertThat(item(Float.class).getValues().get(0), equalTo(1.0f));
+        assertThat(item(Boolean.class).getValues().get(7), equalTo(true));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void provideReadOnlyView() {
+        ByteBuffer rawData = item(Integer.class).getRawData().orElseThrow(IllegalStateException::new);
+        assertThat(rawData.isReadOnly(), equalTo(true));
+        assertThat(rawData.getInt(4), equalTo(0x40000001));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    @Category(FastTests.class)
+    public void rejectArrayOfOtherType() {
+        item(Short.class).getFloatArray();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @Category(FastTests.class)
+    public void rejectUnsupportedDatatype() {
+        item(String.class);
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void useInTypeSafeResponse() {
+        TypeSafePlcReadRequest<Short> request = new TypeSafePlcReadRequest<>(Short.class,
+            new S7DataBlockAddress((short) 1, (short) 0));
+        BigEndianReadResponseItem<Short> item = new BigEndianReadResponseItem<>(
+            request.getRequestItem().orElseThrow(IllegalStateException::new), ResponseCode.OK, DATA);
+        TypeSafePlcReadResponse<Short> response = new TypeSafePlcReadResponse<>(request, item);
+        assertThat(response.getResponseItem().orElseThrow(IllegalStateException::new).getShortArray().length,
+            equalTo(4));
+    }
+
+    private <T> BigEndianReadResponseItem<T> item(Class<T> datatype) {
+        return new BigEndianReadResponseItem<>(
+            new ReadRequestItem<>(datatype, new S7DataBlockAddress((short) 1, (short) 0)), ResponseCode.OK, DATA);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.api.messages.PlcWriteRequest;
+import org.apache.plc4x.java.isotp.netty.model.tpdus.DataTpdu;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.Plc4XS7Protocol;
+import org.apache.plc4x.java.s7.netty.S7Protocol;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ByteBufferWriteRequestItemTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void referenceBytesBetweenPositionAndLimit() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0x01, 0x02, 0x03, 0x04});
+        buffer.position(1).limit(3);
+        ByteBufferWriteRequestItem item =
+            new ByteBufferWriteRequestItem(new S7DataBlockAddress((short) 1, (short) 0), buffer);
+
+        assertThat(item.getSize(), equalTo(2));
+        assertThat(item.getData().get(0), equalTo((byte) 0x02));
+        assertThat(item.getValues(), equalTo(Arrays.asList((byte) 0x02, (byte) 0x03)));
+        // Changes of the buffer are visible as the bytes aren't copied.
+        buffer.put(1, (byte) 0x12);
+        assertThat(item.getData().get(0), equalTo((byte) 0x12));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void encodeBytesAsTheyAre() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+            new S7Protocol((short) 1, (short) 1, (short) 240), new Plc4XS7Protocol());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+        for (int i = 0; i < 100; i++) {
+            buffer.put(i, (byte) i);
+        }
+        channel.writeOutbound(new PlcRequestContainer<>(new PlcWriteRequest(
+            new ByteBufferWriteRequestItem(new S7DataBlockAddress((short) 1, (short) 10), buffer)),
+            new CompletableFuture<>()));
+
+        DataTpdu tpdu = channel.readOutbound();
+        ByteBuf frame = tpdu.getUserData();
+        // S7 header + write var parameter with one item + payload item header + data
+        assertThat(frame.readableBytes(), equalTo(10 + 2 + 12 + 4 + 100));
+        // Number of elements of the S7ANY item
+        assertThat(frame.getShort(frame.readerIndex() + 16), equalTo((short) 100));
+        assertThat(frame.getByte(frame.readerIndex() + 28), equalTo((byte) 0));
+        assertThat(frame.getByte(frame.writerIndex() - 1), equalTo((byte) 99));
+        frame.release();
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.plc4x.java.s7.netty.util;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.plc4x.java.api.exceptions.PlcProtocolException;
+import org.apache.plc4x.java.api.messages.PlcReadRequest;
+import org.apache.plc4x.java.api.messages.PlcReadResponse;
+import org.apache.plc4x.java.api.messages.PlcRequestContainer;
+import org.apache.plc4x.java.s7.model.S7DataBlockAddress;
+import org.apache.plc4x.java.s7.netty.Plc4XS7Protocol;
+import org.apache.plc4x.java.s7.netty.model.messages.S7RequestMessage;
+import org.apache.plc4x.java.s7.netty.model.messages.S7ResponseMessage;
+import org.apache.plc4x.java.s7.netty.model.types.MessageType;
+import org.apache.plc4x.test.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TpduReferenceTableTest {
+
+    @Test
+    @Category(FastTests.class)
+    public void allocateFreeReferences() {
+        TpduReferenceTable<String> SUT = new TpduReferenceTable<>();
+        SUT.put((short) 2, "in flight", 0);
+
+        assertThat(SUT.allocate("a", 0), equalTo((short) 1));
+        // Reference 2 is still in use.
+        assertThat(SUT.allocate("b", 0), equalTo((short) 3));
+        assertThat(SUT.get((short) 3), equalTo("b"));
+        assertThat(SUT.remove((short) 3), equalTo("b"));
+        assertThat(SUT.get((short) 3), nullValue());
+        // Freed references are not reused right away.
+        assertThat(SUT.allocate("c", 0), equalTo((short) 4));
+        assertThat(SUT.size(), equalTo(3));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void wrapAroundWithoutUsingZero() {
+        TpduReferenceTable<String> SUT = new TpduReferenceTable<>();
+        for (int i = 1; i < TpduReferenceTable.SIZE; i++) {
+            assertThat(SUT.allocate("entry", 0), equalTo((short) i));
+        }
+        try {
+            SUT.allocate("too many", 0);
+            fail("Expected all references to be in use");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        SUT.remove((short) 5);
+        assertThat(SUT.allocate("reused", 0), equalTo((short) 5));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void findExpiredEntries() {
+        TpduReferenceTable<String> SUT = new TpduReferenceTable<>();
+        short old = SUT.allocate("old", 10);
+        SUT.allocate("new", 20);
+
+        assertThat(SUT.getExpiredReferences(15), equalTo(singletonList(old)));
+        // Expired entries are only found, removing them is up to the caller.
+        assertThat(SUT.size(), equalTo(2));
+        assertThat(SUT.remove(old), equalTo("old"));
+        assertThat(SUT.getExpiredReferences(15), hasSize(0));
+        assertThat(SUT.removeAll(), hasSize(1));
+        assertThat(SUT.size(), equalTo(0));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void failRequestsWithoutResponse() throws Exception {
+        Plc4XS7Protocol protocol = new Plc4XS7Protocol();
+        EmbeddedChannel channel = new EmbeddedChannel(protocol);
+        CompletableFuture<PlcReadResponse> future = sendReadRequest(channel);
+        S7RequestMessage request = channel.readOutbound();
+        assertThat(request.getTpduReference(), equalTo((short) 1));
+        assertThat(protocol.getNumPendingRequests(), equalTo(1));
+
+        // Pass the time explicitly instead of waiting for the scheduled checks.
+        long timeout = TimeUnit.MILLISECONDS.toNanos(Plc4XS7Protocol.DEFAULT_REQUEST_TIMEOUT_MS);
+        long now = System.nanoTime();
+        protocol.failExpiredRequests(now);
+        assertThat(future.isDone(), equalTo(false));
+        protocol.failExpiredRequests(now + timeout + 1);
+        assertThat(getFailure(future), instanceOf(TimeoutException.class));
+        assertThat(protocol.getNumPendingRequests(), equalTo(0));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void failRequestsWithUndecodableResponse() throws Exception {
+        Plc4XS7Protocol protocol = new Plc4XS7Protocol();
+        EmbeddedChannel channel = new EmbeddedChannel(protocol);
+        CompletableFuture<PlcReadResponse> future = sendReadRequest(channel);
+        S7RequestMessage request = channel.readOutbound();
+
+        // A response without any payload can't be matched with the requested items.
+        channel.writeInbound(new S7ResponseMessage(MessageType.ACK_DATA, request.getTpduReference(),
+            emptyList(), emptyList(), (byte) 0, (byte) 0));
+        assertThat(getFailure(future), instanceOf(PlcProtocolException.class));
+        assertThat(protocol.getNumPendingRequests(), equalTo(0));
+    }
+
+    @Test
+    @Category(FastTests.class)
+    public void failRequestsOnClose() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Plc4XS7Protocol());
+        CompletableFuture<PlcReadResponse> future = sendReadRequest(channel);
+
+        channel.close();
+        assertThat(getFailure(future), instanceOf(ClosedChannelException.class));
+    }
+
+    private CompletableFuture<PlcReadResponse> sendReadRequest(EmbeddedChannel channel) {
+        CompletableFuture<PlcReadResponse> future = new CompletableFuture<>();
+        channel.writeOutbound(new PlcRequestContainer<>(PlcReadRequest.builder()
+            .addItem(Short.class, new S7DataBlockAddress((short) 1, (short) 0)).build(), future));
+        return future;
+    }
+
+    private Throwable getFailure(CompletableFuture<?> future) throws InterruptedException {
+        assertThat(future.isCompletedExceptionally(), equalTo(true));
+        try {
+            future.get();
+            throw new AssertionError("Expected the future to fail");
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+}